@@ -0,0 +1,82 @@
+package fr.dynamx.benchmark;
+
+import fr.dynamx.api.physics.IPhysicsSimulationMode;
+import fr.dynamx.common.DynamXContext;
+import fr.dynamx.common.DynamXMain;
+import fr.dynamx.common.contentpack.loader.SubInfoTypesRegistry;
+import fr.dynamx.common.contentpack.parts.PartShape;
+import fr.dynamx.common.contentpack.parts.PartWheel;
+import fr.dynamx.common.contentpack.type.objects.PropObject;
+import fr.dynamx.common.contentpack.type.vehicle.GearInfo;
+import fr.dynamx.common.contentpack.type.vehicle.RPMPower;
+import fr.dynamx.utils.DynamXConstants;
+import fr.dynamx.utils.physics.NativeEngineInstaller;
+import net.minecraft.init.Bootstrap;
+import net.minecraftforge.fml.common.FMLCommonHandler;
+import net.minecraftforge.fml.common.IFMLSidedHandler;
+import net.minecraftforge.fml.relauncher.Side;
+
+import java.io.File;
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+
+/**
+ * Initializes what the DynamX physics need, without starting minecraft nor forge : <br>
+ * the minecraft registries, a server side for FML, the bullet natives, the sub info types of the benchmark pack and the {@link HeadlessProxy}
+ */
+public class BenchmarkBootstrap {
+    /**
+     * The sub info types used by the {@link BenchmarkPack}, normally discovered by FML
+     */
+    private static final Class<?>[] SUB_INFO_TYPES = {PartShape.class, PartWheel.class, GearInfo.class, RPMPower.class, PropObject.class};
+
+    private static HeadlessProxy proxy;
+
+    /**
+     * Initializes DynamX, once
+     *
+     * @param natives        The directory containing (or receiving) the bullet natives
+     * @param simulationMode The simulation mode of the physics worlds
+     * @return The proxy of the benchmark
+     */
+    public static synchronized HeadlessProxy init(File natives, IPhysicsSimulationMode simulationMode) throws Exception {
+        if (proxy != null)
+            throw new IllegalStateException("Already initialized");
+        //The effective side is given by the name of the thread
+        Thread.currentThread().setName("Server thread");
+        Bootstrap.register();
+        installServerSide();
+
+        natives.mkdirs();
+        NativeEngineInstaller.loadLibbulletjme(natives, DynamXConstants.LIBBULLET_VERSION, "Release", "Sp", false);
+
+        for (Class<?> subInfoType : SUB_INFO_TYPES)
+            SubInfoTypesRegistry.registerSubInfoType(subInfoType, Side.SERVER);
+        proxy = new HeadlessProxy();
+        DynamXMain.proxy = proxy;
+        DynamXContext.setPhysicsSimulationMode(Side.SERVER, simulationMode);
+        return proxy;
+    }
+
+    /**
+     * Makes FML tell that we are on a server without minecraft server instance <br>
+     * The other methods of the sided handler shouldn't be used by the physics
+     */
+    private static void installServerSide() throws ReflectiveOperationException {
+        IFMLSidedHandler handler = (IFMLSidedHandler) Proxy.newProxyInstance(IFMLSidedHandler.class.getClassLoader(), new Class[]{IFMLSidedHandler.class}, (instance, method, args) -> {
+            switch (method.getName()) {
+                case "getSide":
+                    return Side.SERVER;
+                case "getServer":
+                    return null;
+                case "toString":
+                    return "BenchmarkSidedHandler";
+                default:
+                    throw new UnsupportedOperationException("FML isn't loaded in the benchmark, can't call " + method);
+            }
+        });
+        Field sidedDelegate = FMLCommonHandler.class.getDeclaredField("sidedDelegate");
+        sidedDelegate.setAccessible(true);
+        sidedDelegate.set(FMLCommonHandler.instance(), handler);
+    }
+}
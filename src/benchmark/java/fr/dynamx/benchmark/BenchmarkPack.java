@@ -0,0 +1,146 @@
+package fr.dynamx.benchmark;
+
+import fr.dynamx.common.contentpack.DynamXObjectLoaders;
+import fr.dynamx.common.contentpack.ParallelPackLoader;
+import fr.dynamx.common.contentpack.type.objects.BlockObject;
+import fr.dynamx.common.contentpack.type.objects.PropObject;
+import fr.dynamx.common.contentpack.type.vehicle.ModularVehicleInfo;
+import fr.dynamx.utils.DynamXConstants;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The content pack of the benchmark : a car, its wheels and its engine, and a crate prop <br>
+ * The pack is written in the format of the .dynx files, and loaded by the {@link ParallelPackLoader} like the other packs. The objects have no 3D models, their collisions are given by their shapes.
+ */
+public class BenchmarkPack {
+    public static final String PACK_NAME = "BenchPack";
+    public static final String CAR = PACK_NAME + ".vehicle_bench_car";
+    public static final String WHEEL = PACK_NAME + ".wheel_bench";
+    public static final String ENGINE = PACK_NAME + ".engine_bench";
+    public static final String CRATE_BLOCK = PACK_NAME + ".block_crate";
+
+    private static String crate;
+
+    /**
+     * Writes the pack in the given directory, loads it and post-loads its objects (shapes, wheels...) <br>
+     * The {@link BenchmarkBootstrap} must be initialized before
+     *
+     * @param directory The directory of the packs
+     */
+    public static synchronized void load(File directory) throws IOException {
+        if (crate != null)
+            return;
+        File pack = new File(directory, PACK_NAME);
+        for (Map.Entry<String, String> file : createPackFiles().entrySet()) {
+            File target = new File(pack, file.getKey());
+            target.getParentFile().mkdirs();
+            Files.write(target.toPath(), file.getValue().getBytes(StandardCharsets.UTF_8));
+        }
+        try (ParallelPackLoader loader = new ParallelPackLoader(".dynx", false, null)) {
+            loader.submitFolder(pack);
+            loader.registerAll();
+        }
+
+        find(DynamXObjectLoaders.WHEELS.findInfo(WHEEL), WHEEL);
+        BlockObject<?> block = find(DynamXObjectLoaders.BLOCKS.findInfo(CRATE_BLOCK), CRATE_BLOCK);
+        ModularVehicleInfo car = find(DynamXObjectLoaders.WHEELED_VEHICLES.findInfo(CAR), CAR);
+        PropObject<?> prop = find(block.getPropObject(), CRATE_BLOCK + " prop");
+        //Same order as the loaders of the DynamXObjectLoaders, without creating the items
+        block.postLoad(false);
+        car.postLoad(false);
+        prop.postLoad(false);
+        crate = prop.getFullName();
+    }
+
+    /**
+     * @return The full name of the crate prop
+     */
+    public static String getCrate() {
+        if (crate == null)
+            throw new IllegalStateException("The benchmark pack isn't loaded");
+        return crate;
+    }
+
+    private static <T> T find(T info, String name) {
+        if (info == null)
+            throw new IllegalStateException("Failed to load " + name + ", check the pack loading errors");
+        return info;
+    }
+
+    /**
+     * The positions are in the coordinates of the 3D models : x, -z, y in minecraft coordinates. The scales are x, z, y.
+     *
+     * @return The content of the files, by path in the pack
+     */
+    private static Map<String, String> createPackFiles() {
+        Map<String, String> pack = new LinkedHashMap<>();
+        pack.put("pack_info.dynx", "PackName: " + PACK_NAME + "\nPackVersion: 1.0.0\nDcFileVersion: " + DynamXConstants.DC_FILE_VERSION + "\n");
+        pack.put("vehicles/vehicle_bench_car.dynx", "Name: Bench car\n" +
+                "Description: Car of the physics benchmark\n" +
+                "Model: obj/bench_car/bench_car.obj\n" +
+                "EmptyMass: 1200\n" +
+                "CenterOfGravityOffset: 0 -0.3 0\n" +
+                "UseComplexCollisions: false\n" +
+                "DefaultEngine: " + ENGINE + "\n" +
+                "MaxVehicleSpeed: 160\n" +
+                "LinearDamping: 0.05\n" +
+                "AngularDamping: 0.3\n" +
+                "DragCoefficient: 0.3\n" +
+                "Shape_body{\n    Position: 0 0 0.1\n    Scale: 0.9 2.2 0.35\n}\n" +
+                "Shape_roof{\n    Position: 0 0.2 0.75\n    Scale: 0.8 1.1 0.3\n}\n" +
+                wheel("front_left", 0.85f, -1.4f, false) +
+                wheel("front_right", -0.85f, -1.4f, false) +
+                wheel("back_left", 0.85f, 1.4f, true) +
+                wheel("back_right", -0.85f, 1.4f, true));
+        pack.put("vehicles/wheel_bench.dynx", "Width: 0.2\n" +
+                "Radius: 0.4\n" +
+                "RimRadius: 0.3\n" +
+                "Friction: 1.8\n" +
+                "BrakeForce: 100\n" +
+                "HandBrakeForce: 200\n" +
+                "RollInInfluence: 0.2\n" +
+                "SuspensionRestLength: 0.3\n" +
+                "SuspensionStiffness: 40\n" +
+                "SuspensionMaxForce: 12000\n" +
+                "WheelDampingRelaxation: 0.4\n" +
+                "WheelsDampingCompression: 0.3\n");
+        pack.put("vehicles/engine_bench.dynx", "Power: 1500\n" +
+                "MaxRPM: 7000\n" +
+                "Braking: 3\n" +
+                "Point_0{\n    RPMPower: 0 0.5\n}\n" +
+                "Point_1{\n    RPMPower: 1000 0.6\n}\n" +
+                "Point_2{\n    RPMPower: 3000 0.9\n}\n" +
+                "Point_3{\n    RPMPower: 5000 1\n}\n" +
+                "Point_4{\n    RPMPower: 7000 0.8\n}\n" +
+                "Gear_0{\n    SpeedRange: 0 -30\n    RPMRange: 800 5500\n}\n" +
+                "Gear_1{\n    SpeedRange: -1000000 1000000\n    RPMRange: 0 5500\n}\n" +
+                "Gear_2{\n    SpeedRange: 0 40\n    RPMRange: 800 6500\n}\n" +
+                "Gear_3{\n    SpeedRange: 30 70\n    RPMRange: 3000 6500\n}\n" +
+                "Gear_4{\n    SpeedRange: 60 110\n    RPMRange: 3500 6800\n}\n" +
+                "Gear_5{\n    SpeedRange: 100 170\n    RPMRange: 4000 7000\n}\n");
+        //The prop copies the shapes of the block, they must be declared before
+        pack.put("blocks/block_crate.dynx", "Name: Bench crate\n" +
+                "Description: Crate of the physics benchmark\n" +
+                "Model: obj/bench_crate/bench_crate.obj\n" +
+                "UseComplexCollisions: false\n" +
+                "Shape_box{\n    Position: 0 0 0\n    Scale: 0.5 0.5 0.5\n}\n" +
+                "Prop_crate{\n    EmptyMass: 30\n    CenterOfGravityOffset: 0 0 0\n}\n");
+        return pack;
+    }
+
+    private static String wheel(String name, float x, float y, boolean back) {
+        return "Wheel_" + name + "{\n" +
+                "    Position: " + x + " " + y + " -0.1\n" +
+                "    AttachedWheel: " + WHEEL + "\n" +
+                "    DrivingWheel: " + back + "\n" +
+                "    HandBrakingWheel: " + back + "\n" +
+                (back ? "" : "    MaxTurn: 0.5\n") +
+                "}\n";
+    }
+}
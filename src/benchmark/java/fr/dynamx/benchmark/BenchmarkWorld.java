@@ -0,0 +1,223 @@
+package fr.dynamx.benchmark;
+
+import com.jme3.math.Vector3f;
+import fr.dynamx.common.DynamXContext;
+import fr.dynamx.common.entities.PhysicsEntity;
+import fr.dynamx.common.entities.PropsEntity;
+import fr.dynamx.common.entities.RagdollEntity;
+import fr.dynamx.common.entities.vehicles.CarEntity;
+import fr.dynamx.common.physics.terrain.PhysicsWorldTerrain;
+import fr.dynamx.common.physics.terrain.chunk.ChunkLoadingTicket;
+import fr.dynamx.utils.DynamXConfig;
+import fr.dynamx.utils.VerticalChunkPos;
+import fr.dynamx.utils.debug.Profiler;
+import fr.dynamx.utils.optimization.QuaternionPool;
+import fr.dynamx.utils.optimization.TransformPool;
+import fr.dynamx.utils.optimization.Vector3fPool;
+import net.minecraft.entity.Entity;
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link HeadlessWorld} and its {@link HeadlessPhysicsWorld}, ticked like the {@link fr.dynamx.common.physics.PhysicsTickHandler} ticks the server worlds <br>
+ * The scenarios spawn the entities of the {@link BenchmarkPack}, and their drivers are called before each tick. The terrain is added to the physics world by the {@link PhysicsWorldTerrain}, around the entities.
+ */
+public class BenchmarkWorld {
+    private final HeadlessProxy proxy;
+    private final File saveDirectory;
+    private final HeadlessWorld world;
+    private final HeadlessPhysicsWorld physicsWorld;
+    private final List<VehicleDriver> drivers = new ArrayList<>();
+    private int vehicles, props, ragdolls;
+    private long contactManifolds;
+
+    /**
+     * Creates the world and its physics world, registers them as the server world of the dimension 0 and loads the collisions of the terrain
+     *
+     * @param proxy   The proxy of the benchmark
+     * @param terrain The blocks of the world
+     */
+    public BenchmarkWorld(HeadlessProxy proxy, SyntheticTerrain terrain) throws IOException {
+        this.proxy = proxy;
+        this.saveDirectory = Files.createTempDirectory("dynamx_benchmark").toFile();
+        this.world = new HeadlessWorld(terrain, saveDirectory);
+        proxy.setWorld(world);
+        this.physicsWorld = new HeadlessPhysicsWorld(world);
+        DynamXContext.getPhysicsWorldPerDimensionMap().put(world.provider.getDimension(), physicsWorld);
+        loadTerrain(terrain);
+    }
+
+    /**
+     * Loads the collisions of all the chunks of the terrain, in a fixed order, before the first step <br>
+     * The tickets stay loaded after being released, so the entities add the chunks to the physics world without waiting for the {@link fr.dynamx.common.physics.terrain.PhysicsTerrainLoader}.
+     * The chunks would otherwise be loaded asynchronously, and added in the order their loading ends : two runs with the same seed wouldn't simulate the same world.
+     */
+    private void loadTerrain(SyntheticTerrain terrain) {
+        //From the chunk under the road to the chunk above the falling ragdolls
+        int minY = ((SyntheticTerrain.GROUND_HEIGHT - 4) >> 4) - 1;
+        int maxY = ((terrain.getMaxHeight() + 48) >> 4) + 1;
+        int chunks = ((terrain.getMaxX() >> 4) - (terrain.getMinX() >> 4) + 1) * ((terrain.getMaxZ() >> 4) - (terrain.getMinZ() >> 4) + 1) * (maxY - minY + 1);
+        if (DynamXConfig.terrainMaxChunkTickets < chunks)
+            DynamXConfig.terrainMaxChunkTickets = chunks;
+        PhysicsWorldTerrain terrainManager = physicsWorld.getTerrainManager();
+        TransformPool.getPool().openSubPool();
+        QuaternionPool.openPool();
+        Vector3fPool.openPool();
+        for (int x = terrain.getMinX() >> 4; x <= terrain.getMaxX() >> 4; x++) {
+            for (int z = terrain.getMinZ() >> 4; z <= terrain.getMaxZ() >> 4; z++) {
+                for (int y = minY; y <= maxY; y++) {
+                    VerticalChunkPos pos = new VerticalChunkPos(x, y, z);
+                    //The HIGH priority loads the chunk now
+                    if (terrainManager.subscribeToChunk(pos, ChunkLoadingTicket.TicketPriority.HIGH, Profiler.get()))
+                        terrainManager.unsubscribeFromChunk(pos);
+                }
+            }
+        }
+        Vector3fPool.closePool();
+        QuaternionPool.closePool();
+        TransformPool.getPool().closeSubPool();
+    }
+
+    /**
+     * Spawns a car of the {@link BenchmarkPack}
+     *
+     * @param yaw The rotation of the car, in degrees. 0 faces +z, 180 faces -z.
+     */
+    public CarEntity<?> spawnCar(Vector3f position, float yaw) {
+        CarEntity<?> entity = new CarEntity<>(BenchmarkPack.CAR, world, position, yaw, 0);
+        world.addEntity(entity);
+        vehicles++;
+        return entity;
+    }
+
+    /**
+     * Spawns a crate of the {@link BenchmarkPack}
+     */
+    public PropsEntity<?> spawnCrate(Vector3f position) {
+        PropsEntity<?> entity = new PropsEntity<>(BenchmarkPack.getCrate(), world, position, 0, 0);
+        world.addEntity(entity);
+        props++;
+        return entity;
+    }
+
+    /**
+     * Spawns a ragdoll, its body parts are linked by joints to its chest
+     */
+    public RagdollEntity spawnRagdoll(Vector3f position, float yaw) {
+        RagdollEntity entity = new RagdollEntity(world, position, yaw, "dynamxmod:skins/crash_test_dummy_0.png");
+        world.addEntity(entity);
+        ragdolls++;
+        return entity;
+    }
+
+    /**
+     * Adds a driver, called before each tick
+     */
+    public void addDriver(VehicleDriver driver) {
+        drivers.add(driver);
+    }
+
+    /**
+     * Drives the vehicles and ticks the world, like the server does each tick : the physics step, then the entities
+     */
+    public void step() {
+        TransformPool.getPool().openSubPool();
+        QuaternionPool.openPool();
+        Vector3fPool.openPool();
+        for (VehicleDriver driver : drivers)
+            driver.drive();
+        physicsWorld.tickStart();
+        physicsWorld.stepSimulation(0.05f);
+        contactManifolds += physicsWorld.getDynamicsWorld().countManifolds();
+        //Same as the PhysicsTickHandler
+        physicsWorld.getDynamicsWorld().getJointList().forEach(joint -> {
+            if ((joint.getBodyA() != null && !physicsWorld.getDynamicsWorld().contains(joint.getBodyA()))
+                    || (joint.getBodyB() != null && !physicsWorld.getDynamicsWorld().contains(joint.getBodyB()))) {
+                physicsWorld.removeJoint(joint);
+            }
+        });
+        world.tickEntities();
+        proxy.tick();
+        physicsWorld.tickEnd();
+        Vector3fPool.closePool();
+        QuaternionPool.closePool();
+        TransformPool.getPool().closeSubPool();
+    }
+
+    /**
+     * @return The number of contact manifolds of the steps since the last call, a manifold holding the contact points between two objects
+     */
+    public long pollContactManifolds() {
+        long manifolds = contactManifolds;
+        contactManifolds = 0;
+        return manifolds;
+    }
+
+    /**
+     * @return The number of entities with an awake body
+     */
+    public int getActiveBodyCount() {
+        int active = 0;
+        for (Entity entity : world.loadedEntityList) {
+            if (entity instanceof PhysicsEntity && ((PhysicsEntity<?>) entity).physicsHandler != null && ((PhysicsEntity<?>) entity).physicsHandler.isBodyActive())
+                active++;
+        }
+        return active;
+    }
+
+    /**
+     * @return A hash of the positions of all the entities. The terrain is loaded before the first step, so two runs with the same seed, natives and entity threads should give the same checksum.
+     */
+    public long getStateChecksum() {
+        long hash = 17;
+        for (Entity entity : world.loadedEntityList) {
+            if (entity instanceof PhysicsEntity) {
+                Vector3f position = ((PhysicsEntity<?>) entity).physicsPosition;
+                hash = hash * 31 + Float.floatToIntBits(position.x);
+                hash = hash * 31 + Float.floatToIntBits(position.y);
+                hash = hash * 31 + Float.floatToIntBits(position.z);
+            }
+        }
+        return hash;
+    }
+
+    public List<VehicleDriver> getDrivers() {
+        return drivers;
+    }
+
+    public int getVehicleCount() {
+        return vehicles;
+    }
+
+    public int getPropCount() {
+        return props;
+    }
+
+    public int getRagdollCount() {
+        return ragdolls;
+    }
+
+    public int getJointCount() {
+        return physicsWorld.getDynamicsWorld().countJoints();
+    }
+
+    public int getCollisionObjectCount() {
+        return physicsWorld.getDynamicsWorld().countCollisionObjects();
+    }
+
+    /**
+     * Removes the entities, unloads the physics world, frees its native objects and deletes the save of the world
+     */
+    public void destroy() throws IOException {
+        world.removeAllEntities();
+        physicsWorld.clearAll();
+        physicsWorld.getDynamicsWorld().destroy();
+        proxy.setWorld(null);
+        FileUtils.deleteDirectory(saveDirectory);
+    }
+}
@@ -0,0 +1,45 @@
+package fr.dynamx.benchmark;
+
+import fr.dynamx.api.network.sync.SimulationHolder;
+import fr.dynamx.common.entities.PhysicsEntity;
+import fr.dynamx.common.network.sync.PhysicsEntitySynchronizer;
+import fr.dynamx.utils.debug.Profiler;
+import fr.dynamx.utils.optimization.Vector3fPool;
+import net.minecraft.entity.player.EntityPlayer;
+
+/**
+ * Synchronizer of the entities of the {@link HeadlessWorld} : the server simulates the entities like the {@link fr.dynamx.server.network.ServerPhysicsEntitySynchronizer}, but there are no clients to send them to
+ */
+public class HeadlessEntitySynchronizer<T extends PhysicsEntity<?>> extends PhysicsEntitySynchronizer<T> {
+    public HeadlessEntitySynchronizer(T entity) {
+        super(entity);
+    }
+
+    @Override
+    public void onPlayerStartControlling(EntityPlayer player, boolean addControllers) {
+        if (entity.physicsHandler != null)
+            entity.physicsHandler.setForceActivation(true);
+        setSimulationHolder(SimulationHolder.DRIVER, player);
+    }
+
+    @Override
+    public void onPlayerStopControlling(EntityPlayer player, boolean removeControllers) {
+        if (entity.physicsHandler != null)
+            entity.physicsHandler.setForceActivation(false);
+        setSimulationHolder(getDefaultSimulationHolder(), null);
+    }
+
+    @Override
+    public void onPrePhysicsTick(Profiler profiler) {
+        profiler.start(Profiler.Profiles.PHY1);
+        Vector3fPool.openPool();
+        entity.prePhysicsUpdateWrapper(profiler, true);
+        Vector3fPool.closePool();
+        profiler.end(Profiler.Profiles.PHY1);
+    }
+
+    @Override
+    public void onPostPhysicsTick(Profiler profiler) {
+        entity.postUpdatePhysicsWrapper(profiler, true);
+    }
+}
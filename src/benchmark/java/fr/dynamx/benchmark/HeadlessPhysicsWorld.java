@@ -0,0 +1,24 @@
+package fr.dynamx.benchmark;
+
+import fr.dynamx.common.physics.world.BuiltinPhysicsWorld;
+import fr.dynamx.utils.debug.Profiler;
+
+/**
+ * The physics world of the {@link HeadlessWorld} : a {@link BuiltinPhysicsWorld}, without network synchronization <br>
+ * The simulation isn't paused when the world has no players
+ */
+public class HeadlessPhysicsWorld extends BuiltinPhysicsWorld {
+    public HeadlessPhysicsWorld(HeadlessWorld world) {
+        super(world, false);
+    }
+
+    @Override
+    protected void tickSyncManager(Profiler profiler) {
+        //No clients
+    }
+
+    @Override
+    protected boolean shouldPauseSimulation() {
+        return false;
+    }
+}
@@ -0,0 +1,72 @@
+package fr.dynamx.benchmark;
+
+import fr.dynamx.common.CommonProxy;
+import fr.dynamx.common.entities.PhysicsEntity;
+import fr.dynamx.common.network.sync.PhysicsEntitySynchronizer;
+import fr.dynamx.common.physics.entities.AbstractEntityPhysicsHandler;
+import net.minecraft.world.World;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Proxy of the benchmark, replacing the server proxy : the {@link HeadlessWorld} is the server world <br>
+ * Like the minecraft server, the tasks scheduled from the server thread are run immediately, and the tasks scheduled from the other threads are run after the tick
+ */
+public class HeadlessProxy extends CommonProxy {
+    private final Queue<Runnable> scheduledTasks = new ConcurrentLinkedQueue<>();
+    private final Thread serverThread = Thread.currentThread();
+    private HeadlessWorld world;
+    private int tickTime;
+
+    /**
+     * Sets the world of the current scenario, or null
+     */
+    public void setWorld(HeadlessWorld world) {
+        this.world = world;
+        scheduledTasks.clear();
+    }
+
+    /**
+     * Runs the scheduled tasks, at the end of the server tick
+     */
+    public void tick() {
+        Runnable task;
+        while ((task = scheduledTasks.poll()) != null)
+            task.run();
+        tickTime++;
+    }
+
+    @Override
+    public World getServerWorld() {
+        return world;
+    }
+
+    @Override
+    public int getTickTime() {
+        return tickTime;
+    }
+
+    @Override
+    public <T extends AbstractEntityPhysicsHandler<?, ?>> PhysicsEntitySynchronizer<? extends PhysicsEntity<T>> getNetHandlerForEntity(PhysicsEntity<T> tPhysicsEntity) {
+        return new HeadlessEntitySynchronizer<>(tPhysicsEntity);
+    }
+
+    @Override
+    public boolean ownsSimulation(PhysicsEntity<?> entity) {
+        return true;
+    }
+
+    @Override
+    public void scheduleTask(World mcWorld, Runnable task) {
+        if (Thread.currentThread() == serverThread)
+            task.run();
+        else
+            scheduledTasks.add(task);
+    }
+
+    @Override
+    public void schedulePacksInit() {
+        throw new UnsupportedOperationException("The benchmark pack is loaded by the BenchmarkPack");
+    }
+}
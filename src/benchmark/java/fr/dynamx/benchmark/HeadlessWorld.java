@@ -0,0 +1,126 @@
+package fr.dynamx.benchmark;
+
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.entity.Entity;
+import net.minecraft.init.Blocks;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.datafix.DataFixesManager;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.*;
+import net.minecraft.world.chunk.IChunkProvider;
+import net.minecraft.world.gen.ChunkProviderServer;
+import net.minecraft.world.storage.SaveHandler;
+import net.minecraft.world.storage.WorldInfo;
+
+import javax.annotation.Nullable;
+import java.io.File;
+
+/**
+ * A server minecraft world without minecraft server nor chunks, its blocks are given by a {@link SyntheticTerrain} <br>
+ * Its save directory only receives the DynamX terrain cache. The entities are ticked by {@link #tickEntities()}, like the vanilla world does, without the chunk tracking. <br>
+ * The minecraft registries must be initialized before, see {@link BenchmarkBootstrap}
+ */
+public class HeadlessWorld extends World {
+    private final SyntheticTerrain terrain;
+
+    /**
+     * @param terrain       The blocks of this world
+     * @param saveDirectory The directory containing the save of this world
+     */
+    public HeadlessWorld(SyntheticTerrain terrain, File saveDirectory) {
+        super(new SaveHandler(saveDirectory, "world", false, DataFixesManager.createFixer()), new WorldInfo(new WorldSettings(0, GameType.SURVIVAL, false, false, WorldType.DEFAULT), "dynamx_benchmark"),
+                new WorldProviderSurface(), new net.minecraft.profiler.Profiler(), false);
+        this.terrain = terrain;
+        this.chunkProvider = new TerrainChunkProvider();
+    }
+
+    /**
+     * Adds the entity to this world, it will be updated by the next {@link #tickEntities()}
+     */
+    public void addEntity(Entity entity) {
+        loadedEntityList.add(entity);
+        entitiesById.addKey(entity.getEntityId(), entity);
+        entity.onAddedToWorld();
+    }
+
+    /**
+     * Updates the entities, and removes the dead ones, like the {@link World#updateEntities()} of the server
+     */
+    public void tickEntities() {
+        for (int i = 0; i < loadedEntityList.size(); i++) {
+            Entity entity = loadedEntityList.get(i);
+            if (!entity.isDead) {
+                entity.lastTickPosX = entity.posX;
+                entity.lastTickPosY = entity.posY;
+                entity.lastTickPosZ = entity.posZ;
+                entity.prevRotationYaw = entity.rotationYaw;
+                entity.prevRotationPitch = entity.rotationPitch;
+                entity.ticksExisted++;
+                entity.onUpdate();
+            }
+            if (entity.isDead) {
+                loadedEntityList.remove(i--);
+                entitiesById.removeObject(entity.getEntityId());
+                entity.onRemovedFromWorld();
+            }
+        }
+    }
+
+    /**
+     * Removes all the entities, like when the world is unloaded
+     */
+    public void removeAllEntities() {
+        for (Entity entity : loadedEntityList) {
+            entity.setDead();
+            entity.onRemovedFromWorld();
+        }
+        loadedEntityList.clear();
+        entitiesById.clearMap();
+    }
+
+    @Override
+    public IBlockState getBlockState(BlockPos pos) {
+        return terrain.getBlockState(pos.getX(), pos.getY(), pos.getZ());
+    }
+
+    @Override
+    public boolean setBlockState(BlockPos pos, IBlockState newState, int flags) {
+        throw new UnsupportedOperationException("The blocks of the benchmark world can't be modified");
+    }
+
+    @Override
+    public boolean isAirBlock(BlockPos pos) {
+        return getBlockState(pos).getBlock() == Blocks.AIR;
+    }
+
+    @Nullable
+    @Override
+    public TileEntity getTileEntity(BlockPos pos) {
+        return null;
+    }
+
+    @Override
+    protected IChunkProvider createChunkProvider() {
+        return null;
+    }
+
+    @Override
+    protected boolean isChunkLoaded(int x, int z, boolean allowEmpty) {
+        return true;
+    }
+
+    /**
+     * Tells to the {@link fr.dynamx.common.physics.terrain.PhysicsWorldTerrain} that the chunks of the terrain are loaded <br>
+     * Doesn't load any chunk
+     */
+    private class TerrainChunkProvider extends ChunkProviderServer {
+        private TerrainChunkProvider() {
+            super(null, null, null);
+        }
+
+        @Override
+        public boolean chunkExists(int x, int z) {
+            return terrain.containsChunk(x, z);
+        }
+    }
+}
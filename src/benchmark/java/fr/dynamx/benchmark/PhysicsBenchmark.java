@@ -0,0 +1,201 @@
+package fr.dynamx.benchmark;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import fr.dynamx.api.physics.IPhysicsSimulationMode;
+import fr.dynamx.benchmark.scenario.BenchmarkScenario;
+import fr.dynamx.benchmark.scenario.HighwayConvoyScenario;
+import fr.dynamx.benchmark.scenario.PileupScenario;
+import fr.dynamx.benchmark.scenario.RagdollRainScenario;
+import fr.dynamx.common.physics.world.PhysicsSimulationModes;
+import fr.dynamx.utils.DynamXConfig;
+import fr.dynamx.utils.DynamXConstants;
+import fr.dynamx.utils.debug.metrics.LatencyHistogram;
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Headless benchmark of the DynamX physics : runs scripted scenarios in a {@link BenchmarkWorld} and reports the duration of the ticks, the allocations and the gc pauses in json <br>
+ * The scenarios spawn the vehicles and props of the {@link BenchmarkPack}, simulated by the DynamX physics handlers in a {@link HeadlessPhysicsWorld} <br>
+ * Run it with "gradlew runPhysicsBenchmark -PbenchArgs=..." <br>
+ * Arguments :
+ * <ul>
+ *     <li>--scenarios convoy,pileup,ragdoll_rain : the scenarios to run, all by default</li>
+ *     <li>--size 64 : the number of vehicles, or ragdolls</li>
+ *     <li>--warmup 200 and --steps 1200 : the number of steps not measured, then measured</li>
+ *     <li>--mode full|light : the {@link PhysicsSimulationModes} used to step the physics</li>
+ *     <li>--seed 42 : the seed of the scenarios</li>
+ *     <li>--entity-threads 0 : the number of threads of the parallel entity ticks, disabled by default</li>
+ *     <li>--natives DynamX : the directory containing (or receiving) the bullet natives</li>
+ *     <li>--out file.json : the report file, printed if not set</li>
+ * </ul>
+ */
+public class PhysicsBenchmark {
+    private static final Map<String, Supplier<BenchmarkScenario>> SCENARIOS = new LinkedHashMap<>();
+
+    static {
+        SCENARIOS.put("convoy", HighwayConvoyScenario::new);
+        SCENARIOS.put("pileup", PileupScenario::new);
+        SCENARIOS.put("ragdoll_rain", RagdollRainScenario::new);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseArguments(args);
+        List<String> scenarios = Arrays.asList(options.getOrDefault("scenarios", String.join(",", SCENARIOS.keySet())).split(","));
+        int size = Integer.parseInt(options.getOrDefault("size", "64"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "200"));
+        int steps = Integer.parseInt(options.getOrDefault("steps", "1200"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+        IPhysicsSimulationMode mode = "light".equals(options.get("mode")) ? new PhysicsSimulationModes.LightPhysics() : new PhysicsSimulationModes.FullPhysics();
+        int entityThreads = Integer.parseInt(options.getOrDefault("entity-threads", "0"));
+        for (String scenario : scenarios) {
+            if (!SCENARIOS.containsKey(scenario))
+                throw new IllegalArgumentException("Unknown scenario " + scenario + ", available scenarios: " + SCENARIOS.keySet());
+        }
+        DynamXConfig.parallelEntityTicks = entityThreads > 0;
+        DynamXConfig.parallelEntityTickThreads = entityThreads;
+
+        HeadlessProxy proxy = BenchmarkBootstrap.init(new File(options.getOrDefault("natives", DynamXConstants.RES_DIR_NAME)), mode);
+        File packs = Files.createTempDirectory("dynamx_benchmark_packs").toFile();
+        try {
+            BenchmarkPack.load(packs);
+        } finally {
+            FileUtils.deleteDirectory(packs);
+        }
+
+        BenchmarkReport report = new BenchmarkReport();
+        report.simulationMode = mode.getName();
+        report.timeStep = mode.getTimeStep();
+        report.seed = seed;
+        report.entityThreads = entityThreads;
+        for (String scenario : scenarios) {
+            ScenarioResult result = runScenario(proxy, SCENARIOS.get(scenario).get(), size, warmup, steps, seed);
+            System.out.println(result);
+            report.scenarios.add(result);
+        }
+
+        Gson gson = new GsonBuilder().setPrettyPrinting().create();
+        String json = gson.toJson(report);
+        if (options.containsKey("out")) {
+            File out = new File(options.get("out"));
+            if (out.getParentFile() != null)
+                out.getParentFile().mkdirs();
+            Files.write(out.toPath(), json.getBytes(StandardCharsets.UTF_8));
+            System.out.println("Wrote the report to " + out.getAbsolutePath());
+        } else {
+            System.out.println(json);
+        }
+    }
+
+    /**
+     * Runs one scenario in a new world
+     *
+     * @param proxy The proxy given by {@link BenchmarkBootstrap#init(File, IPhysicsSimulationMode)}, the {@link BenchmarkPack} must be loaded
+     */
+    public static ScenarioResult runScenario(HeadlessProxy proxy, BenchmarkScenario scenario, int size, int warmup, int steps, long seed) throws IOException {
+        Random random = new Random(seed);
+        BenchmarkWorld world = new BenchmarkWorld(proxy, scenario.createTerrain(random));
+        scenario.setup(world, random, size);
+        int step = 0;
+        for (; step < warmup; step++) {
+            scenario.beforeStep(world, step);
+            world.step();
+        }
+        world.pollContactManifolds();
+        //Start from a clean heap, so the gcs of the setup aren't counted
+        System.gc();
+
+        LatencyHistogram histogram = new LatencyHistogram();
+        GcPauseRecorder gcRecorder = new GcPauseRecorder();
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        gcRecorder.start();
+        Map<Long, Long> allocatedStart = getAllocatedBytes(threads);
+        for (int end = warmup + steps; step < end; step++) {
+            long start = System.nanoTime();
+            scenario.beforeStep(world, step);
+            world.step();
+            histogram.record(System.nanoTime() - start);
+        }
+        long allocated = 0;
+        for (Map.Entry<Long, Long> thread : getAllocatedBytes(threads).entrySet())
+            allocated += thread.getValue() - allocatedStart.getOrDefault(thread.getKey(), 0L);
+        gcRecorder.stop();
+
+        ScenarioResult result = new ScenarioResult();
+        result.scenario = scenario.getName();
+        result.size = size;
+        result.vehicles = world.getVehicleCount();
+        result.props = world.getPropCount();
+        result.ragdolls = world.getRagdollCount();
+        result.joints = world.getJointCount();
+        result.collisionObjects = world.getCollisionObjectCount();
+        result.warmupSteps = warmup;
+        result.steps = steps;
+        result.meanMsPerStep = histogram.getSum() / 1e6 / steps;
+        result.p50MsPerStep = histogram.getPercentile(0.5) / 1e6;
+        result.p99MsPerStep = histogram.getPercentile(0.99) / 1e6;
+        result.p999MsPerStep = histogram.getPercentile(0.999) / 1e6;
+        result.maxMsPerStep = histogram.getMax() / 1e6;
+        result.allocatedBytesPerStep = allocated / steps;
+        result.gcCount = gcRecorder.getCount();
+        result.gcTotalPauseMs = gcRecorder.getTotalMillis();
+        result.gcMaxPauseMs = gcRecorder.getMaxMillis();
+        result.contactManifoldsPerStep = world.pollContactManifolds() / (double) steps;
+        result.activeBodies = world.getActiveBodyCount();
+        result.stateChecksum = Long.toHexString(world.getStateChecksum());
+        world.destroy();
+        return result;
+    }
+
+    /**
+     * The physics step, the entity ticks (see {@link DynamXConfig#parallelEntityTicks}) and the terrain loading are shared between several threads, all of them are counted <br>
+     * The bytes allocated by the threads that died during the measurement are lost
+     *
+     * @return The bytes allocated by each live thread since its start, by thread id
+     */
+    private static Map<Long, Long> getAllocatedBytes(com.sun.management.ThreadMXBean threads) {
+        long[] ids = threads.getAllThreadIds();
+        long[] allocated = threads.getThreadAllocatedBytes(ids);
+        Map<Long, Long> allocatedBytes = new HashMap<>();
+        for (int i = 0; i < ids.length; i++) {
+            //-1 if the thread died in the meantime
+            if (allocated[i] >= 0)
+                allocatedBytes.put(ids[i], allocated[i]);
+        }
+        return allocatedBytes;
+    }
+
+    private static Map<String, String> parseArguments(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length)
+                throw new IllegalArgumentException("Invalid argument " + args[i] + ", expected --name value");
+            options.put(args[i].substring(2), args[++i]);
+        }
+        return options;
+    }
+
+    /**
+     * The json report, with the information needed to compare two runs
+     */
+    private static class BenchmarkReport {
+        private final String dynamxVersion = DynamXConstants.VERSION;
+        private final String libbulletjmeVersion = DynamXConstants.LIBBULLET_VERSION;
+        private final String javaVersion = System.getProperty("java.version");
+        private final String os = System.getProperty("os.name") + " " + System.getProperty("os.arch");
+        private final int processors = Runtime.getRuntime().availableProcessors();
+        private final long date = System.currentTimeMillis();
+        private String simulationMode;
+        private float timeStep;
+        private long seed;
+        private int entityThreads;
+        private final List<ScenarioResult> scenarios = new ArrayList<>();
+    }
+}
@@ -0,0 +1,46 @@
+package fr.dynamx.benchmark;
+
+/**
+ * The measures of one scenario, written in the json report
+ */
+public class ScenarioResult {
+    public String scenario;
+    public int size;
+    public int vehicles;
+    public int props;
+    public int ragdolls;
+    public int joints;
+    public int collisionObjects;
+    public int warmupSteps;
+    public int steps;
+
+    public double meanMsPerStep;
+    public double p50MsPerStep;
+    public double p99MsPerStep;
+    public double p999MsPerStep;
+    public double maxMsPerStep;
+    /**
+     * Bytes allocated by all the threads per step (physics, entity ticks, terrain loading), including the scripts of the scenario
+     */
+    public long allocatedBytesPerStep;
+    public int gcCount;
+    public long gcTotalPauseMs;
+    public long gcMaxPauseMs;
+
+    /**
+     * Contact manifolds at the end of each step, each manifold holding the contact points between two objects
+     */
+    public double contactManifoldsPerStep;
+    public int activeBodies;
+    /**
+     * Hash of the final positions of the entities <br>
+     * The terrain is loaded before the first step : two runs with the same seed, natives and entity threads should give the same checksum
+     */
+    public String stateChecksum;
+
+    @Override
+    public String toString() {
+        return String.format("%s (size %d): %.3f ms/step mean, p50 %.3f, p99 %.3f, max %.3f | %d B/step | %d gcs, %d ms | checksum %s",
+                scenario, size, meanMsPerStep, p50MsPerStep, p99MsPerStep, maxMsPerStep, allocatedBytesPerStep, gcCount, gcTotalPauseMs, stateChecksum);
+    }
+}
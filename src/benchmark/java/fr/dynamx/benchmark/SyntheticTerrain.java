@@ -0,0 +1,99 @@
+package fr.dynamx.benchmark;
+
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.init.Blocks;
+
+import java.util.Random;
+
+/**
+ * Deterministic terrain of the {@link HeadlessWorld}, given as blocks : the DynamX terrain is computed from them by the {@link fr.dynamx.common.physics.terrain.PhysicsWorldTerrain}, like in a real world <br>
+ * The height of each column is a sum of sine waves, flattened along a road parallel to the z axis. The columns are made of stone, from 4 blocks under the road to their top.
+ */
+public class SyntheticTerrain {
+    /**
+     * Height of the road and base height of the hills
+     */
+    public static final int GROUND_HEIGHT = 64;
+
+    private static final IBlockState GROUND = Blocks.STONE.getDefaultState();
+    private static final IBlockState AIR = Blocks.AIR.getDefaultState();
+
+    private final int minX, maxX, minZ, maxZ;
+    private final int roadHalfWidth;
+    private final float hillsHeight;
+    private final float[] phases = new float[4];
+
+    /**
+     * @param minX          Min x block coordinate
+     * @param maxX          Max x block coordinate
+     * @param minZ          Min z block coordinate
+     * @param maxZ          Max z block coordinate
+     * @param roadHalfWidth Half width of the flat road centered on x = 0, in blocks
+     * @param hillsHeight   Max height of the hills around the road
+     * @param seed          The seed of the hills
+     */
+    public SyntheticTerrain(int minX, int maxX, int minZ, int maxZ, int roadHalfWidth, float hillsHeight, long seed) {
+        this.minX = minX;
+        this.maxX = maxX;
+        this.minZ = minZ;
+        this.maxZ = maxZ;
+        this.roadHalfWidth = roadHalfWidth;
+        this.hillsHeight = hillsHeight;
+        Random random = new Random(seed);
+        for (int i = 0; i < phases.length; i++)
+            phases[i] = random.nextFloat() * 6.28f;
+    }
+
+    /**
+     * @return The y coordinate of the top of the column at x, z
+     */
+    public int getHeight(int x, int z) {
+        if (Math.abs(x) <= roadHalfWidth)
+            return GROUND_HEIGHT;
+        //Hills grow with the distance to the road
+        float factor = Math.min(1, (Math.abs(x) - roadHalfWidth) / 12f);
+        float wave = (float) (Math.sin(x * 0.11f + phases[0]) + Math.sin(z * 0.07f + phases[1]) + 0.5f * Math.sin((x + z) * 0.23f + phases[2]) + 0.5f * Math.sin((x - z) * 0.19f + phases[3]));
+        return GROUND_HEIGHT + Math.round(factor * hillsHeight * (wave + 3) / 6);
+    }
+
+    /**
+     * Thread-safe : read by the terrain loading threads
+     *
+     * @return The block at the given position, air out of the terrain
+     */
+    public IBlockState getBlockState(int x, int y, int z) {
+        if (x < minX || x > maxX || z < minZ || z > maxZ || y < GROUND_HEIGHT - 4)
+            return AIR;
+        return y < getHeight(x, z) ? GROUND : AIR;
+    }
+
+    /**
+     * @return The y coordinate above the top of the highest hill
+     */
+    public int getMaxHeight() {
+        return GROUND_HEIGHT + (int) Math.ceil(hillsHeight);
+    }
+
+    public int getMinX() {
+        return minX;
+    }
+
+    public int getMaxX() {
+        return maxX;
+    }
+
+    public int getMinZ() {
+        return minZ;
+    }
+
+    public int getMaxZ() {
+        return maxZ;
+    }
+
+    /**
+     * @return True if the chunk contains a part of the terrain
+     */
+    public boolean containsChunk(int chunkX, int chunkZ) {
+        return chunkX >= minX >> 4 && chunkX <= maxX >> 4 && chunkZ >= minZ >> 4 && chunkZ <= maxZ >> 4;
+    }
+}
@@ -0,0 +1,60 @@
+package fr.dynamx.benchmark;
+
+import com.jme3.math.Vector3f;
+import fr.dynamx.common.entities.modules.engines.CarEngineModule;
+import fr.dynamx.common.entities.vehicles.CarEntity;
+import fr.dynamx.utils.optimization.Vector3fPool;
+
+/**
+ * A scripted driver of a {@link CarEntity}, giving the same controls as a player to its {@link CarEngineModule} <br>
+ * The driver keeps a target speed and steers towards a target lane
+ */
+public class VehicleDriver {
+    /**
+     * The controls of the {@link CarEngineModule} : engine on, accelerate, turn left, turn right and handbrake
+     */
+    private static final int ENGINE_ON = 1, ACCELERATE = 2, LEFT = 8, RIGHT = 16, HANDBRAKE = 32;
+
+    private final CarEntity<?> entity;
+    private final float targetSpeed;
+    private final float targetX;
+
+    /**
+     * @param entity      The driven car
+     * @param targetSpeed The speed kept by the driver, in m/s, or 0 to stay parked
+     * @param targetX     The x coordinate of its lane
+     */
+    public VehicleDriver(CarEntity<?> entity, float targetSpeed, float targetX) {
+        this.entity = entity;
+        this.targetSpeed = targetSpeed;
+        this.targetX = targetX;
+    }
+
+    /**
+     * Applies the controls of the driver, before the physics tick <br>
+     * The vehicles drive along the z axis, in the direction they are facing
+     */
+    public void drive() {
+        CarEngineModule engine = entity.getModuleByType(CarEngineModule.class);
+        if (engine == null)
+            return;
+        if (targetSpeed == 0) {
+            engine.setControls(ENGINE_ON | HANDBRAKE);
+            return;
+        }
+        engine.setSpeedLimit(targetSpeed * 3.6f);
+        Vector3f forward = entity.physicsRotation.mult(Vector3fPool.get(0, 0, 1), Vector3fPool.get());
+        //Steer towards the lane, looking a few meters ahead. Facing +z, the left is +x.
+        float lateral = (targetX - entity.physicsPosition.x - forward.x * 8) * Math.signum(forward.z);
+        int controls = ENGINE_ON | ACCELERATE;
+        if (lateral > 0.3f)
+            controls |= LEFT;
+        else if (lateral < -0.3f)
+            controls |= RIGHT;
+        engine.setControls(controls);
+    }
+
+    public CarEntity<?> getEntity() {
+        return entity;
+    }
+}
@@ -0,0 +1,41 @@
+package fr.dynamx.benchmark.scenario;
+
+import fr.dynamx.benchmark.BenchmarkWorld;
+import fr.dynamx.benchmark.SyntheticTerrain;
+
+import java.util.Random;
+
+/**
+ * A deterministic physics scenario : the same seed and size always create the same scene and the same scripted inputs
+ */
+public interface BenchmarkScenario {
+    /**
+     * @return The name of the scenario, used in the command line and in the results
+     */
+    String getName();
+
+    /**
+     * @param random The seeded random of this run
+     * @return The blocks of the world of the scenario
+     */
+    SyntheticTerrain createTerrain(Random random);
+
+    /**
+     * Spawns the initial entities of the scenario
+     *
+     * @param world  The empty world, with the terrain given by {@link #createTerrain(Random)}
+     * @param random The seeded random of this run
+     * @param size   The number of vehicles or ragdolls of the scenario
+     */
+    void setup(BenchmarkWorld world, Random random, int size);
+
+    /**
+     * Called before each step, to spawn entities or change the inputs <br>
+     * Shouldn't allocate memory when nothing is spawned, the allocations are measured
+     *
+     * @param world The world
+     * @param step  The index of the step, including the warmup steps
+     */
+    default void beforeStep(BenchmarkWorld world, int step) {
+    }
+}
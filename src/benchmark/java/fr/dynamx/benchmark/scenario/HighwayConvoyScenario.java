@@ -0,0 +1,55 @@
+package fr.dynamx.benchmark.scenario;
+
+import com.jme3.math.Vector3f;
+import fr.dynamx.benchmark.BenchmarkWorld;
+import fr.dynamx.benchmark.SyntheticTerrain;
+import fr.dynamx.benchmark.VehicleDriver;
+import fr.dynamx.common.entities.vehicles.CarEntity;
+
+import java.util.Random;
+
+/**
+ * Vehicles driving in convoys on the four lanes of a highway, two in each direction, surrounded by hills <br>
+ * The vehicles reaching the end of the road are moved back to its start, so the scenario can run for any number of steps
+ */
+public class HighwayConvoyScenario implements BenchmarkScenario {
+    private static final int ROAD_LENGTH = 1024;
+    private static final float[] LANES = {-7.5f, -2.5f, 2.5f, 7.5f};
+    private static final float SPACING = 16;
+
+    private final Vector3f position = new Vector3f();
+
+    @Override
+    public String getName() {
+        return "convoy";
+    }
+
+    @Override
+    public SyntheticTerrain createTerrain(Random random) {
+        return new SyntheticTerrain(-48, 47, -ROAD_LENGTH, ROAD_LENGTH - 1, 12, 10, random.nextLong());
+    }
+
+    @Override
+    public void setup(BenchmarkWorld world, Random random, int size) {
+        for (int i = 0; i < size; i++) {
+            int lane = i % LANES.length;
+            boolean north = LANES[lane] > 0;
+            float z = (i / LANES.length) * SPACING + random.nextFloat() * 4 - ROAD_LENGTH + 64;
+            CarEntity<?> car = world.spawnCar(new Vector3f(LANES[lane], SyntheticTerrain.GROUND_HEIGHT + 1.2f, north ? z : -z), north ? 0 : 180);
+            world.addDriver(new VehicleDriver(car, north ? 25 + random.nextFloat() * 3 : 20 + random.nextFloat() * 3, LANES[lane]));
+        }
+    }
+
+    @Override
+    public void beforeStep(BenchmarkWorld world, int step) {
+        if (step % 20 != 0)
+            return;
+        for (VehicleDriver driver : world.getDrivers()) {
+            CarEntity<?> car = driver.getEntity();
+            if (car.physicsHandler == null || Math.abs(car.physicsPosition.z) <= ROAD_LENGTH - 48)
+                continue;
+            position.set(car.physicsPosition.x, SyntheticTerrain.GROUND_HEIGHT + 1.2f, -Math.signum(car.physicsPosition.z) * (ROAD_LENGTH - 64));
+            car.physicsHandler.setPhysicsPosition(position);
+        }
+    }
+}
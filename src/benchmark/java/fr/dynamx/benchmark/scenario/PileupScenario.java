@@ -0,0 +1,43 @@
+package fr.dynamx.benchmark.scenario;
+
+import com.jme3.math.Vector3f;
+import fr.dynamx.benchmark.BenchmarkWorld;
+import fr.dynamx.benchmark.SyntheticTerrain;
+import fr.dynamx.benchmark.VehicleDriver;
+import fr.dynamx.common.entities.vehicles.CarEntity;
+
+import java.util.Random;
+
+/**
+ * A traffic jam with crates fallen on the road, hit at full speed by the following vehicles <br>
+ * Stresses the contacts between many close vehicles and props of the {@link fr.dynamx.benchmark.BenchmarkPack}
+ */
+public class PileupScenario implements BenchmarkScenario {
+    private static final float[] LANES = {-6, -2, 2, 6};
+
+    @Override
+    public String getName() {
+        return "pileup";
+    }
+
+    @Override
+    public SyntheticTerrain createTerrain(Random random) {
+        return new SyntheticTerrain(-32, 31, -1024, 255, 10, 6, random.nextLong());
+    }
+
+    @Override
+    public void setup(BenchmarkWorld world, Random random, int size) {
+        int stopped = size / 2;
+        for (int i = 0; i < size; i++) {
+            int lane = i % LANES.length;
+            int row = i / LANES.length;
+            boolean inJam = i < stopped;
+            //The jam is packed near z = 0, the arriving vehicles are spread behind it
+            float z = inJam ? -row * 6.5f : -150 - (row - stopped / LANES.length) * 14;
+            CarEntity<?> car = world.spawnCar(new Vector3f(LANES[lane] + random.nextFloat() - 0.5f, SyntheticTerrain.GROUND_HEIGHT + 1.2f, z), 0);
+            world.addDriver(new VehicleDriver(car, inJam ? 0 : 28, LANES[lane]));
+        }
+        for (int i = 0; i < size / 2; i++)
+            world.spawnCrate(new Vector3f(random.nextFloat() * 16 - 8, SyntheticTerrain.GROUND_HEIGHT + 0.5f + (i % 3) * 1.05f, -(stopped / LANES.length) * 6.5f - 10 - random.nextFloat() * 20));
+    }
+}
@@ -0,0 +1,42 @@
+package fr.dynamx.benchmark.scenario;
+
+import com.jme3.math.Vector3f;
+import fr.dynamx.benchmark.BenchmarkWorld;
+import fr.dynamx.benchmark.SyntheticTerrain;
+import fr.dynamx.common.entities.RagdollEntity;
+
+import java.util.Random;
+
+/**
+ * {@link RagdollEntity}s falling on hills, a few each step, until all of them are spawned <br>
+ * Stresses the joints and the continuous collision detection of their body parts
+ */
+public class RagdollRainScenario implements BenchmarkScenario {
+    private static final int RAGDOLLS_PER_STEP = 2;
+    private static final int AREA = 64;
+
+    private Random random;
+    private int remaining;
+
+    @Override
+    public String getName() {
+        return "ragdoll_rain";
+    }
+
+    @Override
+    public SyntheticTerrain createTerrain(Random random) {
+        return new SyntheticTerrain(-AREA, AREA - 1, -AREA, AREA - 1, 0, 12, random.nextLong());
+    }
+
+    @Override
+    public void setup(BenchmarkWorld world, Random random, int size) {
+        this.random = random;
+        this.remaining = size;
+    }
+
+    @Override
+    public void beforeStep(BenchmarkWorld world, int step) {
+        for (int i = 0; i < RAGDOLLS_PER_STEP && remaining > 0; i++, remaining--)
+            world.spawnRagdoll(new Vector3f(random.nextFloat() * (AREA * 2 - 16) - AREA + 8, SyntheticTerrain.GROUND_HEIGHT + 20 + random.nextFloat() * 20, random.nextFloat() * (AREA * 2 - 16) - AREA + 8), random.nextFloat() * 360);
+    }
+}
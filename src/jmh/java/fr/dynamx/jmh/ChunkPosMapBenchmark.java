@@ -0,0 +1,115 @@
+package fr.dynamx.jmh;
+
+import fr.dynamx.utils.VerticalChunkPos;
+import fr.dynamx.utils.optimization.Long2ObjectOpenMap;
+import fr.dynamx.utils.optimization.Long2ShortOpenMap;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups and updates of the terrain maps indexed by chunk positions, done for each chunk around each physics entity every tick <br>
+ * Compares the packed long keys of {@link Long2ObjectOpenMap} and {@link Long2ShortOpenMap} with the {@link VerticalChunkPos} keys of a {@link HashMap}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ChunkPosMapBenchmark {
+    /**
+     * Number of loaded chunks
+     */
+    @Param({"256", "8192"})
+    public int chunks;
+
+    private final Map<VerticalChunkPos, Object> hashMap = new HashMap<>();
+    private final Map<VerticalChunkPos, Short> hashCounters = new HashMap<>();
+    private Long2ObjectOpenMap<Object> longMap;
+    private Long2ShortOpenMap longCounters;
+    /**
+     * The looked up positions : the loaded chunks and as many unloaded chunks
+     */
+    private int[] lookups;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        longMap = new Long2ObjectOpenMap<>(chunks);
+        longCounters = new Long2ShortOpenMap(chunks);
+        Random random = new Random(42);
+        lookups = new int[chunks * 2 * 3];
+        for (int i = 0; i < chunks * 2; i++) {
+            int x = random.nextInt(256) - 128, y = random.nextInt(16), z = random.nextInt(256) - 128;
+            lookups[i * 3] = x;
+            lookups[i * 3 + 1] = y;
+            lookups[i * 3 + 2] = z;
+            if (i % 2 == 0) {
+                Object value = new Object();
+                hashMap.put(new VerticalChunkPos(x, y, z), value);
+                hashCounters.put(new VerticalChunkPos(x, y, z), (short) 1);
+                longMap.put(VerticalChunkPos.asLong(x, y, z), value);
+                longCounters.put(VerticalChunkPos.asLong(x, y, z), (short) 1);
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(1024)
+    public int hashMapGet() {
+        int found = 0;
+        for (int i = 0; i < 1024; i++) {
+            int j = (i % (lookups.length / 3)) * 3;
+            if (hashMap.get(new VerticalChunkPos(lookups[j], lookups[j + 1], lookups[j + 2])) != null)
+                found++;
+        }
+        return found;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(1024)
+    public int longMapGet() {
+        int found = 0;
+        for (int i = 0; i < 1024; i++) {
+            int j = (i % (lookups.length / 3)) * 3;
+            if (longMap.get(VerticalChunkPos.asLong(lookups[j], lookups[j + 1], lookups[j + 2])) != null)
+                found++;
+        }
+        return found;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(1024)
+    public int hashMapCounters() {
+        int total = 0;
+        for (int i = 0; i < 1024; i++) {
+            int j = (i % (lookups.length / 3)) * 3;
+            VerticalChunkPos pos = new VerticalChunkPos(lookups[j], lookups[j + 1], lookups[j + 2]);
+            //Increments then decrements, like the chunk users counters, so the maps keep the same size
+            total += hashCounters.merge(pos, (short) 1, (a, b) -> (short) (a + b));
+            short value = (short) (hashCounters.get(pos) - 1);
+            if (value == 0)
+                hashCounters.remove(pos);
+            else
+                hashCounters.put(pos, value);
+        }
+        return total;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(1024)
+    public int longMapCounters() {
+        int total = 0;
+        for (int i = 0; i < 1024; i++) {
+            int j = (i % (lookups.length / 3)) * 3;
+            long pos = VerticalChunkPos.asLong(lookups[j], lookups[j + 1], lookups[j + 2]);
+            total += longCounters.addTo(pos, 1);
+            if (longCounters.addTo(pos, -1) == 0)
+                longCounters.remove(pos);
+        }
+        return total;
+    }
+}
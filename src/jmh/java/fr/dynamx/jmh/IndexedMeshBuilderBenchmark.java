@@ -0,0 +1,62 @@
+package fr.dynamx.jmh;
+
+import com.jme3.bullet.NativePhysicsObject;
+import com.jme3.bullet.collision.shapes.infos.IndexedMesh;
+import fr.dynamx.common.physics.terrain.element.IndexedMeshBuilder;
+import fr.dynamx.jmh.fixture.Fixtures;
+import fr.dynamx.utils.optimization.MutableBoundingBox;
+import fr.dynamx.utils.optimization.Vector3fPool;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversion of the boxes of a chunk into the triangle meshes of the terrain, done for each chunk having complex collisions
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class IndexedMeshBuilderBenchmark {
+    /**
+     * Number of boxes in the chunk
+     */
+    @Param({"16", "256"})
+    public int boxes;
+
+    private final List<MutableBoundingBox> chunkBoxes = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Fixtures.loadNatives();
+        //Columns of random heights, like the boxes of a hilly chunk
+        Random random = new Random(42);
+        for (int i = 0; i < boxes; i++) {
+            int x = i % 16, z = (i / 16) % 16;
+            chunkBoxes.add(new MutableBoundingBox(x, 0, z, x + 1, 1 + random.nextInt(15), z + 1));
+        }
+    }
+
+    /**
+     * Frees the native meshes collected during the iteration
+     */
+    @TearDown(Level.Iteration)
+    public void freeMeshes() {
+        System.gc();
+        NativePhysicsObject.freeUnusedObjects();
+    }
+
+    @Benchmark
+    public List<IndexedMesh> addBoxes() {
+        Vector3fPool.openPool();
+        IndexedMeshBuilder builder = new IndexedMeshBuilder(16, 64, 16, null);
+        builder.addBoxes(chunkBoxes);
+        Vector3fPool.closePool();
+        return builder.getMeshes();
+    }
+}
@@ -0,0 +1,46 @@
+package fr.dynamx.jmh;
+
+import fr.dynamx.common.objloader.OBJLoader;
+import fr.dynamx.common.objloader.data.Material;
+import fr.dynamx.common.objloader.data.ObjObjectData;
+import fr.dynamx.jmh.fixture.Fixtures;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of the obj models, done for each model of the packs when loading the game and the vehicles <br>
+ * The mtl files are ignored, like on the server side
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ObjLoaderBenchmark {
+    /**
+     * Size of the model : "objects x quads per side of each object"
+     */
+    @Param({"4x8", "32x32"})
+    public String model;
+
+    private String objContent;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        String[] size = model.split("x");
+        objContent = Fixtures.createObjContent(Integer.parseInt(size[0]), Integer.parseInt(size[1]), 42);
+    }
+
+    @Benchmark
+    public List<ObjObjectData> readAndLoadModel() {
+        List<ObjObjectData> objects = new ArrayList<>();
+        OBJLoader loader = new OBJLoader(objects, new HashMap<String, Material>());
+        loader.readAndLoadModel(null, objContent);
+        return objects;
+    }
+}
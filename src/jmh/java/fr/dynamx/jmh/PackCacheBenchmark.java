@@ -0,0 +1,130 @@
+package fr.dynamx.jmh;
+
+import fr.dynamx.common.contentpack.DynamXObjectLoaders;
+import fr.dynamx.common.contentpack.PackCache;
+import fr.dynamx.common.contentpack.ParallelPackLoader;
+import fr.dynamx.jmh.fixture.FixturePack;
+import fr.dynamx.utils.DynamXConfig;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Loading of a large content pack at the start of the game, by the {@link ParallelPackLoader} <br>
+ * The pack is read from a folder or a zip file, and its files are parsed (cold cache : the {@link PackCache} file is then written) or read from their compiled form (warm cache). <br>
+ * Includes the hashing of the pack files giving the key of the cache, and the registration of the objects by their loader
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PackCacheBenchmark {
+    /**
+     * Number of object files of the pack
+     */
+    @Param({"200", "2000"})
+    public int files;
+    /**
+     * Number of parts of each object
+     */
+    @Param({"8"})
+    public int parts;
+    /**
+     * "folder" or "zip"
+     */
+    @Param({"folder", "zip"})
+    public String packType;
+    /**
+     * "cold" : there is no cache file, "warm" : the cache file of the pack is up-to-date
+     */
+    @Param({"cold", "warm"})
+    public String cacheState;
+    /**
+     * The "PackLoadingThreads" option of the config : 1 loads the pack on the loading thread, 0 uses all available processors but one
+     */
+    @Param({"1", "0"})
+    public int threads;
+
+    private FixturePack.FixturePackLoader loader;
+    private File packsDirectory, pack, cacheDirectory;
+    private boolean warm;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        loader = FixturePack.registerLoader();
+        DynamXConfig.packLoadingThreads = threads;
+        packsDirectory = Files.createTempDirectory("dnx_packs").toFile();
+        cacheDirectory = Files.createTempDirectory("dnx_pack_cache").toFile();
+        if ("folder".equals(packType))
+            pack = FixturePack.writePackFolder(packsDirectory, files, parts, 42);
+        else if ("zip".equals(packType))
+            pack = FixturePack.writePackZip(packsDirectory, files, parts, 42);
+        else
+            throw new IllegalArgumentException("Unknown pack type " + packType);
+        warm = "warm".equals(cacheState);
+        if (!warm && !"cold".equals(cacheState))
+            throw new IllegalArgumentException("Unknown cache state " + cacheState);
+        if (warm) {
+            //Load the pack once to write its cache file, like the first start of the game
+            clearLoaders();
+            loadPack();
+            File[] cacheFiles = cacheDirectory.listFiles();
+            if (cacheFiles == null || cacheFiles.length == 0)
+                throw new IllegalStateException("The pack cache file wasn't written in " + cacheDirectory);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void clear() throws IOException {
+        clearLoaders();
+        if (!warm)
+            deleteContent(cacheDirectory.toPath());
+    }
+
+    private void clearLoaders() {
+        loader.clear(false);
+        DynamXObjectLoaders.PACKS.clear(false);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        clearLoaders();
+        deleteContent(packsDirectory.toPath());
+        deleteContent(cacheDirectory.toPath());
+        packsDirectory.delete();
+        cacheDirectory.delete();
+    }
+
+    private static void deleteContent(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).filter(path -> !path.equals(directory)).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    /**
+     * Loads the pack like the {@link fr.dynamx.common.contentpack.ContentPackLoader}, and waits for the writing of its cache file
+     *
+     * @return The number of loaded objects
+     */
+    @Benchmark
+    public int loadPack() {
+        try (ParallelPackLoader packLoader = new ParallelPackLoader(".dynx", false, new PackCache(cacheDirectory, "jmh"))) {
+            if (pack.isDirectory())
+                packLoader.submitFolder(pack);
+            else
+                packLoader.submitArchive(pack);
+            packLoader.registerAll();
+            if (packLoader.getErrorCount() != 0 || loader.getInfos().size() != files)
+                throw new IllegalStateException("Failed to load the pack " + pack + " : " + loader.getInfos().size() + " objects loaded");
+        }
+        return loader.getInfos().size();
+    }
+}
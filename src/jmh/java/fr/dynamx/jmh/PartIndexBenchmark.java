@@ -0,0 +1,60 @@
+package fr.dynamx.jmh;
+
+import fr.dynamx.api.contentpack.object.part.PartTypeIndex;
+import fr.dynamx.jmh.fixture.FixturePartContainer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Searches of the parts of a vehicle by type, done by the modules of the entities every tick and by the renderers every frame <br>
+ * Compares the {@link PartTypeIndex} of the pack objects with the stream filter of the default IPartContainer methods <br>
+ * Run with "-prof gc" to see the allocations
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PartIndexBenchmark {
+    /**
+     * Number of shapes of the vehicle, in addition to its 4 wheels, 4 seats and 4 doors
+     */
+    @Param({"0", "32"})
+    public int shapes;
+
+    private FixturePartContainer container;
+    private PartTypeIndex<FixturePartContainer> index;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        container = new FixturePartContainer(4, 4, 4, shapes);
+        index = new PartTypeIndex<>(container.getAllParts());
+    }
+
+    @Benchmark
+    public void streamPartsByType(Blackhole blackhole) {
+        for (FixturePartContainer.FixtureWheel wheel : container.getPartsByType(FixturePartContainer.FixtureWheel.class))
+            blackhole.consume(wheel);
+        blackhole.consume(container.getPartsByType(FixturePartContainer.FixtureInteractivePart.class).size());
+    }
+
+    @Benchmark
+    public void indexedPartsByType(Blackhole blackhole) {
+        for (FixturePartContainer.FixtureWheel wheel : index.getPartsByType(FixturePartContainer.FixtureWheel.class))
+            blackhole.consume(wheel);
+        blackhole.consume(index.getPartsByType(FixturePartContainer.FixtureInteractivePart.class).size());
+    }
+
+    @Benchmark
+    public Object streamPartByTypeAndId() {
+        return container.getPartByTypeAndId(FixturePartContainer.FixtureDoor.class, (byte) 3);
+    }
+
+    @Benchmark
+    public Object indexedPartByTypeAndId() {
+        return index.getPartByTypeAndId(FixturePartContainer.FixtureDoor.class, (byte) 3);
+    }
+}
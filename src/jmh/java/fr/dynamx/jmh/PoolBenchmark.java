@@ -0,0 +1,67 @@
+package fr.dynamx.jmh;
+
+import com.jme3.math.Quaternion;
+import com.jme3.math.Vector3f;
+import fr.dynamx.utils.optimization.QuaternionPool;
+import fr.dynamx.utils.optimization.Vector3fPool;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a {@link Vector3fPool} and {@link QuaternionPool} scope, like the ones opened for each entity tick, compared with plain allocations
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PoolBenchmark {
+    /**
+     * Number of objects taken in each scope
+     */
+    @Param({"0", "8", "64"})
+    public int objects;
+
+    @Benchmark
+    public void vector3fPoolScope(Blackhole blackhole) {
+        Vector3fPool.openPool();
+        for (int i = 0; i < objects; i++)
+            blackhole.consume(Vector3fPool.get(i, i, i));
+        Vector3fPool.closePool();
+    }
+
+    @Benchmark
+    public void quaternionPoolScope(Blackhole blackhole) {
+        QuaternionPool.openPool();
+        for (int i = 0; i < objects; i++)
+            blackhole.consume(QuaternionPool.get(0, 0, 0, 1));
+        QuaternionPool.closePool();
+    }
+
+    @Benchmark
+    public void nestedPoolScopes(Blackhole blackhole) {
+        //Like BasePhysicsWorld#tickEntityPre, nested in the scope of the physics tick
+        Vector3fPool.openPool();
+        for (int e = 0; e < 4; e++) {
+            QuaternionPool.openPool();
+            Vector3fPool.openPool();
+            for (int i = 0; i < objects; i++)
+                blackhole.consume(Vector3fPool.get(i, e, i));
+            QuaternionPool.closePool();
+            Vector3fPool.closePool();
+        }
+        Vector3fPool.closePool();
+    }
+
+    @Benchmark
+    public void plainAllocations(Blackhole blackhole) {
+        //Compare with the sum of the vector3fPoolScope and quaternionPoolScope
+        for (int i = 0; i < objects; i++) {
+            blackhole.consume(new Vector3f(i, i, i));
+            blackhole.consume(new Quaternion(0, 0, 0, 1));
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package fr.dynamx.jmh;
+
+import fr.dynamx.common.capability.DynamXChunkData;
+import fr.dynamx.utils.optimization.MutableBoundingBox;
+import net.minecraft.util.EnumFacing;
+import net.minecraft.util.math.AxisAlignedBB;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.RayTraceResult;
+import net.minecraft.util.math.Vec3d;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Queries of the DynamX blocks collision boxes of a chunk : the world ray trace (see MixinWorld) and the search of the blocks colliding with a moving entity (see RotatedCollisionHandlerImpl) <br>
+ * Compares the sections index of {@link DynamXChunkData} with a linear scan of all the boxes of the chunk <br>
+ * The ray misses all the boxes, the worst case, or hits the box of a block placed in front of it
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RayTraceScanBenchmark {
+    /**
+     * Number of DynamX blocks in the chunk
+     */
+    @Param({"1", "16", "128", "1024"})
+    public int blocks;
+
+    private final DynamXChunkData chunkData = new DynamXChunkData();
+    private final Vec3d from = new Vec3d(8.5, 70.5, -4);
+    private final Vec3d missTo = new Vec3d(8.5, 73.5, 20);
+    private final Vec3d hitTo = new Vec3d(8.5, 70.5, 20);
+    /**
+     * The box of a player walking in the chunk
+     */
+    private final MutableBoundingBox entityBox = new MutableBoundingBox(4.2, 70, 4.2, 4.8, 71.8, 4.8);
+    private final List<DynamXChunkData.BlockBox> boxQueryResult = new ArrayList<>();
+    private final List<BlockPos> linearBoxQueryResult = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(42);
+        for (int i = 0; i < blocks; i++) {
+            //Props covering their block, or bigger, in the sections above the ground, out of the ray
+            BlockPos pos = new BlockPos(random.nextBoolean() ? random.nextInt(6) : 10 + random.nextInt(6), 64 + random.nextInt(64), random.nextInt(16));
+            double size = 0.5 + random.nextDouble();
+            chunkData.addBlock(pos, new AxisAlignedBB(pos.getX(), pos.getY(), pos.getZ(), pos.getX() + size, pos.getY() + size, pos.getZ() + size));
+        }
+        chunkData.addBlock(new BlockPos(8, 70, 8), new AxisAlignedBB(8, 70, 8, 9, 71, 9));
+    }
+
+    @Benchmark
+    public RayTraceResult rayTraceMiss() {
+        return chunkData.rayTraceBlocks(from, missTo);
+    }
+
+    @Benchmark
+    public RayTraceResult rayTraceHit() {
+        return chunkData.rayTraceBlocks(from, hitTo);
+    }
+
+    @Benchmark
+    public RayTraceResult linearRayTraceMiss() {
+        return linearRayTrace(from, missTo);
+    }
+
+    @Benchmark
+    public RayTraceResult linearRayTraceHit() {
+        return linearRayTrace(from, hitTo);
+    }
+
+    @Benchmark
+    public int boxQuery() {
+        boxQueryResult.clear();
+        chunkData.getBlocksInBox(entityBox, boxQueryResult);
+        return boxQueryResult.size();
+    }
+
+    @Benchmark
+    public int linearBoxQuery() {
+        linearBoxQueryResult.clear();
+        for (Map.Entry<BlockPos, AxisAlignedBB> e : chunkData.getBlocksAABB().entrySet()) {
+            if (entityBox.intersects(e.getValue()))
+                linearBoxQueryResult.add(e.getKey());
+        }
+        return linearBoxQueryResult.size();
+    }
+
+    /**
+     * The previous ray trace of the DynamX blocks, testing all the boxes of the chunk
+     */
+    private RayTraceResult linearRayTrace(Vec3d from, Vec3d to) {
+        for (Map.Entry<BlockPos, AxisAlignedBB> e : chunkData.getBlocksAABB().entrySet()) {
+            RayTraceResult res = e.getValue().contains(from) ? new RayTraceResult(new Vec3d(e.getKey().getX(), e.getKey().getY(), e.getKey().getZ()), EnumFacing.NORTH) : e.getValue().calculateIntercept(from, to);
+            if (res != null)
+                return new RayTraceResult(res.hitVec, res.sideHit, e.getKey());
+        }
+        return null;
+    }
+}
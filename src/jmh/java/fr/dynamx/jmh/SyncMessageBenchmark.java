@@ -0,0 +1,88 @@
+package fr.dynamx.jmh;
+
+import fr.dynamx.api.network.sync.EntityVariable;
+import fr.dynamx.common.network.sync.EncodedSyncPayload;
+import fr.dynamx.common.network.sync.MessagePhysicsEntitySync;
+import fr.dynamx.jmh.fixture.Fixtures;
+import fr.dynamx.utils.optimization.PooledHashMap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding of the {@link MessagePhysicsEntitySync} of a moving vehicle with four wheels, sent for each vehicle to each player several times per second <br>
+ * The setup prints the bandwidth used by a scene of {@link #SCENE_VEHICLES} moving vehicles, encoded with the real messages
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SyncMessageBenchmark {
+    private static final int SCENE_VEHICLES = 64;
+    /**
+     * The moving vehicles are synchronized each tick (see {@link fr.dynamx.utils.DynamXConfig#vehiclesSyncTickRate})
+     */
+    private static final int SYNCS_PER_SECOND = 20;
+
+    private Map<Integer, EntityVariable<?>> vars;
+    private ByteBuf encodeBuffer;
+    private ByteBuf encodedMessage;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        vars = Fixtures.createVehicleSyncState(new Random(42));
+        encodeBuffer = Unpooled.buffer(256);
+        encodedMessage = Unpooled.buffer(256);
+        EncodedSyncPayload payload = EncodedSyncPayload.encode(vars, false);
+        new MessagePhysicsEntitySync<>(null, 0, Collections.singletonList(payload)).toBytes(encodedMessage);
+        payload.release();
+        printSceneBandwidth();
+    }
+
+    private static void printSceneBandwidth() {
+        Random random = new Random(SCENE_VEHICLES);
+        ByteBuf buffer = Unpooled.buffer(256);
+        long bytes = 0;
+        for (int i = 0; i < SCENE_VEHICLES; i++) {
+            buffer.clear();
+            EncodedSyncPayload payload = EncodedSyncPayload.encode(Fixtures.createVehicleSyncState(random), false);
+            new MessagePhysicsEntitySync<>(null, 0, Collections.singletonList(payload)).toBytes(buffer);
+            payload.release();
+            bytes += buffer.writerIndex();
+        }
+        buffer.release();
+        System.out.println("Scene of " + SCENE_VEHICLES + " vehicles: " + bytes / SCENE_VEHICLES + " bytes per sync message, " + bytes * SYNCS_PER_SECOND / SCENE_VEHICLES + " bytes per entity per second");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        encodeBuffer.release();
+        encodedMessage.release();
+    }
+
+    @Benchmark
+    public int encode() {
+        encodeBuffer.clear();
+        EncodedSyncPayload payload = EncodedSyncPayload.encode(vars, false);
+        new MessagePhysicsEntitySync<>(null, 0, Collections.singletonList(payload)).toBytes(encodeBuffer);
+        payload.release();
+        return encodeBuffer.writerIndex();
+    }
+
+    @Benchmark
+    public int decode() {
+        encodedMessage.readerIndex(0);
+        MessagePhysicsEntitySync<?> message = new MessagePhysicsEntitySync<>();
+        message.fromBytes(encodedMessage);
+        int size = message.getVarsToRead().size();
+        ((PooledHashMap<?, ?>) message.getVarsToRead()).release();
+        return size;
+    }
+}
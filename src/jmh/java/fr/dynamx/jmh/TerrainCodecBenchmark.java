@@ -0,0 +1,74 @@
+package fr.dynamx.jmh;
+
+import com.jme3.bullet.NativePhysicsObject;
+import fr.dynamx.api.physics.terrain.ITerrainElement;
+import fr.dynamx.common.physics.terrain.cache.TerrainCodec;
+import fr.dynamx.common.physics.terrain.computing.TerrainCollisionsCalculator;
+import fr.dynamx.jmh.fixture.Fixtures;
+import fr.dynamx.utils.debug.Profiler;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding of the collisions of a chunk, done when a chunk is saved in the terrain files, loaded from them, or sent to a client <br>
+ * Compares the {@link TerrainCodec} with the legacy java serialization format
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TerrainCodecBenchmark {
+    /**
+     * The generated terrain, see {@link Fixtures#createTerrainWorld(String, long)}
+     */
+    @Param({"flat", "hills", "mixed"})
+    public String terrain;
+    @Param({"DISK", "NETWORK"})
+    public ITerrainElement.TerrainSaveType saveType;
+
+    private List<ITerrainElement> elements;
+    private byte[] encoded;
+    private byte[] encodedLegacy;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        Fixtures.loadNatives();
+        elements = TerrainCollisionsCalculator.computeCollisionFaces(Fixtures.TERRAIN_CHUNK, Fixtures.createTerrainWorld(terrain, 42), Profiler.get(), false);
+        encoded = TerrainCodec.encode(saveType, elements, Fixtures.TERRAIN_CHUNK);
+        encodedLegacy = TerrainCodec.encodeLegacy(saveType, elements);
+        System.out.println("Chunk of " + elements.size() + " elements: " + encoded.length + " bytes with the codec, " + encodedLegacy.length + " bytes with the legacy format");
+    }
+
+    /**
+     * Frees the native meshes of the decoded terrain elements collected during the iteration
+     */
+    @TearDown(Level.Iteration)
+    public void freeMeshes() {
+        System.gc();
+        NativePhysicsObject.freeUnusedObjects();
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return TerrainCodec.encode(saveType, elements, Fixtures.TERRAIN_CHUNK);
+    }
+
+    @Benchmark
+    public List<ITerrainElement> decode() throws Exception {
+        return TerrainCodec.decode(saveType, encoded, Fixtures.TERRAIN_CHUNK, false);
+    }
+
+    @Benchmark
+    public byte[] encodeLegacy() throws Exception {
+        return TerrainCodec.encodeLegacy(saveType, elements);
+    }
+
+    @Benchmark
+    public List<ITerrainElement> decodeLegacy() throws Exception {
+        return TerrainCodec.decodeLegacy(saveType, encodedLegacy, Fixtures.TERRAIN_CHUNK, false);
+    }
+}
@@ -0,0 +1,51 @@
+package fr.dynamx.jmh;
+
+import com.jme3.bullet.NativePhysicsObject;
+import fr.dynamx.api.physics.terrain.ITerrainElement;
+import fr.dynamx.common.physics.terrain.computing.TerrainCollisionsCalculator;
+import fr.dynamx.jmh.fixture.FixtureWorld;
+import fr.dynamx.jmh.fixture.Fixtures;
+import fr.dynamx.utils.debug.Profiler;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Computation of the collisions of a chunk from its blocks, done by the terrain loading thread for each loaded chunk
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TerrainCollisionsBenchmark {
+    /**
+     * The generated terrain, see {@link Fixtures#createTerrainWorld(String, long)}
+     */
+    @Param({"flat", "hills", "mixed"})
+    public String terrain;
+
+    private FixtureWorld world;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Fixtures.loadNatives();
+        world = Fixtures.createTerrainWorld(terrain, 42);
+    }
+
+    /**
+     * Frees the native meshes of the complex terrain elements collected during the iteration
+     */
+    @TearDown(Level.Iteration)
+    public void freeMeshes() {
+        System.gc();
+        NativePhysicsObject.freeUnusedObjects();
+    }
+
+    @Benchmark
+    public List<ITerrainElement> computeCollisionFaces() {
+        return TerrainCollisionsCalculator.computeCollisionFaces(Fixtures.TERRAIN_CHUNK, world, Profiler.get(), false);
+    }
+}
@@ -0,0 +1,192 @@
+package fr.dynamx.jmh.fixture;
+
+import com.jme3.math.Vector3f;
+import fr.dynamx.api.contentpack.object.subinfo.ISubInfoTypeOwner;
+import fr.dynamx.api.contentpack.object.subinfo.SubInfoType;
+import fr.dynamx.api.contentpack.object.subinfo.SubInfoTypeOwner;
+import fr.dynamx.api.contentpack.registry.PackFileProperty;
+import fr.dynamx.api.contentpack.registry.SubInfoTypeEntry;
+import fr.dynamx.common.contentpack.DynamXObjectLoaders;
+import fr.dynamx.common.contentpack.loader.InfoLoader;
+import fr.dynamx.common.contentpack.loader.SubInfoTypesRegistry;
+import fr.dynamx.utils.DynamXConstants;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * A content pack of synthetic objects, loaded with the {@link InfoLoader} like the vehicles of the packs <br>
+ * Each object has a few properties and parts, written in the format of the .dynx files
+ */
+public class FixturePack {
+    /**
+     * The name of the fixture pack, given by its pack_info.dynx file
+     */
+    public static final String PACK_NAME = "BenchPack";
+
+    private static FixturePackLoader loader;
+
+    /**
+     * Creates the loader of the fixture objects, and adds it to the {@link DynamXObjectLoaders} read by the {@link fr.dynamx.common.contentpack.ParallelPackLoader}
+     */
+    public static synchronized FixturePackLoader registerLoader() {
+        if (loader == null) {
+            loader = new FixturePackLoader();
+            DynamXObjectLoaders.getInfoLists().add(loader);
+        }
+        return loader;
+    }
+
+    /**
+     * Creates the files of the pack : its pack_info.dynx file and the given number of object files
+     *
+     * @param files The number of object files
+     * @param parts The number of parts of each object
+     * @return The content of the files, by path in the pack
+     */
+    public static Map<String, byte[]> createPackFiles(int files, int parts, long seed) {
+        Random random = new Random(seed);
+        Map<String, byte[]> pack = new LinkedHashMap<>();
+        pack.put("pack_info.dynx", ("PackName: " + PACK_NAME + "\nPackVersion: 1.0.0\nDcFileVersion: " + DynamXConstants.DC_FILE_VERSION + "\n").getBytes(StandardCharsets.UTF_8));
+        for (int i = 0; i < files; i++)
+            pack.put("vehicles/object_bench_" + i + ".dynx", createObjectFile(i, parts, random).getBytes(StandardCharsets.UTF_8));
+        return pack;
+    }
+
+    /**
+     * Writes the pack in a folder named {@link #PACK_NAME}
+     *
+     * @param directory The directory of the packs
+     * @return The folder of the pack
+     */
+    public static File writePackFolder(File directory, int files, int parts, long seed) throws IOException {
+        File pack = new File(directory, PACK_NAME);
+        for (Map.Entry<String, byte[]> file : createPackFiles(files, parts, seed).entrySet()) {
+            File target = new File(pack, file.getKey());
+            target.getParentFile().mkdirs();
+            Files.write(target.toPath(), file.getValue());
+        }
+        return pack;
+    }
+
+    /**
+     * Writes the pack in a zip file named {@link #PACK_NAME}.zip, the files being in a {@link #PACK_NAME} folder like in the zip packs
+     *
+     * @param directory The directory of the packs
+     * @return The zip file of the pack
+     */
+    public static File writePackZip(File directory, int files, int parts, long seed) throws IOException {
+        File pack = new File(directory, PACK_NAME + ".zip");
+        try (ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(pack)))) {
+            for (Map.Entry<String, byte[]> file : createPackFiles(files, parts, seed).entrySet()) {
+                zip.putNextEntry(new ZipEntry(PACK_NAME + "/" + file.getKey()));
+                zip.write(file.getValue());
+                zip.closeEntry();
+            }
+        }
+        return pack;
+    }
+
+    private static String createObjectFile(int index, int parts, Random random) {
+        StringBuilder builder = new StringBuilder("// DynamX benchmark object\n");
+        builder.append("Name: Bench object ").append(index).append('\n');
+        builder.append("Description: Generated object number ").append(index).append(" of the benchmark pack\n");
+        builder.append("EmptyMass: ").append(500 + random.nextInt(1500)).append('\n');
+        builder.append(String.format(Locale.ROOT, "CenterOfGravityOffset: %.3f %.3f %.3f\n", random.nextFloat() - 0.5f, random.nextFloat() * 0.5f, random.nextFloat() - 0.5f));
+        for (int i = 0; i < parts; i++) {
+            builder.append("Part_").append(i).append("{\n");
+            builder.append(String.format(Locale.ROOT, "    Position: %.3f %.3f %.3f\n", random.nextFloat() * 4 - 2, random.nextFloat(), random.nextFloat() * 6 - 3));
+            builder.append(String.format(Locale.ROOT, "    Scale: %.3f %.3f %.3f\n", 0.5f + random.nextFloat(), 0.5f + random.nextFloat(), 0.5f + random.nextFloat()));
+            builder.append("    PartName: part_").append(i).append('\n');
+            builder.append("}\n");
+        }
+        return builder.toString();
+    }
+
+    /**
+     * The loader of the {@link FixturePackObject}s, using the common format of the .dynx files
+     */
+    public static class FixturePackLoader extends InfoLoader<FixturePackObject> {
+        private FixturePackLoader() {
+            super("object_", FixturePackObject::new, new FixturePackRegistry());
+        }
+
+        @Override
+        public boolean isCompilable() {
+            return true;
+        }
+    }
+
+    /**
+     * The registry of the {@link FixturePackPart}s, matching the "Part_" blocks of the object files
+     */
+    public static class FixturePackRegistry extends SubInfoTypesRegistry<FixturePackObject> {
+        private FixturePackRegistry() {
+            addSubInfoType(new SubInfoTypeEntry<>("part", (owner, name) -> new FixturePackPart(owner, name), false));
+        }
+    }
+
+    public static class FixturePackObject extends SubInfoTypeOwner<FixturePackObject> {
+        private final String packName, name;
+
+        @PackFileProperty(configNames = "Name")
+        private String defaultName;
+        @PackFileProperty(configNames = "Description")
+        private String description;
+        @PackFileProperty(configNames = "EmptyMass")
+        private int emptyMass;
+        @PackFileProperty(configNames = "CenterOfGravityOffset")
+        private Vector3f centerOfMass;
+
+        public FixturePackObject(String packName, String name) {
+            this.packName = packName;
+            this.name = name;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String getPackName() {
+            return packName;
+        }
+    }
+
+    public static class FixturePackPart extends SubInfoType<FixturePackObject> {
+        private final String name;
+
+        @PackFileProperty(configNames = "Position")
+        private Vector3f position;
+        @PackFileProperty(configNames = "Scale")
+        private Vector3f scale;
+        @PackFileProperty(configNames = "PartName")
+        private String partName;
+
+        private FixturePackPart(ISubInfoTypeOwner<FixturePackObject> owner, String name) {
+            super(owner);
+            this.name = name;
+        }
+
+        @Override
+        public void appendTo(FixturePackObject owner) {
+            owner.addSubProperty(this);
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package fr.dynamx.jmh.fixture;
+
+import fr.dynamx.api.contentpack.object.IPartContainer;
+import fr.dynamx.api.contentpack.object.part.BasePart;
+import fr.dynamx.api.contentpack.object.subinfo.ISubInfoType;
+import fr.dynamx.api.contentpack.object.subinfo.ISubInfoTypeOwner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A part container keeping its parts in a list, without index : its searches by type use the default methods of {@link IPartContainer} <br>
+ * Filled with the parts of a vehicle : wheels, seats, doors and shapes
+ */
+public class FixturePartContainer implements IPartContainer<FixturePartContainer> {
+    private final List<BasePart<FixturePartContainer>> parts = new ArrayList<>();
+    private final List<ISubInfoType<FixturePartContainer>> subProperties = new ArrayList<>();
+
+    /**
+     * Creates a container with the given number of parts of each type, ids are given by type like in the packs
+     */
+    public FixturePartContainer(int wheels, int seats, int doors, int shapes) {
+        addParts(wheels, FixtureWheel::new);
+        addParts(seats, FixtureSeat::new);
+        addParts(doors, FixtureDoor::new);
+        addParts(shapes, FixtureShape::new);
+    }
+
+    private void addParts(int count, PartFactory factory) {
+        for (byte i = 0; i < count; i++) {
+            BasePart<FixturePartContainer> part = factory.create(this, "part_" + parts.size());
+            part.setId(i);
+            addPart(part);
+        }
+    }
+
+    @Override
+    public List<BasePart<FixturePartContainer>> getAllParts() {
+        return parts;
+    }
+
+    @Override
+    public void addPart(BasePart<FixturePartContainer> part) {
+        parts.add(part);
+    }
+
+    @Override
+    public void addSubProperty(ISubInfoType<FixturePartContainer> property) {
+        subProperties.add(property);
+    }
+
+    @Override
+    public List<ISubInfoType<FixturePartContainer>> getSubProperties() {
+        return subProperties;
+    }
+
+    @Override
+    public String getName() {
+        return "fixture_vehicle";
+    }
+
+    @Override
+    public String getPackName() {
+        return "dynamx_jmh";
+    }
+
+    private interface PartFactory {
+        BasePart<FixturePartContainer> create(FixturePartContainer owner, String name);
+    }
+
+    public static class FixturePart extends BasePart<FixturePartContainer> {
+        public FixturePart(ISubInfoTypeOwner<FixturePartContainer> owner, String partName) {
+            super(owner, partName);
+        }
+
+        @Override
+        public String getName() {
+            return getPartName();
+        }
+    }
+
+    /**
+     * Interactive parts, like the seats and the doors
+     */
+    public static class FixtureInteractivePart extends FixturePart {
+        public FixtureInteractivePart(ISubInfoTypeOwner<FixturePartContainer> owner, String partName) {
+            super(owner, partName);
+        }
+    }
+
+    public static class FixtureWheel extends FixturePart {
+        public FixtureWheel(ISubInfoTypeOwner<FixturePartContainer> owner, String partName) {
+            super(owner, partName);
+        }
+    }
+
+    public static class FixtureSeat extends FixtureInteractivePart {
+        public FixtureSeat(ISubInfoTypeOwner<FixturePartContainer> owner, String partName) {
+            super(owner, partName);
+        }
+    }
+
+    public static class FixtureDoor extends FixtureInteractivePart {
+        public FixtureDoor(ISubInfoTypeOwner<FixturePartContainer> owner, String partName) {
+            super(owner, partName);
+        }
+    }
+
+    public static class FixtureShape extends FixturePart {
+        public FixtureShape(ISubInfoTypeOwner<FixturePartContainer> owner, String partName) {
+            super(owner, partName);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package fr.dynamx.jmh.fixture;
+
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.init.Blocks;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.*;
+import net.minecraft.world.chunk.IChunkProvider;
+import net.minecraft.world.storage.WorldInfo;
+
+import javax.annotation.Nullable;
+
+/**
+ * A minecraft world without chunks nor save handler, its blocks are stored in an array covering a few chunks <br>
+ * The blocks out of this array are air, there are no tile entities <br>
+ * The minecraft registries must be initialized before, see {@link Fixtures#bootstrapMinecraft()}
+ */
+public class FixtureWorld extends World {
+    private final int minX, minY, minZ;
+    private final int sizeX, sizeY, sizeZ;
+    private final IBlockState[] blocks;
+
+    /**
+     * Creates an empty world covering the given block coordinates (min included, max excluded)
+     */
+    public FixtureWorld(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        super(null, new WorldInfo(new WorldSettings(0, GameType.SURVIVAL, false, false, WorldType.DEFAULT), "dynamx_jmh"), new WorldProviderSurface(), new net.minecraft.profiler.Profiler(), false);
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.sizeX = maxX - minX;
+        this.sizeY = maxY - minY;
+        this.sizeZ = maxZ - minZ;
+        this.blocks = new IBlockState[sizeX * sizeY * sizeZ];
+    }
+
+    private int index(int x, int y, int z) {
+        x -= minX;
+        y -= minY;
+        z -= minZ;
+        if (x < 0 || y < 0 || z < 0 || x >= sizeX || y >= sizeY || z >= sizeZ)
+            return -1;
+        return (y * sizeZ + z) * sizeX + x;
+    }
+
+    public void setBlock(int x, int y, int z, IBlockState state) {
+        int index = index(x, y, z);
+        if (index == -1)
+            throw new IndexOutOfBoundsException("Block " + x + " " + y + " " + z + " out of the fixture world");
+        blocks[index] = state;
+    }
+
+    @Override
+    public IBlockState getBlockState(BlockPos pos) {
+        int index = index(pos.getX(), pos.getY(), pos.getZ());
+        IBlockState state = index == -1 ? null : blocks[index];
+        return state == null ? Blocks.AIR.getDefaultState() : state;
+    }
+
+    @Override
+    public boolean setBlockState(BlockPos pos, IBlockState newState, int flags) {
+        setBlock(pos.getX(), pos.getY(), pos.getZ(), newState);
+        return true;
+    }
+
+    @Override
+    public boolean isAirBlock(BlockPos pos) {
+        return getBlockState(pos).getBlock() == Blocks.AIR;
+    }
+
+    @Nullable
+    @Override
+    public TileEntity getTileEntity(BlockPos pos) {
+        return null;
+    }
+
+    @Override
+    protected IChunkProvider createChunkProvider() {
+        return null;
+    }
+
+    @Override
+    protected boolean isChunkLoaded(int x, int z, boolean allowEmpty) {
+        return true;
+    }
+}
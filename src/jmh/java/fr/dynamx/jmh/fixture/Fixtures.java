@@ -0,0 +1,199 @@
+package fr.dynamx.jmh.fixture;
+
+import com.jme3.math.Quaternion;
+import com.jme3.math.Vector3f;
+import fr.dynamx.api.network.sync.EntityVariable;
+import fr.dynamx.api.network.sync.EntityVariableSerializer;
+import fr.dynamx.api.network.sync.EntityVariableTypes;
+import fr.dynamx.api.network.sync.SynchronizationRules;
+import fr.dynamx.api.network.sync.SynchronizedEntityVariableRegistry;
+import fr.dynamx.common.network.sync.variables.EntityPosVariable;
+import fr.dynamx.common.physics.utils.RigidBodyTransform;
+import fr.dynamx.utils.DynamXConstants;
+import fr.dynamx.utils.VerticalChunkPos;
+import fr.dynamx.utils.physics.NativeEngineInstaller;
+import net.minecraft.block.BlockSlab;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.init.Blocks;
+import net.minecraft.init.Bootstrap;
+
+import java.io.File;
+import java.lang.reflect.Type;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Deterministic fixture data of the benchmarks : generated chunks, obj models and sync states <br>
+ * The same seed always gives the same data, so the results of two runs can be compared
+ */
+public class Fixtures {
+    /**
+     * Id of the {@link EntityPosVariable.EntityPositionData} variable in the sync messages of the fixtures
+     */
+    public static final int POS_VAR_ID = 0;
+    /**
+     * Id of the wheel transforms variable in the sync messages of the fixtures
+     */
+    public static final int WHEELS_VAR_ID = 1;
+    /**
+     * The chunk of the {@link #createTerrainWorld(String, long)} worlds containing the terrain
+     */
+    public static final VerticalChunkPos TERRAIN_CHUNK = new VerticalChunkPos(1, 4, 1);
+
+    private static boolean minecraftBootstrapped, nativesLoaded, serializersRegistered;
+
+    /**
+     * Initializes the minecraft blocks and items registries, needed by the block states
+     */
+    public static synchronized void bootstrapMinecraft() {
+        if (!minecraftBootstrapped) {
+            Bootstrap.register();
+            minecraftBootstrapped = true;
+        }
+    }
+
+    /**
+     * Loads the bullet natives, needed by the terrain meshes <br>
+     * They are downloaded in the DynamX directory of the working directory if they aren't already there
+     */
+    public static synchronized void loadNatives() {
+        if (!nativesLoaded) {
+            File natives = new File(DynamXConstants.RES_DIR_NAME);
+            natives.mkdirs();
+            NativeEngineInstaller.loadLibbulletjme(natives, DynamXConstants.LIBBULLET_VERSION, "Release", "Sp", false);
+            nativesLoaded = true;
+        }
+    }
+
+    /**
+     * Creates a world of 3*3 chunks, containing terrain in the middle chunk {@link #TERRAIN_CHUNK} and its neighbours <br>
+     * Kinds of terrain :
+     * <ul>
+     *     <li>flat : stone, dirt and grass layers</li>
+     *     <li>hills : columns of different heights</li>
+     *     <li>mixed : hills with slabs, stairs, fences, panes and leaves, using the different block collision behaviors</li>
+     * </ul>
+     */
+    public static FixtureWorld createTerrainWorld(String kind, long seed) {
+        bootstrapMinecraft();
+        int baseY = TERRAIN_CHUNK.y << 4;
+        FixtureWorld world = new FixtureWorld((TERRAIN_CHUNK.x - 1) << 4, baseY - 16, (TERRAIN_CHUNK.z - 1) << 4,
+                (TERRAIN_CHUNK.x + 2) << 4, baseY + 32, (TERRAIN_CHUNK.z + 2) << 4);
+        Random random = new Random(seed);
+        boolean flat = "flat".equals(kind);
+        boolean mixed = "mixed".equals(kind);
+        if (!flat && !mixed && !"hills".equals(kind))
+            throw new IllegalArgumentException("Unknown terrain kind " + kind);
+        float phaseX = random.nextFloat() * 6.28f, phaseZ = random.nextFloat() * 6.28f;
+        IBlockState topSlab = Blocks.STONE_SLAB.getDefaultState().withProperty(BlockSlab.HALF, BlockSlab.EnumBlockHalf.TOP);
+        for (int x = (TERRAIN_CHUNK.x - 1) << 4; x < (TERRAIN_CHUNK.x + 2) << 4; x++) {
+            for (int z = (TERRAIN_CHUNK.z - 1) << 4; z < (TERRAIN_CHUNK.z + 2) << 4; z++) {
+                int height = flat ? baseY + 8 : baseY + 6 + Math.round((float) (3 * Math.sin(x * 0.3f + phaseX) + 3 * Math.sin(z * 0.2f + phaseZ)));
+                for (int y = baseY - 16; y < height; y++)
+                    world.setBlock(x, y, z, y < height - 4 ? Blocks.STONE.getDefaultState() : Blocks.DIRT.getDefaultState());
+                world.setBlock(x, height, z, Blocks.GRASS.getDefaultState());
+                if (mixed) {
+                    int r = random.nextInt(16);
+                    IBlockState decoration = r == 0 ? Blocks.STONE_SLAB.getDefaultState() : r == 1 ? topSlab : r == 2 ? Blocks.OAK_STAIRS.getDefaultState()
+                            : r == 3 ? Blocks.OAK_FENCE.getDefaultState() : r == 4 ? Blocks.GLASS_PANE.getDefaultState() : r == 5 ? Blocks.LEAVES.getDefaultState() : null;
+                    if (decoration != null)
+                        world.setBlock(x, height + 1, z, decoration);
+                }
+            }
+        }
+        return world;
+    }
+
+    /**
+     * Generates the content of an obj file : a grid of quads, split in objects using two materials <br>
+     * Has the v, vt, vn, o, usemtl and f lines of the models exported by Blender
+     *
+     * @param objects      The number of objects
+     * @param quadsPerSide The size of the grid of each object
+     */
+    public static String createObjContent(int objects, int quadsPerSide, long seed) {
+        Random random = new Random(seed);
+        StringBuilder builder = new StringBuilder("# DynamX benchmark model\nmtllib model.mtl\n");
+        int verticesPerSide = quadsPerSide + 1;
+        int vertexOffset = 0;
+        for (int o = 0; o < objects; o++) {
+            builder.append("o part_").append(o).append('\n');
+            for (int i = 0; i < verticesPerSide; i++) {
+                for (int j = 0; j < verticesPerSide; j++) {
+                    builder.append(String.format(Locale.ROOT, "v %.6f %.6f %.6f\n", o + i / (float) quadsPerSide, random.nextFloat() * 0.1f, j / (float) quadsPerSide));
+                    builder.append(String.format(Locale.ROOT, "vt %.6f %.6f\n", i / (float) quadsPerSide, j / (float) quadsPerSide));
+                    builder.append(String.format(Locale.ROOT, "vn %.4f %.4f %.4f\n", random.nextFloat() * 0.1f, 1f, random.nextFloat() * 0.1f));
+                }
+            }
+            builder.append("usemtl ").append(o % 2 == 0 ? "body" : "glass").append('\n');
+            for (int i = 0; i < quadsPerSide; i++) {
+                for (int j = 0; j < quadsPerSide; j++) {
+                    int a = vertexOffset + i * verticesPerSide + j + 1;
+                    int b = a + 1, c = a + verticesPerSide + 1, d = a + verticesPerSide;
+                    builder.append("f ").append(a).append('/').append(a).append('/').append(a).append(' ')
+                            .append(b).append('/').append(b).append('/').append(b).append(' ')
+                            .append(c).append('/').append(c).append('/').append(c).append('\n');
+                    builder.append("f ").append(a).append('/').append(a).append('/').append(a).append(' ')
+                            .append(c).append('/').append(c).append('/').append(c).append(' ')
+                            .append(d).append('/').append(d).append('/').append(d).append('\n');
+                }
+            }
+            vertexOffset += verticesPerSide * verticesPerSide;
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Registers the serializers of the fixture sync variables in the {@link SynchronizedEntityVariableRegistry}, like the client does when joining a server
+     */
+    public static synchronized void registerSyncSerializers() {
+        if (!serializersRegistered) {
+            SynchronizedEntityVariableRegistry.getSerializerMap().put(POS_VAR_ID, getSerializer(EntityPosVariable.EntityPositionData.class));
+            SynchronizedEntityVariableRegistry.getSerializerMap().put(WHEELS_VAR_ID, getSerializer(EntityVariableTypes.CustomType.mapType(Byte.class, RigidBodyTransform.class)));
+            serializersRegistered = true;
+        }
+    }
+
+    /**
+     * Creates the synchronized variables of a moving car with four wheels : its position, rotation and velocities, and the transforms of its wheels
+     */
+    public static Map<Integer, EntityVariable<?>> createVehicleSyncState(Random random) {
+        registerSyncSerializers();
+        EntityPosVariable.EntityPositionData pos = new EntityPosVariable.EntityPositionData(true,
+                new Vector3f(random.nextFloat() * 2000 - 1000, 60 + random.nextFloat() * 20, random.nextFloat() * 2000 - 1000), randomRotation(random));
+        pos.getLinearVel().set(random.nextFloat() * 40 - 20, random.nextFloat() * 2 - 1, random.nextFloat() * 40 - 20);
+        pos.getRotationalVel().set(random.nextFloat() * 0.2f - 0.1f, random.nextFloat() * 2 - 1, random.nextFloat() * 0.2f - 0.1f);
+        Map<Byte, RigidBodyTransform> wheels = new HashMap<>();
+        for (byte w = 0; w < 4; w++) {
+            RigidBodyTransform transform = new RigidBodyTransform();
+            transform.getPosition().set(pos.getPosition()).addLocal(w < 2 ? 1 : -1, -0.5f, w % 2 == 0 ? 1.5f : -1.5f);
+            transform.getRotation().set(randomRotation(random));
+            wheels.put(w, transform);
+        }
+        Map<Integer, EntityVariable<?>> vars = new HashMap<>();
+        vars.put(POS_VAR_ID, new FixtureVariable<>("pos", getSerializer(EntityPosVariable.EntityPositionData.class), pos));
+        vars.put(WHEELS_VAR_ID, new FixtureVariable<>("wheels_transforms", getSerializer(EntityVariableTypes.CustomType.mapType(Byte.class, RigidBodyTransform.class)), wheels));
+        return vars;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> EntityVariableSerializer<T> getSerializer(Type type) {
+        return (EntityVariableSerializer<T>) EntityVariableTypes.getSerializerRegistry().get(type);
+    }
+
+    private static Quaternion randomRotation(Random random) {
+        return new Quaternion().fromAngles(random.nextFloat() * 0.2f - 0.1f, random.nextFloat() * 6.28f, random.nextFloat() * 0.2f - 0.1f);
+    }
+
+    /**
+     * A synchronized variable not owned by an entity, initialized with its serializer
+     */
+    private static class FixtureVariable<T> extends EntityVariable<T> {
+        private FixtureVariable(String name, EntityVariableSerializer<T> serializer, T value) {
+            super(SynchronizationRules.SERVER_TO_CLIENTS, value);
+            init(name, serializer);
+        }
+    }
+}
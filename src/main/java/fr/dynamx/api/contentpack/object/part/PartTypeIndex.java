@@ -0,0 +1,77 @@
+package fr.dynamx.api.contentpack.object.part;
+
+import fr.dynamx.api.contentpack.object.IPartContainer;
+import fr.dynamx.api.contentpack.object.subinfo.ISubInfoTypeOwner;
+
+import javax.annotation.Nullable;
+import java.util.*;
+
+/**
+ * Immutable index of the parts of an {@link IPartContainer}, by part type <br>
+ * Each part is indexed with its class and all its super classes and interfaces, so {@link #getPartsByType(Class)} is a single map lookup and doesn't allocate anything. <br>
+ * The parts of each type are also indexed by id, for {@link #getPartByTypeAndId(Class, byte)}. <br>
+ * The index must be rebuilt when parts are added to the container, see {@link fr.dynamx.common.contentpack.type.objects.AbstractItemObject}
+ *
+ * @param <T> The type of the owner of the parts
+ */
+public class PartTypeIndex<T extends ISubInfoTypeOwner<T>> {
+    private final Map<Class<?>, List<BasePart<T>>> partsByType = new IdentityHashMap<>();
+    private final Map<Class<?>, BasePart<T>[]> partsById = new IdentityHashMap<>();
+
+    /**
+     * Builds the index of the given parts, the order of the parts is kept in the lists of each type
+     */
+    public PartTypeIndex(List<BasePart<T>> parts) {
+        Map<Class<?>, List<BasePart<T>>> building = new IdentityHashMap<>();
+        Set<Class<?>> types = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (BasePart<T> part : parts) {
+            types.clear();
+            collectTypes(part.getClass(), types);
+            for (Class<?> type : types)
+                building.computeIfAbsent(type, k -> new ArrayList<>()).add(part);
+        }
+        building.forEach((type, typeParts) -> {
+            partsByType.put(type, Collections.unmodifiableList(Arrays.asList(typeParts.toArray(new BasePart[0]))));
+            int maxId = -1;
+            for (BasePart<T> part : typeParts)
+                maxId = Math.max(maxId, part.getId() & 0xFF);
+            BasePart<T>[] byId = new BasePart[maxId + 1];
+            for (BasePart<T> part : typeParts) {
+                //Like a search in the list, the first part with the id wins
+                if (byId[part.getId() & 0xFF] == null)
+                    byId[part.getId() & 0xFF] = part;
+            }
+            partsById.put(type, byId);
+        });
+    }
+
+    private static void collectTypes(Class<?> type, Set<Class<?>> out) {
+        if (type == null || type == Object.class || !out.add(type))
+            return;
+        collectTypes(type.getSuperclass(), out);
+        for (Class<?> itf : type.getInterfaces())
+            collectTypes(itf, out);
+    }
+
+    /**
+     * @param clazz The class of the parts to return
+     * @param <A>   The type of the parts to return
+     * @return All the parts of the given type, in an unmodifiable list
+     */
+    public <A extends BasePart<T>> List<A> getPartsByType(Class<A> clazz) {
+        List<BasePart<T>> parts = partsByType.get(clazz);
+        return parts == null ? Collections.emptyList() : (List<A>) parts;
+    }
+
+    /**
+     * @param clazz The class of the part to return
+     * @param <A>   The type of the part to return
+     * @return The first part with the given type and the given id (wheel index for example), or null
+     */
+    @Nullable
+    public <A extends BasePart<T>> A getPartByTypeAndId(Class<A> clazz, byte id) {
+        BasePart<T>[] parts = partsById.get(clazz);
+        int index = id & 0xFF;
+        return parts == null || index >= parts.length ? null : (A) parts[index];
+    }
+}
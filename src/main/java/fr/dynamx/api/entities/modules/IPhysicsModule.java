@@ -129,9 +129,24 @@ public interface IPhysicsModule<P extends AbstractEntityPhysicsHandler<?, ?>> ex
     }
 
     /**
-     * Implement this on you module to listen entity physics updates
+     * Implement this on you module to listen entity physics updates <br><br>
+     * <strong>Threading contract : </strong> when the "ParallelEntityTicks" option is enabled, on server side, the pre and post updates of
+     * different entities may be called at the same time, by different worker threads. The updates of one entity are always called by one thread at a time,
+     * and all pre updates are finished before the physics engine tick. <br>
+     * The {@link fr.dynamx.api.events.PhysicsEntityEvent.ServerUpdate} events of the parallel updates are posted by the physics thread, after all the updates of the tick. <br>
+     * A parallel update may only modify its own entity and its physics objects, and use the thread-local pools ({@link fr.dynamx.utils.optimization.Vector3fPool}...).
+     * It must not modify other entities, the minecraft world, or static/shared state. <br>
+     * If your module can't respect this, return true in {@link #requiresPhysicsThread()} : the whole entity will then be updated by the physics thread, after the parallel updates.
      */
     interface IPhysicsUpdateListener {
+        /**
+         * @return True if the updates of this module must be called by the physics thread, and never in parallel of other entities' updates <br>
+         * Default is false, see the threading contract of {@link IPhysicsUpdateListener}
+         */
+        default boolean requiresPhysicsThread() {
+            return false;
+        }
+
         /**
          * Called before ticking the physics world (can be in an external thread) <br>
          * Here you can give the "input" to the physics world, i.e. your controls, your forces, etc
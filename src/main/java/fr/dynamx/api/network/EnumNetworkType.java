@@ -3,5 +3,9 @@ package fr.dynamx.api.network;
 public enum EnumNetworkType {
     VANILLA_TCP,
     DYNAMX_UDP,
-    GLIBY_UDP
+    GLIBY_UDP,
+    /**
+     * Same protocol as {@link #DYNAMX_UDP}, with a Netty server transport (see {@link fr.dynamx.server.network.udp.NettyUdpServerNetworkHandler})
+     */
+    DYNAMX_NETTY_UDP
 }
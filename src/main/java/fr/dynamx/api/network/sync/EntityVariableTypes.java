@@ -196,27 +196,58 @@ public enum EntityVariableTypes {
         }
     }),
     POS(EntityPosVariable.EntityPositionData.class, new EntityVariableSerializer<EntityPosVariable.EntityPositionData>() {
+        /**
+         * Flags of the written fields, only null velocities are omitted (no acknowledged baseline to omit the unchanged fields)
+         */
+        private static final int BODY_ACTIVE = 1, LINEAR_VEL = 2, LINEAR_VEL_FULL = 4, ROTATIONAL_VEL = 8, ROTATIONAL_VEL_FULL = 16;
+        /**
+         * Precision of the fixed-point velocities : 1/128 m/s for linear velocity (up to 256 m/s), 1/1024 rad/s for rotational velocity (up to 32 rad/s)
+         */
+        private static final float LINEAR_VEL_SCALE = 128, ROTATIONAL_VEL_SCALE = 1024;
+
         @Override
         public void writeObject(ByteBuf buf, EntityPosVariable.EntityPositionData object) {
-            buf.writeBoolean(object.isBodyActive());
-            DynamXUtils.writeVector3f(buf, object.getPosition());
-            DynamXUtils.writeQuaternion(buf, object.getRotation());
+            int flags = 0;
             if (object.isBodyActive()) {
+                flags |= BODY_ACTIVE;
+                //Null velocities are not written
+                if (!isZero(object.getLinearVel()))
+                    flags |= DynamXUtils.fitsFixedPoint(object.getLinearVel(), LINEAR_VEL_SCALE) ? LINEAR_VEL : LINEAR_VEL_FULL;
+                if (!isZero(object.getRotationalVel()))
+                    flags |= DynamXUtils.fitsFixedPoint(object.getRotationalVel(), ROTATIONAL_VEL_SCALE) ? ROTATIONAL_VEL : ROTATIONAL_VEL_FULL;
+            }
+            buf.writeByte(flags);
+            DynamXUtils.writeVector3f(buf, object.getPosition());
+            DynamXUtils.writeCompressedQuaternion(buf, object.getRotation());
+            if ((flags & LINEAR_VEL) != 0)
+                DynamXUtils.writeFixedPointVector3f(buf, object.getLinearVel(), LINEAR_VEL_SCALE);
+            else if ((flags & LINEAR_VEL_FULL) != 0)
                 DynamXUtils.writeVector3f(buf, object.getLinearVel());
+            if ((flags & ROTATIONAL_VEL) != 0)
+                DynamXUtils.writeFixedPointVector3f(buf, object.getRotationalVel(), ROTATIONAL_VEL_SCALE);
+            else if ((flags & ROTATIONAL_VEL_FULL) != 0)
                 DynamXUtils.writeVector3f(buf, object.getRotationalVel());
-            }
         }
 
         @Override
         public EntityPosVariable.EntityPositionData readObject(ByteBuf buffer) {
             //TODO PAS COOL NEW
-            EntityPosVariable.EntityPositionData result = new EntityPosVariable.EntityPositionData(buffer.readBoolean(), DynamXUtils.readVector3f(buffer), DynamXUtils.readQuaternion(buffer));
-            if (result.isBodyActive()) {
+            int flags = buffer.readUnsignedByte();
+            EntityPosVariable.EntityPositionData result = new EntityPosVariable.EntityPositionData((flags & BODY_ACTIVE) != 0, DynamXUtils.readVector3f(buffer), DynamXUtils.readCompressedQuaternion(buffer, new Quaternion()));
+            if ((flags & LINEAR_VEL) != 0)
+                DynamXUtils.readFixedPointVector3f(buffer, LINEAR_VEL_SCALE, result.getLinearVel());
+            else if ((flags & LINEAR_VEL_FULL) != 0)
                 result.getLinearVel().set(DynamXUtils.readVector3f(buffer));
+            if ((flags & ROTATIONAL_VEL) != 0)
+                DynamXUtils.readFixedPointVector3f(buffer, ROTATIONAL_VEL_SCALE, result.getRotationalVel());
+            else if ((flags & ROTATIONAL_VEL_FULL) != 0)
                 result.getRotationalVel().set(DynamXUtils.readVector3f(buffer));
-            }
             return result;
         }
+
+        private boolean isZero(Vector3f vector3f) {
+            return vector3f.x == 0 && vector3f.y == 0 && vector3f.z == 0;
+        }
     }),
     WHEELS_STATES(WheelsModule.WheelState[].class, new EntityVariableSerializer<WheelsModule.WheelState[]>() {
         @Override
@@ -279,29 +310,23 @@ public enum EntityVariableTypes {
         //TODO COMPRESSION : opnly keep chest for ragdolls
         @Override
         public void writeObject(ByteBuf buf, Map<Byte, RigidBodyTransform> object) {
-            buf.writeInt(object.size());
+            ByteBufUtils.writeVarInt(buf, object.size(), 2);
             object.forEach((id, transform) -> {
                 buf.writeByte(id);
-                buf.writeFloat(transform.getPosition().x);
-                buf.writeFloat(transform.getPosition().y);
-                buf.writeFloat(transform.getPosition().z);
-
-                buf.writeFloat(transform.getRotation().getX());
-                buf.writeFloat(transform.getRotation().getY());
-                buf.writeFloat(transform.getRotation().getZ());
-                buf.writeFloat(transform.getRotation().getW());
+                DynamXUtils.writeVector3f(buf, transform.getPosition());
+                DynamXUtils.writeCompressedQuaternion(buf, transform.getRotation());
             });
         }
 
         @Override
         public Map<Byte, RigidBodyTransform> readObject(ByteBuf buf) {
             Map<Byte, RigidBodyTransform> currentValue = HashMapPool.get();
-            int size = buf.readInt();
-            for (byte i = 0; i < size; i++) {
+            int size = ByteBufUtils.readVarInt(buf, 2);
+            for (int i = 0; i < size; i++) {
                 byte tr = buf.readByte();
                 RigidBodyTransform transform = new RigidBodyTransform();
                 transform.getPosition().set(buf.readFloat(), buf.readFloat(), buf.readFloat());
-                transform.getRotation().set(buf.readFloat(), buf.readFloat(), buf.readFloat(), buf.readFloat());
+                DynamXUtils.readCompressedQuaternion(buf, transform.getRotation());
                 currentValue.put(tr, transform);
             }
             return currentValue;
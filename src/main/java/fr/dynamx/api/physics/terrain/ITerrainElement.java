@@ -5,12 +5,17 @@ import com.jme3.math.Vector3f;
 import fr.dynamx.common.physics.terrain.chunk.ChunkCollisions;
 import fr.dynamx.common.physics.terrain.element.TerrainElementsFactory;
 import fr.dynamx.utils.VerticalChunkPos;
+import fr.dynamx.utils.DynamXUtils;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.ByteBufOutputStream;
 import net.minecraft.world.World;
 
 import javax.annotation.Nullable;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
 
 /**
  * A TerrainElement is a collision element used by {@link ChunkCollisions} that can be saved in files, then reloaded without computing the collisions again <br>
@@ -39,14 +44,58 @@ public interface ITerrainElement {
     PhysicsRigidBody getBody();
 
     /**
-     * Saves this element into "to"
+     * Saves this element into "to", in the binary format of the {@link fr.dynamx.common.physics.terrain.cache.TerrainCodec} <br>
+     * The default implementation writes the java serialization of {@link #save(TerrainSaveType, ObjectOutputStream)}, prefixed by its length :
+     * override it, with {@link #load(TerrainSaveType, ByteBuf, VerticalChunkPos)}, to use a compact format
+     *
+     * @param type The type of the save, modifying used optimizations
+     * @param to   The buffer to write into
+     * @param pos  Collision position, coordinates can be written relatively to it
+     */
+    default void save(TerrainSaveType type, ByteBuf to, VerticalChunkPos pos) {
+        int lengthIndex = to.writerIndex();
+        to.writeInt(0);
+        try (ObjectOutputStream out = new ObjectOutputStream(new ByteBufOutputStream(to))) {
+            save(type, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to save terrain element " + this, e);
+        }
+        to.setInt(lengthIndex, to.writerIndex() - lengthIndex - 4);
+    }
+
+    /**
+     * Populates this element with collision data, read from "from", in the binary format of the {@link fr.dynamx.common.physics.terrain.cache.TerrainCodec} <br>
+     * The default implementation reads the data written by the default {@link #save(TerrainSaveType, ByteBuf, VerticalChunkPos)}
+     *
+     * @param type The type of the save, modifying used optimizations
+     * @param from The buffer to read from
+     * @param pos  Collision position, useful to restore rigid body position
+     * @return False to cancel element loading
+     */
+    default boolean load(TerrainSaveType type, ByteBuf from, VerticalChunkPos pos) {
+        int length = from.readInt();
+        int end = from.readerIndex() + length;
+        try (ObjectInputStream in = DynamXUtils.getTerrainObjectsIS(new ByteBufInputStream(from, length))) {
+            return load(type, in, pos);
+        } catch (IOException | ClassNotFoundException e) {
+            throw new IllegalStateException("Failed to load terrain element " + this, e);
+        } finally {
+            //The object stream may not read the whole data
+            from.readerIndex(end);
+        }
+    }
+
+    /**
+     * Saves this element into "to", with the java serialization format <br>
+     * Used by the default {@link #save(TerrainSaveType, ByteBuf, VerticalChunkPos)}, and to compare the legacy format with the {@link fr.dynamx.common.physics.terrain.cache.TerrainCodec}
      *
      * @param type The type of the save, modifying used optimizations
      */
     void save(TerrainSaveType type, ObjectOutputStream to) throws IOException;
 
     /**
-     * Populates this element with collision data, read from "from"
+     * Populates this element with collision data, read from "from", with the java serialization format <br>
+     * Used by the default {@link #load(TerrainSaveType, ByteBuf, VerticalChunkPos)}, and to read the terrain data saved by older versions of DynamX
      *
      * @param type The type of the save, modifying used optimizations
      * @param from Data input stream
@@ -36,6 +36,17 @@ public interface ITerrainManager {
      */
     void asyncLoadChunkCollisions(ChunkLoadingTicket ticket);
 
+    /**
+     * Asks for the threaded terrain loader to load this chunk (in another thread) and then hotswap it <br>
+     * The nearest chunks of the requesting entities are loaded first
+     *
+     * @param ticket              The chunk's ticket
+     * @param requesterDistanceSq The squared distance between the chunk and the entity requesting it
+     */
+    default void asyncLoadChunkCollisions(ChunkLoadingTicket ticket, int requesterDistanceSq) {
+        asyncLoadChunkCollisions(ticket);
+    }
+
     /**
      * Called on ChunkEvent.Unload, removes any collision linked to it
      */
@@ -97,6 +108,22 @@ public interface ITerrainManager {
      */
     boolean subscribeToChunk(VerticalChunkPos pos, ChunkLoadingTicket.TicketPriority priority, Profiler profiler);
 
+    /**
+     * Will load the chunk at the given position, depending on the requested priority <br>
+     * If the chunk is already loaded, it will just update the priority <br>
+     * The async loadings of the nearest chunks of the requesting entities are started first
+     *
+     * @param pos                 The position of the chunk
+     * @param priority            The priority of loading
+     * @param requesterDistanceSq The squared distance between the chunk and the entity requesting it
+     * @param profiler            The profiler
+     * @return False if it failed (chunk not loading by Minecraft)
+     * @see IPhysicsTerrainLoader
+     */
+    default boolean subscribeToChunk(VerticalChunkPos pos, ChunkLoadingTicket.TicketPriority priority, int requesterDistanceSq, Profiler profiler) {
+        return subscribeToChunk(pos, priority, profiler);
+    }
+
     /**
      * @return The world associated to this terrain manager
      */
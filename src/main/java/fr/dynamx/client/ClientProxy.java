@@ -36,6 +36,7 @@ import fr.dynamx.utils.client.DynamXRenderUtils;
 import fr.dynamx.utils.errors.DynamXErrorManager;
 import fr.dynamx.utils.optimization.Vector3fPool;
 import net.minecraft.client.Minecraft;
+import net.minecraft.client.multiplayer.ServerData;
 import net.minecraft.client.resources.IResourceManager;
 import net.minecraft.client.resources.SimpleReloadableResourceManager;
 import net.minecraft.util.text.TextComponentTranslation;
@@ -56,6 +57,7 @@ import net.minecraftforge.fml.common.versioning.InvalidVersionSpecificationExcep
 import net.minecraftforge.fml.common.versioning.VersionRange;
 import net.minecraftforge.fml.relauncher.Side;
 
+import java.io.File;
 import java.util.function.Predicate;
 
 public class ClientProxy extends CommonProxy implements ISelectiveResourceReloadListener {
@@ -128,6 +130,15 @@ public class ClientProxy extends CommonProxy implements ISelectiveResourceReload
         return FMLCommonHandler.instance().getMinecraftServerInstance().getEntityWorld();
     }
 
+    @Override
+    public File getTerrainDiskCacheDirectory(World world) {
+        ServerData serverData = Minecraft.getMinecraft().getCurrentServerData();
+        if (serverData == null || Minecraft.getMinecraft().isSingleplayer())
+            return null;
+        String server = serverData.serverIP.toLowerCase().replaceAll("[^a-z0-9.\\-]", "_");
+        return new File(Minecraft.getMinecraft().gameDir, "dynamx/terrain_cache/" + server + "/DIM" + world.provider.getDimension());
+    }
+
     @Override
     public boolean shouldUseBulletSimulation(World world) {
         return super.shouldUseBulletSimulation(world) && world.isRemote;
@@ -8,14 +8,17 @@ import fr.dynamx.api.network.sync.ClientEntityNetHandler;
 import fr.dynamx.api.network.sync.EntityVariable;
 import fr.dynamx.api.network.sync.SimulationHolder;
 import fr.dynamx.api.network.sync.SyncTarget;
+import fr.dynamx.api.network.sync.SynchronizedEntityVariableRegistry;
 import fr.dynamx.common.DynamXContext;
-import fr.dynamx.common.DynamXMain;
 import fr.dynamx.common.entities.BaseVehicleEntity;
 import fr.dynamx.common.entities.PhysicsEntity;
 import fr.dynamx.common.network.packets.MessageWalkingPlayer;
 import fr.dynamx.common.network.sync.MPPhysicsEntitySynchronizer;
 import fr.dynamx.common.network.sync.MessagePhysicsEntitySync;
+import fr.dynamx.common.network.sync.variables.EntityPosVariable;
 import fr.dynamx.common.network.sync.variables.NetworkActivityTracker;
+import fr.dynamx.common.network.sync.variables.SynchronizedEntityVariableSnapshot;
+import fr.dynamx.utils.DynamXConfig;
 import fr.dynamx.utils.debug.Profiler;
 import fr.dynamx.utils.optimization.PooledHashMap;
 import lombok.Getter;
@@ -23,14 +26,27 @@ import lombok.Setter;
 import net.minecraft.entity.player.EntityPlayer;
 import net.minecraftforge.fml.relauncher.Side;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 public class ClientPhysicsEntitySynchronizer<T extends PhysicsEntity<?>> extends MPPhysicsEntitySynchronizer<T> implements ClientEntityNetHandler {
-    private int ticksBeforeNextSync, skippedPacketsCount;
-
     private final List<IVehicleController> controllers = new ArrayList<>();
+    /**
+     * The positions received from the server, played with a small delay when this entity is simulated by the server or by another player
+     */
+    private final EntitySnapshotBuffer snapshotBuffer = new EntitySnapshotBuffer();
+    private final Vector3f interpolatedPos = new Vector3f(), interpolatedLinearVel = new Vector3f(), interpolatedRotationalVel = new Vector3f();
+    private final Quaternion interpolatedRotation = new Quaternion();
+    /**
+     * The other variables of the packets whose position is buffered, applied when the buffer plays their time, so the wheels and the parts stay in sync with the interpolated position <br>
+     * They are applied at most {@link EntitySnapshotBuffer#MAX_PLAYOUT_DELAY} ticks after their reception, even if the buffer doesn't play them (no position received)
+     */
+    private final Deque<DelayedVariables> delayedVariables = new ArrayDeque<>();
 
     private boolean usePhysicsThisTick;
 
@@ -53,35 +69,62 @@ public class ClientPhysicsEntitySynchronizer<T extends PhysicsEntity<?>> extends
     @Override
     protected void onDataReceived(MessagePhysicsEntitySync<T> msg) {
         NetworkActivityTracker.addReceivedVars(entity, msg.getVarsToRead().keySet().stream().map(v -> getSynchronizedVariables().get(v)).collect(Collectors.toList()));
+        if (useInterpolation()) {
+            //The whole snapshot is buffered instead of being applied now
+            SynchronizedEntityVariableSnapshot<?> position = msg.getVarsToRead().remove(SynchronizedEntityVariableRegistry.getSyncVarRegistry().get(entity.synchronizedPosition.getName()));
+            if (position != null) {
+                EntityPosVariable.EntityPositionData data = (EntityPosVariable.EntityPositionData) position.get();
+                snapshotBuffer.addSnapshot(msg.getSimulationTimeClient(), ClientPhysicsSyncManager.simulationTime, data.getPosition(), data.getRotation(), data.getLinearVel(), data.getRotationalVel());
+                setServerPos(data.getPosition());
+                setServerRotation(data.getRotation());
+            }
+            //The other variables are delayed with the position
+            if (!msg.getVarsToRead().isEmpty()) {
+                delayedVariables.add(new DelayedVariables(msg.getSimulationTimeClient(), ClientPhysicsSyncManager.simulationTime, new HashMap<>(msg.getVarsToRead())));
+                msg.getVarsToRead().clear();
+            }
+        }
+    }
+
+    /**
+     * Applies the delayed variables played by the snapshot buffer, or received too long ago
+     *
+     * @param all True to apply all the delayed variables
+     */
+    private void applyDelayedVariables(boolean all) {
+        float playoutTime = snapshotBuffer.getPlayoutTime();
+        DelayedVariables vars;
+        while ((vars = delayedVariables.peek()) != null) {
+            int age = ClientPhysicsSyncManager.simulationTime - vars.localTime;
+            //A negative age means that the local time was reset
+            if (!all && vars.serverTime > playoutTime && age >= 0 && age < EntitySnapshotBuffer.MAX_PLAYOUT_DELAY)
+                break;
+            delayedVariables.poll();
+            vars.variables.forEach((key, value) -> ((SynchronizedEntityVariableSnapshot<Object>) value).updateVariable(tryGetVariable(key)));
+        }
+    }
+
+    /**
+     * @return True if the received positions should be interpolated : when this entity is simulated by the server or by another player
+     */
+    private boolean useInterpolation() {
+        return DynamXConfig.interpolateRemoteEntities && !getSimulationHolder().ownsPhysics(Side.CLIENT) && entity.physicsHandler != null;
     }
 
     @Override
     public void onPrePhysicsTick(Profiler profiler) {
         controllers.forEach(IVehicleController::update);
-        if (getSimulationHolder().ownsPhysics(Side.CLIENT) || true) {
-            //System.out.println("Read " + entity.ticksExisted);
-            readReceivedPackets();
-            usePhysicsThisTick = true;
-        } else if (!getSimulationHolder().ownsPhysics(Side.CLIENT)) {
-            ticksBeforeNextSync--; //Interpolation var
-            if (skippedPacketsCount > 0)
-                skippedPacketsCount--;
-            //System.out.println("Read " + entity.ticksExisted);
-            if (ticksBeforeNextSync <= 0) //We finished the interpolation so take a new packet !
-            {
-                if (!getReceivedPackets().isEmpty()) {
-                    readReceivedPackets();
-                    ticksBeforeNextSync = entity.getSyncTickRate();
-                    usePhysicsThisTick = DynamXMain.proxy.ownsSimulation(entity);
-                } else //We have no packets so use prediction
-                {
-                    usePhysicsThisTick = true;
-                    //entity.updatePos();
-                }
-            } else if (ticksBeforeNextSync > 0) {//We have a new pos, so interpolate
-                //todo getInputSyncVars().forEach((i, v) -> v.interpolate(entity, this, profiler, null, ticksBeforeNextSync));
-                usePhysicsThisTick = DynamXMain.proxy.ownsSimulation(entity);
-            }
+        //System.out.println("Read " + entity.ticksExisted);
+        readReceivedPackets();
+        usePhysicsThisTick = true;
+        if (useInterpolation()) {
+            if (snapshotBuffer.sample(ClientPhysicsSyncManager.simulationTime, interpolatedPos, interpolatedRotation, interpolatedLinearVel, interpolatedRotationalVel))
+                entity.physicsHandler.updatePhysicsState(interpolatedPos, interpolatedRotation, interpolatedLinearVel, interpolatedRotationalVel);
+            applyDelayedVariables(false);
+        } else if (snapshotBuffer.size() > 0 || !delayedVariables.isEmpty()) {
+            //We now simulate this entity
+            snapshotBuffer.clear();
+            applyDelayedVariables(true);
         }
         entity.prePhysicsUpdateWrapper(profiler, usePhysicsThisTick);
 
@@ -146,4 +189,16 @@ public class ClientPhysicsEntitySynchronizer<T extends PhysicsEntity<?>> extends
     public List<IVehicleController> getControllers() {
         return controllers;
     }
+
+    private static class DelayedVariables {
+        private final int serverTime;
+        private final int localTime;
+        private final Map<Integer, SynchronizedEntityVariableSnapshot<?>> variables;
+
+        private DelayedVariables(int serverTime, int localTime, Map<Integer, SynchronizedEntityVariableSnapshot<?>> variables) {
+            this.serverTime = serverTime;
+            this.localTime = localTime;
+            this.variables = variables;
+        }
+    }
 }
@@ -1,5 +1,6 @@
 package fr.dynamx.client.network;
 
+import fr.dynamx.client.network.udp.UdpLinkStats;
 import fr.dynamx.common.DynamXContext;
 import fr.dynamx.common.network.packets.MessagePing;
 import net.minecraft.client.Minecraft;
@@ -8,6 +9,14 @@ public class ClientPhysicsSyncManager {
     public static int simulationTime;
     public static int pingMs = -1;
     public static long lastPing;
+    /**
+     * Loss and round-trip time of the udp connection
+     */
+    public static final UdpLinkStats linkStats = new UdpLinkStats();
+    /**
+     * Loss rate above which the connection is considered bad
+     */
+    private static final float BAD_LOSS_RATE = 0.05f;
 
     public static void tick() {
         if (!Minecraft.getMinecraft().isSingleplayer()) {
@@ -21,10 +30,14 @@ public class ClientPhysicsSyncManager {
     }
 
     public static String getPingMessage() {
-        return pingMs >= 80 ? pingMs + " ms" : "";
+        String message = pingMs >= 80 ? pingMs + " ms" : "";
+        float lossRate = linkStats.getLossRate();
+        if (lossRate >= BAD_LOSS_RATE)
+            message += (message.isEmpty() ? "" : ", ") + Math.round(lossRate * 100) + "% loss";
+        return message;
     }
 
     public static boolean hasBadConnection() {
-        return pingMs >= 80 || pingMs == -2;
+        return pingMs >= 80 || pingMs == -2 || linkStats.getLossRate() >= BAD_LOSS_RATE;
     }
 }
@@ -0,0 +1,245 @@
+package fr.dynamx.client.network;
+
+import com.jme3.math.Quaternion;
+import com.jme3.math.Vector3f;
+import fr.dynamx.utils.maths.DynamXMath;
+
+/**
+ * Jitter buffer of the positions of an entity received from the server, used to move the entities simulated by the server or by other players without snapping to each received position <br>
+ * The snapshots are played with a delay adapting to the interval between the snapshots and to the network jitter. The position is interpolated between the two snapshots around the playout time, with a cubic Hermite spline using the synced velocities. When the next snapshot is late, the position is extrapolated from the last one, for at most {@link #MAX_EXTRAPOLATION} ticks. <br>
+ * The times are in ticks : the server times are the times of the sync packets, and the local times are given by {@link ClientPhysicsSyncManager#simulationTime}. This class doesn't depend on the game, so it can be tested alone.
+ *
+ * @see ClientPhysicsEntitySynchronizer
+ */
+public class EntitySnapshotBuffer {
+    private static final int CAPACITY = 16;
+    /**
+     * Bounds of the playout delay, in ticks
+     */
+    public static final float MIN_PLAYOUT_DELAY = 1, MAX_PLAYOUT_DELAY = 10;
+    /**
+     * Maximum extrapolation after the last snapshot, in ticks
+     */
+    public static final float MAX_EXTRAPOLATION = 5;
+    /**
+     * Difference between the expected and the actual arrival time of a snapshot, in ticks, above which the clocks are synchronized again
+     */
+    private static final float RESYNC_THRESHOLD = 20;
+    private static final float SMOOTHING = 0.1f;
+    /**
+     * Maximum speed-up or slow-down of the playout clock to follow the playout delay, avoids visible accelerations of the entity
+     */
+    private static final float MAX_TIME_SCALE = 0.1f;
+
+    /**
+     * The snapshots, sorted by server time
+     */
+    private final Snapshot[] snapshots = new Snapshot[CAPACITY];
+    private int count;
+
+    private boolean clockSynced;
+    /**
+     * Smoothed difference between the local time and the server time of the received snapshots
+     */
+    private float clockOffset;
+    /**
+     * Smoothed deviation of the arrival times of the snapshots
+     */
+    private float jitter;
+    /**
+     * Smoothed interval between two snapshots, in server ticks
+     */
+    private float interval = 1;
+    private float lastPlayoutTime = Float.NEGATIVE_INFINITY;
+    private float lastSampleTime = Float.NEGATIVE_INFINITY;
+    private float lastLocalTime = Float.NEGATIVE_INFINITY;
+
+    public EntitySnapshotBuffer() {
+        for (int i = 0; i < CAPACITY; i++)
+            snapshots[i] = new Snapshot();
+    }
+
+    /**
+     * Adds a received snapshot, the given vectors are copied
+     *
+     * @param serverTime    The time of the sync packet
+     * @param localTime     The local time when the packet was received
+     * @param position      The position of the entity
+     * @param rotation      The rotation of the entity
+     * @param linearVel     The linear velocity of the entity, in blocks per second
+     * @param rotationalVel The angular velocity of the entity
+     */
+    public void addSnapshot(int serverTime, float localTime, Vector3f position, Quaternion rotation, Vector3f linearVel, Vector3f rotationalVel) {
+        float offset = localTime - serverTime;
+        if (!clockSynced || Math.abs(offset - clockOffset) > RESYNC_THRESHOLD || localTime < lastLocalTime) {
+            //First snapshot, or the clocks were reset
+            clear();
+            clockSynced = true;
+            clockOffset = offset;
+        } else {
+            float deviation = offset - clockOffset;
+            jitter += (Math.abs(deviation) - jitter) * SMOOTHING;
+            clockOffset += deviation * SMOOTHING;
+            if (count > 0 && serverTime > snapshots[count - 1].time)
+                interval += (serverTime - snapshots[count - 1].time - interval) * SMOOTHING;
+        }
+        lastLocalTime = localTime;
+        if (count > 0 && serverTime <= lastPlayoutTime && serverTime < snapshots[0].time)
+            return; //Too late, and older than the played snapshots
+        int index = count;
+        while (index > 0 && snapshots[index - 1].time > serverTime)
+            index--;
+        Snapshot snapshot;
+        if (index > 0 && snapshots[index - 1].time == serverTime) {
+            snapshot = snapshots[index - 1]; //Duplicated snapshot : keep the newest
+        } else {
+            if (count == CAPACITY) {
+                if (index == 0)
+                    return; //Older than all the buffered snapshots
+                //Drop the oldest snapshot
+                Snapshot oldest = snapshots[0];
+                System.arraycopy(snapshots, 1, snapshots, 0, CAPACITY - 1);
+                snapshots[CAPACITY - 1] = oldest;
+                count--;
+                index--;
+            }
+            snapshot = snapshots[count];
+            System.arraycopy(snapshots, index, snapshots, index + 1, count - index);
+            snapshots[index] = snapshot;
+            count++;
+        }
+        snapshot.time = serverTime;
+        snapshot.position.set(position);
+        snapshot.rotation.set(rotation);
+        snapshot.linearVel.set(linearVel);
+        snapshot.rotationalVel.set(rotationalVel);
+    }
+
+    /**
+     * Computes the state of the entity to show at the given local time
+     *
+     * @param localTime     The current local time
+     * @param position      Set to the position of the entity
+     * @param rotation      Set to the rotation of the entity
+     * @param linearVel     Set to the linear velocity of the entity
+     * @param rotationalVel Set to the angular velocity of the entity
+     * @return False if there is no snapshot
+     */
+    public boolean sample(float localTime, Vector3f position, Quaternion rotation, Vector3f linearVel, Vector3f rotationalVel) {
+        if (count == 0)
+            return false;
+        if (localTime < lastLocalTime) {
+            //The local time was reset
+            clear();
+            return false;
+        }
+        float targetTime = localTime - clockOffset - getPlayoutDelay();
+        float time;
+        if (lastSampleTime == Float.NEGATIVE_INFINITY) {
+            time = targetTime;
+        } else {
+            //Follow the local clock, slightly faster or slower to catch up the target time
+            float elapsed = localTime - lastSampleTime;
+            float error = targetTime - (lastPlayoutTime + elapsed);
+            if (Math.abs(error) > MAX_PLAYOUT_DELAY)
+                time = targetTime;
+            else
+                time = lastPlayoutTime + elapsed + Math.max(-MAX_TIME_SCALE * elapsed, Math.min(MAX_TIME_SCALE * elapsed, error));
+        }
+        //Never go back in time
+        time = Math.max(time, lastPlayoutTime);
+        lastPlayoutTime = time;
+        lastSampleTime = localTime;
+        //Keep only one snapshot before the playout time
+        while (count >= 2 && snapshots[1].time <= time)
+            removeFirst();
+        Snapshot from = snapshots[0];
+        if (time <= from.time) {
+            position.set(from.position);
+            rotation.set(from.rotation);
+            linearVel.set(from.linearVel);
+            rotationalVel.set(from.rotationalVel);
+        } else if (count == 1) {
+            //Late snapshot : extrapolate
+            float dt = Math.min(time - from.time, MAX_EXTRAPOLATION) / 20;
+            position.set(from.linearVel).multLocal(dt).addLocal(from.position);
+            rotation.set(from.rotation);
+            linearVel.set(from.linearVel);
+            rotationalVel.set(from.rotationalVel);
+        } else {
+            Snapshot to = snapshots[1];
+            float duration = to.time - from.time;
+            float s = (time - from.time) / duration;
+            hermite(from, to, s, duration / 20, position);
+            DynamXMath.slerp(s, from.rotation, to.rotation, rotation);
+            linearVel.set(from.linearVel).interpolateLocal(to.linearVel, s);
+            rotationalVel.set(from.rotationalVel).interpolateLocal(to.rotationalVel, s);
+        }
+        return true;
+    }
+
+    /**
+     * Cubic Hermite interpolation of the positions, with the velocities as tangents
+     *
+     * @param s        The interpolation factor, between 0 and 1
+     * @param duration The duration between the two snapshots, in seconds
+     */
+    private static void hermite(Snapshot from, Snapshot to, float s, float duration, Vector3f result) {
+        float s2 = s * s, s3 = s2 * s;
+        float h00 = 2 * s3 - 3 * s2 + 1;
+        float h10 = (s3 - 2 * s2 + s) * duration;
+        float h01 = -2 * s3 + 3 * s2;
+        float h11 = (s3 - s2) * duration;
+        result.set(from.position.x * h00 + from.linearVel.x * h10 + to.position.x * h01 + to.linearVel.x * h11,
+                from.position.y * h00 + from.linearVel.y * h10 + to.position.y * h01 + to.linearVel.y * h11,
+                from.position.z * h00 + from.linearVel.z * h10 + to.position.z * h01 + to.linearVel.z * h11);
+    }
+
+    private void removeFirst() {
+        Snapshot first = snapshots[0];
+        System.arraycopy(snapshots, 1, snapshots, 0, count - 1);
+        snapshots[--count] = first;
+    }
+
+    /**
+     * @return The delay between the reception and the playout of the snapshots, in ticks
+     */
+    public float getPlayoutDelay() {
+        return Math.max(MIN_PLAYOUT_DELAY, Math.min(MAX_PLAYOUT_DELAY, interval + 2 * jitter));
+    }
+
+    /**
+     * @return The server time played by the last {@link #sample(float, Vector3f, Quaternion, Vector3f, Vector3f)}, or negative infinity if nothing was played since the last reset
+     */
+    public float getPlayoutTime() {
+        return lastPlayoutTime;
+    }
+
+    /**
+     * @return The number of buffered snapshots
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Removes all snapshots, the clocks will be synchronized again with the next snapshot
+     */
+    public void clear() {
+        count = 0;
+        clockSynced = false;
+        jitter = 0;
+        interval = 1;
+        lastPlayoutTime = Float.NEGATIVE_INFINITY;
+        lastSampleTime = Float.NEGATIVE_INFINITY;
+        lastLocalTime = Float.NEGATIVE_INFINITY;
+    }
+
+    private static class Snapshot {
+        private int time;
+        private final Vector3f position = new Vector3f();
+        private final Quaternion rotation = new Quaternion();
+        private final Vector3f linearVel = new Vector3f();
+        private final Vector3f rotationalVel = new Vector3f();
+    }
+}
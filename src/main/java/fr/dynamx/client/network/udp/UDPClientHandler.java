@@ -1,12 +1,13 @@
 package fr.dynamx.client.network.udp;
 
+import fr.dynamx.client.network.ClientPhysicsSyncManager;
 import fr.dynamx.common.DynamXMain;
 import fr.dynamx.common.network.udp.CommandUdp;
 import fr.dynamx.common.network.udp.EncapsulatedUDPPacket;
+import fr.dynamx.common.network.udp.UdpFraming;
 import fr.dynamx.utils.DynamXConfig;
 import fr.dynamx.utils.optimization.UDPByteArrayPool;
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.Unpooled;
 import net.minecraft.client.Minecraft;
 import net.minecraft.util.text.TextComponentString;
 import net.minecraftforge.fml.common.network.ByteBufUtils;
@@ -14,9 +15,13 @@ import net.minecraftforge.fml.common.network.ByteBufUtils;
 import java.util.concurrent.LinkedBlockingQueue;
 
 public class UDPClientHandler implements Runnable {
-    final LinkedBlockingQueue<byte[]> packetQueue;
+    /**
+     * The received datagrams, wrapping arrays of the {@link UDPByteArrayPool}
+     */
+    final LinkedBlockingQueue<ByteBuf> packetQueue;
     private final UdpClientNetworkHandler client;
     private final long startTime;
+    private final UdpFrameReader frameReader = new UdpFrameReader(ClientPhysicsSyncManager.linkStats);
 
     UDPClientHandler(UdpClientNetworkHandler client) {
         this.client = client;
@@ -28,8 +33,25 @@ public class UDPClientHandler implements Runnable {
         this.client.handleAuth();
     }
 
-    public void read(byte[] data) {
-        ByteBuf in = Unpooled.wrappedBuffer(data);
+    public void read(ByteBuf datagram) {
+        try {
+            byte id = datagram.readByte();
+            if (id == UdpFraming.FRAME_ID) {
+                frameReader.readFrame(datagram, this::readPacket);
+            } else if (id == UdpFraming.FRAGMENT_ID) {
+                ByteBuf packet = frameReader.readFragment(datagram);
+                if (packet != null)
+                    readPacket(packet);
+            } else {
+                datagram.readerIndex(datagram.readerIndex() - 1);
+                readPacket(datagram);
+            }
+        } finally {
+            UDPByteArrayPool.getINSTANCE().free(datagram.array());
+        }
+    }
+
+    private void readPacket(ByteBuf in) {
         byte id = in.readByte();
 
         if (id == 0)
@@ -47,7 +69,6 @@ public class UDPClientHandler implements Runnable {
             } else
                 throw new IllegalArgumentException("Illegal dynamx packet id " + id);
         }
-        UDPByteArrayPool.getINSTANCE().free(data);
     }
 
     @Override
@@ -4,6 +4,7 @@ import fr.dynamx.api.network.EnumNetworkType;
 import fr.dynamx.api.network.EnumPacketTarget;
 import fr.dynamx.api.network.IDnxNetworkHandler;
 import fr.dynamx.api.network.IDnxPacket;
+import fr.dynamx.client.network.ClientPhysicsSyncManager;
 import fr.dynamx.common.DynamXContext;
 import fr.dynamx.common.DynamXMain;
 import fr.dynamx.common.contentpack.sync.MessagePacksHashs;
@@ -64,11 +65,11 @@ public class UdpClientNetworkHandler implements IDnxNetworkHandler {
             ByteBuf packetBuffer = Unpooled.buffer();
             packetBuffer.writeByte(packet.id());
             packet.write(packetBuffer);
-            byte[] data = packetBuffer.array();
+            int size = packetBuffer.readableBytes();
 
             if (DynamXConfig.udpDebug)
-                DynamXMain.log.info("Send packet with size " + data.length);
-            if (data.length > 512) { //512 is reasonable when sent from client
+                DynamXMain.log.info("Send packet with size " + size);
+            if (size > 512) { //512 is reasonable when sent from client
                 if (warningThreshold == 0)
                     DynamXMain.log.warn("[UDP] Packet with id " + packet.id() + " is too large, reduce the amount of data to 512 bytes at max !");
                 warningThreshold++;
@@ -76,7 +77,7 @@ public class UdpClientNetworkHandler implements IDnxNetworkHandler {
                     warningThreshold = 0;
             }
             try {
-                this.datagramSocket.send(new DatagramPacket(data, data.length, this.address));
+                this.datagramSocket.send(new DatagramPacket(packetBuffer.array(), packetBuffer.arrayOffset() + packetBuffer.readerIndex(), size, this.address));
             } catch (IOException e) {
                 e.printStackTrace();
             }
@@ -87,6 +88,7 @@ public class UdpClientNetworkHandler implements IDnxNetworkHandler {
     @Override
     public boolean start() {
         running = true;
+        ClientPhysicsSyncManager.linkStats.reset();
         this.address = new InetSocketAddress(this.host, this.port);
 
         try {
@@ -112,7 +114,7 @@ public class UdpClientNetworkHandler implements IDnxNetworkHandler {
                 this.datagramSocket.receive(p);
                 if (DynamXConfig.udpDebug)
                     DynamXMain.log.info("Received length " + p.getLength());
-                this.handler.packetQueue.offer(p.getData());
+                this.handler.packetQueue.offer(Unpooled.wrappedBuffer(p.getData(), 0, p.getLength()));
 
                 synchronized (this.handler) {
                     this.handler.notify();
@@ -0,0 +1,113 @@
+package fr.dynamx.client.network.udp;
+
+import fr.dynamx.common.network.udp.UdpFraming;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import net.minecraftforge.fml.common.network.ByteBufUtils;
+
+import javax.annotation.Nullable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Reads the frames and the fragments sent by the server, and reassembles the fragmented packets <br>
+ * Not thread-safe, used by the {@link UDPClientHandler} thread
+ *
+ * @see UdpFraming
+ */
+public class UdpFrameReader {
+    /**
+     * Maximum number of packets being reassembled, the oldest is dropped when a new one arrives
+     */
+    private static final int MAX_PENDING_PACKETS = 16;
+    /**
+     * Time after which an incomplete packet is dropped, in milliseconds
+     */
+    private static final long FRAGMENT_TIMEOUT = 2000;
+
+    private final UdpLinkStats stats;
+    private final Map<Short, FragmentedPacket> pendingPackets = new HashMap<>();
+
+    public UdpFrameReader(UdpLinkStats stats) {
+        this.stats = stats;
+    }
+
+    /**
+     * Reads a frame (after its id)
+     *
+     * @param in            The frame
+     * @param packetHandler Called with each packet of the frame (id and data)
+     */
+    public void readFrame(ByteBuf in, Consumer<ByteBuf> packetHandler) {
+        stats.onDatagramReceived(in.readInt());
+        while (in.isReadable()) {
+            int size = ByteBufUtils.readVarInt(in, 3);
+            packetHandler.accept(in.readSlice(size));
+        }
+    }
+
+    /**
+     * Reads a fragment (after its id), the fragment data is copied
+     *
+     * @param in The fragment
+     * @return The reassembled packet (id and data) if it was its last missing fragment, else null
+     */
+    @Nullable
+    public ByteBuf readFragment(ByteBuf in) {
+        stats.onDatagramReceived(in.readInt());
+        short packetId = in.readShort();
+        int index = in.readUnsignedByte();
+        int count = in.readUnsignedByte();
+        if (index >= count)
+            return null;
+        long now = System.currentTimeMillis();
+        pendingPackets.values().removeIf(packet -> now - packet.creationTime > FRAGMENT_TIMEOUT);
+
+        FragmentedPacket packet = pendingPackets.get(packetId);
+        if (packet == null || packet.fragments.length != count) {
+            if (pendingPackets.size() >= MAX_PENDING_PACKETS)
+                removeOldest();
+            packet = new FragmentedPacket(count, now);
+            pendingPackets.put(packetId, packet);
+        }
+        if (packet.fragments[index] == null) {
+            byte[] data = new byte[in.readableBytes()];
+            in.readBytes(data);
+            packet.fragments[index] = data;
+            packet.received++;
+        }
+        if (packet.received == count) {
+            pendingPackets.remove(packetId);
+            return Unpooled.wrappedBuffer(packet.fragments);
+        }
+        return null;
+    }
+
+    private void removeOldest() {
+        Short oldest = null;
+        long oldestTime = Long.MAX_VALUE;
+        for (Map.Entry<Short, FragmentedPacket> entry : pendingPackets.entrySet()) {
+            if (entry.getValue().creationTime < oldestTime) {
+                oldest = entry.getKey();
+                oldestTime = entry.getValue().creationTime;
+            }
+        }
+        pendingPackets.remove(oldest);
+    }
+
+    public void clear() {
+        pendingPackets.clear();
+    }
+
+    private static class FragmentedPacket {
+        private final byte[][] fragments;
+        private final long creationTime;
+        private int received;
+
+        private FragmentedPacket(int count, long creationTime) {
+            this.fragments = new byte[count][];
+            this.creationTime = creationTime;
+        }
+    }
+}
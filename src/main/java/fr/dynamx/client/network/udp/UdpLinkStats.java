@@ -0,0 +1,116 @@
+package fr.dynamx.client.network.udp;
+
+/**
+ * Statistics of the udp connection with the server : packet loss, measured with the sequence numbers of the received datagrams, and round-trip time, measured with the pings <br>
+ * The round-trip time is smoothed like the TCP retransmission timer (RFC 6298)
+ *
+ * @see fr.dynamx.client.network.ClientPhysicsSyncManager
+ */
+public class UdpLinkStats {
+    /**
+     * Number of expected datagrams used to compute the loss rate
+     */
+    private static final int LOSS_WINDOW = 256;
+    /**
+     * Sequence gap considered as a restart of the server
+     */
+    private static final int MAX_SEQUENCE_GAP = 1 << 16;
+    private static final float RTT_SMOOTHING = 0.125f, RTT_VARIATION_SMOOTHING = 0.25f;
+
+    private boolean started;
+    private int highestSequence;
+    /**
+     * Datagrams expected and received in the current window
+     */
+    private int expected, received;
+    private float lossRate;
+    private long totalReceived, totalLost;
+
+    private float smoothedRtt = -1, rttVariation;
+
+    /**
+     * Called for each received datagram
+     *
+     * @param sequence The sequence number of the datagram
+     */
+    public synchronized void onDatagramReceived(int sequence) {
+        totalReceived++;
+        int delta = sequence - highestSequence;
+        if (!started || Math.abs(delta) > MAX_SEQUENCE_GAP) {
+            started = true;
+            highestSequence = sequence;
+            expected = received = 1;
+            return;
+        }
+        if (delta > 0) {
+            highestSequence = sequence;
+            expected += delta;
+        }
+        //Late datagrams were already expected, duplicated datagrams are very rare
+        received++;
+        if (expected >= LOSS_WINDOW) {
+            int lost = Math.max(0, expected - received);
+            lossRate = (float) lost / expected;
+            totalLost += lost;
+            expected = received = 0;
+        }
+    }
+
+    /**
+     * Called when a ping response is received
+     *
+     * @param rtt The round-trip time, in milliseconds
+     */
+    public synchronized void onRttSample(int rtt) {
+        if (smoothedRtt < 0) {
+            smoothedRtt = rtt;
+            rttVariation = rtt / 2f;
+        } else {
+            rttVariation += (Math.abs(smoothedRtt - rtt) - rttVariation) * RTT_VARIATION_SMOOTHING;
+            smoothedRtt += (rtt - smoothedRtt) * RTT_SMOOTHING;
+        }
+    }
+
+    /**
+     * @return The ratio of datagrams lost in the last {@link #LOSS_WINDOW} datagrams, between 0 and 1
+     */
+    public synchronized float getLossRate() {
+        return lossRate;
+    }
+
+    public synchronized long getTotalReceived() {
+        return totalReceived;
+    }
+
+    public synchronized long getTotalLost() {
+        return totalLost;
+    }
+
+    /**
+     * @return The smoothed round-trip time, in milliseconds, or -1 if not measured yet
+     */
+    public synchronized float getSmoothedRtt() {
+        return smoothedRtt;
+    }
+
+    /**
+     * @return The smoothed variation of the round-trip time, in milliseconds
+     */
+    public synchronized float getRttVariation() {
+        return rttVariation;
+    }
+
+    public synchronized void reset() {
+        started = false;
+        expected = received = 0;
+        lossRate = 0;
+        totalReceived = totalLost = 0;
+        smoothedRtt = -1;
+        rttVariation = 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("rtt=%.0fms (+/-%.0f), loss=%.1f%% (%d lost of %d)", smoothedRtt, rttVariation, lossRate * 100, totalLost, totalReceived + totalLost);
+    }
+}
@@ -18,7 +18,8 @@ public class SkiddingSound extends VehicleSound {
     public void update(DynamXSoundHandler handler) {
         super.update(handler);
         float numSkdding = 0;
-        for (int i = 0; i < vehicleEntity.getPackInfo().getPartsByType(PartWheel.class).size(); i++) {
+        int wheelCount = vehicleEntity.getPackInfo().getPartsByType(PartWheel.class).size();
+        for (int i = 0; i < wheelCount; i++) {
             if (wheelsModule.getSkidInfos()[i] < 0.2f) {
                 numSkdding += 1 - wheelsModule.getSkidInfos()[i];
             }
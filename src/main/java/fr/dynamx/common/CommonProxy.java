@@ -16,6 +16,9 @@ import net.minecraftforge.fml.common.registry.GameRegistry;
 import net.minecraftforge.fml.relauncher.Side;
 import net.minecraftforge.fml.server.FMLServerHandler;
 
+import javax.annotation.Nullable;
+import java.io.File;
+
 import static fr.dynamx.utils.DynamXConstants.ID;
 
 public abstract class CommonProxy {
@@ -44,6 +47,14 @@ public abstract class CommonProxy {
         return FMLServerHandler.instance().getServer().getEntityWorld();
     }
 
+    /**
+     * @return The directory of the client-side disk cache of the terrain of the given world, specific to the current server, or null if not available
+     */
+    @Nullable
+    public File getTerrainDiskCacheDirectory(World world) {
+        return null;
+    }
+
     /**
      * @return True if the bullet physics engine should be used for the world. Always true except for client single player worlds
      */
@@ -23,8 +23,11 @@ import net.minecraftforge.fml.common.FMLCommonHandler;
 import net.minecraftforge.fml.relauncher.Side;
 import net.minecraftforge.fml.relauncher.SideOnly;
 
+import javax.annotation.Nullable;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -72,7 +75,11 @@ public class DynamXContext {
 
     private static final IPhysicsSimulationMode[] physicsSimulationModes = new IPhysicsSimulationMode[]{new PhysicsSimulationModes.FullPhysics(), new PhysicsSimulationModes.FullPhysics()};
 
-    private static final Map<ResourceLocation, DxModelData> DX_MODEL_DATA_CACHE = new HashMap<>();
+    private static final Map<ResourceLocation, DxModelData> DX_MODEL_DATA_CACHE = new ConcurrentHashMap<>();
+    /**
+     * The models being loaded, the other threads needing them wait for the end of their loading
+     */
+    private static final Map<ResourceLocation, CompletableFuture<DxModelData>> DX_MODEL_DATA_LOADING = new ConcurrentHashMap<>();
 
     private static final Map<Integer, IPhysicsWorld> PHYSICS_WORLD_PER_DIMENSION = new HashMap<>();
 
@@ -137,22 +144,59 @@ public class DynamXContext {
         DynamXContext.physicsSimulationModes[side.ordinal()] = physicsSimulationMode;
     }
 
+    /**
+     * Thread-safe : the parts read their position from the models while the packs are parsed by the pack loading workers <br>
+     * The model is parsed out of the cache map, so the parsing doesn't block the threads loading other models
+     *
+     * @return The data of the model, loaded once and cached until the next pack reload
+     */
     public static DxModelData getDxModelDataFromCache(DxModelPath modelPath) {
-        if (DX_MODEL_DATA_CACHE.containsKey(modelPath.getModelPath())) {
-            return DX_MODEL_DATA_CACHE.get(modelPath.getModelPath());
-        } else {
-            DxModelData objModelData = null;
-            switch (modelPath.getFormat()) {
-                case OBJ:
-                    objModelData = new ObjModelData(modelPath);
-                    break;
-                case GLTF:
-                    objModelData = new GltfModelData(modelPath);
-                    break;
+        ResourceLocation path = modelPath.getModelPath();
+        DxModelData data = DX_MODEL_DATA_CACHE.get(path);
+        if (data != null)
+            return data;
+        CompletableFuture<DxModelData> loading = new CompletableFuture<>();
+        CompletableFuture<DxModelData> otherLoading = DX_MODEL_DATA_LOADING.putIfAbsent(path, loading);
+        if (otherLoading != null) {
+            try {
+                return otherLoading.join();
+            } catch (CompletionException e) {
+                //Same exception as the loading thread
+                if (e.getCause() instanceof RuntimeException)
+                    throw (RuntimeException) e.getCause();
+                if (e.getCause() instanceof Error)
+                    throw (Error) e.getCause();
+                throw e;
             }
-            DX_MODEL_DATA_CACHE.put(modelPath.getModelPath(), objModelData);
-            return objModelData;
         }
+        try {
+            //Loaded between the two checks
+            data = DX_MODEL_DATA_CACHE.get(path);
+            if (data == null) {
+                data = loadDxModelData(modelPath);
+                if (data != null)
+                    DX_MODEL_DATA_CACHE.put(path, data);
+            }
+            loading.complete(data);
+            return data;
+        } catch (RuntimeException | Error e) {
+            loading.completeExceptionally(e);
+            throw e;
+        } finally {
+            //After the put : the next threads find the model in the cache
+            DX_MODEL_DATA_LOADING.remove(path, loading);
+        }
+    }
+
+    @Nullable
+    private static DxModelData loadDxModelData(DxModelPath modelPath) {
+        switch (modelPath.getFormat()) {
+            case OBJ:
+                return new ObjModelData(modelPath);
+            case GLTF:
+                return new GltfModelData(modelPath);
+        }
+        return null;
     }
 
     public static Map<ResourceLocation, DxModelData> getDxModelDataCache() {
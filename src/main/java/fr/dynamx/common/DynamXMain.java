@@ -29,6 +29,7 @@ import fr.dynamx.utils.DynamXConfig;
 import fr.dynamx.utils.DynamXConstants;
 import fr.dynamx.utils.DynamXMpsConfig;
 import fr.dynamx.utils.DynamXReflection;
+import fr.dynamx.utils.debug.metrics.DynamXMetrics;
 import fr.dynamx.utils.errors.DynamXErrorManager;
 import fr.dynamx.utils.physics.NativeEngineInstaller;
 import net.minecraft.util.ResourceLocation;
@@ -215,6 +216,7 @@ public class DynamXMain {
     @EventHandler
     public void onServerStarted(FMLServerStartedEvent event) {
         DynamXContext.getNetwork().startNetwork();
+        DynamXMetrics.start();
     }
 
     @Mod.EventHandler
@@ -222,6 +224,7 @@ public class DynamXMain {
         if (DynamXContext.getNetwork() != null) {
             DynamXContext.getNetwork().stopNetwork();
         }
+        DynamXMetrics.stop();
     }
 
     @NetworkCheckHandler
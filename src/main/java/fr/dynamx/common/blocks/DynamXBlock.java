@@ -257,7 +257,7 @@ public class DynamXBlock<T extends BlockObject<?>> extends Block implements IDyn
         } else {
             // This should not happen, but, just in case fallback and clear the block's chunk
             DynamXChunkData data = worldIn.getChunk(pos).getCapability(DynamXChunkDataProvider.DYNAMX_CHUNK_DATA_CAPABILITY, null);
-            data.getBlocksAABB().remove(pos);
+            data.removeBlock(pos);
         }
         super.breakBlock(worldIn, pos, state);
     }
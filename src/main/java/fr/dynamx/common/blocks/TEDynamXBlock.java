@@ -384,7 +384,7 @@ public class TEDynamXBlock extends TileEntity implements IDynamXObject, IPackInf
                 if (!chunks.contains(chunk)) {
                     chunks.add(chunk);
                     DynamXChunkData data = chunk.getCapability(DynamXChunkDataProvider.DYNAMX_CHUNK_DATA_CAPABILITY, null);
-                    Objects.requireNonNull(data).getBlocksAABB().put(this.pos, computeBoundingBox().offset(this.pos));
+                    Objects.requireNonNull(data).addBlock(this.pos, computeBoundingBox().offset(this.pos));
                 }
             }
         }
@@ -409,7 +409,7 @@ public class TEDynamXBlock extends TileEntity implements IDynamXObject, IPackInf
                 if (!chunks.contains(chunk)) {
                     chunks.add(chunk);
                     DynamXChunkData data = chunk.getCapability(DynamXChunkDataProvider.DYNAMX_CHUNK_DATA_CAPABILITY, null);
-                    data.getBlocksAABB().remove(this.pos);
+                    data.removeBlock(this.pos);
                 }
             }
         }
@@ -1,17 +1,193 @@
 package fr.dynamx.common.capability;
 
+import fr.dynamx.utils.optimization.MutableBoundingBox;
 import lombok.Getter;
+import net.minecraft.util.EnumFacing;
 import net.minecraft.util.math.AxisAlignedBB;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.RayTraceResult;
+import net.minecraft.util.math.Vec3d;
 
-import java.util.HashMap;
-import java.util.Map;
+import javax.annotation.Nullable;
+import java.util.*;
 
 /**
  * Holds collisions data of DynamX blocks in each chunk <br>
- * Used for destroy and interaction raytracing
+ * Used for destroy and interaction raytracing, and for the collisions of the entities with the DynamX blocks <br>
+ * The boxes are indexed by 16*16*16 section of the chunk, so the queries only test the boxes of the sections they cross. A box crossing several sections is in each of them. <br>
+ * Large blocks are added in each chunk their box crosses, see TEDynamXBlock#addChunkCollisions
  */
 public class DynamXChunkData {
-    @Getter
+    private static final int SECTIONS = 16;
+
+    private final Map<BlockPos, BlockBox> blocks = new HashMap<>();
     private final Map<BlockPos, AxisAlignedBB> blocksAABB = new HashMap<>();
+    private final Map<BlockPos, AxisAlignedBB> blocksAABBView = Collections.unmodifiableMap(blocksAABB);
+    @SuppressWarnings("unchecked")
+    private final List<BlockBox>[] sections = new List[SECTIONS];
+
+    /**
+     * @return A read-only view of the collision boxes of the DynamX blocks of this chunk, by block position
+     */
+    public Map<BlockPos, AxisAlignedBB> getBlocksAABB() {
+        return blocksAABBView;
+    }
+
+    public boolean isEmpty() {
+        return blocks.isEmpty();
+    }
+
+    /**
+     * Adds or replaces the collision box of a DynamX block
+     *
+     * @param pos The position of the block
+     * @param box The box of the block, in world coordinates
+     */
+    public void addBlock(BlockPos pos, AxisAlignedBB box) {
+        removeBlock(pos);
+        BlockBox block = new BlockBox(pos, box);
+        blocks.put(pos, block);
+        blocksAABB.put(pos, box);
+        for (int i = block.minSection; i <= block.maxSection; i++) {
+            if (sections[i] == null)
+                sections[i] = new ArrayList<>(4);
+            sections[i].add(block);
+        }
+    }
+
+    /**
+     * Adds or replaces the collision boxes of the given DynamX blocks
+     */
+    public void addBlocks(Map<BlockPos, AxisAlignedBB> boxes) {
+        boxes.forEach(this::addBlock);
+    }
+
+    /**
+     * Removes the collision box of a DynamX block, if present
+     *
+     * @return True if the block was present
+     */
+    public boolean removeBlock(BlockPos pos) {
+        BlockBox block = blocks.remove(pos);
+        if (block == null)
+            return false;
+        blocksAABB.remove(pos);
+        for (int i = block.minSection; i <= block.maxSection; i++)
+            sections[i].remove(block);
+        return true;
+    }
+
+    /**
+     * Finds the DynamX block collision box containing the start of the ray, or the closest box crossed by the ray <br>
+     * Used by the world ray trace, once for each chunk crossed by the ray. Only the boxes of the sections crossed by the ray are tested, and no object is created for the missed boxes.
+     *
+     * @param from The start of the ray
+     * @param to   The end of the ray
+     * @return The hit, with the position of the hit block, or null
+     */
+    @Nullable
+    public RayTraceResult rayTraceBlocks(Vec3d from, Vec3d to) {
+        if (blocks.isEmpty())
+            return null;
+        double dx = to.x - from.x, dy = to.y - from.y, dz = to.z - from.z;
+        int minSection = getSection(Math.min(from.y, to.y)), maxSection = getSection(Math.max(from.y, to.y));
+        BlockBox closest = null;
+        double closestDistance = Double.MAX_VALUE;
+        for (int i = minSection; i <= maxSection; i++) {
+            List<BlockBox> section = sections[i];
+            if (section == null)
+                continue;
+            for (int j = 0, size = section.size(); j < size; j++) {
+                BlockBox block = section.get(j);
+                //Tested once, in the first section crossed by both the ray and the box
+                if (Math.max(block.minSection, minSection) != i)
+                    continue;
+                AxisAlignedBB box = block.box;
+                if (box.contains(from))
+                    return new RayTraceResult(new Vec3d(block.pos.getX(), block.pos.getY(), block.pos.getZ()), EnumFacing.NORTH, block.pos);
+                double distance = intersectRay(box, from.x, from.y, from.z, dx, dy, dz);
+                if (distance < closestDistance) {
+                    closestDistance = distance;
+                    closest = block;
+                }
+            }
+        }
+        if (closest == null)
+            return null;
+        RayTraceResult res = closest.box.calculateIntercept(from, to);
+        return res != null ? new RayTraceResult(res.hitVec, res.sideHit, closest.pos) : null;
+    }
+
+    /**
+     * Adds the DynamX blocks intersecting the box to the out list <br>
+     * Only the boxes of the sections crossed by the box are tested, each block is added once
+     *
+     * @param box The searched box, in world coordinates
+     * @param out The list receiving the blocks
+     */
+    public void getBlocksInBox(MutableBoundingBox box, List<BlockBox> out) {
+        if (blocks.isEmpty())
+            return;
+        int minSection = getSection(box.minY), maxSection = getSection(box.maxY);
+        for (int i = minSection; i <= maxSection; i++) {
+            List<BlockBox> section = sections[i];
+            if (section == null)
+                continue;
+            for (int j = 0, size = section.size(); j < size; j++) {
+                BlockBox block = section.get(j);
+                if (Math.max(block.minSection, minSection) == i && box.intersects(block.box))
+                    out.add(block);
+            }
+        }
+    }
+
+    private static int getSection(double y) {
+        return Math.max(0, Math.min(SECTIONS - 1, (int) Math.floor(y) >> 4));
+    }
+
+    /**
+     * Slab test of the ray against the box
+     *
+     * @return The fraction of the ray (0 to 1) where it enters the box, or {@link Double#MAX_VALUE} if it misses it
+     */
+    private static double intersectRay(AxisAlignedBB box, double x, double y, double z, double dx, double dy, double dz) {
+        double tMin = 0, tMax = 1;
+        if (dx != 0) {
+            double t1 = (box.minX - x) / dx, t2 = (box.maxX - x) / dx;
+            tMin = Math.max(tMin, Math.min(t1, t2));
+            tMax = Math.min(tMax, Math.max(t1, t2));
+        } else if (x < box.minX || x > box.maxX)
+            return Double.MAX_VALUE;
+        if (dy != 0) {
+            double t1 = (box.minY - y) / dy, t2 = (box.maxY - y) / dy;
+            tMin = Math.max(tMin, Math.min(t1, t2));
+            tMax = Math.min(tMax, Math.max(t1, t2));
+        } else if (y < box.minY || y > box.maxY)
+            return Double.MAX_VALUE;
+        if (dz != 0) {
+            double t1 = (box.minZ - z) / dz, t2 = (box.maxZ - z) / dz;
+            tMin = Math.max(tMin, Math.min(t1, t2));
+            tMax = Math.min(tMax, Math.max(t1, t2));
+        } else if (z < box.minZ || z > box.maxZ)
+            return Double.MAX_VALUE;
+        return tMin <= tMax ? tMin : Double.MAX_VALUE;
+    }
+
+    /**
+     * The collision box of a DynamX block, and the range of sections it crosses
+     */
+    public static class BlockBox {
+        @Getter
+        private final BlockPos pos;
+        @Getter
+        private final AxisAlignedBB box;
+        private final int minSection, maxSection;
+
+        private BlockBox(BlockPos pos, AxisAlignedBB box) {
+            this.pos = pos;
+            this.box = box;
+            this.minSection = getSection(box.minY);
+            this.maxSection = getSection(box.maxY);
+        }
+    }
 }
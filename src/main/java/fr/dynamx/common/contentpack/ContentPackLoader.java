@@ -3,7 +3,6 @@ package fr.dynamx.common.contentpack;
 import fr.aym.acsguis.api.ACsGuiApi;
 import fr.aym.acslib.api.services.error.ErrorLevel;
 import fr.aym.acslib.api.services.mps.ModProtectionContainer;
-import fr.dynamx.api.contentpack.ContentPackType;
 import fr.dynamx.api.events.ContentPackSystemEvent;
 import fr.dynamx.api.events.EventPhase;
 import fr.dynamx.api.network.sync.SynchronizedEntityVariableRegistry;
@@ -14,10 +13,10 @@ import fr.dynamx.client.handlers.hud.CarController;
 import fr.dynamx.common.DynamXContext;
 import fr.dynamx.common.DynamXMain;
 import fr.dynamx.common.contentpack.loader.InfoList;
-import fr.dynamx.common.contentpack.loader.InfoLoader;
 import fr.dynamx.common.contentpack.loader.SubInfoTypesRegistry;
 import fr.dynamx.common.contentpack.sync.PackSyncHandler;
 import fr.dynamx.common.slopes.GuiSlopesConfig;
+import fr.dynamx.utils.DynamXConfig;
 import fr.dynamx.utils.DynamXConstants;
 import fr.dynamx.utils.DynamXLoadingTasks;
 import fr.dynamx.utils.errors.DynamXErrorManager;
@@ -39,16 +38,9 @@ import net.minecraftforge.fml.relauncher.SideOnly;
 
 import javax.annotation.Nonnull;
 import java.io.*;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.*;
-import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.stream.Stream;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
 
 import static fr.dynamx.common.DynamXMain.log;
 
@@ -213,75 +205,30 @@ public class ContentPackLoader {
 
             MinecraftForge.EVENT_BUS.post(new ContentPackSystemEvent.Load(EventPhase.PRE));
             //List<ModularVehicleInfoBuilder> vehiclesToLoad = new ArrayList<>();
-            int packCount = 0;
-            int errorCount = 0;
+            int packCount;
+            int errorCount;
             String suffix = ".dynx";
-            for (File contentPack : resDir.listFiles()) {
-                if (contentPack.getName().equals("slopes.dynx")) {
-                    if (loadBlocksConfigs)
-                        registerSlopes(new BufferedReader(new InputStreamReader(new FileInputStream(contentPack))));
-                } else if (contentPack.getName().equals("blocks.dynx")) {
-                    if (loadBlocksConfigs)
-                        registerBlockGrip(new BufferedReader(new InputStreamReader(new FileInputStream(contentPack))));
-                } else if (contentPack.isDirectory()) {
-                    // Loading pack, useful for debugging errors
-                    String loadingPack = contentPack.getName();
-                    try {
-                        AtomicReference<PackFile> packInfo = new AtomicReference<>();
-                        List<PackFile> packFiles = new ArrayList<>();
-                        Stream<Path> configs = Files.walk(Paths.get(contentPack.getPath()));
-                        configs.forEach(path -> {
-                            if (path.toString().endsWith(suffix)) {
-                                try {
-                                    PackFile packFile = new PackFile(path.getFileName().toString(), new FileInputStream(path.toFile()));
-                                    if (packFile.getName().endsWith("pack_info.dynx"))
-                                        packInfo.set(packFile);
-                                    else
-                                        packFiles.add(packFile);
-                                } catch (FileNotFoundException e) {
-                                    throw new RuntimeException("Failed to find file " + path, e);
-                                }
-                            }
-                        });
-                        loadPack(loadingPack, contentPack, ContentPackType.FOLDER, suffix, packInfo.get(), packFiles);
-                        packCount++;
-                    } catch (Throwable e) {
-                        //log.error("Content Pack " + loadingPack + " cannot be loaded : ", e);
-                        if (!(e instanceof Exception)) //todo clean
-                            e = new RuntimeException("encapsulated error", e);
-                        DynamXErrorManager.addError(loadingPack, DynamXErrorManager.PACKS_ERRORS, "pack_load_fail", ErrorLevel.FATAL, "loading folder pack", loadingPack, (Exception) e, 800);
-                        errorCount++;
+            PackCache packCache = DynamXConfig.usePackCache ? new PackCache(new File(resDir.getAbsoluteFile().getParentFile(), "DynamXCache/packs")) : null;
+            try (ParallelPackLoader packLoader = new ParallelPackLoader(suffix, isHotReloading, packCache)) {
+                for (File contentPack : resDir.listFiles()) {
+                    if (contentPack.getName().equals("slopes.dynx")) {
+                        if (loadBlocksConfigs)
+                            registerSlopes(new BufferedReader(new InputStreamReader(new FileInputStream(contentPack))));
+                    } else if (contentPack.getName().equals("blocks.dynx")) {
+                        if (loadBlocksConfigs)
+                            registerBlockGrip(new BufferedReader(new InputStreamReader(new FileInputStream(contentPack))));
+                    } else if (contentPack.isDirectory()) {
+                        packLoader.submitFolder(contentPack);
+                    } else if (contentPack.isFile() && (contentPack.getName().endsWith(".zip") || contentPack.getName().endsWith(PACK_FILE_EXTENSION))) {
+                        packLoader.submitArchive(contentPack);
+                    } else if (!contentPack.getName().endsWith(".dll") && !contentPack.getName().endsWith(".so") && !contentPack.getName().endsWith(".dylib")) { //Bullet library files
+                        log.warn("File " + contentPack.getName() + " isn't a valid DynamX content pack file");
                     }
-                } else if (contentPack.isFile() && (contentPack.getName().endsWith(".zip") || contentPack.getName().endsWith(PACK_FILE_EXTENSION))) {
-                    // Loading pack, useful for debugging errors
-                    String loadingPack = contentPack.getName().replace(".zip", "").replace(PACK_FILE_EXTENSION, "");
-                    try {
-                        ZipFile zip = new ZipFile(contentPack);
-                        PackFile packInfo = null;
-                        List<PackFile> packFiles = new ArrayList<>();
-                        Enumeration<? extends ZipEntry> configs = zip.entries();
-                        while (configs.hasMoreElements()) {
-                            ZipEntry config = configs.nextElement();
-                            if (config.getName().endsWith(suffix)) {
-                                PackFile packFile = new PackFile(config.getName().substring(config.getName().lastIndexOf("/") + 1), zip.getInputStream(config));
-                                if (config.getName().endsWith("pack_info.dynx"))
-                                    packInfo = packFile;
-                                else
-                                    packFiles.add(packFile);
-                            }
-                        }
-                        loadPack(loadingPack, contentPack, contentPack.getName().endsWith(".zip") ? ContentPackType.ZIP : ContentPackType.DNXPACK, suffix, packInfo, packFiles);
-                        packCount++;
-                    } catch (Throwable e) {
-                        //log.error("Compressed content Pack " + loadingPack + " cannot be loaded : ", e);
-                        if (!(e instanceof Exception)) //todo clean
-                            e = new RuntimeException("encapsulated error", e);
-                        DynamXErrorManager.addError(loadingPack, DynamXErrorManager.PACKS_ERRORS, "pack_load_fail", ErrorLevel.FATAL, "loading compressed pack", loadingPack, (Exception) e, 800);
-                        errorCount++;
-                    }
-                } else if (!contentPack.getName().endsWith(".dll") && !contentPack.getName().endsWith(".so") && !contentPack.getName().endsWith(".dylib")) { //Bullet library files
-                    log.warn("File " + contentPack.getName() + " isn't a valid DynamX content pack file");
                 }
+                //All packs are registered before the post load
+                packLoader.registerAll();
+                packCount = packLoader.getPackCount();
+                errorCount = packLoader.getErrorCount();
             }
             //Load shapes
             for (InfoList<?> loader : DynamXObjectLoaders.getInfoLists()) {
@@ -305,58 +252,6 @@ public class ContentPackLoader {
         DynamXLoadingTasks.endTask(DynamXLoadingTasks.PACK);
     }
 
-    private static void loadPack(String loadingPack, File contentPack, ContentPackType packType, String suffix, PackFile packInfo, List<PackFile> packFiles) {
-        //Search for real pack name in the pack info
-        String packVersion = "<missing pack info>";
-        PackInfo loadedInfo = packInfo != null ? loadPackInfoFile(loadingPack, suffix, packInfo, contentPack.getName(), packType) : null;
-        if (loadedInfo != null) { // Pack info exists
-            loadingPack = loadedInfo.getFixedPackName();
-            packVersion = loadedInfo.getPackVersion();
-        } else { // Pack info doesn't exist: create a dummy one
-            loadedInfo = new PackInfo(loadingPack, contentPack.getName(), packType).setPackVersion("dummy_info");
-            DynamXErrorManager.addError(loadingPack, DynamXErrorManager.PACKS_ERRORS, "missing_pack_info", ErrorLevel.HIGH, loadedInfo.getName(), "Add a pack_info.dynx file in the pack !", null, 600);
-            DynamXObjectLoaders.PACKS.loadItems(loadedInfo, isHotReloading);
-        }
-        DynamXMain.log.info("Loading " + loadingPack + " version " + packVersion + " (in " + contentPack.getName() + ")");
-        for (PackFile packFile : packFiles) {
-            loadFile(loadingPack, suffix, packFile);
-        }
-    }
-
-    private static PackInfo loadPackInfoFile(String loadingPack, String suffix, PackFile file, String pathName, ContentPackType packType) {
-        try {
-            return DynamXObjectLoaders.PACKS.load(loadingPack, file, isHotReloading, pathName, packType);
-        } catch (FileNotFoundException e) {
-            throw new RuntimeException(e);
-        } catch (Throwable e) {
-            if (!(e instanceof Exception)) //todo clean
-                e = new RuntimeException("encapsulated error", e);
-            DynamXErrorManager.addError(loadingPack, DynamXErrorManager.PACKS_ERRORS, "pack_file_load_error", ErrorLevel.FATAL, file.getName().replace(suffix, ""), null, (Exception) e, 100);
-            return null;
-        }
-    }
-
-    private static void loadFile(String loadingPack, String suffix, PackFile file) {
-        try {
-            String configName = file.getName().substring(0, file.getName().length() - suffix.length()).toLowerCase();
-            boolean loaded = false;
-            for (InfoLoader<?> loader : DynamXObjectLoaders.getInfoLoaders()) {
-                if (loader.load(loadingPack, configName, file, isHotReloading)) {
-                    loaded = true;
-                    break;
-                }
-            }
-            if (!loaded)
-                throw new IllegalArgumentException("Invalid " + suffix + " file name : " + file.getName());
-        } catch (FileNotFoundException e) {
-            throw new RuntimeException(e);
-        } catch (Throwable e) {
-            if (!(e instanceof Exception)) //todo clean
-                e = new RuntimeException("encapsulated error", e);
-            DynamXErrorManager.addError(loadingPack, DynamXErrorManager.PACKS_ERRORS, "pack_file_load_error", ErrorLevel.FATAL, file.getName().replace(suffix, ""), null, (Exception) e, 100);
-        }
-    }
-
     @SideOnly(Side.CLIENT)
     private static void scheduleLanguageRefresh() {
         Minecraft.getMinecraft().addScheduledTask(() -> Minecraft.getMinecraft().getLanguageManager().onResourceManagerReload(Minecraft.getMinecraft().getResourceManager()));
@@ -421,16 +316,28 @@ public class ContentPackLoader {
     }
 
     /**
-     * A DynamX file found in a pack
+     * A DynamX file found in a pack <br>
+     * Its content is kept in memory, so it can be parsed by the pack loading workers, and read later by the {@link fr.dynamx.common.contentpack.loader.LateInfoLoader}s
      */
-    @Getter
     public static class PackFile {
+        @Getter
         private final String name;
-        private final InputStream inputStream;
+        private final byte[] data;
 
-        private PackFile(String name, InputStream inputStream) {
+        PackFile(String name, byte[] data) {
             this.name = name;
-            this.inputStream = inputStream;
+            this.data = data;
+        }
+
+        /**
+         * @return A new stream reading the content of the file
+         */
+        public InputStream getInputStream() {
+            return new ByteArrayInputStream(data);
+        }
+
+        byte[] getData() {
+            return data;
         }
 
         @Override
@@ -438,4 +345,4 @@ public class ContentPackLoader {
             return "PackFile{" + name + '}';
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,178 @@
+package fr.dynamx.common.contentpack;
+
+import fr.dynamx.utils.DynamXConstants;
+import lombok.Getter;
+import net.minecraftforge.fml.common.FMLCommonHandler;
+
+import javax.annotation.Nullable;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import static fr.dynamx.common.DynamXMain.log;
+
+/**
+ * Cache of the compiled content packs, skipping the reading and the parsing of their text files at the next start (see the "UsePackCache" option of the config) <br>
+ * After a load without errors, the files of each pack are written in their compiled form (see {@link fr.dynamx.common.contentpack.loader.InfoLoader#parseCompiled}) in a cache file, with the key of the pack. <br>
+ * The key is the hash of the DynamX files of the pack, of the DynamX version, of the side and of the loaded addons : the cache file is used until one of them changes. <br>
+ * The files of the loaders having their own format are kept as text in the cache file.
+ */
+public class PackCache {
+    private static final int MAGIC = 0x444E5843; //DNXC
+    private static final int FORMAT_VERSION = 2;
+
+    private final File directory;
+    private final byte[] environment;
+
+    /**
+     * @param directory The directory of the cache files
+     */
+    public PackCache(File directory) {
+        this(directory, getEnvironment());
+    }
+
+    /**
+     * @param directory   The directory of the cache files
+     * @param environment The DynamX version, the side and the loaded addons, changing the keys of all packs
+     */
+    public PackCache(File directory, String environment) {
+        this.directory = directory;
+        this.environment = (FORMAT_VERSION + ";" + environment).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String getEnvironment() {
+        StringBuilder environment = new StringBuilder(DynamXConstants.VERSION).append(';').append(FMLCommonHandler.instance().getSide());
+        AddonLoader.getAddons().values().stream().map(addon -> addon.getModId() + ":" + addon.getVersion()).sorted().forEach(addon -> environment.append(';').append(addon));
+        return environment.toString();
+    }
+
+    /**
+     * @return A new digest computing the key of a pack, initialized with the DynamX version, the side and the addons <br>
+     * The files of the pack must then be added, in the order of the pack
+     */
+    public MessageDigest newKeyDigest() {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            digest.update(environment);
+            return digest;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 not supported", e);
+        }
+    }
+
+    private File getCacheFile(String packFileName) {
+        return new File(directory, packFileName + ".dnxc");
+    }
+
+    /**
+     * Reads the cache file of a pack
+     *
+     * @param packFileName The name of the pack file or folder
+     * @param key          The current key of the pack
+     * @return The cached files of the pack, or null if the pack isn't cached or if its key changed
+     */
+    @Nullable
+    public List<CachedFile> read(String packFileName, byte[] key) {
+        File file = getCacheFile(packFileName);
+        if (!file.exists())
+            return null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION)
+                return null;
+            byte[] cachedKey = new byte[in.readUnsignedByte()];
+            in.readFully(cachedKey);
+            if (!Arrays.equals(key, cachedKey))
+                return null;
+            long crc = in.readLong();
+            byte[] payload = new byte[in.readInt()];
+            in.readFully(payload);
+            CRC32 check = new CRC32();
+            check.update(payload);
+            if (check.getValue() != crc) {
+                log.warn("Corrupted pack cache file " + file + ", the pack will be parsed");
+                return null;
+            }
+            DataInputStream data = new DataInputStream(new ByteArrayInputStream(payload));
+            int count = data.readInt();
+            List<CachedFile> files = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String name = data.readUTF();
+                boolean compiled = data.readBoolean();
+                byte[] content = new byte[data.readInt()];
+                data.readFully(content);
+                files.add(new CachedFile(name, compiled, content));
+            }
+            return files;
+        } catch (IOException e) {
+            log.warn("Failed to read the pack cache file " + file + ", the pack will be parsed", e);
+            return null;
+        }
+    }
+
+    /**
+     * Writes the cache file of a pack, replacing the previous one
+     *
+     * @param packFileName The name of the pack file or folder
+     * @param key          The key of the pack
+     * @param files        The files of the pack, in the order of the pack
+     */
+    public void write(String packFileName, byte[] key, List<CachedFile> files) {
+        File file = getCacheFile(packFileName);
+        try {
+            ByteArrayOutputStream payload = new ByteArrayOutputStream();
+            DataOutputStream data = new DataOutputStream(payload);
+            data.writeInt(files.size());
+            for (CachedFile cachedFile : files) {
+                data.writeUTF(cachedFile.name);
+                data.writeBoolean(cachedFile.compiled);
+                data.writeInt(cachedFile.content.length);
+                data.write(cachedFile.content);
+            }
+            data.flush();
+            byte[] bytes = payload.toByteArray();
+            CRC32 crc = new CRC32();
+            crc.update(bytes);
+            directory.mkdirs();
+            //Written next to the cache file, then moved, so a crash never leaves a partial cache file
+            File temp = new File(directory, file.getName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeByte(key.length);
+                out.write(key);
+                out.writeLong(crc.getValue());
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.warn("Failed to write the pack cache file " + file, e);
+        }
+    }
+
+    /**
+     * A file of a cached pack
+     */
+    @Getter
+    public static class CachedFile {
+        private final String name;
+        /**
+         * True if the content is the compiled form of the file, false if it's the text file
+         */
+        private final boolean compiled;
+        private final byte[] content;
+
+        public CachedFile(String name, boolean compiled, byte[] content) {
+            this.name = name;
+            this.compiled = compiled;
+            this.content = content;
+        }
+    }
+}
@@ -0,0 +1,526 @@
+package fr.dynamx.common.contentpack;
+
+import fr.aym.acslib.api.services.error.ErrorLevel;
+import fr.aym.acslib.services.impl.thrload.DynamXThreadedModLoader;
+import fr.dynamx.api.contentpack.ContentPackType;
+import fr.dynamx.api.contentpack.object.subinfo.ISubInfoTypeOwner;
+import fr.dynamx.common.contentpack.loader.InfoLoader;
+import fr.dynamx.utils.DynamXConfig;
+import fr.dynamx.utils.DynamXUtils;
+import fr.dynamx.utils.errors.DynamXErrorManager;
+import lombok.Getter;
+
+import javax.annotation.Nullable;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static fr.dynamx.common.DynamXMain.log;
+
+/**
+ * Loads the content packs on a pool of worker threads (see the "PackLoadingThreads" option of the config) <br>
+ * Each pack is read by a worker, then each of its files is parsed by a worker with {@link InfoLoader#parse(String, String, ContentPackLoader.PackFile)}, without modifying the loaders. <br>
+ * The loading thread then registers the parsed objects, pack by pack and file by file, in the order of a serial loading : the loaded objects are the same.
+ * The errors and registrations done while parsing a file are delayed to the registration of the file, see {@link #runOnRegistration(Runnable)}. <br>
+ * All the packs are registered before the post-load of the loaders, started by the {@link ContentPackLoader}. <br>
+ * The packs loaded without errors are written in the {@link PackCache}, and are read from their compiled form at the next loads. <br>
+ * The files of the loaders overriding {@link InfoLoader#load(String, String, ContentPackLoader.PackFile, boolean)} (added by addons) aren't parsed by the workers : they are loaded with this method when they are registered, and kept as text in the cache.
+ */
+public class ParallelPackLoader implements AutoCloseable {
+    /**
+     * The file parsed by the current thread, receiving the actions delayed to its registration, or null if the current thread isn't parsing a file
+     */
+    private static final ThreadLocal<ParsedFile> parsingFile = new ThreadLocal<>();
+    /**
+     * The loader classes overriding {@link InfoLoader#load(String, String, ContentPackLoader.PackFile, boolean)}, see {@link #overridesLoad(InfoLoader)}
+     */
+    private static final Map<Class<?>, Boolean> customLoadMethods = new ConcurrentHashMap<>();
+
+    private final String suffix;
+    private final boolean hot;
+    private final int threads;
+    private final ExecutorService pool;
+    @Nullable
+    private final PackCache cache;
+    private final Executor executor;
+    private final List<InfoLoader<?>> loaders = DynamXObjectLoaders.getInfoLoaders();
+    private final List<LoadingPack> packs = new ArrayList<>();
+    private final long startTime = System.nanoTime();
+    /**
+     * The number of loaded packs
+     */
+    @Getter
+    private int packCount;
+    /**
+     * The number of packs that couldn't be loaded
+     */
+    @Getter
+    private int errorCount;
+
+    /**
+     * @param suffix The extension of the DynamX files
+     * @param hot    If it's a hot reload
+     * @param cache  The cache of the compiled packs, or null
+     */
+    public ParallelPackLoader(String suffix, boolean hot, @Nullable PackCache cache) {
+        this.suffix = suffix;
+        this.hot = hot;
+        this.cache = cache;
+        int threads = DynamXConfig.packLoadingThreads;
+        if (threads == 0)
+            threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        this.threads = threads;
+        this.pool = threads > 1 ? Executors.newFixedThreadPool(threads, new DynamXThreadedModLoader.DefaultThreadFactory("DnxPackLoader")) : null;
+        //With one thread, the packs are read and parsed on the loading thread, when they are submitted
+        this.executor = pool != null ? pool : Runnable::run;
+    }
+
+    /**
+     * Runs the action now, or, if the current thread is parsing a pack file, when this file is registered by the loading thread <br>
+     * Used by the objects registering other objects while they are parsed : the actions are dropped if the file is refused
+     *
+     * @param action The action to run
+     */
+    public static void runOnRegistration(Runnable action) {
+        ParsedFile file = parsingFile.get();
+        if (file != null)
+            file.actions.add(action);
+        else
+            action.run();
+    }
+
+    /**
+     * Like {@link #runOnRegistration(Runnable)}, but the report is also run if the file is refused as a duplicate <br>
+     * Used for the loading errors : an error found in a shared resource (a model...) is only found by the first file parsing it
+     *
+     * @param report The action reporting the error
+     */
+    public static void reportOnRegistration(Runnable report) {
+        ParsedFile file = parsingFile.get();
+        if (file != null)
+            file.reports.add(report);
+        else
+            report.run();
+    }
+
+    /**
+     * Starts the reading and the parsing of a folder pack
+     */
+    public void submitFolder(File contentPack) {
+        submit(new LoadingPack(contentPack, contentPack.getName(), ContentPackType.FOLDER, "loading folder pack"));
+    }
+
+    /**
+     * Starts the reading and the parsing of a .zip or .dnxpack pack
+     */
+    public void submitArchive(File contentPack) {
+        String loadingPack = contentPack.getName().replace(".zip", "").replace(ContentPackLoader.PACK_FILE_EXTENSION, "");
+        ContentPackType type = contentPack.getName().endsWith(".zip") ? ContentPackType.ZIP : ContentPackType.DNXPACK;
+        submit(new LoadingPack(contentPack, loadingPack, type, "loading compressed pack"));
+    }
+
+    private void submit(LoadingPack pack) {
+        packs.add(pack);
+        pack.future = CompletableFuture.runAsync(() -> {
+            try {
+                read(pack);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            parsePackInfo(pack);
+        }, executor).thenCompose(v -> {
+            CompletableFuture<?>[] files = new CompletableFuture[pack.files.size()];
+            for (int i = 0; i < files.length; i++) {
+                ParsedFile file = pack.files.get(i);
+                files[i] = CompletableFuture.runAsync(() -> parseFile(pack, file, pack.parsedName), executor);
+            }
+            return CompletableFuture.allOf(files);
+        });
+    }
+
+    private void read(LoadingPack pack) throws IOException {
+        long start = System.nanoTime();
+        MessageDigest key = cache != null ? cache.newKeyDigest() : null;
+        if (pack.type == ContentPackType.FOLDER) {
+            List<ContentPackLoader.PackFile> files = new ArrayList<>();
+            try (Stream<Path> configs = Files.walk(pack.file.toPath())) {
+                for (Path path : (Iterable<Path>) configs::iterator) {
+                    if (path.toString().endsWith(suffix)) {
+                        byte[] data = Files.readAllBytes(path);
+                        files.add(new ContentPackLoader.PackFile(path.getFileName().toString(), data));
+                        if (key != null) {
+                            key.update(pack.file.toPath().relativize(path).toString().getBytes(StandardCharsets.UTF_8));
+                            key.update(data);
+                        }
+                    }
+                }
+            }
+            if (!readCache(pack, key))
+                files.forEach(pack::addFile);
+        } else {
+            try (ZipFile zip = new ZipFile(pack.file)) {
+                List<ZipEntry> configs = new ArrayList<>();
+                Enumeration<? extends ZipEntry> entries = zip.entries();
+                while (entries.hasMoreElements()) {
+                    ZipEntry config = entries.nextElement();
+                    if (config.getName().endsWith(suffix)) {
+                        configs.add(config);
+                        //The content is hashed with the crc of the entry, without inflating it
+                        if (key != null)
+                            key.update((config.getName() + ";" + config.getCrc() + ";" + config.getSize()).getBytes(StandardCharsets.UTF_8));
+                    }
+                }
+                if (!readCache(pack, key)) {
+                    for (ZipEntry config : configs)
+                        pack.addFile(new ContentPackLoader.PackFile(config.getName().substring(config.getName().lastIndexOf("/") + 1), DynamXUtils.readInputStream(zip.getInputStream(config))));
+                }
+            }
+        }
+        pack.readTime = System.nanoTime() - start;
+    }
+
+    /**
+     * Adds the files of the cache file of the pack, if its key didn't change
+     *
+     * @return True if the pack was found in the cache
+     */
+    private boolean readCache(LoadingPack pack, @Nullable MessageDigest key) {
+        if (key == null)
+            return false;
+        pack.key = key.digest();
+        List<PackCache.CachedFile> files = cache.read(pack.file.getName(), pack.key);
+        if (files == null)
+            return false;
+        for (PackCache.CachedFile file : files) {
+            if (file.isCompiled())
+                pack.addCompiledFile(file.getName(), file.getContent());
+            else
+                pack.addFile(new ContentPackLoader.PackFile(file.getName(), file.getContent()));
+        }
+        pack.fromCache = true;
+        return true;
+    }
+
+    private void parsePackInfo(LoadingPack pack) {
+        pack.parsedName = pack.loadingPack;
+        if (pack.packInfo == null)
+            return;
+        ParsedFile packInfo = pack.packInfo;
+        packInfo.loader = DynamXObjectLoaders.PACKS;
+        parse(pack, packInfo, () -> {
+            if (packInfo.file == null)
+                return DynamXObjectLoaders.PACKS.parseCompiled(pack.loadingPack, packInfo.openCompiled(), pack.file.getName(), pack.type);
+            return DynamXObjectLoaders.PACKS.parse(pack.loadingPack, packInfo.file, pack.file.getName(), pack.type, packInfo.startCompiling(cache));
+        });
+        //The objects are named with the pack name given in the pack info
+        if (pack.packInfo.info != null)
+            pack.parsedName = ((PackInfo) pack.packInfo.info).getFixedPackName();
+    }
+
+    private void parseFile(LoadingPack pack, ParsedFile parsed, String loadingPack) {
+        String fileName = parsed.name;
+        parsed.configName = fileName.substring(0, fileName.length() - suffix.length()).toLowerCase();
+        parsed.loader = null;
+        parse(pack, parsed, () -> {
+            for (InfoLoader<?> loader : loaders) {
+                if (loader.matches(parsed.configName)) {
+                    parsed.loader = loader;
+                    //Loaded later, on the loading thread, by its own load method
+                    if (parsed.file != null && overridesLoad(loader))
+                        return null;
+                    if (parsed.file == null)
+                        return loader.parseCompiled(loadingPack, parsed.configName, parsed.openCompiled());
+                    return loader.parse(loadingPack, parsed.configName, parsed.file, loader.shouldCompile() ? parsed.startCompiling(cache) : null);
+                }
+            }
+            throw new IllegalArgumentException("Invalid " + suffix + " file name : " + fileName);
+        });
+    }
+
+    /**
+     * @return True if the loader overrides {@link InfoLoader#load(String, String, ContentPackLoader.PackFile, boolean)} : its files are then loaded with this method, on the loading thread, like the serial loading did
+     */
+    private static boolean overridesLoad(InfoLoader<?> loader) {
+        return customLoadMethods.computeIfAbsent(loader.getClass(), c -> {
+            try {
+                return c.getMethod("load", String.class, String.class, ContentPackLoader.PackFile.class, boolean.class).getDeclaringClass() != InfoLoader.class;
+            } catch (NoSuchMethodException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    private static void parse(LoadingPack pack, ParsedFile parsed, Callable<? extends ISubInfoTypeOwner<?>> parser) {
+        long start = System.nanoTime();
+        parsed.info = null;
+        parsed.failure = null;
+        parsed.actions.clear();
+        parsed.reports.clear();
+        parsingFile.set(parsed);
+        try {
+            parsed.info = parser.call();
+            parsed.endCompiling();
+        } catch (Throwable e) {
+            parsed.failure = e;
+        } finally {
+            parsingFile.remove();
+            pack.parseTime.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Waits for the parsing of the submitted packs and registers them, in their submission order <br>
+     * Logs the loading times of each pack
+     */
+    public void registerAll() {
+        long waitTime = 0;
+        for (LoadingPack pack : packs) {
+            long start = System.nanoTime();
+            Throwable failure = null;
+            try {
+                pack.future.join();
+            } catch (CompletionException | CancellationException e) {
+                failure = e.getCause() instanceof UncheckedIOException ? e.getCause().getCause() : e.getCause() != null ? e.getCause() : e;
+            }
+            waitTime += System.nanoTime() - start;
+            start = System.nanoTime();
+            if (failure == null) {
+                try {
+                    register(pack);
+                    packCount++;
+                } catch (Throwable e) {
+                    failure = e;
+                }
+            }
+            if (failure != null) {
+                if (!(failure instanceof Exception)) //todo clean
+                    failure = new RuntimeException("encapsulated error", failure);
+                DynamXErrorManager.addError(pack.loadingPack, DynamXErrorManager.PACKS_ERRORS, "pack_load_fail", ErrorLevel.FATAL, pack.errorStep, pack.loadingPack, (Exception) failure, 800);
+                errorCount++;
+                continue;
+            }
+            log.info("Loaded " + pack.file.getName() + " : " + pack.files.size() + " files read in " + toMillis(pack.readTime) + " ms, parsed in " + toMillis(pack.parseTime.get())
+                    + " ms" + (pack.fromCache ? " from the pack cache" : "") + ", registered in " + toMillis(System.nanoTime() - start) + " ms");
+            if (cache != null && !pack.fromCache && pack.key != null && !hasErrors(pack.loadingPack) && !hasErrors(pack.registeredName))
+                writeCache(pack);
+        }
+        log.info("Read and parsed " + packs.size() + " content packs in " + toMillis(System.nanoTime() - startTime) + " ms with " + threads + " threads (waited " + toMillis(waitTime) + " ms for the workers)");
+    }
+
+    private void register(LoadingPack pack) {
+        //Search for real pack name in the pack info
+        String loadingPack = pack.loadingPack;
+        String packVersion = "<missing pack info>";
+        PackInfo loadedInfo = pack.packInfo != null && registerFile(loadingPack, pack.packInfo) ? (PackInfo) pack.packInfo.info : null;
+        if (loadedInfo != null) { // Pack info exists
+            loadingPack = loadedInfo.getFixedPackName();
+            packVersion = loadedInfo.getPackVersion();
+        } else { // Pack info doesn't exist: create a dummy one
+            loadedInfo = new PackInfo(loadingPack, pack.file.getName(), pack.type).setPackVersion("dummy_info");
+            DynamXErrorManager.addError(loadingPack, DynamXErrorManager.PACKS_ERRORS, "missing_pack_info", ErrorLevel.HIGH, loadedInfo.getName(), "Add a pack_info.dynx file in the pack !", null, 600);
+            DynamXObjectLoaders.PACKS.loadItems(loadedInfo, hot);
+        }
+        log.info("Loading " + loadingPack + " version " + packVersion + " (in " + pack.file.getName() + ")");
+        pack.registeredName = loadingPack;
+        if (!loadingPack.equals(pack.parsedName)) {
+            //The pack info was refused after the parsing of the files with its pack name
+            for (ParsedFile file : pack.files)
+                parseFile(pack, file, loadingPack);
+        }
+        for (ParsedFile file : pack.files)
+            registerFile(loadingPack, file);
+    }
+
+    /**
+     * Registers a parsed file, and runs the actions delayed during its parsing <br>
+     * The reports (errors) are run even if the file is refused
+     *
+     * @return True if the file was registered, false if an error was added
+     */
+    @SuppressWarnings("unchecked")
+    private boolean registerFile(String loadingPack, ParsedFile parsed) {
+        try {
+            InfoLoader<ISubInfoTypeOwner<?>> loader = (InfoLoader<ISubInfoTypeOwner<?>>) parsed.loader;
+            try {
+                if (loader != null)
+                    loader.checkDuplicate(parsed.info, loadingPack, parsed.configName);
+            } finally {
+                parsed.reports.forEach(Runnable::run);
+            }
+            parsed.actions.forEach(Runnable::run);
+            if (parsed.failure != null)
+                throw parsed.failure;
+            if (parsed.file != null && overridesLoad(loader))
+                loader.load(loadingPack, parsed.configName, parsed.file, hot);
+            else
+                loader.register(loadingPack, parsed.configName, parsed.file, parsed.info, hot);
+            return true;
+        } catch (Throwable e) {
+            if (!(e instanceof Exception)) //todo clean
+                e = new RuntimeException("encapsulated error", e);
+            DynamXErrorManager.addError(loadingPack, DynamXErrorManager.PACKS_ERRORS, "pack_file_load_error", ErrorLevel.FATAL, parsed.name.replace(suffix, ""), null, (Exception) e, 100);
+            return false;
+        } finally {
+            //Free the memory of the parsed files
+            parsed.actions.clear();
+            parsed.reports.clear();
+        }
+    }
+
+    private static boolean hasErrors(String pack) {
+        return DynamXErrorManager.getErrorManager().getAllErrors().containsKey(pack) && !DynamXErrorManager.getErrorManager().getAllErrors().get(pack).getErrors().isEmpty();
+    }
+
+    /**
+     * Writes the files of a pack loaded without errors in the cache, on a worker
+     */
+    private void writeCache(LoadingPack pack) {
+        List<PackCache.CachedFile> files = new ArrayList<>(pack.files.size() + 1);
+        if (pack.packInfo != null)
+            files.add(pack.packInfo.toCachedFile());
+        for (ParsedFile file : pack.files)
+            files.add(file.toCachedFile());
+        executor.execute(() -> cache.write(pack.file.getName(), pack.key, files));
+    }
+
+    private static long toMillis(long nanos) {
+        return nanos / 1000000;
+    }
+
+    /**
+     * Stops the worker threads, after the writing of the cache files
+     */
+    @Override
+    public void close() {
+        if (pool == null)
+            return;
+        pool.shutdown();
+        try {
+            //The next load (hot reload) must find the written cache files
+            if (!pool.awaitTermination(1, TimeUnit.MINUTES))
+                log.warn("The pack cache files are still being written");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * A pack being read and parsed
+     */
+    private static class LoadingPack {
+        private final File file;
+        /**
+         * The pack name given by the file name
+         */
+        private final String loadingPack;
+        private final ContentPackType type;
+        private final String errorStep;
+        private final List<ParsedFile> files = new ArrayList<>();
+        private ParsedFile packInfo;
+        /**
+         * The pack name used to parse the files
+         */
+        private String parsedName;
+        /**
+         * The pack name used to register the files
+         */
+        private String registeredName;
+        /**
+         * The key of the pack in the cache, or null
+         */
+        private byte[] key;
+        private boolean fromCache;
+        private CompletableFuture<Void> future;
+        private long readTime;
+        private final AtomicLong parseTime = new AtomicLong();
+
+        private LoadingPack(File file, String loadingPack, ContentPackType type, String errorStep) {
+            this.file = file;
+            this.loadingPack = loadingPack;
+            this.type = type;
+            this.errorStep = errorStep;
+        }
+
+        private void addFile(ContentPackLoader.PackFile file) {
+            add(new ParsedFile(file.getName(), file, null));
+        }
+
+        private void addCompiledFile(String name, byte[] compiled) {
+            add(new ParsedFile(name, null, compiled));
+        }
+
+        private void add(ParsedFile file) {
+            if (file.name.endsWith("pack_info.dynx"))
+                packInfo = file;
+            else
+                files.add(file);
+        }
+    }
+
+    /**
+     * A pack file and the result of its parsing
+     */
+    private static class ParsedFile {
+        private final String name;
+        /**
+         * The text file, or null if the file is read from its compiled form
+         */
+        @Nullable
+        private final ContentPackLoader.PackFile file;
+        private final List<Runnable> actions = new ArrayList<>(0);
+        private final List<Runnable> reports = new ArrayList<>(0);
+        private String configName;
+        private InfoLoader<?> loader;
+        private ISubInfoTypeOwner<?> info;
+        private Throwable failure;
+        /**
+         * The compiled form of the file : read from the cache, or written while parsing the text file
+         */
+        private byte[] compiled;
+        private ByteArrayOutputStream compiling;
+
+        private ParsedFile(String name, @Nullable ContentPackLoader.PackFile file, @Nullable byte[] compiled) {
+            this.name = name;
+            this.file = file;
+            this.compiled = compiled;
+        }
+
+        private DataInput openCompiled() {
+            return new DataInputStream(new ByteArrayInputStream(compiled));
+        }
+
+        /**
+         * @return The output receiving the compiled form of the text file, or null if there is no cache
+         */
+        @Nullable
+        private DataOutput startCompiling(@Nullable PackCache cache) {
+            compiled = null;
+            if (cache == null)
+                return null;
+            compiling = new ByteArrayOutputStream();
+            return new DataOutputStream(compiling);
+        }
+
+        private void endCompiling() {
+            if (compiling != null) {
+                compiled = compiling.toByteArray();
+                compiling = null;
+            }
+        }
+
+        private PackCache.CachedFile toCachedFile() {
+            return compiled != null ? new PackCache.CachedFile(name, true, compiled) : new PackCache.CachedFile(name, false, file.getData());
+        }
+    }
+}
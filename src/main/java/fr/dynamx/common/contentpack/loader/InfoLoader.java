@@ -13,15 +13,13 @@ import fr.dynamx.utils.errors.DynamXErrorManager;
 import lombok.Getter;
 
 import javax.annotation.Nullable;
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.UnsupportedEncodingException;
+import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiFunction;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -39,6 +37,14 @@ public class InfoLoader<T extends ISubInfoTypeOwner<?>> extends InfoList<T> {
      * Optional blocks are blocks depending on addons that don't throw errors and that are ignored when their dependency isn't loaded.
      */
     public static final Predicate<String> optionalDependencyMatcher = s -> s.equals("Op") || s.equals("OptionalDependency");
+    /**
+     * Tokens of the compiled files, see {@link #readCompiledInfo(SubInfoTypesRegistry, DataInput, INamedObject)}
+     */
+    protected static final byte COMPILED_PROPERTY = 0, COMPILED_SUB_PROPERTY = 1, COMPILED_END = 2;
+    /**
+     * Caches if the loader classes override the hooks reading the text files, see {@link #shouldCompile()}
+     */
+    private static final Map<Class<?>, Boolean> customReadHooks = new ConcurrentHashMap<>();
     /**
      * The prefix used to detect associated .dnx files
      * -- GETTER --
@@ -78,7 +84,9 @@ public class InfoLoader<T extends ISubInfoTypeOwner<?>> extends InfoList<T> {
     }
 
     /**
-     * Loads a file, only if the prefix matches with this object
+     * Loads a file, only if the prefix matches with this object <br>
+     * The packs are loaded by the {@link fr.dynamx.common.contentpack.ParallelPackLoader}, calling {@link #parse(String, String, ContentPackLoader.PackFile)} on a worker thread, then {@link #register(String, String, ContentPackLoader.PackFile, ISubInfoTypeOwner, boolean)} on the loading thread <br>
+     * If this method is overridden, the {@link fr.dynamx.common.contentpack.ParallelPackLoader} calls it instead, on the loading thread, and the files of this loader aren't compiled
      *
      * @param loadingPack The pack owning the object
      * @param configName  The object's name
@@ -88,30 +96,132 @@ public class InfoLoader<T extends ISubInfoTypeOwner<?>> extends InfoList<T> {
      * @throws IOException If an error occurs while reading the stream
      */
     public boolean load(String loadingPack, String configName, ContentPackLoader.PackFile file, boolean hot) throws IOException {
-        if (configName.startsWith(prefix)) {
+        if (matches(configName)) {
+            T info = parse(loadingPack, configName, file);
+            checkDuplicate(info, loadingPack, configName);
+            register(loadingPack, configName, file, info, hot);
+            return true;
+        }
+        return false;
+    }
 
-            BufferedReader inputStream = null;
-            try {
-                inputStream = new BufferedReader(new InputStreamReader(file.getInputStream()));
-                T info = assetCreator.create(loadingPack, configName, null);
-                if (infos.containsKey(info.getFullName()))
-                    throw new IllegalArgumentException("Found a duplicated pack file " + configName + " in pack " + loadingPack + " !");
+    /**
+     * @param configName The object's name (file name without extension)
+     * @return True if the file should be loaded by this InfoLoader
+     */
+    public boolean matches(String configName) {
+        return configName.startsWith(prefix);
+    }
+
+    /**
+     * Creates the object and reads its file, without registering it <br>
+     * Called by the pack loading workers : must not modify the state of this loader
+     *
+     * @param loadingPack The pack owning the object
+     * @param configName  The object's name
+     * @param file        The object file
+     * @return The read object, or null if it's read later (see {@link LateInfoLoader})
+     * @throws IOException If an error occurs while reading the stream
+     */
+    @Nullable
+    public T parse(String loadingPack, String configName, ContentPackLoader.PackFile file) throws IOException {
+        return parse(loadingPack, configName, file, null);
+    }
+
+    /**
+     * Creates the object and reads its file, without registering it, and writes the compiled form of the file <br>
+     * Called by the pack loading workers : must not modify the state of this loader
+     *
+     * @param loadingPack The pack owning the object
+     * @param configName  The object's name
+     * @param file        The object file
+     * @param compiled    Receives the compiled form of the file, read by {@link #parseCompiled(String, String, DataInput)}. Ignored if this loader shouldn't be compiled, see {@link #shouldCompile()}
+     * @return The read object, or null if it's read later (see {@link LateInfoLoader})
+     * @throws IOException If an error occurs while reading the stream
+     */
+    @Nullable
+    public T parse(String loadingPack, String configName, ContentPackLoader.PackFile file, @Nullable DataOutput compiled) throws IOException {
+        try (BufferedReader inputStream = new BufferedReader(new InputStreamReader(file.getInputStream()))) {
+            T info = assetCreator.create(loadingPack, configName, null);
+            if (compiled != null && shouldCompile())
+                readInfo(getDefaultSubInfoTypesRegistry(), inputStream, info, compiled);
+            else
                 readInfo(getDefaultSubInfoTypesRegistry(), inputStream, info);
-                loadItems(info, hot);
+            return info;
+        }
+    }
+
+    /**
+     * Creates the object from the compiled form of its file, written by {@link #parse(String, String, ContentPackLoader.PackFile, DataOutput)} <br>
+     * Called by the pack loading workers, when the pack is in the {@link fr.dynamx.common.contentpack.PackCache}
+     *
+     * @param loadingPack The pack owning the object
+     * @param configName  The object's name
+     * @param compiled    The compiled file
+     * @return The read object
+     * @throws IOException If the compiled file is corrupted
+     */
+    public T parseCompiled(String loadingPack, String configName, DataInput compiled) throws IOException {
+        T info = assetCreator.create(loadingPack, configName, null);
+        readCompiledInfo(getDefaultSubInfoTypesRegistry(), compiled, info);
+        return info;
+    }
+
+    /**
+     * @return True if the files of this loader use the common format read by {@link #readInfo(SubInfoTypesRegistry, BufferedReader, INamedObject, DataOutput)}, and can be compiled <br>
+     * The files of the other loaders are kept as text in the {@link fr.dynamx.common.contentpack.PackCache} <br>
+     * The compilation is opt-in : the compiled files are read without calling {@link #readInfo(SubInfoTypesRegistry, BufferedReader, INamedObject)}, so a subclass changing how its files are read must not be compiled. Subclasses reading their files with the common format can override this method to return true. <br>
+     * The loaders overriding the reading hooks are never compiled, see {@link #shouldCompile()}
+     */
+    public boolean isCompilable() {
+        return getClass() == InfoLoader.class;
+    }
+
+    /**
+     * @return True if this loader {@link #isCompilable()}, and doesn't override the hooks reading the text files : {@link #readInfo(SubInfoTypesRegistry, BufferedReader, INamedObject)}, {@link #readLineProperty(SubInfoTypesRegistry, List, INamedObject, String)} and {@link #getClassForPropertyOwner(SubInfoTypesRegistry, ISubInfoTypeOwner, String)} <br>
+     * The compiled files are read without these hooks, so the files of a loader overriding them are kept as text
+     */
+    public final boolean shouldCompile() {
+        return isCompilable() && !customReadHooks.computeIfAbsent(getClass(), c -> overrides(c, "readInfo", SubInfoTypesRegistry.class, BufferedReader.class, INamedObject.class)
+                || overrides(c, "readInfo", SubInfoTypesRegistry.class, BufferedReader.class, INamedObject.class, DataOutput.class)
+                || overrides(c, "readLineProperty", SubInfoTypesRegistry.class, List.class, INamedObject.class, String.class)
+                || overrides(c, "getClassForPropertyOwner", SubInfoTypesRegistry.class, ISubInfoTypeOwner.class, String.class));
+    }
+
+    private static boolean overrides(Class<?> loaderClass, String method, Class<?>... parameters) {
+        for (Class<?> c = loaderClass; c != InfoLoader.class; c = c.getSuperclass()) {
+            try {
+                c.getDeclaredMethod(method, parameters);
                 return true;
-            } finally {
-                if (inputStream != null) {
-                    try {
-                        inputStream.close();
-                    } catch (IOException e) {
-                        e.printStackTrace();
-                    }
-                }
+            } catch (NoSuchMethodException ignored) {
             }
         }
         return false;
     }
 
+    /**
+     * @param info The parsed object, or null
+     * @throws IllegalArgumentException If an object with the same name is already loaded
+     */
+    public void checkDuplicate(@Nullable T info, String loadingPack, String configName) {
+        if (info != null && infos.containsKey(info.getFullName()))
+            throw new IllegalArgumentException("Found a duplicated pack file " + configName + " in pack " + loadingPack + " !");
+    }
+
+    /**
+     * Registers the object returned by {@link #parse(String, String, ContentPackLoader.PackFile)} <br>
+     * Called on the loading thread, in the order of the pack files
+     *
+     * @param loadingPack The pack owning the object
+     * @param configName  The object's name
+     * @param file        The object file, or null if the object was read from the pack cache (only for the loaders that {@link #shouldCompile()})
+     * @param info        The parsed object
+     * @param hot         If it's a hot reload
+     */
+    public void register(String loadingPack, String configName, @Nullable ContentPackLoader.PackFile file, @Nullable T info, boolean hot) {
+        loadItems(info, hot);
+    }
+
     /**
      * Reads the inputStream into the info object <br>
      * Loads the contents of the input reader into the loading object <br>
@@ -122,8 +232,21 @@ public class InfoLoader<T extends ISubInfoTypeOwner<?>> extends InfoList<T> {
      * @param reader               The data of the object
      * @throws IOException If a reading error occurs
      */
-    @SuppressWarnings("unchecked")
     protected void readInfo(SubInfoTypesRegistry<T> subInfoTypesRegistry, BufferedReader reader, INamedObject info) throws IOException {
+        readInfo(subInfoTypesRegistry, reader, info, null);
+    }
+
+    /**
+     * Reads the inputStream into the info object, and writes the read properties in the compiled output
+     *
+     * @param subInfoTypesRegistry The sub info types registry for this object
+     * @param info                 The object to load
+     * @param reader               The data of the object
+     * @param compiled             Receives the compiled form of the object, or null
+     * @throws IOException If a reading error occurs
+     */
+    @SuppressWarnings("unchecked")
+    protected void readInfo(SubInfoTypesRegistry<T> subInfoTypesRegistry, BufferedReader reader, INamedObject info, @Nullable DataOutput compiled) throws IOException {
         boolean isSubInfoOwner = info instanceof ISubInfoTypeOwner<?>;
         T obj = isSubInfoOwner ? (T) info : null;
         if (isSubInfoOwner && obj.getSubInfoTypesRegistry() != null)
@@ -149,14 +272,29 @@ public class InfoLoader<T extends ISubInfoTypeOwner<?>> extends InfoList<T> {
                     inComment = true;
                 } else if (isSubInfoOwner && s.contains("{")) { //New sub property
                     String name = s.replace("{", "").trim();
-                    ISubInfoType<T> type = getClassForPropertyOwner(subInfoTypesRegistry, obj, name);
+                    ISubInfoType<T> type;
+                    if (compiled != null) {
+                        //The key of the registry entry is needed to read the compiled file
+                        SubInfoTypeEntry<T> entry = findSubInfoTypeEntry(subInfoTypesRegistry, obj, name);
+                        String typeName = name.split("#")[0];
+                        type = entry != null ? entry.create(obj, typeName) : null;
+                        if (type != null) {
+                            compiled.writeByte(COMPILED_SUB_PROPERTY);
+                            writeCompiledString(compiled, entry.getKey());
+                            writeCompiledString(compiled, typeName);
+                        }
+                    } else {
+                        type = getClassForPropertyOwner(subInfoTypesRegistry, obj, name);
+                    }
                     if (type != null) { //Read all properties of type
-                        readInfo(subInfoTypesRegistry, reader, type);
+                        readInfo(subInfoTypesRegistry, reader, type, compiled);
                         type.appendTo(obj);
                     } else //Skip invalid properties
                         while ((s = reader.readLine()) != null && !s.contains("}")) ;
                 } else if (s.contains("}")) {//End of sub property
                     break;
+                } else if (compiled != null) {
+                    readLineProperty(subInfoTypesRegistry, foundProperties, info, s, compiled);
                 } else {
                     readLineProperty(subInfoTypesRegistry, foundProperties, info, s);
                 }
@@ -164,6 +302,75 @@ public class InfoLoader<T extends ISubInfoTypeOwner<?>> extends InfoList<T> {
         }
         if (inComment)
             DynamXErrorManager.addPackError(info.getPackName(), "syntax_error", ErrorLevel.FATAL, parent.getName(), "Found a never ending multi-line comment in " + info.getName() + ", some properties may be missing in-game");
+        checkRequiredProperties(info, foundProperties);
+        if (compiled != null)
+            compiled.writeByte(COMPILED_END);
+    }
+
+    /**
+     * Reads the compiled form of the info object, written by {@link #readInfo(SubInfoTypesRegistry, BufferedReader, INamedObject, DataOutput)} <br>
+     * The properties are set and the sub properties are created in the same order as in the text file
+     *
+     * @param subInfoTypesRegistry The sub info types registry for this object
+     * @param compiled             The compiled data of the object
+     * @param info                 The object to load
+     * @throws IOException If the compiled data is corrupted
+     */
+    @SuppressWarnings("unchecked")
+    protected void readCompiledInfo(SubInfoTypesRegistry<T> subInfoTypesRegistry, DataInput compiled, INamedObject info) throws IOException {
+        boolean isSubInfoOwner = info instanceof ISubInfoTypeOwner<?>;
+        T obj = isSubInfoOwner ? (T) info : null;
+        if (isSubInfoOwner && obj.getSubInfoTypesRegistry() != null)
+            subInfoTypesRegistry = (SubInfoTypesRegistry<T>) obj.getSubInfoTypesRegistry();
+        List<PackFilePropertyData<?>> foundProperties = isSubInfoOwner ? obj.getInitiallyConfiguredProperties() : new ArrayList<>();
+        byte token;
+        while ((token = compiled.readByte()) != COMPILED_END) {
+            if (token == COMPILED_PROPERTY) {
+                PackFilePropertyData<?> d = setFieldValue(info, readCompiledString(compiled), readCompiledString(compiled));
+                if (d != null) foundProperties.add(d);
+            } else if (token == COMPILED_SUB_PROPERTY && isSubInfoOwner) {
+                String key = readCompiledString(compiled);
+                SubInfoTypeEntry<T> entry = subInfoTypesRegistry.getEntries().get(key);
+                if (entry == null)
+                    throw new IOException("Unknown sub info type " + key + " in the compiled file of " + info.getFullName());
+                ISubInfoType<T> type = entry.create(obj, readCompiledString(compiled));
+                readCompiledInfo(subInfoTypesRegistry, compiled, type);
+                type.appendTo(obj);
+            } else {
+                throw new IOException("Corrupted compiled file of " + info.getFullName() + " : unexpected token " + token);
+            }
+        }
+        checkRequiredProperties(info, foundProperties);
+    }
+
+    /**
+     * Writes a string of the compiled files, prefixed by its length in bytes <br>
+     * {@link DataOutput#writeUTF(String)} isn't used because it's limited to 65535 bytes, and the property values aren't
+     */
+    protected static void writeCompiledString(DataOutput compiled, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        compiled.writeInt(bytes.length);
+        compiled.write(bytes);
+    }
+
+    /**
+     * Reads a string written by {@link #writeCompiledString(DataOutput, String)}
+     *
+     * @throws IOException If the compiled data is corrupted
+     */
+    protected static String readCompiledString(DataInput compiled) throws IOException {
+        int length = compiled.readInt();
+        if (length < 0)
+            throw new IOException("Corrupted compiled file : invalid string length " + length);
+        byte[] bytes = new byte[length];
+        compiled.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void checkRequiredProperties(INamedObject info, List<PackFilePropertyData<?>> foundProperties) {
+        INamedObject parent = info;
+        if (parent instanceof ISubInfoType)
+            parent = ((ISubInfoType<?>) parent).getRootOwner();
         INamedObject finalParent = parent;
         SubInfoTypeAnnotationCache.getOrLoadData(info.getClass()).values().forEach(p -> {
             if (p.isRequired() && !foundProperties.contains(p) && foundProperties.stream().noneMatch(p2 -> p2.getField() == p.getField()))
@@ -181,6 +388,14 @@ public class InfoLoader<T extends ISubInfoTypeOwner<?>> extends InfoList<T> {
      * @see fr.dynamx.api.contentpack.registry.PackFileProperty
      */
     protected void readLineProperty(SubInfoTypesRegistry<T> subInfoTypesRegistry, List<PackFilePropertyData<?>> foundProperties, INamedObject obj, String line) {
+        try {
+            readLineProperty(subInfoTypesRegistry, foundProperties, obj, line, null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); //Not thrown without compiled output
+        }
+    }
+
+    private void readLineProperty(SubInfoTypesRegistry<T> subInfoTypesRegistry, List<PackFilePropertyData<?>> foundProperties, INamedObject obj, String line, @Nullable DataOutput compiled) throws IOException {
         if (line.contains(":")) {
             int index = line.indexOf(':');
             String key = line.substring(0, index).trim();
@@ -201,7 +416,15 @@ public class InfoLoader<T extends ISubInfoTypeOwner<?>> extends InfoList<T> {
                 }
             }
             PackFilePropertyData<?> d = setFieldValue(obj, key, value);
-            if (d != null) foundProperties.add(d);
+            if (d != null) {
+                foundProperties.add(d);
+                if (compiled != null) {
+                    //The key and the value are stored after the property fixer
+                    compiled.writeByte(COMPILED_PROPERTY);
+                    writeCompiledString(compiled, key);
+                    writeCompiledString(compiled, value);
+                }
+            }
         } else if (!line.isEmpty()) {
             INamedObject parent = obj;
             if (parent instanceof ISubInfoType)
@@ -242,21 +465,32 @@ public class InfoLoader<T extends ISubInfoTypeOwner<?>> extends InfoList<T> {
      */
     @Nullable
     protected ISubInfoType<T> getClassForPropertyOwner(SubInfoTypesRegistry<T> subInfoTypesRegistry, T obj, String name) {
+        SubInfoTypeEntry<T> entry = findSubInfoTypeEntry(subInfoTypesRegistry, obj, name);
+        return entry != null ? entry.create(obj, name.split("#")[0]) : null;
+    }
+
+    /**
+     * @param name The name of the sub info type
+     * @return The registry entry of the {@link ISubInfoType} corresponding to the given key, or null if not sub info type was found (an error is logged)
+     * @see SubInfoTypesRegistry
+     */
+    @Nullable
+    protected SubInfoTypeEntry<T> findSubInfoTypeEntry(SubInfoTypesRegistry<T> subInfoTypesRegistry, T obj, String name) {
         String[] tags = name.split("#");
         String key = tags[0].toLowerCase();
         //Take strict before, and longer keys before
         Collection<SubInfoTypeEntry<T>> types = subInfoTypesRegistry.getEntries().values().stream().sorted((t1, t2) -> t1.isStrict() != t2.isStrict() ? (t1.isStrict() ? -1 : 1) : t2.getKey().length() - t1.getKey().length()).collect(Collectors.toList());
         for (SubInfoTypeEntry<T> type : types) {
             if (type.matches(key))
-                return type.create(obj, tags[0]);
+                return type;
         }
         if (key.contains("seat") && subInfoTypesRegistry.getEntries().containsKey("seat")) {
             DynamXErrorManager.addPackError(obj.getPackName(), "deprecated_seat_config", ErrorLevel.LOW, obj.getName(), name);
-            return subInfoTypesRegistry.getEntries().get("seat").create(obj, tags[0]);
+            return subInfoTypesRegistry.getEntries().get("seat");
         }
         if (key.contains("door") && subInfoTypesRegistry.getEntries().containsKey("door")) {
             DynamXErrorManager.addPackError(obj.getPackName(), "deprecated_door_config", ErrorLevel.LOW, obj.getName(), name);
-            return subInfoTypesRegistry.getEntries().get("door").create(obj, tags[0]);
+            return subInfoTypesRegistry.getEntries().get("door");
         }
         if (tags.length == 1 || !optionalDependencyMatcher.test(tags[1]))
             DynamXErrorManager.addPackError(obj.getPackName(), "unknown_sub_info", ErrorLevel.HIGH, obj.getName(), name);
@@ -7,6 +7,7 @@ import fr.dynamx.utils.errors.DynamXErrorManager;
 
 import javax.annotation.Nullable;
 import java.io.BufferedReader;
+import java.io.DataOutput;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStreamReader;
@@ -25,23 +26,26 @@ public class LateInfoLoader<T extends ISubInfoTypeOwner<?>> extends InfoLoader<T
     }
 
     /**
-     * Loads a file, only if the prefix matches with this object
+     * The file is read when the object is requested, see {@link #findOrLoadInfo(String, Class)}
      *
-     * @param loadingPack The pack owning the object
-     * @param configName  The object's name
-     * @param file        The object file
-     * @param hot         If it's an hot reload
-     * @return True if this InfoLoader has loaded this object
-     * @throws IOException If an error occurs while reading the stream
+     * @return null
      */
-    public boolean load(String loadingPack, String configName, ContentPackLoader.PackFile file, boolean hot) throws IOException {
-        if (configName.startsWith(prefix)) {
-            cachedFiles.put(loadingPack + "." + configName, file);
-            return true;
-        }
+    @Nullable
+    @Override
+    public T parse(String loadingPack, String configName, ContentPackLoader.PackFile file, @Nullable DataOutput compiled) {
+        return null;
+    }
+
+    @Override
+    public boolean isCompilable() {
         return false;
     }
 
+    @Override
+    public void register(String loadingPack, String configName, ContentPackLoader.PackFile file, @Nullable T info, boolean hot) {
+        cachedFiles.put(loadingPack + "." + configName, file);
+    }
+
     @Nullable
     public T findOrLoadInfo(String infoFullName, Class<? extends T> clazz) {
         T loaded = super.findInfo(infoFullName);
@@ -54,6 +54,14 @@ public class ObjectLoader<T extends ObjectInfo<?> & ISubInfoTypeOwner<?>, C exte
         super(prefix, assetCreator, infoTypesRegistry);
     }
 
+    /**
+     * @return True for the loaders of DynamX, the subclasses must opt in (see {@link InfoLoader#isCompilable()})
+     */
+    @Override
+    public boolean isCompilable() {
+        return getClass() == ObjectLoader.class;
+    }
+
     @Override
     public void clear(boolean hot) {
         super.clear(hot);
@@ -5,9 +5,7 @@ import fr.dynamx.common.contentpack.ContentPackLoader;
 import fr.dynamx.common.contentpack.PackInfo;
 
 import javax.annotation.Nullable;
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.*;
 import java.util.List;
 import java.util.function.BiFunction;
 import java.util.stream.Collectors;
@@ -56,29 +54,64 @@ public class PacksInfoLoader extends InfoLoader<PackInfo> {
      * @throws IOException If an error occurs while reading the file
      */
     public PackInfo load(String loadingPack, ContentPackLoader.PackFile file, boolean hot, String pathName, ContentPackType packType) throws IOException {
-        BufferedReader inputStream = null;
-        try {
-            inputStream = new BufferedReader(new InputStreamReader(file.getInputStream()));
+        PackInfo info = parse(loadingPack, file, pathName, packType);
+        checkDuplicate(info, loadingPack, pathName);
+        loadItems(info, hot);
+        return info;
+    }
+
+    /**
+     * Reads the given pack info file, without registering it <br>
+     * Called by the pack loading workers
+     *
+     * @param loadingPack The loading pack name
+     * @param file        The file to read
+     * @param pathName    The path name of the pack (pack name with file extension)
+     * @param packType    The pack type
+     * @return The read pack info
+     * @throws IOException If an error occurs while reading the file
+     */
+    public PackInfo parse(String loadingPack, ContentPackLoader.PackFile file, String pathName, ContentPackType packType) throws IOException {
+        return parse(loadingPack, file, pathName, packType, null);
+    }
+
+    /**
+     * Reads the given pack info file, without registering it, and writes its compiled form <br>
+     * Called by the pack loading workers
+     *
+     * @param compiled Receives the compiled form of the file, read by {@link #parseCompiled(String, DataInput, String, ContentPackType)}
+     * @see #parse(String, ContentPackLoader.PackFile, String, ContentPackType)
+     */
+    public PackInfo parse(String loadingPack, ContentPackLoader.PackFile file, String pathName, ContentPackType packType, @Nullable DataOutput compiled) throws IOException {
+        try (BufferedReader inputStream = new BufferedReader(new InputStreamReader(file.getInputStream()))) {
             PackInfo info = assetCreator.create(loadingPack, pathName, null);
             info.setPackType(packType);
-            if (infos.containsKey(info.getFullName()))
-                throw new IllegalArgumentException("Found a duplicated pack_info file " + info.getFullName() + " in pack " + loadingPack + " !");
-            readInfo(getDefaultSubInfoTypesRegistry(), inputStream, info);
-            loadItems(info, hot);
+            readInfo(getDefaultSubInfoTypesRegistry(), inputStream, info, compiled);
             return info;
-        } finally {
-            if (inputStream != null) {
-                try {
-                    inputStream.close();
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
-            }
         }
     }
 
+    /**
+     * Creates the pack info from the compiled form of its file <br>
+     * Called by the pack loading workers, when the pack is in the {@link fr.dynamx.common.contentpack.PackCache}
+     *
+     * @throws IOException If the compiled file is corrupted
+     */
+    public PackInfo parseCompiled(String loadingPack, DataInput compiled, String pathName, ContentPackType packType) throws IOException {
+        PackInfo info = assetCreator.create(loadingPack, pathName, null);
+        info.setPackType(packType);
+        readCompiledInfo(getDefaultSubInfoTypesRegistry(), compiled, info);
+        return info;
+    }
+
+    @Override
+    public void checkDuplicate(@Nullable PackInfo info, String loadingPack, String configName) {
+        if (info != null && infos.containsKey(info.getFullName()))
+            throw new IllegalArgumentException("Found a duplicated pack_info file " + info.getFullName() + " in pack " + loadingPack + " !");
+    }
+
     @Override
-    public boolean load(String loadingPack, String configName, ContentPackLoader.PackFile file, boolean hot) throws IOException {
-        return false; //Should be manually loaded using the above method
+    public boolean matches(String configName) {
+        return false; //Should be manually loaded using the above methods
     }
 }
@@ -11,14 +11,16 @@ import javax.annotation.Nullable;
 import java.lang.reflect.Field;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Internal cache for loaded {@link PackFilePropertyData}
+ * Internal cache for loaded {@link PackFilePropertyData} <br>
+ * Thread-safe : it is used by the pack loading workers, the classes are loaded once, under a lock
  *
  * @see PackFileProperty
  */
 public class SubInfoTypeAnnotationCache {
-    private static final Map<Class<?>, Map<String, PackFilePropertyData<?>>> cache = new HashMap<>();
+    private static final Map<Class<?>, Map<String, PackFilePropertyData<?>>> cache = new ConcurrentHashMap<>();
 
     /**
      * Checks in the cache to find the specified property data, or loads properties of the given object's class to find it
@@ -40,12 +42,18 @@ public class SubInfoTypeAnnotationCache {
      */
     @Nonnull
     public static Map<String, PackFilePropertyData<?>> getOrLoadData(Class<?> from) {
-        if (!cache.containsKey(from))
+        Map<String, PackFilePropertyData<?>> data = cache.get(from);
+        if (data == null) {
             load(from);
-        return cache.get(from);
+            data = cache.get(from);
+        }
+        return data;
     }
 
-    private static void load(Class<?> classToParse) {
+    private static synchronized void load(Class<?> classToParse) {
+        //Loaded by another thread while we were waiting for the lock
+        if (cache.containsKey(classToParse))
+            return;
         Map<String, PackFilePropertyData<?>> packFileProperties = new HashMap<>();
         for (Field f : classToParse.getDeclaredFields()) {
             if (f.isAnnotationPresent(PackFileProperty.class)) {
@@ -11,11 +11,13 @@ import fr.dynamx.api.contentpack.registry.SubInfoTypeRegistries;
 import fr.dynamx.utils.errors.DynamXErrorManager;
 import net.minecraftforge.fml.common.discovery.ASMDataTable;
 import net.minecraftforge.fml.common.event.FMLConstructionEvent;
+import net.minecraftforge.fml.relauncher.Side;
 
 import javax.annotation.Nullable;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Registry for ModularVehicles sub info categories, such as shapes, wheels, seats, trailer attach or steering wheel <br>
@@ -27,7 +29,7 @@ import java.util.*;
  */
 public class SubInfoTypesRegistry<T extends ISubInfoTypeOwner<?>> {
     private final Map<String, SubInfoTypeEntry<T>> ENTRIES = new LinkedHashMap<>();
-    private final Map<Class<? extends INamedObject>, IPackFilePropertyFixer> PROPERTY_FIXERS = new LinkedHashMap<>();
+    private final Map<Class<? extends INamedObject>, IPackFilePropertyFixer> PROPERTY_FIXERS = new ConcurrentHashMap<>();
 
     /**
      * Protected : use {@link RegisteredSubInfoType} annotation
@@ -66,50 +68,63 @@ public class SubInfoTypesRegistry<T extends ISubInfoTypeOwner<?>> {
                 if (!object.isAnnotationPresent(RegisteredSubInfoType.class) || exploredClasses.contains(object))
                     continue;
                 exploredClasses.add(object);
-                if (!ISubInfoType.class.isAssignableFrom(object))
-                    throw new IllegalArgumentException("Only ISubInfoType objects can have the RegisteredSubInfoType annotation. Errored class: " + object);
-
-                RegisteredSubInfoType an = object.getAnnotation(RegisteredSubInfoType.class);
-                if(an.isClientOnly() && !event.getSide().isClient())
-                    continue;
-                Class<? extends ISubInfoTypeOwner<?>> subInfoTypeClass = null;
-                if (an.registries().length >= 1)
-                    subInfoTypeClass = an.registries()[0].getInfoOwnerType();
-                //Find the right constructor
-                Constructor<?> constructor = null;
-                for (Constructor<?> cons : object.getDeclaredConstructors()) {
-                    if (subInfoTypeClass != null && (Arrays.equals(cons.getParameterTypes(), new Class[]{subInfoTypeClass, String.class}) || Arrays.equals(cons.getParameterTypes(), new Class[]{subInfoTypeClass}))) {
-                        constructor = cons;
-                        break;
-                    }
-                    if (Arrays.equals(cons.getParameterTypes(), new Class[]{ISubInfoTypeOwner.class, String.class}) || Arrays.equals(cons.getParameterTypes(), new Class[]{ISubInfoTypeOwner.class})) {
-                        constructor = cons;
-                        break;
-                    }
-                }
-                if (constructor == null) {
-                    throw new NoSuchMethodException("@RegisteredSubInfoType class must have a constructor with parameters (ISubInfoTypeOwner, String) or (ISubInfoTypeOwner)");
-                }
-                //And register it
-                Constructor<?> finalConstructor = constructor;
-                for (SubInfoTypeRegistries registry : an.registries()) {
-                    if (!registry.getInfoList().hasSubInfoTypesRegistry())
-                        throw new IllegalArgumentException("No sub info type registry on registry " + registry);
-                    registry.getInfoList().getDefaultSubInfoTypesRegistry().addSubInfoType(new SubInfoTypeEntry<>(an.name(), (obj, objName) -> {
-                        try {
-                            return (ISubInfoType) (finalConstructor.getParameterTypes().length == 1 ? finalConstructor.newInstance(obj) : finalConstructor.newInstance(obj, objName));
-                        } catch (InstantiationException | IllegalAccessException |
-                                 InvocationTargetException e) {
-                            throw new RuntimeException("Error with " + name, e);
-                        }
-                    }, an.strictName()));
-                }
-                //Also register all PackFilePropertyData, if we are generating the docs
-                SubInfoTypeAnnotationCache.getOrLoadData(object);
+                registerSubInfoType(object, event.getSide());
             } catch (Exception e) {
                 //log.error("Cannot load @RegisteredSubInfoType annotation in class " + name + " !", e);
                 DynamXErrorManager.addError("DynamX initialization", DynamXErrorManager.INIT_ERRORS, "addon_error", ErrorLevel.FATAL, name, "Cannot load @RegisteredSubInfoType annotation in class " + data.getClassName(), e, 900);
             }
         }
     }
+
+    /**
+     * Registers a class having the {@link RegisteredSubInfoType} annotation in the registries given by its annotation <br>
+     * Also used to register the sub info types without the FML class discovery, for example in the benchmarks
+     *
+     * @param object The sub info type class
+     * @param side   The current side, the client only sub info types are ignored on the server side
+     * @throws Exception If the class isn't a valid sub info type
+     */
+    public static void registerSubInfoType(Class<?> object, Side side) throws Exception {
+        if (!ISubInfoType.class.isAssignableFrom(object))
+            throw new IllegalArgumentException("Only ISubInfoType objects can have the RegisteredSubInfoType annotation. Errored class: " + object);
+
+        RegisteredSubInfoType an = object.getAnnotation(RegisteredSubInfoType.class);
+        if(an.isClientOnly() && !side.isClient())
+            return;
+        Class<? extends ISubInfoTypeOwner<?>> subInfoTypeClass = null;
+        if (an.registries().length >= 1)
+            subInfoTypeClass = an.registries()[0].getInfoOwnerType();
+        //Find the right constructor
+        Constructor<?> constructor = null;
+        for (Constructor<?> cons : object.getDeclaredConstructors()) {
+            if (subInfoTypeClass != null && (Arrays.equals(cons.getParameterTypes(), new Class[]{subInfoTypeClass, String.class}) || Arrays.equals(cons.getParameterTypes(), new Class[]{subInfoTypeClass}))) {
+                constructor = cons;
+                break;
+            }
+            if (Arrays.equals(cons.getParameterTypes(), new Class[]{ISubInfoTypeOwner.class, String.class}) || Arrays.equals(cons.getParameterTypes(), new Class[]{ISubInfoTypeOwner.class})) {
+                constructor = cons;
+                break;
+            }
+        }
+        if (constructor == null) {
+            throw new NoSuchMethodException("@RegisteredSubInfoType class must have a constructor with parameters (ISubInfoTypeOwner, String) or (ISubInfoTypeOwner)");
+        }
+        //And register it
+        Constructor<?> finalConstructor = constructor;
+        String name = object.getName();
+        for (SubInfoTypeRegistries registry : an.registries()) {
+            if (!registry.getInfoList().hasSubInfoTypesRegistry())
+                throw new IllegalArgumentException("No sub info type registry on registry " + registry);
+            registry.getInfoList().getDefaultSubInfoTypesRegistry().addSubInfoType(new SubInfoTypeEntry<>(an.name(), (obj, objName) -> {
+                try {
+                    return (ISubInfoType) (finalConstructor.getParameterTypes().length == 1 ? finalConstructor.newInstance(obj) : finalConstructor.newInstance(obj, objName));
+                } catch (InstantiationException | IllegalAccessException |
+                         InvocationTargetException e) {
+                    throw new RuntimeException("Error with " + name, e);
+                }
+            }, an.strictName()));
+        }
+        //Also register all PackFilePropertyData, if we are generating the docs
+        SubInfoTypeAnnotationCache.getOrLoadData(object);
+    }
 }
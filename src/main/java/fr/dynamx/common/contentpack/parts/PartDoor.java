@@ -179,10 +179,11 @@ public class PartDoor extends InteractivePart<BaseVehicleEntity<?>, ModularVehic
 
     @Nullable
     public PartEntitySeat getLinkedSeat(BaseVehicleEntity<?> vehicleEntity) {
-        return vehicleEntity.getPackInfo().getPartsByType(PartEntitySeat.class).stream()
-                .filter(seat -> seat.getLinkedDoor() != null && seat.getLinkedDoor().equalsIgnoreCase(getPartName()))
-                .findFirst()
-                .orElse(null);
+        for (PartEntitySeat seat : vehicleEntity.getPackInfo().getPartsByType(PartEntitySeat.class)) {
+            if (seat.getLinkedDoor() != null && seat.getLinkedDoor().equalsIgnoreCase(getPartName()))
+                return seat;
+        }
+        return null;
     }
 
     protected void readPosition(ResourceLocation model) {
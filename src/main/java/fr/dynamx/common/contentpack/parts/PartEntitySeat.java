@@ -132,7 +132,13 @@ public class PartEntitySeat extends BasePartSeat<BaseVehicleEntity<?>, ModularVe
     @Nullable
     @Override
     public PartDoor getLinkedPartDoor() {
-        return getLinkedDoor() == null ? null : getOwner().getPartsByType(PartDoor.class).stream().filter(partDoor -> partDoor.getPartName().equalsIgnoreCase(getLinkedDoor())).findFirst().orElse(null);
+        if (getLinkedDoor() == null)
+            return null;
+        for (PartDoor partDoor : getOwner().getPartsByType(PartDoor.class)) {
+            if (partDoor.getPartName().equalsIgnoreCase(getLinkedDoor()))
+                return partDoor;
+        }
+        return null;
     }
 
     @Override
@@ -6,6 +6,7 @@ import fr.dynamx.api.contentpack.object.IDynamXItem;
 import fr.dynamx.api.contentpack.object.IPartContainer;
 import fr.dynamx.api.contentpack.object.part.BasePart;
 import fr.dynamx.api.contentpack.object.part.IDrawablePart;
+import fr.dynamx.api.contentpack.object.part.PartTypeIndex;
 import fr.dynamx.api.contentpack.object.render.Enum3DRenderLocation;
 import fr.dynamx.api.contentpack.object.render.IModelPackObject;
 import fr.dynamx.api.contentpack.object.subinfo.ISubInfoType;
@@ -62,6 +63,10 @@ public abstract class AbstractItemObject<T extends AbstractItemObject<?, ?>, A e
     @Getter
     private final Map<Class<?>, Byte> partIds = new HashMap<>();
     private final List<BasePart<A>> parts = new ArrayList<>();
+    /**
+     * Index of the parts by type, built in postLoad or on the first search, and cleared when a part is added
+     */
+    private volatile PartTypeIndex<A> partIndex;
     /**
      * List of owned {@link ISubInfoType}s
      */
@@ -114,10 +119,33 @@ public abstract class AbstractItemObject<T extends AbstractItemObject<?, ?>, A e
         part.setId(id);
         partIds.put(part.getIdClass(), id);
         parts.add(part);
+        partIndex = null;
         if (part instanceof IDrawablePart)
             addDrawablePart((IDrawablePart<?>) part);
     }
 
+    /**
+     * @return The index of the parts by type, built if needed
+     */
+    public PartTypeIndex<A> getPartIndex() {
+        PartTypeIndex<A> index = partIndex;
+        if (index == null) {
+            index = new PartTypeIndex<>(parts);
+            partIndex = index;
+        }
+        return index;
+    }
+
+    @Override
+    public <B extends BasePart<A>> List<B> getPartsByType(Class<B> clazz) {
+        return getPartIndex().getPartsByType(clazz);
+    }
+
+    @Override
+    public <B extends BasePart<A>> B getPartByTypeAndId(Class<B> clazz, byte id) {
+        return getPartIndex().getPartByTypeAndId(clazz, id);
+    }
+
     @Override
     public void addSubProperty(ISubInfoType<A> property) {
         subProperties.add(property);
@@ -136,6 +164,7 @@ public abstract class AbstractItemObject<T extends AbstractItemObject<?, ?>, A e
         }
         subProperties.forEach(subInfoType -> subInfoType.postLoad((A) this, hot));
         parts.forEach(part -> part.postLoad((A) this, hot));
+        partIndex = new PartTypeIndex<>(parts);
         // Build the scene graph
         if (FMLCommonHandler.instance().getSide().isClient()) {
             getSceneGraph();
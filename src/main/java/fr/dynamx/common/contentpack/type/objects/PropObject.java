@@ -13,6 +13,7 @@ import fr.dynamx.client.renders.scene.node.EntityNode;
 import fr.dynamx.client.renders.scene.node.SceneNode;
 import fr.dynamx.common.contentpack.ContentPackLoader;
 import fr.dynamx.common.contentpack.DynamXObjectLoaders;
+import fr.dynamx.common.contentpack.ParallelPackLoader;
 import fr.dynamx.common.contentpack.loader.InfoList;
 import fr.dynamx.common.contentpack.loader.PackFilePropertyData;
 import fr.dynamx.common.contentpack.loader.SubInfoTypeAnnotationCache;
@@ -145,7 +146,8 @@ public class PropObject<T extends PropObject<T>> extends AbstractProp<T> impleme
     @Override
     public void appendTo(BlockObject<?> owner) {
         owner.propObject = this;
-        DynamXObjectLoaders.PROPS.loadItems(this, ContentPackLoader.isHotReloading);
+        //Registered with the block, after the parsing of its file
+        ParallelPackLoader.runOnRegistration(() -> DynamXObjectLoaders.PROPS.loadItems(this, ContentPackLoader.isHotReloading));
     }
 
     @Nullable
@@ -16,7 +16,6 @@ import org.spongepowered.asm.mixin.Overwrite;
 import org.spongepowered.asm.mixin.Shadow;
 
 import javax.annotation.Nullable;
-import java.util.Map;
 
 import static net.minecraft.util.math.RayTraceResult.Type.MISS;
 
@@ -60,6 +59,7 @@ public abstract class MixinWorld {
 
                 RayTraceResult dynamXHit = null;
                 BlockPos dynamXHitPos = null;
+                int dynamXChunkX = Integer.MIN_VALUE, dynamXChunkZ = Integer.MIN_VALUE;
                 while (k1-- >= 0) {
                     if (Double.isNaN(vec31.x) || Double.isNaN(vec31.y) || Double.isNaN(vec31.z)) {
                         return null;
@@ -151,26 +151,18 @@ public abstract class MixinWorld {
                     z1 = MathHelper.floor(vec31.z) - (enumfacing == EnumFacing.SOUTH ? 1 : 0);
                     blockpos = new BlockPos(x1, y1, z1);
 
-                    //Ray-trace DynamX blocks
-                    Chunk chunk = getChunk(blockpos);
-                    DynamXChunkData capability = chunk.getCapability(DynamXChunkDataProvider.DYNAMX_CHUNK_DATA_CAPABILITY, null);
-                    if(dynamXHit == null) {
-                        for (Map.Entry<BlockPos, AxisAlignedBB> e : capability.getBlocksAABB().entrySet()) {
-                            RayTraceResult res = e.getValue().contains(vec31) ? new RayTraceResult(new Vec3d(e.getKey().getX(), e.getKey().getY(), e.getKey().getZ()), EnumFacing.NORTH) : e.getValue().calculateIntercept(vec31, vec32);
-                            if (res != null) {
-                                dynamXHit = res;
-                                dynamXHitPos = e.getKey();
+                    //Ray-trace DynamX blocks, once per chunk : the chunk data tests the rest of the ray
+                    if(dynamXHit == null && ((x1 >> 4) != dynamXChunkX || (z1 >> 4) != dynamXChunkZ)) {
+                        dynamXChunkX = x1 >> 4;
+                        dynamXChunkZ = z1 >> 4;
+                        Chunk chunk = getChunk(blockpos);
+                        DynamXChunkData capability = chunk.getCapability(DynamXChunkDataProvider.DYNAMX_CHUNK_DATA_CAPABILITY, null);
+                        while ((dynamXHit = capability.rayTraceBlocks(vec31, vec32)) != null) {
+                            dynamXHitPos = dynamXHit.getBlockPos();
+                            if (this.getBlockState(dynamXHitPos).getBlock() instanceof DynamXBlock)
                                 break;
-                            }
-                        }
-                        //Remove outdated collision boxes
-                        if(dynamXHitPos != null) {
-                            IBlockState iblockstate1 = this.getBlockState(dynamXHitPos);
-                            Block block1 = iblockstate1.getBlock();
-                            if (!(block1 instanceof DynamXBlock)) {
-                                capability.getBlocksAABB().remove(dynamXHitPos);
-                                dynamXHit = null;
-                            }
+                            //Remove outdated collision boxes
+                            capability.removeBlock(dynamXHitPos);
                         }
                     }
 
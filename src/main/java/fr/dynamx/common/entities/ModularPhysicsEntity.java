@@ -252,6 +252,16 @@ public abstract class ModularPhysicsEntity<T extends AbstractEntityPhysicsHandle
         }
     }
 
+    @Override
+    public boolean requiresPhysicsThread() {
+        int size = updatePhysicsListeners.size();
+        for (int i = 0; i < size; i++) {
+            if (updatePhysicsListeners.get(i).requiresPhysicsThread())
+                return true;
+        }
+        return super.requiresPhysicsThread();
+    }
+
     @Override
     protected void addPassenger(Entity passenger) {
         super.addPassenger(passenger);
@@ -20,6 +20,7 @@ import fr.dynamx.common.physics.entities.AbstractEntityPhysicsHandler;
 import fr.dynamx.common.physics.joints.EntityJointsHandler;
 import fr.dynamx.common.physics.player.WalkingOnPlayerController;
 import fr.dynamx.common.physics.terrain.PhysicsEntityTerrainLoader;
+import fr.dynamx.common.physics.world.ParallelEntityTicker;
 import fr.dynamx.utils.DynamXConstants;
 import fr.dynamx.utils.DynamXUtils;
 import fr.dynamx.utils.PhysicsEntityException;
@@ -326,6 +327,14 @@ public abstract class PhysicsEntity<T extends AbstractEntityPhysicsHandler<?, ?>
         }
     }
 
+    /**
+     * @return True if the physics updates of this entity must be called by the physics thread, and never in parallel of other entities' updates <br>
+     * See the threading contract of {@link fr.dynamx.api.entities.modules.IPhysicsModule.IPhysicsUpdateListener}
+     */
+    public boolean requiresPhysicsThread() {
+        return false;
+    }
+
     /**
      * Called before ticking the physics world (can be in an external thread) <br>
      * Here we give the "input" to the physics world, i.e. the controls, the forces, etc <br>
@@ -340,8 +349,10 @@ public abstract class PhysicsEntity<T extends AbstractEntityPhysicsHandler<?, ?>
         simulatePhysics = simulatePhysics && isRegistered == EnumEntityPhysicsRegistryState.REGISTERED;
         preUpdatePhysics(simulatePhysics);
 
-        MinecraftForge.EVENT_BUS.post(world.isRemote ? new PhysicsEntityEvent.ClientUpdate(this, PhysicsEntityEvent.UpdateType.PRE_PHYSICS_UPDATE, simulatePhysics) :
-                new PhysicsEntityEvent.ServerUpdate(this, PhysicsEntityEvent.UpdateType.PRE_PHYSICS_UPDATE, simulatePhysics));
+        //Posted by the physics thread when the entities are ticked in parallel
+        PhysicsEntityEvent.Update event = world.isRemote ? new PhysicsEntityEvent.ClientUpdate(this, PhysicsEntityEvent.UpdateType.PRE_PHYSICS_UPDATE, simulatePhysics) :
+                new PhysicsEntityEvent.ServerUpdate(this, PhysicsEntityEvent.UpdateType.PRE_PHYSICS_UPDATE, simulatePhysics);
+        ParallelEntityTicker.runOnPhysicsThread(() -> MinecraftForge.EVENT_BUS.post(event));
         profiler.end(Profiler.Profiles.PHY2);
     }
 
@@ -371,8 +382,10 @@ public abstract class PhysicsEntity<T extends AbstractEntityPhysicsHandler<?, ?>
         simulatePhysics = simulatePhysics && isRegistered == EnumEntityPhysicsRegistryState.REGISTERED;
         postUpdatePhysics(simulatePhysics);
 
-        MinecraftForge.EVENT_BUS.post(world.isRemote ? new PhysicsEntityEvent.ClientUpdate(this, PhysicsEntityEvent.UpdateType.POST_PHYSICS_UPDATE, simulatePhysics) :
-                new PhysicsEntityEvent.ServerUpdate(this, PhysicsEntityEvent.UpdateType.POST_PHYSICS_UPDATE, simulatePhysics));
+        //Posted by the physics thread when the entities are ticked in parallel
+        PhysicsEntityEvent.Update event = world.isRemote ? new PhysicsEntityEvent.ClientUpdate(this, PhysicsEntityEvent.UpdateType.POST_PHYSICS_UPDATE, simulatePhysics) :
+                new PhysicsEntityEvent.ServerUpdate(this, PhysicsEntityEvent.UpdateType.POST_PHYSICS_UPDATE, simulatePhysics);
+        ParallelEntityTicker.runOnPhysicsThread(() -> MinecraftForge.EVENT_BUS.post(event));
         profiler.end(Profiler.Profiles.PHY2P);
     }
 
@@ -86,7 +86,7 @@ public class SeatEntity extends Entity {
         TileEntity te = world.getTileEntity(getPosition());
         if (te instanceof TEDynamXBlock) {
             block = (TEDynamXBlock) te;
-            mySeat = (PartBlockSeat<?>) block.getPackInfo().getPartsByType(PartBlockSeat.class).stream().filter(s -> ((PartBlockSeat<?>) s).getId() == seatID).findFirst().orElse(null);
+            mySeat = (PartBlockSeat<?>) block.getPackInfo().getPartByTypeAndId(PartBlockSeat.class, seatID);
             if (mySeat != null)
                 return;
         }
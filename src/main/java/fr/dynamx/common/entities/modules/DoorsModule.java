@@ -168,6 +168,12 @@ public class DoorsModule implements IPhysicsModule<AbstractEntityPhysicsHandler<
         }
     }
 
+    @Override
+    public boolean requiresPhysicsThread() {
+        //Door state changes send packets and fire events
+        return true;
+    }
+
     @Override
     public void preUpdatePhysics(boolean simulatingPhysics) {
         synchronizedTransforms.setChanged(true);
@@ -20,7 +20,7 @@ import java.util.List;
 public class PropsContainerModule implements IPhysicsModule<BaseVehiclePhysicsHandler<?>>, IPhysicsModule.IEntityUpdateListener, IPackInfoReloadListener {
     //TODO NEW SYNC IMPROVE THIS
     private final BaseVehicleEntity<?> entity;
-    private final List<PartPropsContainer> containers;
+    private List<PartPropsContainer> containers;
     private final List<PhysicsEntity<?>> modifiedEntitiesCache = new ArrayList<>();
 
     public PropsContainerModule(BaseVehicleEntity<?> entity) {
@@ -31,8 +31,7 @@ public class PropsContainerModule implements IPhysicsModule<BaseVehiclePhysicsHa
     @Override
     public void onPackInfosReloaded() {
         modifiedEntitiesCache.forEach(e -> e.getSynchronizer().setSimulationHolder(e.getSynchronizer().getDefaultSimulationHolder(), null, SimulationHolder.UpdateContext.PROPS_CONTAINER_UPDATE));
-        containers.clear();
-        containers.addAll(entity.getPackInfo().getPartsByType(PartPropsContainer.class));
+        containers = entity.getPackInfo().getPartsByType(PartPropsContainer.class);
         onSetSimulationHolder(entity.getSynchronizer().getSimulationHolder(), null, SimulationHolder.UpdateContext.NORMAL);
     }
 
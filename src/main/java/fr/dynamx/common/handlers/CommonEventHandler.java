@@ -73,7 +73,7 @@ public class CommonEventHandler {
     @SubscribeEvent
     public void onChunkLoad(ChunkEvent.Load e) {
         if (PENDING_CHUNKS_COLLISIONS.containsKey(e.getChunk().getPos())) {
-            e.getChunk().getCapability(DynamXChunkDataProvider.DYNAMX_CHUNK_DATA_CAPABILITY, null).getBlocksAABB().putAll(PENDING_CHUNKS_COLLISIONS.get(e.getChunk().getPos()));
+            e.getChunk().getCapability(DynamXChunkDataProvider.DYNAMX_CHUNK_DATA_CAPABILITY, null).addBlocks(PENDING_CHUNKS_COLLISIONS.get(e.getChunk().getPos()));
         }
     }
 
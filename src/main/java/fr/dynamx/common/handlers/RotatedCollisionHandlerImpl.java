@@ -14,6 +14,7 @@ import fr.dynamx.common.entities.PhysicsEntity;
 import fr.dynamx.common.entities.PropsEntity;
 import fr.dynamx.common.physics.player.WalkingOnPlayerController;
 import fr.dynamx.utils.DynamXConfig;
+import fr.dynamx.utils.debug.metrics.DynamXMetrics;
 import fr.dynamx.utils.debug.renderer.VehicleDebugRenderer;
 import fr.dynamx.utils.maths.DynamXGeometry;
 import fr.dynamx.utils.maths.DynamXMath;
@@ -25,10 +26,13 @@ import net.minecraft.tileentity.TileEntity;
 import net.minecraft.util.EnumFacing;
 import net.minecraft.util.math.AxisAlignedBB;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.MathHelper;
 import net.minecraft.world.World;
 import net.minecraft.world.chunk.Chunk;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
 /**
@@ -317,26 +321,26 @@ public class RotatedCollisionHandlerImpl implements IRotatedCollisionHandler {
         int maxChunkZ = (int) Math.floor(inBox.maxZ) >> 4;
 
         // Iterate on chunks near to the player
+        List<DynamXChunkData.BlockBox> blocks = new ArrayList<>();
         for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
             for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
                 Chunk chunk = world.getChunk(chunkX, chunkZ);
                 DynamXChunkData capability = chunk.getCapability(DynamXChunkDataProvider.DYNAMX_CHUNK_DATA_CAPABILITY, null);
-                Iterator<Map.Entry<BlockPos, AxisAlignedBB>> iterator = capability.getBlocksAABB().entrySet().iterator();
-                while (iterator.hasNext()) {
-                    Map.Entry<BlockPos, AxisAlignedBB> entry = iterator.next();
-                    if (!inBox.intersects(entry.getValue())) {
-                        continue;
-                    }
-                    Vector3f pos = Vector3fPool.get(entry.getKey().getX(), entry.getKey().getY(), entry.getKey().getZ());
+                blocks.clear();
+                capability.getBlocksInBox(inBox, blocks);
+                for (DynamXChunkData.BlockBox block : blocks) {
+                    BlockPos blockPos = block.getPos();
+                    Vector3f pos = Vector3fPool.get(blockPos.getX(), blockPos.getY(), blockPos.getZ());
                     if (entities.containsKey(pos)) {
                         continue;
                     }
-                    TileEntity tileEntity = world.getTileEntity(entry.getKey());
+                    TileEntity tileEntity = world.getTileEntity(blockPos);
                     if (!(tileEntity instanceof IDynamXObject)) {
-                        iterator.remove();
+                        //Remove outdated collision boxes
+                        capability.removeBlock(blockPos);
                         continue;
                     }
-                    entities.put(Vector3fPool.get(entry.getKey().getX(), entry.getKey().getY(), entry.getKey().getZ()), (IDynamXObject) tileEntity);
+                    entities.put(pos, (IDynamXObject) tileEntity);
                 }
             }
         }
@@ -350,22 +354,46 @@ public class RotatedCollisionHandlerImpl implements IRotatedCollisionHandler {
         return motionChanged;
     }
 
+    /**
+     * The collision decision of each entity class, see {@link #shouldHandleCollision(Entity)}
+     */
+    private final Map<Class<?>, Boolean> collisionDecisions = new ConcurrentHashMap<>();
+    /**
+     * The ignore list used by the collisionDecisions, to detect the config reloads
+     */
+    private volatile Set<String> decisionsIgnoreList;
     private volatile Set<Pattern> compiledIgnorePatterns;
+    /**
+     * The chunks near the physics entities of each world, see {@link WorldCollidableBounds}
+     */
+    private final Map<World, WorldCollidableBounds> worldCollidableBounds = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * @return False if the entity is a physics entity, or its class is in the ignore list of the config <br>
+     * The decision is computed once per entity class, the cache is cleared when the config is reloaded
+     */
     private boolean shouldHandleCollision(Entity entity) {
-        if(entity instanceof PhysicsEntity) {
-            return false;
-        }
-        if (compiledIgnorePatterns == null) {
-            compiledIgnorePatterns = new HashSet<>();
-            for (String pattern : DynamXConfig.ignoreCollisionEntities) {
+        Set<String> ignoreList = DynamXConfig.ignoreCollisionEntities;
+        if (ignoreList != decisionsIgnoreList) {
+            Set<Pattern> patterns = new HashSet<>();
+            for (String pattern : ignoreList) {
                 String regex = pattern
                         .replace(".", "\\.")
                         .replace("*", ".*");
-                compiledIgnorePatterns.add(Pattern.compile("^" + regex + "$"));
+                patterns.add(Pattern.compile("^" + regex + "$"));
             }
+            compiledIgnorePatterns = patterns;
+            collisionDecisions.clear();
+            decisionsIgnoreList = ignoreList;
         }
+        return collisionDecisions.computeIfAbsent(entity.getClass(), this::computeCollisionDecision);
+    }
 
-        String className = entity.getClass().getName();
+    private boolean computeCollisionDecision(Class<?> entityClass) {
+        if (PhysicsEntity.class.isAssignableFrom(entityClass)) {
+            return false;
+        }
+        String className = entityClass.getName();
         for (Pattern pattern : compiledIgnorePatterns) {
             if (pattern.matcher(className).matches()) {
                 return false;
@@ -374,6 +402,17 @@ public class RotatedCollisionHandlerImpl implements IRotatedCollisionHandler {
         return true;
     }
 
+    /**
+     * Broadphase of the collisions with the physics entities
+     *
+     * @return False if there is no physics entity near the entity, so it doesn't need to search them
+     */
+    private boolean isNearPhysicsEntities(Entity entity) {
+        WorldCollidableBounds bounds = worldCollidableBounds.computeIfAbsent(entity.world, w -> new WorldCollidableBounds());
+        bounds.update(entity.world);
+        return bounds.isNear(entity);
+    }
+
     @Override
     public double[] handleCollisionWithBulletEntities(Entity entity, MoverType moverType, double mx, double my, double mz) {
         double icollidableCheckRadius = DynamXConfig.blockCollisionRadius;
@@ -434,7 +473,7 @@ public class RotatedCollisionHandlerImpl implements IRotatedCollisionHandler {
                 Vector3fPool.closePool();
             }
             collidableEntities.release();
-            List<PhysicsEntity> entities = entity.world.getEntitiesWithinAABB(PhysicsEntity.class, entity.getEntityBoundingBox().grow(icollidableCheckRadius));
+            List<PhysicsEntity> entities = isNearPhysicsEntities(entity) ? entity.world.getEntitiesWithinAABB(PhysicsEntity.class, entity.getEntityBoundingBox().grow(icollidableCheckRadius)) : Collections.emptyList();
             for (PhysicsEntity e : entities) {
                 if (!DynamXContext.getPlayerPickingObjects().containsValue(e.getEntityId())) {
                     //System.out.println("Input "+mx+" "+my+" "+mz+" "+nx+" "+ny+" "+nz+" "+entity.onGround+" "+entity.collidedVertically+" "+e.physicsPosition);
@@ -519,4 +558,67 @@ public class RotatedCollisionHandlerImpl implements IRotatedCollisionHandler {
         }
         return new double[]{mx, my, mz};
     }
+
+    /**
+     * The chunk columns near the physics entities of a world, rebuilt once per tick from the loaded entities <br>
+     * The entities moving out of these chunks don't search the physics entities to collide with, which is the most expensive part of the collision handling on servers with a lot of mobs
+     */
+    private static class WorldCollidableBounds {
+        /**
+         * Distance travelled by a fast vehicle during a tick, added to the collision radius
+         */
+        private static final int MOVE_MARGIN = 4;
+
+        private final Long2ShortOpenMap chunks = new Long2ShortOpenMap(64);
+        private long tick = Long.MIN_VALUE;
+        private int checkedMoves, skippedMoves;
+
+        private void update(World world) {
+            long time = world.getTotalWorldTime();
+            if (time == tick) {
+                return;
+            }
+            tick = time;
+            if (DynamXMetrics.isEnabled() && !world.isRemote) {
+                int dimension = world.provider.getDimension();
+                DynamXMetrics.ENTITY_COLLISION_CHECKS.add(dimension, checkedMoves);
+                DynamXMetrics.ENTITY_COLLISION_SKIPS.add(dimension, skippedMoves);
+            }
+            checkedMoves = skippedMoves = 0;
+            chunks.clear();
+            double margin = DynamXConfig.blockCollisionRadius + MOVE_MARGIN;
+            for (int i = 0, size = world.loadedEntityList.size(); i < size; i++) {
+                Entity entity = world.loadedEntityList.get(i);
+                if (!(entity instanceof PhysicsEntity)) {
+                    continue;
+                }
+                AxisAlignedBB box = entity.getEntityBoundingBox();
+                int maxChunkX = MathHelper.floor(box.maxX + margin) >> 4;
+                int maxChunkZ = MathHelper.floor(box.maxZ + margin) >> 4;
+                for (int chunkX = MathHelper.floor(box.minX - margin) >> 4; chunkX <= maxChunkX; chunkX++) {
+                    for (int chunkZ = MathHelper.floor(box.minZ - margin) >> 4; chunkZ <= maxChunkZ; chunkZ++) {
+                        chunks.put(ChunkPos.asLong(chunkX, chunkZ), (short) 1);
+                    }
+                }
+            }
+        }
+
+        private boolean isNear(Entity entity) {
+            if (!chunks.isEmpty()) {
+                AxisAlignedBB box = entity.getEntityBoundingBox();
+                int maxChunkX = MathHelper.floor(box.maxX) >> 4;
+                int maxChunkZ = MathHelper.floor(box.maxZ) >> 4;
+                for (int chunkX = MathHelper.floor(box.minX) >> 4; chunkX <= maxChunkX; chunkX++) {
+                    for (int chunkZ = MathHelper.floor(box.minZ) >> 4; chunkZ <= maxChunkZ; chunkZ++) {
+                        if (chunks.containsKey(ChunkPos.asLong(chunkX, chunkZ))) {
+                            checkedMoves++;
+                            return true;
+                        }
+                    }
+                }
+            }
+            skippedMoves++;
+            return false;
+        }
+    }
 }
@@ -8,8 +8,10 @@ import fr.dynamx.common.entities.PhysicsEntity;
 import fr.dynamx.common.network.sync.MessagePhysicsEntitySync;
 import fr.dynamx.common.network.sync.MessageSeatsSync;
 import fr.dynamx.server.network.ServerPhysicsSyncManager;
+import fr.dynamx.utils.DynamXConfig;
 import net.minecraft.entity.player.EntityPlayerMP;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
@@ -17,48 +19,195 @@ import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
  * A simple delayed tasks scheduler <br>
- * Tasks are executed in the server thread in single player and dedicated servers and in client thread in multiplayer
+ * Tasks are executed in the server thread in single player and dedicated servers and in client thread in multiplayer <br>
+ * The tasks are stored in a hierarchical timing wheel : scheduling, cancelling and expiring a task are O(1), whatever the number of scheduled tasks.
+ * At most {@link DynamXConfig#scheduledTasksPerTick} tasks are executed each tick, the others are executed in the next ticks.
  *
  * @see ScheduledTask
  */
 public class TaskScheduler {
-    private static final ConcurrentLinkedQueue<ScheduledTask> tasks = new ConcurrentLinkedQueue<>();
+    private static final int WHEEL_BITS = 6;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    /**
+     * Number of wheels : the first wheel has one slot per tick, the next wheel has one slot per turn of the previous wheel...
+     */
+    private static final int WHEEL_COUNT = 3;
+
+    /**
+     * Tasks scheduled since the last tick, they can be scheduled from any thread
+     */
+    private static final ConcurrentLinkedQueue<ScheduledTask> incomingTasks = new ConcurrentLinkedQueue<>();
+    private static final ArrayDeque<ScheduledTask>[][] wheels = new ArrayDeque[WHEEL_COUNT][WHEEL_SIZE];
+    /**
+     * Tasks due after the last wheel
+     */
+    private static final List<ScheduledTask> overflowTasks = new ArrayList<>();
+    /**
+     * Expired tasks waiting to be executed, because of the tick budget
+     */
+    private static final ArrayDeque<ScheduledTask> readyTasks = new ArrayDeque<>();
+    private static long currentTick;
+    private static int taskCount;
+
+    static {
+        for (ArrayDeque<ScheduledTask>[] wheel : wheels) {
+            for (int i = 0; i < WHEEL_SIZE; i++)
+                wheel[i] = new ArrayDeque<>();
+        }
+    }
 
     public static void schedule(ScheduledTask task) {
-        tasks.add(task);
+        incomingTasks.add(task);
+    }
+
+    /**
+     * Schedules an action
+     *
+     * @param delay  The delay in ticks
+     * @param action The action to execute
+     * @return The scheduled task, can be used to cancel it
+     */
+    public static ScheduledTask schedule(int delay, Runnable action) {
+        ScheduledTask task = new ScheduledTask(delay) {
+            @Override
+            public void run() {
+                action.run();
+            }
+        };
+        schedule(task);
+        return task;
     }
 
     public static void tick() {
-        if (!tasks.isEmpty()) {
-            List<ScheduledTask> rm = new ArrayList<>();
-            tasks.forEach(t -> {
-                if (t.execute())
-                    rm.add(t);
-            });
-            rm.forEach(tasks::remove);
+        if (incomingTasks.isEmpty() && taskCount == 0 && readyTasks.isEmpty())
+            return;
+        ScheduledTask task;
+        while ((task = incomingTasks.poll()) != null) {
+            task.deadline = currentTick + Math.max(1, task.delay);
+            add(task);
+        }
+        currentTick++;
+        //Move the tasks of the next wheels to the previous ones
+        for (int level = WHEEL_COUNT; level > 0; level--) {
+            if ((currentTick & ((1L << (WHEEL_BITS * level)) - 1)) == 0)
+                cascade(level);
+        }
+        ArrayDeque<ScheduledTask> slot = wheels[0][(int) (currentTick & (WHEEL_SIZE - 1))];
+        while ((task = slot.poll()) != null) {
+            taskCount--;
+            if (!task.cancelled)
+                readyTasks.add(task);
+        }
+        int budget = DynamXConfig.scheduledTasksPerTick;
+        while (budget > 0 && (task = readyTasks.poll()) != null) {
+            if (task.cancelled)
+                continue;
+            budget--;
+            task.done = true;
+            try {
+                task.run();
+            } catch (Exception e) {
+                DynamXMain.log.error("Failed to execute scheduled task " + task, e);
+            }
         }
     }
 
+    /**
+     * Re-adds the tasks of the current slot of a wheel, or the overflow tasks, so they go to the previous wheels
+     */
+    private static void cascade(int level) {
+        if (level == WHEEL_COUNT) {
+            List<ScheduledTask> tasks = new ArrayList<>(overflowTasks);
+            overflowTasks.clear();
+            taskCount -= tasks.size();
+            tasks.forEach(TaskScheduler::add);
+            return;
+        }
+        ArrayDeque<ScheduledTask> slot = wheels[level][(int) ((currentTick >> (WHEEL_BITS * level)) & (WHEEL_SIZE - 1))];
+        int size = slot.size();
+        for (int i = 0; i < size; i++) {
+            ScheduledTask task = slot.poll();
+            taskCount--;
+            add(task);
+        }
+    }
+
+    private static void add(ScheduledTask task) {
+        if (task.cancelled)
+            return;
+        long delta = task.deadline - currentTick;
+        for (int level = 0; level < WHEEL_COUNT; level++) {
+            if (delta < 1L << (WHEEL_BITS * (level + 1))) {
+                wheels[level][(int) ((task.deadline >> (WHEEL_BITS * level)) & (WHEEL_SIZE - 1))].add(task);
+                taskCount++;
+                return;
+            }
+        }
+        overflowTasks.add(task);
+        taskCount++;
+    }
+
+    /**
+     * Removes all the tasks and restarts the ticks from 0, used by the tests
+     */
+    static void reset() {
+        incomingTasks.clear();
+        for (ArrayDeque<ScheduledTask>[] wheel : wheels) {
+            for (ArrayDeque<ScheduledTask> slot : wheel)
+                slot.clear();
+        }
+        overflowTasks.clear();
+        readyTasks.clear();
+        currentTick = 0;
+        taskCount = 0;
+    }
+
+    /**
+     * @return The number of tasks waiting in the wheels (cancelled tasks are removed when they expire)
+     */
+    public static int getScheduledTaskCount() {
+        return taskCount + incomingTasks.size() + readyTasks.size();
+    }
+
     /**
      * A delayed Runnable to execute with the {@link TaskScheduler}
      */
     public abstract static class ScheduledTask implements Runnable {
-        private short timeLeft;
+        private final int delay;
+        private long deadline;
+        private volatile boolean cancelled;
+        private volatile boolean done;
 
         /**
          * @param timeLeft The delay in ticks
          */
         public ScheduledTask(short timeLeft) {
-            this.timeLeft = timeLeft;
+            this((int) timeLeft);
         }
 
-        public boolean execute() {
-            timeLeft--;
-            if (timeLeft <= 0) {
-                this.run();
-                return true;
-            }
-            return false;
+        /**
+         * @param delay The delay in ticks
+         */
+        public ScheduledTask(int delay) {
+            this.delay = delay;
+        }
+
+        /**
+         * Cancels this task, if it wasn't executed yet
+         */
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * @return True if this task was executed
+         */
+        public boolean isDone() {
+            return done;
         }
     }
 
@@ -30,6 +30,7 @@ public class DynamXClientNetworkSystem implements IDnxNetworkSystem {
         switch (networkType) {
             case VANILLA_TCP:
             case DYNAMX_UDP:
+            case DYNAMX_NETTY_UDP:
                 QUICK_NETWORK = VANILLA_NETWORK;
                 break;
             default:
@@ -86,6 +87,7 @@ public class DynamXClientNetworkSystem implements IDnxNetworkSystem {
                 QUICK_NETWORK = VANILLA_NETWORK;
                 break;
             case DYNAMX_UDP:
+            case DYNAMX_NETTY_UDP: //Same protocol, only the server transport changes
                 String serverAddress = ip;
                 if (ip.isEmpty()) {
                     ServerData serverData;
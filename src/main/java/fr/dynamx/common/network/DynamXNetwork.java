@@ -39,7 +39,8 @@ public class DynamXNetwork {
      * The network instance is located in {@link DynamXContext}
      */
     public static IDnxNetworkSystem init(Side side) {
-        IDnxNetworkSystem network = side.isServer() ? new DynamXServerNetworkSystem(DynamXConfig.useUdp ? EnumNetworkType.DYNAMX_UDP : EnumNetworkType.VANILLA_TCP) : new DynamXClientNetworkSystem(DynamXConfig.useUdp ? EnumNetworkType.DYNAMX_UDP : EnumNetworkType.VANILLA_TCP);
+        EnumNetworkType udpType = DynamXConfig.useNettyUdp ? EnumNetworkType.DYNAMX_NETTY_UDP : EnumNetworkType.DYNAMX_UDP;
+        IDnxNetworkSystem network = side.isServer() ? new DynamXServerNetworkSystem(DynamXConfig.useUdp ? udpType : EnumNetworkType.VANILLA_TCP) : new DynamXClientNetworkSystem(DynamXConfig.useUdp ? udpType : EnumNetworkType.VANILLA_TCP);
         SimpleNetworkWrapper channel = network.getVanillaNetwork().getChannel();
 
         //Udp packets
@@ -65,7 +66,6 @@ public class DynamXNetwork {
         registerMessage(channel, MessagePacksHashs.HandlerClient.class, MessagePacksHashs.class, Side.CLIENT);
         registerMessage(channel, MessageSeatsSync.class, MessageSeatsSync.class, Side.CLIENT);
         registerMessage(channel, MessageUpdateChunk.class, MessageUpdateChunk.class, Side.CLIENT);
-        registerMessage(channel, MessageChunkData.Handler.class, MessageChunkData.class, Side.CLIENT);
         registerMessage(channel, MessageForcePlayerPos.class, MessageForcePlayerPos.class, Side.CLIENT);
         registerMessage(channel, MessageJoints.class, MessageJoints.class, Side.CLIENT);
         registerMessage(channel, MessageSyncPlayerPicking.class, MessageSyncPlayerPicking.class, Side.CLIENT);
@@ -73,6 +73,7 @@ public class DynamXNetwork {
         registerMessage(channel, MessageCollisionDebugDraw.class, MessageCollisionDebugDraw.class, Side.CLIENT);
         registerMessage(channel, MessageCollisionDebugDraw.class, MessageCollisionDebugDraw.class, Side.CLIENT);
         registerMessage(channel, MessageHandleExplosion.class, MessageHandleExplosion.class, Side.CLIENT);
+        registerMessage(channel, MessageChunkDataBatch.Handler.class, MessageChunkDataBatch.class, Side.CLIENT);
 
         //To server
         registerMessage(channel, MessagePacksHashs.HandlerServer.class, MessagePacksHashs.class, Side.SERVER);
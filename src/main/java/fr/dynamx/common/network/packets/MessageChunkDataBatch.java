@@ -0,0 +1,284 @@
+package fr.dynamx.common.network.packets;
+
+import fr.aym.acslib.services.impl.thrload.DynamXThreadedModLoader;
+import fr.dynamx.api.network.EnumNetworkType;
+import fr.dynamx.api.network.EnumPacketTarget;
+import fr.dynamx.api.network.IDnxPacket;
+import fr.dynamx.api.physics.IPhysicsWorld;
+import fr.dynamx.client.handlers.ClientEventHandler;
+import fr.dynamx.common.DynamXContext;
+import fr.dynamx.common.DynamXMain;
+import fr.dynamx.common.physics.terrain.cache.RemoteTerrainCache;
+import fr.dynamx.common.physics.terrain.cache.TerrainCodec;
+import fr.dynamx.utils.VerticalChunkPos;
+import fr.dynamx.utils.debug.Profiler;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraftforge.fml.common.FMLCommonHandler;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessageHandler;
+import net.minecraftforge.fml.common.network.simpleimpl.MessageContext;
+import net.minecraftforge.fml.relauncher.Side;
+import net.minecraftforge.fml.relauncher.SideOnly;
+
+import javax.annotation.Nullable;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.Deflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Answer to a {@link MessageQueryChunks}, containing the data of many chunks <br>
+ * All chunks are compressed in the same deflate stream, so the repetitive data of neighbor chunks is only sent once <br>
+ * The client decodes the stream incrementally, each chunk being given to the {@link RemoteTerrainCache} as soon as it's read
+ *
+ * @see Batcher
+ */
+public class MessageChunkDataBatch implements IDnxPacket {
+    private static final byte version = 2;
+    private static final int EMPTY = -1, UNCHANGED = -2;
+    /**
+     * The maximum size of the uncompressed data of a batch, the next chunks are sent in another batch
+     */
+    private static final int MAX_BATCH_SIZE = 512 * 1024;
+
+    /**
+     * The number of chunks in the batch
+     */
+    private int count;
+    /**
+     * The compressed chunks : compressed when the batch is created on the sending side, so the packet doesn't hold any pooled buffer
+     */
+    private byte[] compressedData;
+
+    public MessageChunkDataBatch() {
+    }
+
+    /**
+     * Compresses the chunks <br>
+     * This packet takes the ownership of the data of the entries, and releases it before returning, even if the compression fails
+     *
+     * @param entries The chunks to send
+     */
+    public MessageChunkDataBatch(List<Entry> entries) {
+        ByteBuf raw = PooledByteBufAllocator.DEFAULT.heapBuffer();
+        Deflater deflater = new Deflater();
+        try {
+            for (Entry entry : entries) {
+                raw.writeInt(entry.pos.x);
+                raw.writeInt(entry.pos.y);
+                raw.writeInt(entry.pos.z);
+                raw.writeByte(entry.dataType[0]);
+                raw.writeByte(entry.dataType[1]);
+                if (entry.unchanged) {
+                    raw.writeInt(UNCHANGED);
+                } else if (entry.data == null) {
+                    raw.writeInt(EMPTY);
+                } else {
+                    raw.writeInt(entry.data.readableBytes());
+                    raw.writeBytes(entry.data, entry.data.readerIndex(), entry.data.readableBytes());
+                    raw.writeLong(entry.contentHash);
+                }
+            }
+            deflater.setInput(raw.array(), raw.arrayOffset() + raw.readerIndex(), raw.readableBytes());
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(raw.readableBytes() / 4 + 64);
+            byte[] chunk = new byte[8192];
+            while (!deflater.finished()) {
+                int length = deflater.deflate(chunk);
+                out.write(chunk, 0, length);
+            }
+            count = entries.size();
+            compressedData = out.toByteArray();
+        } finally {
+            deflater.end();
+            raw.release();
+            entries.forEach(Entry::release);
+        }
+    }
+
+    @Override
+    public EnumNetworkType getPreferredNetwork() {
+        return EnumNetworkType.VANILLA_TCP;
+    }
+
+    @Override
+    public void fromBytes(ByteBuf buf) {
+        byte ve = buf.readByte();
+        if (ve != version) {
+            throw new UnsupportedOperationException("Wrong encoding version, found " + ve + " and should be " + version);
+        }
+        count = TerrainCodec.readVarInt(buf);
+        compressedData = new byte[buf.readableBytes()];
+        buf.readBytes(compressedData);
+    }
+
+    @Override
+    public void toBytes(ByteBuf buf) {
+        buf.writeByte(version);
+        TerrainCodec.writeVarInt(buf, count);
+        buf.writeBytes(compressedData);
+    }
+
+    public static class Handler implements IMessageHandler<MessageChunkDataBatch, IDnxPacket> {
+        /**
+         * The "DnxCliCollsLoader" threads, decoding the received terrain data, also used to read the disk cache of the {@link RemoteTerrainCache}
+         */
+        public static final ExecutorService POOL = Executors.newFixedThreadPool(2, new DynamXThreadedModLoader.DefaultThreadFactory("DnxCliCollsLoader"));
+
+        @Override
+        @SideOnly(Side.CLIENT)
+        public IDnxPacket onMessage(MessageChunkDataBatch message, MessageContext ctx) {
+            POOL.submit(() -> {
+                IPhysicsWorld physicsWorld = DynamXContext.getPhysicsWorld(ClientEventHandler.MC.world);
+                if (physicsWorld == null)
+                    return;
+                RemoteTerrainCache cache = (RemoteTerrainCache) physicsWorld.getTerrainManager().getCache();
+                Profiler profiler = Profiler.get();
+                profiler.start(Profiler.Profiles.TERRAIN_LOADER_TICK);
+                try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(message.compressedData)))) {
+                    for (int i = 0; i < message.count; i++) {
+                        VerticalChunkPos pos = new VerticalChunkPos(in.readInt(), in.readInt(), in.readInt());
+                        byte dataType = in.readByte();
+                        byte snapIdMod = in.readByte();
+                        int length = in.readInt();
+                        if (length == UNCHANGED) {
+                            cache.receiveUnchangedChunkData(pos, dataType, snapIdMod);
+                        } else if (length == EMPTY) {
+                            cache.receiveChunkData(pos, dataType, snapIdMod, null, 0);
+                        } else {
+                            byte[] data = new byte[length];
+                            in.readFully(data);
+                            cache.receiveChunkData(pos, dataType, snapIdMod, data, in.readLong());
+                        }
+                    }
+                } catch (IOException e) {
+                    DynamXMain.log.error("Failed to read terrain data batch of " + message.count + " chunks", e);
+                }
+                profiler.end(Profiler.Profiles.TERRAIN_LOADER_TICK);
+                profiler.update();
+                if (profiler.isActive()) //Profiling
+                {
+                    List<String> st = profiler.getData();
+                    if (!st.isEmpty()) {
+                        profiler.printData("Network terrain thread");
+                        profiler.reset();
+                    }
+                }
+            });
+            return null;
+        }
+    }
+
+    /**
+     * The data of a chunk in a batch
+     */
+    public static class Entry {
+        private final VerticalChunkPos pos;
+        private final byte[] dataType;
+        @Nullable
+        private final ByteBuf data;
+        private final long contentHash;
+        private final boolean unchanged;
+
+        /**
+         * @param data        The encoded terrain data, or null if the chunk is empty. The entry takes the ownership of this buffer
+         * @param contentHash The content hash of the data, stored in the disk cache of the client, 0 if the data shouldn't be cached
+         * @param unchanged   True if the data didn't change since the client cached it, the data isn't sent
+         */
+        public Entry(VerticalChunkPos pos, byte[] dataType, @Nullable ByteBuf data, long contentHash, boolean unchanged) {
+            this.pos = pos;
+            this.dataType = dataType;
+            this.data = data;
+            this.contentHash = contentHash;
+            this.unchanged = unchanged;
+        }
+
+        private int getSize() {
+            return 26 + (data == null ? 0 : data.readableBytes());
+        }
+
+        private void release() {
+            if (data != null)
+                data.release();
+        }
+    }
+
+    /**
+     * Server-side : groups the chunks sent to each player in {@link MessageChunkDataBatch}s <br>
+     * The chunks can be added from any thread, they are sent at the next server tick
+     */
+    public static class Batcher {
+        private final Map<EntityPlayerMP, PlayerBatch> batches = new ConcurrentHashMap<>();
+
+        /**
+         * Sends the chunk data to the player, with the next batch
+         *
+         * @param data        The encoded terrain data, or null if the chunk is empty. The batcher takes the ownership of this buffer
+         * @param contentHash The content hash of the data, stored in the disk cache of the client, 0 if the data shouldn't be cached
+         */
+        public void send(EntityPlayerMP player, VerticalChunkPos pos, byte[] dataType, @Nullable ByteBuf data, long contentHash) {
+            add(player, new Entry(pos, dataType, data, contentHash, false));
+        }
+
+        /**
+         * Tells the player, with the next batch, that the chunk in its disk cache is up-to-date
+         */
+        public void sendUnchanged(EntityPlayerMP player, VerticalChunkPos pos, byte[] dataType) {
+            add(player, new Entry(pos, dataType, null, 0, true));
+        }
+
+        private void add(EntityPlayerMP player, Entry entry) {
+            PlayerBatch batch = batches.computeIfAbsent(player, PlayerBatch::new);
+            batch.entries.add(entry);
+            if (batch.scheduled.compareAndSet(false, true))
+                FMLCommonHandler.instance().getMinecraftServerInstance().addScheduledTask(() -> flush(batch));
+        }
+
+        private void flush(PlayerBatch batch) {
+            batch.scheduled.set(false);
+            //If a chunk is added after this, a new flush will be scheduled
+            batches.remove(batch.player, batch);
+            boolean disconnected = batch.player.hasDisconnected();
+            List<Entry> entries = new ArrayList<>();
+            int size = 0;
+            Entry entry;
+            while ((entry = batch.entries.poll()) != null) {
+                if (disconnected) {
+                    entry.release();
+                    continue;
+                }
+                if (!entries.isEmpty() && size + entry.getSize() > MAX_BATCH_SIZE) {
+                    DynamXContext.getNetwork().sendToClient(new MessageChunkDataBatch(entries), EnumPacketTarget.PLAYER, batch.player);
+                    entries = new ArrayList<>();
+                    size = 0;
+                }
+                entries.add(entry);
+                size += entry.getSize();
+            }
+            if (!entries.isEmpty())
+                DynamXContext.getNetwork().sendToClient(new MessageChunkDataBatch(entries), EnumPacketTarget.PLAYER, batch.player);
+        }
+
+        private static class PlayerBatch {
+            private final EntityPlayerMP player;
+            private final Queue<Entry> entries = new ConcurrentLinkedQueue<>();
+            private final AtomicBoolean scheduled = new AtomicBoolean();
+
+            private PlayerBatch(EntityPlayerMP player) {
+                this.player = player;
+            }
+        }
+    }
+}
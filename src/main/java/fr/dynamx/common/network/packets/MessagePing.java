@@ -51,10 +51,12 @@ public class MessagePing implements IDnxPacket, net.minecraftforge.fml.common.ne
 
     @SideOnly(Side.CLIENT)
     private static void clientHandle(MessagePing message) {
-        ClientPhysicsSyncManager.pingMs = ((int) (System.currentTimeMillis() - message.sentTime)) / 2;
+        int rtt = (int) (System.currentTimeMillis() - message.sentTime);
+        ClientPhysicsSyncManager.pingMs = rtt / 2;
         ClientPhysicsSyncManager.lastPing = message.sentTime;
+        ClientPhysicsSyncManager.linkStats.onRttSample(rtt);
         if (message.manual)
-            Minecraft.getMinecraft().player.sendMessage(new TextComponentString("[DynamX] Your ping is " + ClientPhysicsSyncManager.pingMs + " ms"));
+            Minecraft.getMinecraft().player.sendMessage(new TextComponentString("[DynamX] Your ping is " + ClientPhysicsSyncManager.pingMs + " ms (" + ClientPhysicsSyncManager.linkStats + ")"));
     }
 
     @Override
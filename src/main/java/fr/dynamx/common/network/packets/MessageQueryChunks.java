@@ -1,15 +1,16 @@
 package fr.dynamx.common.network.packets;
 
 import fr.dynamx.api.network.EnumNetworkType;
-import fr.dynamx.api.network.EnumPacketTarget;
 import fr.dynamx.api.network.IDnxPacket;
 import fr.dynamx.api.physics.IPhysicsWorld;
 import fr.dynamx.api.physics.terrain.ITerrainElement;
 import fr.dynamx.client.handlers.ClientEventHandler;
 import fr.dynamx.common.DynamXContext;
 import fr.dynamx.common.DynamXMain;
+import fr.dynamx.common.physics.terrain.cache.EncodedChunkCache;
 import fr.dynamx.common.physics.terrain.cache.FileTerrainCache;
 import fr.dynamx.common.physics.terrain.cache.RemoteTerrainCache;
+import fr.dynamx.common.physics.terrain.cache.TerrainCodec;
 import fr.dynamx.common.physics.terrain.chunk.ChunkLoadingTicket;
 import fr.dynamx.common.physics.terrain.chunk.ChunkState;
 import fr.dynamx.common.physics.terrain.chunk.ChunkTerrain;
@@ -18,21 +19,35 @@ import fr.dynamx.utils.debug.Profiler;
 import fr.dynamx.utils.optimization.HashMapPool;
 import fr.dynamx.utils.optimization.PooledHashMap;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import net.minecraftforge.fml.common.network.simpleimpl.IMessageHandler;
 import net.minecraftforge.fml.common.network.simpleimpl.MessageContext;
 import net.minecraftforge.fml.relauncher.Side;
 import net.minecraftforge.fml.relauncher.SideOnly;
 
-import java.util.ArrayList;
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 public class MessageQueryChunks implements IDnxPacket {
     private PooledHashMap<VerticalChunkPos, byte[]> requests;
+    /**
+     * The content hashes of the chunks stored in the disk cache of the client (see {@link fr.dynamx.common.physics.terrain.cache.RemoteTerrainDiskCache})
+     */
+    private Map<VerticalChunkPos, Long> knownHashes;
 
     public MessageQueryChunks() {
     }
 
     public MessageQueryChunks(PooledHashMap<VerticalChunkPos, byte[]> requests) {
+        this(requests, Collections.emptyMap());
+    }
+
+    public MessageQueryChunks(PooledHashMap<VerticalChunkPos, byte[]> requests, Map<VerticalChunkPos, Long> knownHashes) {
         this.requests = requests;
+        this.knownHashes = knownHashes;
     }
 
     @Override
@@ -47,6 +62,11 @@ public class MessageQueryChunks implements IDnxPacket {
         for (int i = 0; i < size; i++) {
             requests.put(new VerticalChunkPos(buf.readInt(), buf.readInt(), buf.readInt()), new byte[]{buf.readByte(), buf.readByte()});
         }
+        size = buf.readInt();
+        knownHashes = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            knownHashes.put(new VerticalChunkPos(buf.readInt(), buf.readInt(), buf.readInt()), buf.readLong());
+        }
     }
 
     @Override
@@ -60,20 +80,36 @@ public class MessageQueryChunks implements IDnxPacket {
             buf.writeByte(dataType[1]);
         });
         requests.release();
+        buf.writeInt(knownHashes.size());
+        knownHashes.forEach((pos, hash) -> {
+            buf.writeInt(pos.x);
+            buf.writeInt(pos.y);
+            buf.writeInt(pos.z);
+            buf.writeLong(hash);
+        });
     }
 
     public static class Handler implements IMessageHandler<MessageQueryChunks, IDnxPacket> {
-        private void processElements(MessageContext ctx, VerticalChunkPos pos, byte[] dataType, ChunkTerrain terrainElements) {
+        /**
+         * Groups the answers sent to each player
+         */
+        private static final MessageChunkDataBatch.Batcher BATCHER = new MessageChunkDataBatch.Batcher();
+
+        private void processElements(MessageContext ctx, IPhysicsWorld physicsWorld, ChunkLoadingTicket ticket, byte[] dataType, @Nullable Long knownHash, ChunkTerrain terrainElements) {
             //System.out.println("======> J'accepte "+pos+" "+terrainElements);
+            VerticalChunkPos pos = ticket.getPos();
             if (terrainElements == null) {
-                PooledHashMap<VerticalChunkPos, byte[]> empty = HashMapPool.get();
-                empty.put(pos, dataType);
-                DynamXContext.getNetwork().sendToClientFromOtherThread(new MessageQueryChunks(empty), EnumPacketTarget.PLAYER, ctx.getServerHandler().player);
+                BATCHER.send(ctx.getServerHandler().player, pos, dataType, null, 0);
             } else {
-                ArrayList<ITerrainElement> dest = new ArrayList<>(terrainElements.getElements());
-                if (dataType[0] == 0)
-                    dest.addAll(terrainElements.getPersistentElements());
-                DynamXContext.getNetwork().sendToClientFromOtherThread(new MessageChunkData(pos, dataType, dest), EnumPacketTarget.PLAYER, ctx.getServerHandler().player);
+                //Encoded once for all clients
+                EncodedChunkCache.EncodedChunk data = ((FileTerrainCache) physicsWorld.getTerrainManager().getCache()).getEncodedChunkCache().getEncodedChunk(pos, ticket.getStatusIndex(), dataType[0] == 0, terrainElements);
+                if (knownHash != null && knownHash == data.getContentHash()) {
+                    //The client already has this chunk in its disk cache
+                    data.getData().release();
+                    BATCHER.sendUnchanged(ctx.getServerHandler().player, pos, dataType);
+                } else {
+                    BATCHER.send(ctx.getServerHandler().player, pos, dataType, data.getData(), data.getContentHash());
+                }
             }
         }
 
@@ -89,7 +125,6 @@ public class MessageQueryChunks implements IDnxPacket {
         @Override
         public IDnxPacket onMessage(MessageQueryChunks message, MessageContext ctx) {
             if (ctx.side.isServer()) {
-                PooledHashMap<VerticalChunkPos, byte[]> emptyGuys = HashMapPool.get();
                 PooledHashMap<ChunkLoadingTicket, byte[]> boysToLoad = HashMapPool.get();
                 IPhysicsWorld physicsWorld = DynamXContext.getPhysicsWorld(ctx.getServerHandler().player.world);
                 message.requests.forEach((pos, data) -> {
@@ -98,28 +133,19 @@ public class MessageQueryChunks implements IDnxPacket {
                         ChunkLoadingTicket ticket = physicsWorld.getTerrainManager().getTicket(pos);
                         if (ticket.getStatus() == ChunkState.LOADED) {
                             // System.out.println("Already loaded "+ticket);
-                            processElements(ctx, pos, data, ticket.getCollisions().getElements());
+                            processElements(ctx, physicsWorld, ticket, data, message.knownHashes.get(ticket.getPos()), ticket.getCollisions().getElements());
                         } else {
                             boysToLoad.put(ticket, data);
                         }
                     } else if (dataType == 2) {
-                        byte[] dt = ((FileTerrainCache) physicsWorld.getTerrainManager().getCache()).getSlopesFile().getRawChunkData(pos);
-                        //System.out.println("Found "+dt+" at "+pos);
-                        if (dt == null) {
-                            emptyGuys.put(pos, data);
-                        } else {
-                            //Don't use reply (return) system, because it may interfere with packet sending (weird bugs seen, maybe due to Mohist)
-                            DynamXContext.getNetwork().sendToClientFromOtherThread(new MessageChunkData(pos, data, dt), EnumPacketTarget.PLAYER, ctx.getServerHandler().player);
-                        }
+                        FileTerrainCache cache = (FileTerrainCache) physicsWorld.getTerrainManager().getCache();
+                        //Migrated from the legacy format if needed, encoded with the disk type like the client decodes its slopes, and not compressed : the batch is deflated as a whole
+                        List<ITerrainElement> slopes = cache.getSlopesFile().loadChunk(pos, cache);
+                        byte[] dt = slopes == null ? null : TerrainCodec.encode(ITerrainElement.TerrainSaveType.DISK, slopes, pos, false);
+                        //Don't use reply (return) system, because it may interfere with packet sending (weird bugs seen, maybe due to Mohist)
+                        BATCHER.send(ctx.getServerHandler().player, pos, data, dt == null ? null : Unpooled.wrappedBuffer(dt), 0);
                     }
                 });
-                if (!emptyGuys.isEmpty()) {
-                    //Copy the map for packet sending
-                    //Don't use reply (return) system, because it may interfere with packet sending (weird bugs seen, maybe due to Mohist)
-                    DynamXContext.getNetwork().sendToClientFromOtherThread(new MessageQueryChunks(emptyGuys), EnumPacketTarget.PLAYER, ctx.getServerHandler().player);
-                } else {
-                    emptyGuys.release();
-                }
                 if (!boysToLoad.isEmpty()) {
                     physicsWorld.schedule(() -> { //Be sync with physics/terrain thread
                         boysToLoad.forEach((ticket, data) -> {
@@ -130,7 +156,7 @@ public class MessageQueryChunks implements IDnxPacket {
                                         physicsWorld.getTerrainManager().subscribeToChunk(ticket.getPos(), ChunkLoadingTicket.TicketPriority.MEDIUM, Profiler.get());
                                         ticket.getLoadedCallback().whenComplete((collisions2, e) -> {
                                             if (collisions2 != null) {
-                                                processElements(ctx, ticket.getPos(), data, collisions2.getElements());
+                                                processElements(ctx, physicsWorld, ticket, data, message.knownHashes.get(ticket.getPos()), collisions2.getElements());
                                             } else if (e != null) {
                                                 DynamXMain.log.error("0x54 Failed to load chunk {}, for client {}", ticket, ctx.getServerHandler().player.getName(), e);
                                             }
@@ -154,7 +180,7 @@ public class MessageQueryChunks implements IDnxPacket {
                             if (ticket.getLoadedCallback() != null) {
                                 ticket.getLoadedCallback().whenComplete((collisions2, e) -> {
                                     if (collisions2 != null) {
-                                        processElements(ctx, ticket.getPos(), data, collisions2.getElements());
+                                        processElements(ctx, physicsWorld, ticket, data, message.knownHashes.get(ticket.getPos()), collisions2.getElements());
                                     } else if (e != null) {
                                         DynamXMain.log.error("0x55 Failed to load chunk {}, for client {}", ticket, ctx.getServerHandler().player.getName(), e);
                                     }
@@ -0,0 +1,101 @@
+package fr.dynamx.common.network.sync;
+
+import fr.dynamx.api.network.sync.EntityVariable;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import net.minecraftforge.fml.common.network.ByteBufUtils;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * The encoded variables of a {@link MessagePhysicsEntitySync}, shared between all the players receiving the same variables <br>
+ * The data is reference-counted : each holder of a payload must {@link #release()} it, and {@link #retainedSlice()} gives a new reference to the same data
+ *
+ * @see fr.dynamx.server.network.ServerPhysicsEntitySynchronizer
+ * @see fr.dynamx.server.network.PlayerSyncBuffer
+ */
+public class EncodedSyncPayload {
+    private final ByteBuf data;
+    /**
+     * The sorted ids of the encoded variables
+     */
+    private final int[] varIds;
+
+    private EncodedSyncPayload(ByteBuf data, int[] varIds) {
+        this.data = data;
+        this.varIds = varIds;
+    }
+
+    /**
+     * Encodes the variables, in the format of {@link MessagePhysicsEntitySync} <br>
+     * The "changed" state of the variables isn't modified
+     *
+     * @param vars      The variables to encode
+     * @param lightData See {@link EntityVariable#writeValue(ByteBuf, boolean)}
+     * @return The encoded payload, to release once sent
+     */
+    public static EncodedSyncPayload encode(Map<Integer, EntityVariable<?>> vars, boolean lightData) {
+        ByteBuf data = ByteBufAllocator.DEFAULT.heapBuffer();
+        int[] varIds = new int[vars.size()];
+        int i = 0;
+        for (Map.Entry<Integer, EntityVariable<?>> entry : vars.entrySet()) {
+            varIds[i++] = entry.getKey();
+            ByteBufUtils.writeVarInt(data, entry.getKey(), 5);
+            entry.getValue().writeValue(data, lightData);
+        }
+        Arrays.sort(varIds);
+        return new EncodedSyncPayload(data, varIds);
+    }
+
+    /**
+     * @return A new reference to this payload, to release separately
+     */
+    public EncodedSyncPayload retainedSlice() {
+        return new EncodedSyncPayload(data.retainedSlice(), varIds);
+    }
+
+    public void release() {
+        data.release();
+    }
+
+    /**
+     * @return The number of variables in this payload
+     */
+    public int getVarCount() {
+        return varIds.length;
+    }
+
+    /**
+     * @return The size of the encoded variables, in bytes
+     */
+    public int getSize() {
+        return data.readableBytes();
+    }
+
+    /**
+     * @return True if this payload contains all the variables of the other payload
+     */
+    public boolean containsAll(EncodedSyncPayload other) {
+        for (int id : other.varIds) {
+            if (Arrays.binarySearch(varIds, id) < 0)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Writes the encoded variables, without modifying this payload
+     */
+    public void writeTo(ByteBuf buf) {
+        buf.writeBytes(data, data.readerIndex(), data.readableBytes());
+    }
+
+    @Override
+    public String toString() {
+        return "EncodedSyncPayload{" +
+                "vars=" + Arrays.toString(varIds) +
+                ", bytes=" + data.readableBytes() +
+                '}';
+    }
+}
@@ -26,14 +26,18 @@ public abstract class MPPhysicsEntitySynchronizer<T extends PhysicsEntity<?>> ex
         if (!receivedPackets.isEmpty()) {
             MessagePhysicsEntitySync<T> msg;
             while ((msg = receivedPackets.poll()) != null) {
+                onDataReceived(msg);
                 getReceivedVariables().putAll(msg.getVarsToRead());
                 setSimulationTimeClient(msg.getSimulationTimeClient());
-                onDataReceived(msg);
             }
             getReceivedVariables().forEach((key, value) -> ((SynchronizedEntityVariableSnapshot<Object>) value).updateVariable(tryGetVariable(key)));
         }
     }
 
+    /**
+     * Called for each received packet, before applying its variables <br>
+     * The variables removed from the packet are not applied
+     */
     protected void onDataReceived(MessagePhysicsEntitySync<T> msg) {
     }
 
@@ -13,6 +13,7 @@ import fr.dynamx.utils.optimization.PooledHashMap;
 import io.netty.buffer.ByteBuf;
 import lombok.Getter;
 import net.minecraft.entity.player.EntityPlayer;
+import net.minecraftforge.fml.common.network.ByteBufUtils;
 import net.minecraftforge.fml.common.network.simpleimpl.IMessage;
 import net.minecraftforge.fml.common.network.simpleimpl.IMessageHandler;
 import net.minecraftforge.fml.common.network.simpleimpl.MessageContext;
@@ -30,6 +31,10 @@ import java.util.stream.Collectors;
 public class MessagePhysicsEntitySync<T extends PhysicsEntity<?>> extends PhysicsEntityMessage<MessagePhysicsEntitySync<T>> {
     //@Getter
     private Map<Integer, EntityVariable<?>> varsToSend;
+    /**
+     * The already encoded variables to send, used instead of varsToSend, see {@link EncodedSyncPayload}
+     */
+    private List<EncodedSyncPayload> payloadsToSend;
     @Getter
     private Map<Integer, SynchronizedEntityVariableSnapshot<?>> varsToRead;
     /**
@@ -55,13 +60,31 @@ public class MessagePhysicsEntitySync<T extends PhysicsEntity<?>> extends Physic
         // System.out.println("Send "+simulationTimeClient);
     }
 
+    /**
+     * Creates a sync packet from variables encoded once for all the players receiving them <br>
+     * The payloads are written in order, so the variables of the last payloads override the variables of the first ones <br>
+     * The payloads are still owned by the caller, that must release them after sending this packet (see {@link #releasePayloads()})
+     */
+    public MessagePhysicsEntitySync(T entity, int simulationTimeClient, List<EncodedSyncPayload> payloadsToSend) {
+        super(entity);
+        this.targetEntity = entity;
+        this.payloadsToSend = payloadsToSend;
+        this.simulationTimeClient = simulationTimeClient;
+    }
+
     @Override
     public void toBytes(ByteBuf buf) {
         //  System.out.println("Sending "+simulationTimeClient);
         int index = buf.writerIndex();
         super.toBytes(buf);
         buf.writeInt(simulationTimeClient);
-        buf.writeInt(varsToSend.size());
+        if (payloadsToSend != null) {
+            ByteBufUtils.writeVarInt(buf, payloadsToSend.stream().mapToInt(EncodedSyncPayload::getVarCount).sum(), 5);
+            payloadsToSend.forEach(payload -> payload.writeTo(buf));
+            return;
+        }
+        //The variable ids are small indexes (see SynchronizedEntityVariableRegistry) : written as var ints
+        ByteBufUtils.writeVarInt(buf, varsToSend.size(), 5);
         //buf.writeBoolean(doSizeTrack);
         final int[] j = {0};
         boolean[] log = {doSizeTrack};
@@ -71,7 +94,7 @@ public class MessagePhysicsEntitySync<T extends PhysicsEntity<?>> extends Physic
             EntityVariable<Object> v = (EntityVariable<Object>) entry.getValue();
             if (log[0])
                 System.out.println("Write var " + v.getClass() + " at " + j[0] + " /" + i + " " + entityId);
-            buf.writeInt(i);
+            ByteBufUtils.writeVarInt(buf, i, 5);
             v.writeValue(buf, lightData);
             v.setChanged(false);
             if (doSizeTrack) {
@@ -99,7 +122,7 @@ public class MessagePhysicsEntitySync<T extends PhysicsEntity<?>> extends Physic
         super.fromBytes(buf);
         simulationTimeClient = buf.readInt();
         varsToRead = HashMapPool.get();
-        int size = buf.readInt();
+        int size = ByteBufUtils.readVarInt(buf, 5);
         //boolean doSizeTrack = buf.readBoolean();
         //System.out.println("Size tracking "+doSizeTrack);
         final int[] j = {0};
@@ -111,7 +134,7 @@ public class MessagePhysicsEntitySync<T extends PhysicsEntity<?>> extends Physic
             SynchronizedEntityVariableSnapshot<?> v = null;
             int id = -1;
             try {
-                id = buf.readInt();
+                id = ByteBufUtils.readVarInt(buf, 5);
                 EntityVariableSerializer<?> serializer = SynchronizedEntityVariableRegistry.getSerializerMap().get(id);
                 if (serializer == null)
                     throw new IllegalArgumentException("Serializer not found for id " + id + " in " + SynchronizedEntityVariableRegistry.getSerializerMap() + ". Variable is " + SynchronizedEntityVariableRegistry.getSyncVarRegistry().inverse().get(id));
@@ -156,6 +179,16 @@ public class MessagePhysicsEntitySync<T extends PhysicsEntity<?>> extends Physic
         return EnumNetworkType.DYNAMX_UDP;
     }
 
+    /**
+     * Releases the {@link EncodedSyncPayload}s of this packet, once sent
+     */
+    public void releasePayloads() {
+        if (payloadsToSend != null) {
+            payloadsToSend.forEach(EncodedSyncPayload::release);
+            payloadsToSend = null;
+        }
+    }
+
     /**
      * @return The "date" of the data contained in this packet
      */
@@ -167,6 +200,7 @@ public class MessagePhysicsEntitySync<T extends PhysicsEntity<?>> extends Physic
     public String toString() {
         return "MessagePhysicsEntitySync{" +
                 "varsToSend=" + varsToSend +
+                ", payloadsToSend=" + payloadsToSend +
                 ", varsToRead=" + varsToRead +
                 ", simulationTimeClient=" + simulationTimeClient +
                 ", doSizeTrack=" + doSizeTrack +
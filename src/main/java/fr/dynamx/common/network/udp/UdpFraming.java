@@ -0,0 +1,19 @@
+package fr.dynamx.common.network.udp;
+
+/**
+ * Framing of the {@link EncapsulatedUDPPacket}s sent by the server <br>
+ * The small packets sent to a client are merged in frame datagrams : [{@link #FRAME_ID}][sequence : int] then, for each packet, [length : varint][packet id][packet data] <br>
+ * The packets bigger than a datagram are split in fragment datagrams : [{@link #FRAGMENT_ID}][sequence : int][message id : short][fragment index : ubyte][fragment count : ubyte][data] <br>
+ * The sequence number is incremented for each datagram, so the client can measure the packet loss
+ *
+ * @see fr.dynamx.server.network.udp.UdpFrameWriter
+ * @see fr.dynamx.client.network.udp.UdpFrameReader
+ */
+public class UdpFraming {
+    public static final byte FRAME_ID = 1, FRAGMENT_ID = 2;
+    public static final int FRAME_HEADER_SIZE = 5, FRAGMENT_HEADER_SIZE = 9;
+    /**
+     * Maximum number of fragments of a packet
+     */
+    public static final int MAX_FRAGMENTS = 255;
+}
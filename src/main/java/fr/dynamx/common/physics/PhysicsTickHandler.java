@@ -10,6 +10,7 @@ import fr.dynamx.server.command.CmdNetworkConfig;
 import fr.dynamx.utils.DynamXLoadingTasks;
 import fr.dynamx.utils.debug.DynamXDebugOptions;
 import fr.dynamx.utils.debug.Profiler;
+import fr.dynamx.utils.debug.metrics.DynamXMetrics;
 import fr.dynamx.utils.optimization.QuaternionPool;
 import fr.dynamx.utils.optimization.TransformPool;
 import fr.dynamx.utils.optimization.Vector3fPool;
@@ -103,6 +104,13 @@ public class PhysicsTickHandler {
             sendClientsDebug();
             Profiler.get().update();
             TaskScheduler.tick();
+            if (DynamXMetrics.isEnabled()) {
+                for (WorldServer world : FMLCommonHandler.instance().getMinecraftServerInstance().worlds) {
+                    if (canTickServer(world))
+                        DynamXMetrics.updateWorldGauges(DynamXContext.getPhysicsWorld(world));
+                }
+                DynamXMetrics.tick();
+            }
             Vector3fPool.closePool();
             QuaternionPool.closePool();
         }
@@ -2,57 +2,49 @@ package fr.dynamx.common.physics.terrain;
 
 import fr.dynamx.common.physics.terrain.chunk.ChunkLoadingTicket;
 import fr.dynamx.utils.VerticalChunkPos;
+import fr.dynamx.utils.optimization.Long2ObjectOpenMap;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.function.Consumer;
 
 /**
- * A kindly optimzed map for {@link ChunkLoadingTicket}s, identified by their position
+ * A kindly optimzed map for {@link ChunkLoadingTicket}s, identified by their position <br>
+ * The positions are packed in longs (see {@link VerticalChunkPos#asLong(int, int, int)}), so the lookups don't allocate anything
  */
 public class ChunkLoadingTicketMap {
-    private final Map<Integer, Map<Integer, Map<VerticalChunkPos, ChunkLoadingTicket>>> ticketsMap = new HashMap<>();
+    private final Long2ObjectOpenMap<ChunkLoadingTicket> ticketsMap = new Long2ObjectOpenMap<>(1024);
 
     public ChunkLoadingTicket get(VerticalChunkPos pos) {
-        Map<Integer, Map<VerticalChunkPos, ChunkLoadingTicket>> m1 = ticketsMap.computeIfAbsent(pos.x >> 4, k -> new HashMap<>());
-        Map<VerticalChunkPos, ChunkLoadingTicket> m2 = m1.computeIfAbsent(pos.z >> 4, k -> new HashMap<>());
-        return m2.get(pos);
+        return ticketsMap.get(pos.asLong());
     }
 
     public void put(VerticalChunkPos pos, ChunkLoadingTicket ticket) {
-        Map<Integer, Map<VerticalChunkPos, ChunkLoadingTicket>> m1 = ticketsMap.computeIfAbsent(pos.x >> 4, k -> new HashMap<>());
-        Map<VerticalChunkPos, ChunkLoadingTicket> m2 = m1.computeIfAbsent(pos.z >> 4, k -> new HashMap<>());
-        m2.put(pos, ticket);
+        ticketsMap.put(pos.asLong(), ticket);
     }
 
     public ChunkLoadingTicket remove(VerticalChunkPos pos) {
-        Map<Integer, Map<VerticalChunkPos, ChunkLoadingTicket>> m1 = ticketsMap.get(pos.x >> 4);
-        if (m1 != null) {
-            Map<VerticalChunkPos, ChunkLoadingTicket> m2 = m1.get(pos.z >> 4);
-            if (m2 != null) {
-                return m2.remove(pos);
-            }
-        }
-        return null;
+        return ticketsMap.remove(pos.asLong());
     }
 
     public boolean containsKey(VerticalChunkPos pos) {
-        Map<Integer, Map<VerticalChunkPos, ChunkLoadingTicket>> m1 = ticketsMap.get(pos.x >> 4);
-        if (m1 != null) {
-            Map<VerticalChunkPos, ChunkLoadingTicket> m2 = m1.get(pos.z >> 4);
-            if (m2 != null) {
-                return m2.containsKey(pos);
-            }
-        }
-        return false;
+        return ticketsMap.containsKey(pos.asLong());
+    }
+
+    /**
+     * @return The number of tickets in this map
+     */
+    public int size() {
+        return ticketsMap.size();
+    }
+
+    /**
+     * Iterates over all tickets of this map <br>
+     * The map must not be modified by the action
+     */
+    public void forEach(Consumer<ChunkLoadingTicket> action) {
+        ticketsMap.forEachValue(action);
     }
 
     public void clear() {
-        ticketsMap.forEach((i, m) -> {
-            m.forEach((j, t) -> {
-                t.clear();
-            });
-            m.clear();
-        });
         ticketsMap.clear();
     }
 }
@@ -92,7 +92,10 @@ public class PhysicsEntityTerrainLoader implements IPhysicsTerrainLoader {
             }
             if (!toLoad.isEmpty()) {
                 toLoad.forEach((load, priority) -> {
-                    if (!terrain.subscribeToChunk(load, priority, profiler)) {
+                    int deltaX = load.x * 16 + 8 - (int) entityIn.posX;
+                    int deltaY = load.y * 16 + 8 - (int) entityIn.posY;
+                    int deltaZ = load.z * 16 + 8 - (int) entityIn.posZ;
+                    if (!terrain.subscribeToChunk(load, priority, deltaX * deltaX + deltaY * deltaY + deltaZ * deltaZ, profiler)) {
                         // failed to load (because the chunk is not loaded into Minecraft), so we mark it as not loaded here
                         int i = load.y - curChunkY + radiusYHalf;
                         int j = (load.x - curChunkX + radiusHHalf) + (load.z - curChunkZ + radiusHHalf) * radiusH;
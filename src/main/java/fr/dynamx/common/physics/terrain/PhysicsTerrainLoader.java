@@ -5,6 +5,7 @@ import fr.dynamx.common.DynamXMain;
 import fr.dynamx.common.physics.terrain.chunk.ChunkCollisions;
 import fr.dynamx.common.physics.terrain.chunk.ChunkLoadingTicket;
 import fr.dynamx.common.physics.terrain.chunk.DebugChunkCollisions;
+import fr.dynamx.utils.DynamXConfig;
 import fr.dynamx.utils.VerticalChunkPos;
 import fr.dynamx.utils.debug.ChunkGraph;
 import fr.dynamx.utils.debug.Profiler;
@@ -12,33 +13,71 @@ import fr.dynamx.utils.optimization.BoundingBoxPool;
 import fr.dynamx.utils.optimization.Vector3fPool;
 
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Async loader for quicker loading of {@link ChunkCollisions}
+ * Async loader for quicker loading of {@link ChunkCollisions} <br>
+ * The chunks are loaded by a pool of workers (see the "TerrainLoaderThreads" option of the config), in the order of their {@link ChunkLoadingTicket.TicketPriority}, then of their distance to the entity requesting them <br>
+ * Loading requests whose snapshot is not valid anymore are cancelled before being started
  */
 public class PhysicsTerrainLoader {
     private static final ThreadFactory factory = new DynamXThreadedModLoader.DefaultThreadFactory("DnxTerrainLoader");
-    private final ExecutorService POOL = Executors.newFixedThreadPool(1, factory);
+    private final ThreadPoolExecutor POOL;
     private final PhysicsWorldTerrain manager;
-    private final Profiler profiler = new Profiler();
+    private final ThreadLocal<Profiler> profiler = ThreadLocal.withInitial(Profiler::new);
+
+    private final AtomicLong requestCounter = new AtomicLong();
+    private final AtomicLong completedCount = new AtomicLong();
+    private final AtomicLong cancelledCount = new AtomicLong();
+    private final AtomicLong totalWaitTime = new AtomicLong();
+    private final AtomicLong maxWaitTime = new AtomicLong();
 
     protected PhysicsTerrainLoader(PhysicsWorldTerrain manager) {
         this.manager = manager;
+        int threads = DynamXConfig.terrainLoaderThreads;
+        if (threads <= 0)
+            threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+        //Only use execute() on this pool : submit() would wrap the requests in non-comparable futures
+        this.POOL = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new PriorityBlockingQueue<>(), factory);
     }
 
     /**
-     * Appends a chunk to the loading queue
+     * Appends a chunk to the loading queue, with the lowest distance
      */
     public void asyncLoadChunk(ChunkLoadingTicket.Snap chunk) {
-        //System.out.println("Async load. status "+POOL.isTerminated()+" "+chunk.getTicket()+" "+chunk.getSnapIndex());
-        if (!POOL.isTerminated()) {
-            POOL.submit(() -> loadChunk(chunk));
+        asyncLoadChunk(chunk, 0);
+    }
+
+    /**
+     * Appends a chunk to the loading queue
+     *
+     * @param chunk               The snapshot of the ticket to load
+     * @param requesterDistanceSq The squared distance between the chunk and the entity requesting it, used to load nearest chunks first
+     */
+    public void asyncLoadChunk(ChunkLoadingTicket.Snap chunk, int requesterDistanceSq) {
+        if (!POOL.isShutdown()) {
+            POOL.execute(new LoadRequest(chunk, requesterDistanceSq, requestCounter.getAndIncrement()));
         }
     }
 
+    /**
+     * Removes the requests that are not valid anymore from the queue (the chunk was unloaded, or another loading was started) <br>
+     * Should be called regularly by the physics thread
+     */
+    public void purgeStaleRequests() {
+        POOL.getQueue().removeIf(request -> {
+            if (!((LoadRequest) request).snap.isValid()) {
+                cancelledCount.incrementAndGet();
+                return true;
+            }
+            return false;
+        });
+    }
+
     /**
      * Stops any thread and clears queues
      */
@@ -46,12 +85,64 @@ public class PhysicsTerrainLoader {
         POOL.shutdownNow();
     }
 
-    private void loadChunk(ChunkLoadingTicket.Snap chk) {
+    /**
+     * @return The number of chunks waiting to be loaded
+     */
+    public int getQueueDepth() {
+        return POOL.getQueue().size();
+    }
+
+    /**
+     * @return The number of worker threads
+     */
+    public int getWorkerCount() {
+        return POOL.getCorePoolSize();
+    }
+
+    /**
+     * @return The number of loading requests since the creation of this loader
+     */
+    public long getRequestCount() {
+        return requestCounter.get();
+    }
+
+    /**
+     * @return The number of started loadings since the creation of this loader
+     */
+    public long getCompletedCount() {
+        return completedCount.get();
+    }
+
+    /**
+     * @return The number of requests cancelled before being started, because they weren't valid anymore
+     */
+    public long getCancelledCount() {
+        return cancelledCount.get();
+    }
+
+    /**
+     * @return The mean time, in milliseconds, spent by the started requests in the queue
+     */
+    public double getAverageWaitTime() {
+        long completed = completedCount.get();
+        return completed == 0 ? 0 : totalWaitTime.get() / 1_000_000d / completed;
+    }
+
+    /**
+     * @return The maximum time, in milliseconds, spent by a started request in the queue
+     */
+    public double getMaxWaitTime() {
+        return maxWaitTime.get() / 1_000_000d;
+    }
+
+    private void loadChunk(ChunkLoadingTicket.Snap chk, long waitTime) {
         VerticalChunkPos lookingAt = chk.getTicket().getPos();
+        Profiler profiler = this.profiler.get();
         try {
             if (chk.isValid()) { //If loading ticket is still valid
-                //long start = System.currentTimeMillis();
-                //System.out.println("ASYNC LOADING ZOFIPZ?QCOFPSF? "+lookingAt+" "+chk.getTicket().getPriority());
+                completedCount.incrementAndGet();
+                totalWaitTime.addAndGet(waitTime);
+                maxWaitTime.accumulateAndGet(waitTime, Math::max);
                 profiler.start(Profiler.Profiles.TERRAIN_LOADER_TICK);
                 Vector3fPool.openPool();
                 BoundingBoxPool.getPool().openSubPool();
@@ -75,16 +166,14 @@ public class PhysicsTerrainLoader {
                 BoundingBoxPool.getPool().closeSubPool();
                 profiler.end(Profiler.Profiles.TERRAIN_LOADER_TICK);
                 profiler.update();
-
-                //System.out.println("ASYNC LOADED C "+lookingAt+" "+(System.currentTimeMillis()-start)+" ms");
             } else {
-                //System.err.println("C NOT VALID "+lookingAt+" "+chk.getTicket()+" "+chk.getSnapIndex());
+                cancelledCount.incrementAndGet();
             }
             if (profiler.isActive()) //Profiling
             {
                 List<String> st = profiler.getData();
                 if (!st.isEmpty()) {
-                    profiler.printData("Terrain thread");
+                    profiler.printData("Terrain thread " + Thread.currentThread().getName());
                     profiler.reset();
                 }
             }
@@ -92,4 +181,37 @@ public class PhysicsTerrainLoader {
             DynamXMain.log.fatal("Chunk error at " + lookingAt, e1);
         }
     }
+
+    /**
+     * A queued chunk loading <br>
+     * Requests are sorted by priority (highest first), then by distance to the requester, then by order of arrival
+     */
+    private class LoadRequest implements Runnable, Comparable<LoadRequest> {
+        private final ChunkLoadingTicket.Snap snap;
+        private final int priority;
+        private final int requesterDistanceSq;
+        private final long sequence;
+        private final long enqueueTime = System.nanoTime();
+
+        private LoadRequest(ChunkLoadingTicket.Snap snap, int requesterDistanceSq, long sequence) {
+            this.snap = snap;
+            this.priority = snap.getTicket().getPriority().ordinal();
+            this.requesterDistanceSq = requesterDistanceSq;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public void run() {
+            loadChunk(snap, System.nanoTime() - enqueueTime);
+        }
+
+        @Override
+        public int compareTo(LoadRequest o) {
+            if (priority != o.priority)
+                return Integer.compare(o.priority, priority);
+            if (requesterDistanceSq != o.requesterDistanceSq)
+                return Integer.compare(requesterDistanceSq, o.requesterDistanceSq);
+            return Long.compare(sequence, o.sequence);
+        }
+    }
 }
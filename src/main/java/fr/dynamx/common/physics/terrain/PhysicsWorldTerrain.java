@@ -27,6 +27,7 @@ import net.minecraftforge.event.world.ChunkEvent;
 
 import javax.annotation.Nullable;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -74,6 +75,17 @@ public class PhysicsWorldTerrain implements ITerrainManager {
 
     private final boolean isDebug;
 
+    /**
+     * Interval, in ticks, between two purges of the stale loading requests
+     */
+    private static final int STALE_PURGE_INTERVAL = 20;
+    /**
+     * Interval, in ticks, between two removals of the least recently used tickets, when there are more than "TerrainMaxChunkTickets" tickets
+     */
+    private static final int TICKET_EVICTION_INTERVAL = 100;
+    private int tickCounter;
+    private long ticketEvictions;
+
     public PhysicsWorldTerrain(IPhysicsWorld physicsWorld, World world, boolean isRemoteWorld) {
         this.physicsWorld = physicsWorld;
         this.world = world;
@@ -84,10 +96,11 @@ public class PhysicsWorldTerrain implements ITerrainManager {
     @Override
     public ChunkLoadingTicket getTicket(VerticalChunkPos pos) {
         ChunkLoadingTicket t = chunkTickets.get(pos);
-        if (t != null)
-            return t;
-        t = new ChunkLoadingTicket(pos);
-        chunkTickets.put(pos, t);
+        if (t == null) {
+            t = new ChunkLoadingTicket(pos);
+            chunkTickets.put(pos, t);
+        }
+        t.setLastAccessTick(tickCounter);
         return t;
     }
 
@@ -100,6 +113,11 @@ public class PhysicsWorldTerrain implements ITerrainManager {
 
     @Override
     public boolean subscribeToChunk(VerticalChunkPos pos, ChunkLoadingTicket.TicketPriority priority, Profiler profiler) {
+        return subscribeToChunk(pos, priority, 0, profiler);
+    }
+
+    @Override
+    public boolean subscribeToChunk(VerticalChunkPos pos, ChunkLoadingTicket.TicketPriority priority, int requesterDistanceSq, Profiler profiler) {
         assert priority != ChunkLoadingTicket.TicketPriority.NONE;
         profiler.start(GET_T0);
         if (!isChunkLoaded(world, pos.x, pos.z)) {
@@ -136,7 +154,7 @@ public class PhysicsWorldTerrain implements ITerrainManager {
                 case MEDIUM:
                     //Set chunk used before loading it : this will avoid weird async errors
                     subscribeToChunk(ticket);
-                    asyncLoadChunkCollisions(ticket);
+                    asyncLoadChunkCollisions(ticket, requesterDistanceSq);
                     break;
                 case HIGH:
                     profiler.start(LOAD_NOW);
@@ -161,7 +179,7 @@ public class PhysicsWorldTerrain implements ITerrainManager {
             subscribeToChunk(ticket);
             switch (priority) {
                 case MEDIUM:
-                    asyncLoadChunkCollisions(ticket);
+                    asyncLoadChunkCollisions(ticket, requesterDistanceSq);
                     break;
                 case HIGH:
                     profiler.start(LOAD_NOW);
@@ -288,6 +306,11 @@ public class PhysicsWorldTerrain implements ITerrainManager {
         terrainState.tick(this);
         //Tick cache
         terrainCache.tick();
+        //Cancel the loadings of unloaded or reloaded chunks
+        if (++tickCounter % STALE_PURGE_INTERVAL == 0)
+            terrainLoader.purgeStaleRequests();
+        if (tickCounter % TICKET_EVICTION_INTERVAL == 0 && chunkTickets.size() > DynamXConfig.terrainMaxChunkTickets)
+            evictTickets();
         if (!asyncLoadedQueue.isEmpty()) {
             Profiler.get().start(RCV_ASYNC);
             Vector3fPool.openPool();
@@ -313,6 +336,43 @@ public class PhysicsWorldTerrain implements ITerrainManager {
         }
     }
 
+    /**
+     * Removes the least recently used tickets that are not loading and not used in the physics world, until there are at most "TerrainMaxChunkTickets" tickets <br>
+     * Their cached collisions are dropped : they will be loaded again from the terrain cache if needed
+     */
+    private void evictTickets() {
+        List<ChunkLoadingTicket> unused = new ArrayList<>();
+        chunkTickets.forEach(ticket -> {
+            if (ticket.getStatus() != ChunkState.LOADING && !terrainState.isLoadedAnywhere(ticket.getPos()))
+                unused.add(ticket);
+        });
+        unused.sort(Comparator.comparingInt(ChunkLoadingTicket::getLastAccessTick));
+        int count = Math.min(unused.size(), chunkTickets.size() - DynamXConfig.terrainMaxChunkTickets);
+        for (int i = 0; i < count; i++) {
+            ChunkLoadingTicket ticket = unused.get(i);
+            removeTicket(ticket.getPos());
+            if (isDebug)
+                ChunkGraph.addToGrah(ticket.getPos(), ChunkGraph.ChunkActions.CHK_UNLOAD, ChunkGraph.ActionLocation.MAIN, ticket.getCollisions(), "Evicted ticket " + ticket);
+            ticket.setUnloaded(); //will prevent loadings
+            terrainCache.invalidate(ticket, false, false);
+        }
+        ticketEvictions += count;
+    }
+
+    /**
+     * @return The number of chunk tickets
+     */
+    public int getTicketCount() {
+        return chunkTickets.size();
+    }
+
+    /**
+     * @return The number of tickets removed because there were more than "TerrainMaxChunkTickets" tickets
+     */
+    public long getTicketEvictions() {
+        return ticketEvictions;
+    }
+
     @Override
     public ChunkCollisions loadChunkCollisionsNow(ChunkLoadingTicket ticket, Profiler profiler) {
         profiler.start(Profiler.Profiles.EMERGENCY_CHUNK_LOAD);
@@ -331,7 +391,12 @@ public class PhysicsWorldTerrain implements ITerrainManager {
 
     @Override
     public void asyncLoadChunkCollisions(ChunkLoadingTicket ticket) {
-        terrainLoader.asyncLoadChunk(ticket.snapshot());
+        asyncLoadChunkCollisions(ticket, 0);
+    }
+
+    @Override
+    public void asyncLoadChunkCollisions(ChunkLoadingTicket ticket, int requesterDistanceSq) {
+        terrainLoader.asyncLoadChunk(ticket.snapshot(), requesterDistanceSq);
     }
 
     @Override
@@ -455,6 +520,13 @@ public class PhysicsWorldTerrain implements ITerrainManager {
         return isDebug;
     }
 
+    /**
+     * @return The async terrain loader, exposing the loading queue metrics
+     */
+    public PhysicsTerrainLoader getTerrainLoader() {
+        return terrainLoader;
+    }
+
     /**
      * Marks the physics terrain dirty and schedule a new computation <br>
      * Don't abuse as it may create some lag
@@ -6,31 +6,30 @@ import fr.dynamx.common.physics.terrain.chunk.ChunkLoadingTicket;
 import fr.dynamx.common.physics.terrain.chunk.ChunkState;
 import fr.dynamx.utils.VerticalChunkPos;
 import fr.dynamx.utils.debug.ChunkGraph;
+import fr.dynamx.utils.optimization.Long2ShortOpenMap;
 
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Map;
 import java.util.Set;
 
 public class WorldTerrainState
 {
     //TODO DOC
-    private final Map<VerticalChunkPos, Short> loadedTerrain = new HashMap<>();
+    /**
+     * The number of subscribers of each chunk added to the physics world, by packed position (see {@link VerticalChunkPos#asLong(int, int, int)})
+     */
+    private final Long2ShortOpenMap loadedTerrain = new Long2ShortOpenMap(1024);
     private final Set<VerticalChunkPos> unloadQueue = new HashSet<>();
     private final Set<VerticalChunkPos> pendingForInvalidation = new HashSet<>();
 
     public boolean isLoadedAnywhere(VerticalChunkPos pos) {
-        return loadedTerrain.containsKey(pos);
+        return loadedTerrain.containsKey(pos.asLong());
     }
 
     public void addSubscriber(IPhysicsWorld world, VerticalChunkPos pos) {
         if (!world.isCallingFromPhysicsThread()) {
             throw new IllegalStateException("Not calling from physics thread ! With " + pos + " : " + world.getTerrainManager().getTicket(pos));
         }
-        if (loadedTerrain.containsKey(pos))
-            loadedTerrain.put(pos, (short) (loadedTerrain.get(pos) + 1));
-        else
-            loadedTerrain.put(pos, (short) 1);
+        loadedTerrain.addTo(pos.asLong(), 1);
         unloadQueue.remove(pos);
         pendingForInvalidation.remove(pos);
     }
@@ -39,13 +38,13 @@ public class WorldTerrainState
         if (!world.isCallingFromPhysicsThread()) {
             throw new IllegalStateException("Not calling from physics thread ! With " + pos + " : " + world.getTerrainManager().getTicket(pos));
         }
-        if (!loadedTerrain.containsKey(pos)) {
+        long key = pos.asLong();
+        if (!loadedTerrain.containsKey(key)) {
             //Entities in unloaded chunks (subscription blocked)
             return;
         }
-        short val = loadedTerrain.get(pos);
-        loadedTerrain.put(pos, (short) (val - 1));
-        if (val <= 1)
+        short val = loadedTerrain.addTo(key, -1);
+        if (val <= 0)
             unloadQueue.add(pos);
     }
 
@@ -70,7 +69,7 @@ public class WorldTerrainState
                     if (ticket.getCollisions().getChunkState().areComputedElementsAdded() || ticket.getCollisions().getChunkState().arePersistentElementsAdded()) {
                         throw new IllegalStateException("Elements still added ! " + ticket.getCollisions() + " wtf " + ticket);
                     }
-                    loadedTerrain.remove(pos);
+                    loadedTerrain.remove(pos.asLong());
                     if (pendingForInvalidation.contains(pos)) {
                         onChunkUnload(terrain, pos);
                         pendingForInvalidation.remove(pos);
@@ -99,19 +98,19 @@ public class WorldTerrainState
             throw new IllegalStateException("Not calling from physics thread ! When unloading.");
         }
         //Clear loaded chunks
-        for (VerticalChunkPos pos : loadedTerrain.keySet()) {
-            ChunkLoadingTicket ticket = physicsWorld.getTerrainManager().getTicket(pos);
+        loadedTerrain.forEachKey(key -> {
+            ChunkLoadingTicket ticket = physicsWorld.getTerrainManager().getTicket(VerticalChunkPos.fromLong(key));
             if (ticket.getCollisions() == null)
                 DynamXMain.log.warn("[World Unload] Cannot remove null collisions of " + ticket);
             else
                 ticket.getCollisions().removeFromBulletWorld();
-        }
+        });
         //Clear lists
         loadedTerrain.clear();
         unloadQueue.clear();
     }
 
-    public Map<VerticalChunkPos, Short> getLoadedTerrain() {
+    public Long2ShortOpenMap getLoadedTerrain() {
         return loadedTerrain;
     }
 
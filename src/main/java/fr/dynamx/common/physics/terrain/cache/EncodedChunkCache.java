@@ -0,0 +1,169 @@
+package fr.dynamx.common.physics.terrain.cache;
+
+import fr.dynamx.api.physics.terrain.ITerrainElement;
+import fr.dynamx.common.physics.terrain.chunk.ChunkTerrain;
+import fr.dynamx.utils.VerticalChunkPos;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Server-side cache of the terrain data encoded for the network <br>
+ * Each version of a chunk (identified by the status index of its ticket) is encoded once, and the encoded buffer is shared by all clients requesting it <br>
+ * The data isn't compressed : it's compressed with the other chunks sent to the client (see {@link fr.dynamx.common.network.packets.MessageChunkDataBatch}) <br>
+ * Each encoded chunk has a content hash, used by the clients to know if the chunk stored in their disk cache changed (see {@link RemoteTerrainDiskCache}) <br>
+ * The buffers are reference-counted : the cache owns one reference, and each packet owns a retained duplicate, released once it's compressed in a batch <br>
+ * The entries are removed when the chunk is invalidated or unloaded
+ */
+public class EncodedChunkCache {
+    private final ConcurrentHashMap<VerticalChunkPos, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Returns the encoded data of the chunk, encoding it if this version of the chunk isn't cached
+     *
+     * @param pos              The position of the chunk
+     * @param statusIndex      The status index of the ticket of the chunk, identifying its version
+     * @param withPersistents  True to include the persistent elements (slopes)
+     * @param terrain          The terrain of the chunk, with this status index
+     * @return The encoded data, with a retained buffer that must be released after use
+     */
+    public EncodedChunk getEncodedChunk(VerticalChunkPos pos, int statusIndex, boolean withPersistents, ChunkTerrain terrain) {
+        Entry entry = entries.get(pos);
+        if (entry == null || entry.statusIndex != statusIndex) {
+            Entry created = new Entry(statusIndex);
+            entry = entries.compute(pos, (p, old) -> {
+                if (old == null)
+                    return created;
+                if (old.statusIndex >= statusIndex) //Don't replace a newer version by an older one
+                    return old;
+                old.release();
+                return created;
+            });
+            if (entry.statusIndex != statusIndex) {
+                //Old version of the chunk : don't cache it
+                misses.incrementAndGet();
+                return encode(pos, withPersistents, terrain);
+            }
+        }
+        return entry.retain(pos, withPersistents, terrain);
+    }
+
+    /**
+     * Removes the cached data of the chunk
+     */
+    public void invalidate(VerticalChunkPos pos) {
+        Entry entry = entries.remove(pos);
+        if (entry != null)
+            entry.release();
+    }
+
+    public void clear() {
+        entries.values().forEach(Entry::release);
+        entries.clear();
+    }
+
+    /**
+     * @return The number of cached chunks
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    private static EncodedChunk encode(VerticalChunkPos pos, boolean withPersistents, ChunkTerrain terrain) {
+        List<ITerrainElement> elements = new ArrayList<>(terrain.getElements());
+        if (withPersistents)
+            elements.addAll(terrain.getPersistentElements());
+        byte[] data = TerrainCodec.encode(ITerrainElement.TerrainSaveType.NETWORK, elements, pos, false);
+        return new EncodedChunk(Unpooled.wrappedBuffer(data), contentHash(data));
+    }
+
+    /**
+     * @return The 64 bits FNV-1a hash of the data, never 0
+     */
+    private static long contentHash(byte[] data) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : data) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+        return hash == 0 ? 1 : hash;
+    }
+
+    /**
+     * The encoded versions (with and without persistent elements) of a chunk
+     */
+    private class Entry {
+        private final int statusIndex;
+        private final EncodedChunk[] payloads = new EncodedChunk[2];
+        private boolean released;
+
+        private Entry(int statusIndex) {
+            this.statusIndex = statusIndex;
+        }
+
+        private synchronized EncodedChunk retain(VerticalChunkPos pos, boolean withPersistents, ChunkTerrain terrain) {
+            if (released) {
+                //Invalidated in the meantime
+                misses.incrementAndGet();
+                return encode(pos, withPersistents, terrain);
+            }
+            int index = withPersistents ? 0 : 1;
+            if (payloads[index] == null) {
+                misses.incrementAndGet();
+                payloads[index] = encode(pos, withPersistents, terrain);
+            } else {
+                hits.incrementAndGet();
+            }
+            return payloads[index].retainedDuplicate();
+        }
+
+        private synchronized void release() {
+            released = true;
+            for (int i = 0; i < payloads.length; i++) {
+                if (payloads[i] != null) {
+                    payloads[i].getData().release();
+                    payloads[i] = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * The network data of a chunk, with its content hash
+     */
+    public static class EncodedChunk {
+        private final ByteBuf data;
+        private final long contentHash;
+
+        private EncodedChunk(ByteBuf data, long contentHash) {
+            this.data = data;
+            this.contentHash = contentHash;
+        }
+
+        public ByteBuf getData() {
+            return data;
+        }
+
+        public long getContentHash() {
+            return contentHash;
+        }
+
+        private EncodedChunk retainedDuplicate() {
+            return new EncodedChunk(data.retainedDuplicate(), contentHash);
+        }
+    }
+}
@@ -19,10 +19,12 @@ import net.minecraft.util.math.ChunkPos;
 import net.minecraft.world.World;
 import net.minecraftforge.fml.common.FMLCommonHandler;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
@@ -37,7 +39,17 @@ public class FileTerrainCache implements ITerrainCache {
     private final File storageDir;
     private TerrainFile slopesFile;
 
-    private final Map<ChunkPos, TerrainFile> terrainFiles = new HashMap<>();
+    /**
+     * The open region files, in access order : the least recently used files are closed when there are more than "TerrainMaxRegionFiles" files
+     */
+    private final LinkedHashMap<ChunkPos, RegionTerrainFile> terrainFiles = new LinkedHashMap<>(32, 0.75f, true);
+    /**
+     * The evicted region files being closed, outside the lock of the terrainFiles : a region can't be opened again before the end of its closing
+     */
+    private final Map<ChunkPos, RegionTerrainFile> closingFiles = new HashMap<>();
+    private long regionHits, regionMisses, regionEvictions;
+    private final TerrainChunkLRU chunkCache = new TerrainChunkLRU(DynamXConfig.terrainChunkCacheSize * 1024L * 1024L);
+    private final EncodedChunkCache encodedChunkCache = new EncodedChunkCache();
 
     //The Set avoids duplicates
     protected Set<VerticalChunkPos> dirtyChunks = ConcurrentHashMap.newKeySet();
@@ -105,6 +117,8 @@ public class FileTerrainCache implements ITerrainCache {
     public void invalidate(VerticalChunkPos pos, boolean changed, boolean syncChanges) {
         if (DynamXConfig.enableDebugTerrainManager)
             ChunkGraph.addToGrah(pos, ChunkGraph.ChunkActions.SEND_INVALIDATE, ChunkGraph.ActionLocation.UNKNOWN, null, "Changed: " + changed);
+        //The chunk changed or was unloaded : the encoded data isn't needed anymore
+        encodedChunkCache.invalidate(pos);
         if (changed) {
             invalidate(pos, syncChanges);
         }
@@ -115,6 +129,7 @@ public class FileTerrainCache implements ITerrainCache {
         VerticalChunkPos pos = ticket.getPos();
         if (DynamXConfig.enableDebugTerrainManager)
             ChunkGraph.addToGrah(pos, ChunkGraph.ChunkActions.SEND_INVALIDATE, ChunkGraph.ActionLocation.UNKNOWN, null, "Changed: " + changed + " Status " + ticket.getStatusIndex());
+        encodedChunkCache.invalidate(pos);
         if (changed) {
             ticket.incrStatusIndex(); //will prevent any other tasks like loading/saving
             invalidate(pos, syncChanges);
@@ -126,8 +141,11 @@ public class FileTerrainCache implements ITerrainCache {
             dirtyChunks.add(pos);
         ChunkPos cpos = new ChunkPos(pos.x >> 5, pos.z >> 5); //16x16 chunks
         POOL.submit(() -> {
-            TerrainFile FILE = getFileAt(cpos);
-            FILE.removeChunk(pos);
+            RegionTerrainFile FILE;
+            do {
+                FILE = getFileAt(cpos);
+                FILE.removeChunk(pos);
+            } while (FILE.isClosed()); //evicted in the meantime
             if (DynamXConfig.enableDebugTerrainManager)
                 ChunkGraph.addToGrah(pos, ChunkGraph.ChunkActions.INVALIDATED, ChunkGraph.ActionLocation.SAVER, null, "Done");
         });
@@ -163,8 +181,17 @@ public class FileTerrainCache implements ITerrainCache {
         Vector3fPool.openPool();
         ChunkPos cpos = new ChunkPos(pos.x >> 5, pos.z >> 5); //16x16 chunks
 
-        List<ITerrainElement> elements = getFileAt(cpos).loadChunk(pos, this);
+        RegionTerrainFile file;
+        List<ITerrainElement> elements;
+        do {
+            file = getFileAt(cpos);
+            elements = file.loadChunk(pos, this);
+        } while (file.isClosed()); //evicted in the meantime
         List<?> persistentElements = getSlopesFile().loadChunk(pos, this);
+        if (file.isFormatOutdated())
+            markFileToSave(cpos, false);
+        if (getSlopesFile().isFormatOutdated())
+            markFileToSave(null, true);
         if (persistentElements != null && searchForDuplicatesAndRemove(pos, (List<ITerrainElement.IPersistentTerrainElement>) persistentElements)) {
             DynamXMain.log.info("Saving modified chunk " + ticket + " due to duplicated slopes");
             saveFile(pos, new ChunkTerrain(elements == null ? new ArrayList<>() : elements, persistentElements == null ? new ArrayList<>() : (List<ITerrainElement.IPersistentTerrainElement>) persistentElements));
@@ -194,24 +221,92 @@ public class FileTerrainCache implements ITerrainCache {
             return false;
     }
 
-    private TerrainFile getFileAt(ChunkPos pos) {
-        if (terrainFiles.containsKey(pos))
-            return terrainFiles.get(pos);
-        else {
-            File f = new File(storageDir, "region_" + pos.x + "_" + pos.z + ".dnx");
-            TerrainFile FILE;
+    private RegionTerrainFile getFileAt(ChunkPos pos) {
+        //Called by the terrain loader threads and the saving thread
+        RegionTerrainFile FILE;
+        Map<ChunkPos, RegionTerrainFile> evicted;
+        while (true) {
+            RegionTerrainFile closing;
+            synchronized (terrainFiles) {
+                FILE = terrainFiles.get(pos);
+                if (FILE != null) {
+                    regionHits++;
+                    return FILE;
+                }
+                closing = closingFiles.get(pos);
+                if (closing == null) {
+                    regionMisses++;
+                    FILE = openFile(pos);
+                    terrainFiles.put(pos, FILE);
+                    evicted = evictFiles();
+                    break;
+                }
+            }
+            //The region is being evicted : wait for the end of its closing (close locks the file), then open it again
+            closing.close();
+            synchronized (terrainFiles) {
+                closingFiles.remove(pos, closing);
+            }
+        }
+        closeEvictedFiles(evicted);
+        return FILE;
+    }
+
+    private RegionTerrainFile openFile(ChunkPos pos) {
+        File legacy = new File(storageDir, "region_" + pos.x + "_" + pos.z + ".dnx");
+        File f = new File(storageDir, "region_" + pos.x + "_" + pos.z + ".dnr");
+        RegionTerrainFile FILE = new RegionTerrainFile(legacy, f, pos, chunkCache);
+        try {
+            FILE.load();
+        } catch (IOException | ClassNotFoundException e) {
+            DynamXMain.log.error("Failed to load terrain file " + f + ", it will be reset", e);
+            FILE.close();
+            f.delete(); //reset
+            legacy.delete();
+            FILE = new RegionTerrainFile(legacy, f, pos, chunkCache);
             try {
-                FILE = new TerrainFile(f);
-                terrainFiles.put(pos, FILE);
                 FILE.load();
-            } catch (IOException | ClassNotFoundException e) {
-                e.printStackTrace();
-                f.delete(); //reset
-                FILE = new TerrainFile(f);
-                terrainFiles.put(pos, FILE);
+            } catch (IOException | ClassNotFoundException e2) {
+                throw new RuntimeException("Cannot create terrain file " + f, e2);
             }
-            return FILE;
         }
+        return FILE;
+    }
+
+    /**
+     * Removes the least recently used region files until there are at most "TerrainMaxRegionFiles" open files <br>
+     * Must be called with the lock of the terrainFiles, the returned files must then be closed with {@link #closeEvictedFiles(Map)}, without the lock
+     *
+     * @return The removed files
+     */
+    private Map<ChunkPos, RegionTerrainFile> evictFiles() {
+        if (terrainFiles.size() <= DynamXConfig.terrainMaxRegionFiles)
+            return Collections.emptyMap();
+        Map<ChunkPos, RegionTerrainFile> evicted = new HashMap<>();
+        Iterator<Map.Entry<ChunkPos, RegionTerrainFile>> it = terrainFiles.entrySet().iterator();
+        while (terrainFiles.size() > DynamXConfig.terrainMaxRegionFiles && it.hasNext()) {
+            Map.Entry<ChunkPos, RegionTerrainFile> FILE = it.next();
+            it.remove();
+            evicted.put(FILE.getKey(), FILE.getValue());
+            closingFiles.put(FILE.getKey(), FILE.getValue());
+            regionEvictions++;
+        }
+        return evicted;
+    }
+
+    /**
+     * Closes the evicted region files, writing their modified chunks, without blocking the other terrain threads
+     */
+    private void closeEvictedFiles(Map<ChunkPos, RegionTerrainFile> evicted) {
+        evicted.forEach((pos, FILE) -> {
+            try {
+                FILE.close();
+            } finally {
+                synchronized (terrainFiles) {
+                    closingFiles.remove(pos, FILE);
+                }
+            }
+        });
     }
 
     public TerrainFile getSlopesFile() {
@@ -219,8 +314,8 @@ public class FileTerrainCache implements ITerrainCache {
     }
 
     private volatile boolean needsTerrainSave;
-    private final Queue<ChunkPos> terrainFileSaveQueue = new ArrayDeque<>();
-    private boolean isSlopesToSave;
+    private final Queue<ChunkPos> terrainFileSaveQueue = new ConcurrentLinkedQueue<>();
+    private volatile boolean isSlopesToSave;
     private int timeCounter;
 
     /**
@@ -234,46 +329,60 @@ public class FileTerrainCache implements ITerrainCache {
             ChunkGraph.addToGrah(pos, ChunkGraph.ChunkActions.SAVE_TO_FILE, ChunkGraph.ActionLocation.SAVER, null, "elements: " + elements);
         try {
             ChunkPos cpos = new ChunkPos(pos.x >> 5, pos.z >> 5); //16x16 chunks
-            //System.out.println("Saving "+pos+" "+cpos);
-            TerrainFile FILE = getFileAt(cpos);
-            try {
+            RegionTerrainFile FILE;
+            do {
+                FILE = getFileAt(cpos);
                 FILE.setChunk(pos, elements.getElements());
-                boolean saveSlopes = !elements.getPersistentElements().isEmpty() || getSlopesFile().getAllKeys().contains(pos);
-                if (saveSlopes)
-                    getSlopesFile().setChunk(pos, (List<ITerrainElement>) (List<?>) elements.getPersistentElements());
-                if (DynamXConfig.enableDebugTerrainManager)
-                    ChunkGraph.addToGrah(pos, ChunkGraph.ChunkActions.SAVE_TO_FILE, ChunkGraph.ActionLocation.SAVER, null, "removed invalidating at " + pos);
-
-                if (!terrainFileSaveQueue.contains(cpos))
-                    terrainFileSaveQueue.offer(cpos);
-                if (saveSlopes)
-                    isSlopesToSave = true;
-                needsTerrainSave = true;
-            } catch (IOException e) {
-                throw new RuntimeException("Chunk save failed", e);
-            }
+            } while (FILE.isClosed()); //evicted in the meantime
+            boolean saveSlopes = !elements.getPersistentElements().isEmpty() || getSlopesFile().getAllKeys().contains(pos);
+            if (saveSlopes)
+                getSlopesFile().setChunk(pos, (List<ITerrainElement>) (List<?>) elements.getPersistentElements());
+            if (DynamXConfig.enableDebugTerrainManager)
+                ChunkGraph.addToGrah(pos, ChunkGraph.ChunkActions.SAVE_TO_FILE, ChunkGraph.ActionLocation.SAVER, null, "removed invalidating at " + pos);
+
+            markFileToSave(cpos, saveSlopes);
         } catch (Exception e) {
-            e.printStackTrace();
+            //Called by the saving thread : an exception would be lost in its future
+            DynamXMain.log.error("Failed to save the terrain of chunk " + pos, e);
             invalidate(pos, false);
         }
     }
 
+    /**
+     * Schedules the save of the given region file, and of the slopes file
+     *
+     * @param cpos       The region to save, can be null
+     * @param saveSlopes True to save the slopes file
+     */
+    private void markFileToSave(@Nullable ChunkPos cpos, boolean saveSlopes) {
+        if (cpos != null && !terrainFileSaveQueue.contains(cpos))
+            terrainFileSaveQueue.offer(cpos);
+        if (saveSlopes)
+            isSlopesToSave = true;
+        needsTerrainSave = true;
+    }
+
     protected void writeModifiedFiles() {
         DynamXMain.log.debug("Saving {} DynamX terrain files", terrainFileSaveQueue.size());
         while (!terrainFileSaveQueue.isEmpty()) {
             ChunkPos cpos = terrainFileSaveQueue.remove();
-            TerrainFile FILE = getFileAt(cpos);
+            RegionTerrainFile FILE;
+            synchronized (terrainFiles) {
+                FILE = terrainFiles.get(cpos);
+            }
+            if (FILE == null) //Already saved when evicted
+                continue;
             try {
                 FILE.save();
             } catch (IOException e) {
-                throw new RuntimeException("Chunk save failed", e);
+                DynamXMain.log.error("Failed to save the terrain file of region " + cpos, e);
             }
         }
         if (isSlopesToSave) {
             try {
                 getSlopesFile().save();
             } catch (IOException e) {
-                throw new RuntimeException("Slopes save failed", e);
+                DynamXMain.log.error("Failed to save the slopes terrain file", e);
             }
             isSlopesToSave = false;
         }
@@ -292,9 +401,79 @@ public class FileTerrainCache implements ITerrainCache {
         return storageDir;
     }
 
+    /**
+     * @return The number of open region files
+     */
+    public int getOpenRegionCount() {
+        synchronized (terrainFiles) {
+            return terrainFiles.size();
+        }
+    }
+
+    public long getRegionHits() {
+        synchronized (terrainFiles) {
+            return regionHits;
+        }
+    }
+
+    public long getRegionMisses() {
+        synchronized (terrainFiles) {
+            return regionMisses;
+        }
+    }
+
+    /**
+     * @return The number of region files closed because there were too many open files
+     */
+    public long getRegionEvictions() {
+        synchronized (terrainFiles) {
+            return regionEvictions;
+        }
+    }
+
+    /**
+     * @return The cache of the chunk data read from the region files
+     */
+    public TerrainChunkLRU getChunkCache() {
+        return chunkCache;
+    }
+
+    /**
+     * @return The cache of the chunk data encoded for the clients
+     */
+    public EncodedChunkCache getEncodedChunkCache() {
+        return encodedChunkCache;
+    }
+
+    /**
+     * @return The size, in bytes, of the chunk data kept in memory (cached or waiting to be written)
+     */
+    public long getResidentBytes() {
+        long size = chunkCache.getResidentBytes() + getSlopesFile().getResidentBytes();
+        synchronized (terrainFiles) {
+            for (RegionTerrainFile file : terrainFiles.values()) {
+                size += file.getResidentBytes();
+            }
+        }
+        return size;
+    }
+
     @Override
     public void clear() {
+        //Write the pending modifications and close the region files after the other tasks of the pool
+        POOL.submit(() -> {
+            try {
+                if (needsTerrainSave)
+                    writeModifiedFiles();
+            } finally {
+                synchronized (terrainFiles) {
+                    terrainFiles.values().forEach(RegionTerrainFile::close);
+                    terrainFiles.clear();
+                }
+                chunkCache.clear();
+            }
+        });
         POOL.shutdown();
-        terrainFiles.clear();
+        encodedChunkCache.clear();
     }
 }
@@ -0,0 +1,421 @@
+package fr.dynamx.common.physics.terrain.cache;
+
+import fr.dynamx.common.DynamXMain;
+import fr.dynamx.utils.VerticalChunkPos;
+import net.minecraft.util.math.ChunkPos;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Terrain data of a 32*32 chunks region, stored in a region file with random access to each chunk (like the vanilla Anvil format) <br>
+ * The chunks are read on demand (and cached in a shared {@link TerrainChunkLRU}), and only the modified chunks are written when the file is saved <br><br>
+ * File layout : <br>
+ * <ul>
+ * <li>Header (kept in memory, and written after the chunks when the file is saved) : MAGIC (int), FORMAT_VERSION (int), entry of the extra index (int), reserved (int), then one entry (int) per chunk of the region, for y between 0 and 15</li>
+ * <li>Sectors of SECTOR_SIZE bytes : each chunk is stored in consecutive sectors, as its data length (int) followed by its {@link TerrainCodec} data</li>
+ * </ul>
+ * An entry is the first sector of the chunk (20 bits) followed by its number of sectors (12 bits), 0 if the chunk is not saved <br>
+ * The entries of the chunks out of the vertical range of the header are stored in the extra index, saved like a chunk <br><br>
+ * When created, the content of the old region file (region_x_z.dnx, see {@link TerrainFile}) is converted and the old file is deleted
+ */
+public class RegionTerrainFile extends TerrainFile {
+    private static final int MAGIC = 0x444E5852; //DNXR
+    private static final int FORMAT_VERSION = 1;
+    private static final int SECTOR_SIZE = 256;
+    private static final int MAX_SECTOR_COUNT = (1 << 12) - 1;
+    private static final int MAX_SECTOR_OFFSET = (1 << 20) - 1;
+    private static final int HEIGHT = 16;
+    private static final int TABLE_OFFSET = 16;
+    private static final int HEADER_SIZE = TABLE_OFFSET + 32 * 32 * HEIGHT * 4;
+    private static final int HEADER_SECTORS = (HEADER_SIZE + SECTOR_SIZE - 1) / SECTOR_SIZE;
+    /**
+     * Marks a removed chunk in the modified chunks
+     */
+    private static final byte[] REMOVED = new byte[0];
+
+    private final File legacyContainer;
+    private final File regionFile;
+    private final ChunkPos region;
+    private final TerrainChunkLRU chunkCache;
+
+    /**
+     * Chunks modified since the last save, waiting to be written
+     */
+    private final ConcurrentHashMap<VerticalChunkPos, byte[]> modifiedChunks = new ConcurrentHashMap<>();
+    private final Map<VerticalChunkPos, Integer> extraEntries = new HashMap<>();
+    private final BitSet usedSectors = new BitSet();
+    /**
+     * The entries replaced since the last header write : their sectors are freed once the new header is on the disk, so a crash can't leave the header pointing to overwritten data
+     */
+    private final List<Integer> replacedEntries = new ArrayList<>();
+    /**
+     * Reads can be concurrent, but the sectors can't be moved while they are read <br>
+     * The modifications hold the read lock, so they can't be lost by a concurrent {@link #close()}
+     */
+    private final ReadWriteLock sectorsLock = new ReentrantReadWriteLock();
+    private FileChannel channel;
+    private ByteBuffer header;
+    private boolean headerChanged, extraEntriesChanged;
+    private volatile boolean closed;
+
+    /**
+     * @param legacyContainer The old region file, converted to this file if it exists
+     * @param regionFile      The region file
+     * @param region          The position of the region (chunk coordinates divided by 32)
+     * @param chunkCache      The cache of the chunk data read from the disk
+     */
+    public RegionTerrainFile(File legacyContainer, File regionFile, ChunkPos region, TerrainChunkLRU chunkCache) {
+        super(legacyContainer);
+        this.legacyContainer = legacyContainer;
+        this.regionFile = regionFile;
+        this.region = region;
+        this.chunkCache = chunkCache;
+    }
+
+    @Override
+    public void load() throws IOException, ClassNotFoundException {
+        open();
+        if (legacyContainer.exists()) {
+            //The chunks are added to the modified chunks, and written in the region file
+            super.load();
+            save();
+            if (legacyContainer.exists() && !legacyContainer.delete())
+                DynamXMain.log.warn("Failed to delete old terrain file " + legacyContainer);
+            DynamXMain.log.info("Converted terrain file " + legacyContainer + " to region file " + regionFile);
+        }
+    }
+
+    private void open() throws IOException {
+        sectorsLock.writeLock().lock();
+        try {
+            channel = FileChannel.open(regionFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            header = ByteBuffer.allocate(HEADER_SIZE);
+            if (channel.size() < HEADER_SIZE) {
+                header.putInt(0, MAGIC);
+                header.putInt(4, FORMAT_VERSION);
+                writeHeader();
+            } else {
+                readFully(header, 0);
+                if (header.getInt(0) != MAGIC)
+                    throw new IOException("Not a DynamX region file: " + regionFile);
+                if (header.getInt(4) != FORMAT_VERSION)
+                    throw new IOException("Unsupported region file version " + header.getInt(4) + " in " + regionFile);
+            }
+            usedSectors.set(0, HEADER_SECTORS);
+            for (int i = 0; i < 32 * 32 * HEIGHT; i++) {
+                markSectors(header.getInt(TABLE_OFFSET + i * 4), true);
+            }
+            int extraIndex = header.getInt(8);
+            if (extraIndex != 0) {
+                markSectors(extraIndex, true);
+                ByteBuffer data = ByteBuffer.wrap(readSectors(extraIndex));
+                int size = data.getInt();
+                for (int i = 0; i < size; i++) {
+                    VerticalChunkPos pos = new VerticalChunkPos(data.getInt(), data.getInt(), data.getInt());
+                    int entry = data.getInt();
+                    extraEntries.put(pos, entry);
+                    markSectors(entry, true);
+                }
+            }
+        } finally {
+            sectorsLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public byte[] getRawChunkData(VerticalChunkPos pos) {
+        byte[] data = modifiedChunks.get(pos);
+        if (data != null)
+            return data == REMOVED ? null : data;
+        data = chunkCache.get(pos);
+        if (data != null || closed)
+            return data;
+        sectorsLock.readLock().lock();
+        try {
+            //Evicted in the meantime : the caller will read the new instance
+            if (closed)
+                return null;
+            int entry = getEntry(pos);
+            if (entry == 0)
+                return null;
+            data = readSectors(entry);
+            //Cached with the read lock, so a save can't write a newer version of the chunk in the meantime
+            chunkCache.put(pos, data);
+            return data;
+        } catch (IOException e) {
+            DynamXMain.log.error("Failed to read chunk " + pos + " from " + regionFile, e);
+            return null;
+        } finally {
+            sectorsLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ignored if the file is closed : the caller should check {@link #isClosed()} after this call, and modify the new instance
+     */
+    @Override
+    public void putData(VerticalChunkPos pos, byte[] newData) {
+        sectorsLock.readLock().lock();
+        try {
+            if (closed)
+                return;
+            modifiedChunks.put(pos, newData);
+            chunkCache.remove(pos);
+        } finally {
+            sectorsLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void removeChunk(VerticalChunkPos pos) {
+        putData(pos, REMOVED);
+    }
+
+    @Override
+    public Collection<VerticalChunkPos> getAllKeys() {
+        Set<VerticalChunkPos> keys = new HashSet<>();
+        sectorsLock.readLock().lock();
+        try {
+            if (header != null) {
+                for (int i = 0; i < 32 * 32 * HEIGHT; i++) {
+                    if (header.getInt(TABLE_OFFSET + i * 4) != 0)
+                        keys.add(getPos(i));
+                }
+            }
+            keys.addAll(extraEntries.keySet());
+        } finally {
+            sectorsLock.readLock().unlock();
+        }
+        modifiedChunks.forEach((pos, data) -> {
+            if (data == REMOVED)
+                keys.remove(pos);
+            else
+                keys.add(pos);
+        });
+        return keys;
+    }
+
+    /**
+     * Writes the modified chunks in the region file
+     */
+    @Override
+    public void save() throws IOException {
+        sectorsLock.writeLock().lock();
+        try {
+            if (!closed)
+                writeModifiedChunks();
+        } finally {
+            sectorsLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Writes the modified chunks and closes the region file <br>
+     * The chunks modified after this call are ignored, see {@link #isClosed()}
+     */
+    public void close() {
+        sectorsLock.writeLock().lock();
+        try {
+            if (closed)
+                return;
+            //Closed before the last save : the modifications waiting for the lock will see it and retry on a new instance
+            closed = true;
+            if (channel != null) {
+                writeModifiedChunks();
+                channel.close();
+            }
+        } catch (IOException e) {
+            DynamXMain.log.error("Failed to close region file " + regionFile, e);
+        } finally {
+            sectorsLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Must be called with the write lock
+     */
+    private void writeModifiedChunks() throws IOException {
+        if (modifiedChunks.isEmpty() && !extraEntriesChanged) {
+            formatOutdated = false;
+            return;
+        }
+        for (Map.Entry<VerticalChunkPos, byte[]> chunk : modifiedChunks.entrySet()) {
+            VerticalChunkPos pos = chunk.getKey();
+            byte[] data = chunk.getValue();
+            int entry = getEntry(pos);
+            if (data == REMOVED) {
+                if (entry != 0)
+                    replacedEntries.add(entry);
+                setEntry(pos, 0);
+            } else {
+                int newEntry = writeSectors(entry, data);
+                setEntry(pos, newEntry);
+                chunkCache.put(pos, data);
+            }
+            modifiedChunks.remove(pos, data);
+        }
+        if (extraEntriesChanged) {
+            ByteBuffer data = ByteBuffer.allocate(4 + extraEntries.size() * 16);
+            data.putInt(extraEntries.size());
+            for (Map.Entry<VerticalChunkPos, Integer> extra : extraEntries.entrySet()) {
+                data.putInt(extra.getKey().x).putInt(extra.getKey().y).putInt(extra.getKey().z).putInt(extra.getValue());
+            }
+            header.putInt(8, writeSectors(header.getInt(8), data.array()));
+            headerChanged = true;
+            extraEntriesChanged = false;
+        }
+        //Write the data before the header pointing to it
+        channel.force(false);
+        if (headerChanged) {
+            writeHeader();
+            channel.force(false);
+        }
+        for (int entry : replacedEntries)
+            markSectors(entry, false);
+        replacedEntries.clear();
+        formatOutdated = false;
+    }
+
+    /**
+     * @return True if this file was closed : a new instance should be used to read or modify this region
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * @return True if some chunks were modified since the last save
+     */
+    public boolean hasModifiedChunks() {
+        return !modifiedChunks.isEmpty() || formatOutdated;
+    }
+
+    /**
+     * @return The size, in bytes, of the modified chunks waiting to be written (the other chunks are in the shared {@link TerrainChunkLRU})
+     */
+    @Override
+    public long getResidentBytes() {
+        long size = 0;
+        for (byte[] data : modifiedChunks.values()) {
+            size += data.length;
+        }
+        return size;
+    }
+
+    /**
+     * Writes the whole header at the start of the file, with positional writes (the header isn't memory-mapped, so closing the channel releases the file)
+     */
+    private void writeHeader() throws IOException {
+        ByteBuffer buffer = header.duplicate();
+        buffer.clear();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, buffer.position());
+        }
+        headerChanged = false;
+    }
+
+    private byte[] readSectors(int entry) throws IOException {
+        long position = (long) (entry >>> 12) * SECTOR_SIZE;
+        ByteBuffer length = ByteBuffer.allocate(4);
+        readFully(length, position);
+        int size = length.getInt(0);
+        if (size < 0 || size > (entry & MAX_SECTOR_COUNT) * SECTOR_SIZE - 4)
+            throw new IOException("Invalid chunk length " + size + " at sector " + (entry >>> 12));
+        byte[] data = new byte[size];
+        readFully(ByteBuffer.wrap(data), position + 4);
+        return data;
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0)
+                throw new EOFException("Unexpected end of region file " + regionFile);
+        }
+    }
+
+    /**
+     * Writes the data in new sectors, the sectors of the old entry are freed after the next header write
+     *
+     * @return The new entry
+     */
+    private int writeSectors(int oldEntry, byte[] data) throws IOException {
+        int count = (data.length + 4 + SECTOR_SIZE - 1) / SECTOR_SIZE;
+        if (count > MAX_SECTOR_COUNT)
+            throw new IOException("Chunk data too big: " + data.length + " bytes");
+        int offset = findFreeSectors(count);
+        if (offset > MAX_SECTOR_OFFSET)
+            throw new IOException("Region file " + regionFile + " is full");
+        usedSectors.set(offset, offset + count);
+        if (oldEntry != 0)
+            replacedEntries.add(oldEntry);
+        ByteBuffer buffer = ByteBuffer.allocate(data.length + 4);
+        buffer.putInt(data.length).put(data);
+        buffer.flip();
+        long position = (long) offset * SECTOR_SIZE;
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+        return offset << 12 | count;
+    }
+
+    private int findFreeSectors(int count) {
+        int start = usedSectors.nextClearBit(HEADER_SECTORS);
+        while (true) {
+            int end = usedSectors.nextSetBit(start);
+            if (end == -1 || end - start >= count)
+                return start;
+            start = usedSectors.nextClearBit(end);
+        }
+    }
+
+    private void markSectors(int entry, boolean used) {
+        if (entry == 0)
+            return;
+        int offset = entry >>> 12;
+        usedSectors.set(offset, offset + (entry & MAX_SECTOR_COUNT), used);
+    }
+
+    private int getEntry(VerticalChunkPos pos) {
+        if (pos.y < 0 || pos.y >= HEIGHT) {
+            Integer entry = extraEntries.get(pos);
+            return entry == null ? 0 : entry;
+        }
+        return header.getInt(TABLE_OFFSET + getIndex(pos) * 4);
+    }
+
+    private void setEntry(VerticalChunkPos pos, int entry) {
+        if (pos.y < 0 || pos.y >= HEIGHT) {
+            if (entry == 0)
+                extraEntries.remove(pos);
+            else
+                extraEntries.put(pos, entry);
+            extraEntriesChanged = true;
+        } else {
+            header.putInt(TABLE_OFFSET + getIndex(pos) * 4, entry);
+            headerChanged = true;
+        }
+    }
+
+    private static int getIndex(VerticalChunkPos pos) {
+        return (pos.y * 32 + (pos.z & 31)) * 32 + (pos.x & 31);
+    }
+
+    private VerticalChunkPos getPos(int index) {
+        return new VerticalChunkPos(region.x * 32 + (index & 31), index >> 10, region.z * 32 + (index >> 5 & 31));
+    }
+
+    @Override
+    public String toString() {
+        return "RegionTerrainFile@" + Integer.toHexString(hashCode()) + " at " + regionFile;
+    }
+}
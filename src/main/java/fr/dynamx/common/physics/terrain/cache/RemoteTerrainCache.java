@@ -4,14 +4,13 @@ import fr.dynamx.api.physics.terrain.ITerrainCache;
 import fr.dynamx.api.physics.terrain.ITerrainElement;
 import fr.dynamx.common.DynamXContext;
 import fr.dynamx.common.DynamXMain;
+import fr.dynamx.common.network.packets.MessageChunkDataBatch;
 import fr.dynamx.common.network.packets.MessageQueryChunks;
 import fr.dynamx.common.physics.terrain.chunk.ChunkCollisions;
 import fr.dynamx.common.physics.terrain.chunk.ChunkLoadingTicket;
 import fr.dynamx.common.physics.terrain.chunk.ChunkTerrain;
 import fr.dynamx.common.physics.terrain.element.TerrainElementType;
-import fr.dynamx.common.physics.terrain.element.TerrainElementsFactory;
 import fr.dynamx.utils.DynamXConfig;
-import fr.dynamx.utils.DynamXUtils;
 import fr.dynamx.utils.VerticalChunkPos;
 import fr.dynamx.utils.debug.ChunkGraph;
 import fr.dynamx.utils.debug.Profiler;
@@ -21,13 +20,11 @@ import fr.dynamx.utils.optimization.Vector3fPool;
 import net.minecraft.world.World;
 
 import javax.annotation.Nullable;
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
-import java.io.ObjectInputStream;
+import java.io.File;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.LinkedBlockingQueue;
-import java.util.zip.GZIPInputStream;
 
 /**
  * Keeps a local copy of the terrain loaded from a remote server
@@ -41,21 +38,41 @@ public class RemoteTerrainCache implements ITerrainCache {
     private final Map<VerticalChunkPos, ChunkTerrain> dataCache = new HashMap<>();
 
     /**
-     * Queue for loading chunks
+     * Queue for loading chunks <br>
+     * Also guards the dataCache and the erroredChunks, accessed by the terrain loader threads
      */
     private final Map<ChunkLoadingTicket.Snap, CompletableChunkLoading> queries = new HashMap<>();
     private final LinkedBlockingQueue<ChunkLoadingTicket.Snap> sendQueue = new LinkedBlockingQueue<>();
 
     private final List<VerticalChunkPos> erroredChunks = new ArrayList<>();
 
+    /**
+     * The copy of the terrain on the disk, null if disabled
+     */
+    @Nullable
+    private final RemoteTerrainDiskCache diskCache;
+    /**
+     * The data of the chunks read from the disk cache, waiting for the answer of the server <br>
+     * Guarded by the queries
+     */
+    private final Map<VerticalChunkPos, byte[]> diskCachedData = new HashMap<>();
+    /**
+     * The queries of which the disk cache has been read by the "DnxCliCollsLoader" threads, sent at the next tick
+     */
+    private final Queue<MessageQueryChunks> readyQueries = new ConcurrentLinkedQueue<>();
+
     public RemoteTerrainCache(World world) {
         this.world = world;
+        File diskCacheDir = DynamXConfig.useTerrainDiskCache ? DynamXMain.proxy.getTerrainDiskCacheDirectory(world) : null;
+        diskCache = diskCacheDir != null ? new RemoteTerrainDiskCache(diskCacheDir) : null;
     }
 
     @Override
     public void invalidate(VerticalChunkPos pos, boolean changed, boolean syncChanges) {
-        dataCache.remove(pos);
-        erroredChunks.remove(pos);
+        synchronized (queries) {
+            dataCache.remove(pos);
+            erroredChunks.remove(pos);
+        }
         rawSlopeDataCache.removeChunk(pos);
     }
 
@@ -66,9 +83,15 @@ public class RemoteTerrainCache implements ITerrainCache {
 
     @Override
     public void clear() {
-        dataCache.clear();
-        erroredChunks.clear();
-        queries.clear();
+        synchronized (queries) {
+            dataCache.clear();
+            erroredChunks.clear();
+            queries.clear();
+            diskCachedData.clear();
+        }
+        readyQueries.clear();
+        if (diskCache != null)
+            diskCache.close();
     }
 
     @Override
@@ -76,47 +99,60 @@ public class RemoteTerrainCache implements ITerrainCache {
         ChunkTerrain chunkTerrain = load(ticket, Profiler.get());
         if (chunkTerrain != null) {
             return CompletableFuture.completedFuture(chunkTerrain);
-        } else if (!queries.containsKey(ticket)) {
-            if (erroredChunks.contains(ticket.getPos())) {
-                ChunkGraph.addToGrah(ticket.getPos(), ChunkGraph.ChunkActions.ERR_ASYNC_CACHE_LOAD_FAIL, ChunkGraph.ActionLocation.LOADER, null, ticket + " " + terrainType);
-                return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<ChunkTerrain> old;
+        CompletableFuture<ChunkTerrain> future;
+        synchronized (queries) {
+            if (!queries.containsKey(ticket)) {
+                if (erroredChunks.contains(ticket.getPos())) {
+                    ChunkGraph.addToGrah(ticket.getPos(), ChunkGraph.ChunkActions.ERR_ASYNC_CACHE_LOAD_FAIL, ChunkGraph.ActionLocation.LOADER, null, ticket + " " + terrainType);
+                    return CompletableFuture.completedFuture(null);
+                } else {
+                    future = new CompletableFuture<>();
+                    //oh no don't do this it breaks chunk collision's ticket ticket.incrStatusIndex();
+                    ChunkLoadingTicket.Snap snap = ticket.snapshot();
+                    ChunkGraph.addToGrah(snap.getPos(), ChunkGraph.ChunkActions.ASYNC_MANAGER_QUERY, ChunkGraph.ActionLocation.LOADER, null, "STEP1 " + snap.getTicket() + " " + snap.getSnapIndex() + " " + terrainType + " " + rawSlopeDataCache.getAllKeys().contains(snap.getTicket().getPos()));
+                    queries.put(snap, new CompletableChunkLoading((byte) (snap.getSnapIndex() % 255), future));
+                    //System.out.println("Query "+ticket+" "+snap+" "+terrainType);
+                    sendQueue.add(snap);
+                    return future;
+                }
             } else {
-                CompletableFuture<ChunkTerrain> future = new CompletableFuture<>();
+                old = queries.get(ticket).getFuture();
+
+                future = new CompletableFuture<>();
                 //oh no don't do this it breaks chunk collision's ticket ticket.incrStatusIndex();
                 ChunkLoadingTicket.Snap snap = ticket.snapshot();
-                ChunkGraph.addToGrah(snap.getPos(), ChunkGraph.ChunkActions.ASYNC_MANAGER_QUERY, ChunkGraph.ActionLocation.LOADER, null, "STEP1 " + snap.getTicket() + " " + snap.getSnapIndex() + " " + terrainType + " " + rawSlopeDataCache.getAllKeys().contains(snap.getTicket().getPos()));
                 queries.put(snap, new CompletableChunkLoading((byte) (snap.getSnapIndex() % 255), future));
-                //System.out.println("Query "+ticket+" "+snap+" "+terrainType);
+                ChunkGraph.addToGrah(ticket.getPos(), ChunkGraph.ChunkActions.ERR_ASYNC_CACHE_LOAD_STARTED, ChunkGraph.ActionLocation.LOADER, null, ticket + " " + terrainType + " " + old + " " + future + " " + queries.get(snap.getPos()));
+                //System.out.println("RE-Query "+ticket+" "+snap+" "+terrainType);
                 sendQueue.add(snap);
-                return future;
             }
-        } else {
-            CompletableFuture<ChunkTerrain> old = queries.get(ticket).getFuture();
-
-            CompletableFuture<ChunkTerrain> future = new CompletableFuture<>();
-            //oh no don't do this it breaks chunk collision's ticket ticket.incrStatusIndex();
-            ChunkLoadingTicket.Snap snap = ticket.snapshot();
-            queries.put(snap, new CompletableChunkLoading((byte) (snap.getSnapIndex() % 255), future));
-            ChunkGraph.addToGrah(ticket.getPos(), ChunkGraph.ChunkActions.ERR_ASYNC_CACHE_LOAD_STARTED, ChunkGraph.ActionLocation.LOADER, null, ticket + " " + terrainType + " " + old + " " + future + " " + queries.get(snap.getPos()));
-            //System.out.println("RE-Query "+ticket+" "+snap+" "+terrainType);
-            sendQueue.add(snap);
-
-            old.complete(null);
-
-            return future;
         }
+        //Complete outside of the lock : it runs the callbacks of the old query
+        old.complete(null);
+        return future;
     }
 
     @Override
     public void tick() {
+        MessageQueryChunks ready;
+        while ((ready = readyQueries.poll()) != null)
+            DynamXContext.getNetwork().sendToServer(ready);
         if (!sendQueue.isEmpty()) {
             PooledHashMap<VerticalChunkPos, byte[]> requests = HashMapPool.get();
+            //The requests that can use the disk cache, they are sent once the cache is read
+            Map<VerticalChunkPos, byte[]> cachedRequests = new HashMap<>();
             while (!sendQueue.isEmpty()) {
                 ChunkLoadingTicket.Snap snap = sendQueue.remove();
                 if (snap.isValid()) {
                     boolean slopesOnly = snap.getTicket().getPriority() == ChunkLoadingTicket.TicketPriority.LOW;
                     ChunkGraph.addToGrah(snap.getPos(), ChunkGraph.ChunkActions.ASYNC_MANAGER_QUERY, ChunkGraph.ActionLocation.LOADER, null, "STEP2 " + snap.getTicket() + " " + snap.getSnapIndex() + " " + slopesOnly + " " + rawSlopeDataCache.getAllKeys().contains(snap.getTicket().getPos()));
-                    requests.put(snap.getTicket().getPos(), new byte[]{(byte) (slopesOnly ? 2 : (rawSlopeDataCache.getAllKeys().contains(snap.getTicket().getPos()) ? 1 : 0)), (byte) (snap.getSnapIndex() % 255)});
+                    byte dataType = (byte) (slopesOnly ? 2 : (rawSlopeDataCache.getAllKeys().contains(snap.getTicket().getPos()) ? 1 : 0));
+                    if (diskCache != null && dataType != 2)
+                        cachedRequests.put(snap.getTicket().getPos(), new byte[]{dataType, (byte) (snap.getSnapIndex() % 255)});
+                    else
+                        requests.put(snap.getTicket().getPos(), new byte[]{dataType, (byte) (snap.getSnapIndex() % 255)});
                 }
             }
             if (!requests.isEmpty()) {
@@ -124,13 +160,77 @@ public class RemoteTerrainCache implements ITerrainCache {
             } else {
                 requests.release();
             }
+            if (!cachedRequests.isEmpty())
+                MessageChunkDataBatch.Handler.POOL.submit(() -> readDiskCache(cachedRequests));
         }
     }
 
+    /**
+     * Reads the disk cache of the requested chunks, on a "DnxCliCollsLoader" thread, and queues the query for the next tick <br>
+     * The hash of the cached data is sent with the query : the server won't send the chunk if it didn't change
+     *
+     * @param cachedRequests The requested chunks, with their data type and their snapshot id
+     */
+    private void readDiskCache(Map<VerticalChunkPos, byte[]> cachedRequests) {
+        PooledHashMap<VerticalChunkPos, byte[]> requests = HashMapPool.get();
+        Map<VerticalChunkPos, Long> knownHashes = new HashMap<>();
+        try {
+            for (Map.Entry<VerticalChunkPos, byte[]> request : cachedRequests.entrySet()) {
+                RemoteTerrainDiskCache.CachedChunk cached = diskCache.get(request.getKey(), request.getValue()[0]);
+                if (cached != null) {
+                    knownHashes.put(request.getKey(), cached.getContentHash());
+                    synchronized (queries) {
+                        diskCachedData.put(request.getKey(), cached.getData());
+                    }
+                }
+                requests.put(request.getKey(), request.getValue());
+            }
+        } catch (RuntimeException e) {
+            DynamXMain.log.error("Failed to read the terrain disk cache, querying the chunks without it", e);
+            knownHashes.clear();
+        }
+        readyQueries.add(new MessageQueryChunks(requests, knownHashes));
+    }
+
     @Override
     public void addChunkToSave(ChunkLoadingTicket loadingTicket, ChunkCollisions collisions) {
     } //Don't remember of locally computed collisions, we can't trust it
 
+    /**
+     * Handles received chunk data from the server, and stores it in the disk cache
+     *
+     * @param pos         The chunk
+     * @param dataType    Data type : 1 : only normal elements, 2 : only persistent elements, 0 : both
+     * @param snapIdMod   The snapshot id of the data request
+     * @param rawData     The received data
+     * @param contentHash The content hash of the data, given by the server, 0 if the data can't be cached
+     */
+    public void receiveChunkData(VerticalChunkPos pos, byte dataType, byte snapIdMod, @Nullable byte[] rawData, long contentHash) {
+        synchronized (queries) {
+            diskCachedData.remove(pos);
+        }
+        if (diskCache != null && rawData != null && contentHash != 0 && dataType != 2)
+            diskCache.put(pos, dataType, contentHash, rawData);
+        receiveChunkData(pos, dataType, snapIdMod, rawData);
+    }
+
+    /**
+     * Handles the answer of the server when the chunk didn't change since it was stored in the disk cache
+     *
+     * @param pos       The chunk
+     * @param dataType  Data type : 1 : only normal elements, 0 : both
+     * @param snapIdMod The snapshot id of the data request
+     */
+    public void receiveUnchangedChunkData(VerticalChunkPos pos, byte dataType, byte snapIdMod) {
+        byte[] rawData;
+        synchronized (queries) {
+            rawData = diskCachedData.remove(pos);
+        }
+        if (rawData == null)
+            DynamXMain.log.error("Cached terrain data not found at " + pos + " " + dataType + " " + snapIdMod);
+        receiveChunkData(pos, dataType, snapIdMod, rawData);
+    }
+
     /**
      * Handles received chunk data from the server
      *
@@ -140,8 +240,11 @@ public class RemoteTerrainCache implements ITerrainCache {
      * @param rawData   The received data
      */
     public void receiveChunkData(VerticalChunkPos pos, byte dataType, byte snapIdMod, @Nullable byte[] rawData) {
-        if (queries.containsKey(pos)) {
-            CompletableChunkLoading snap = queries.get(pos);
+        CompletableChunkLoading snap;
+        synchronized (queries) {
+            snap = queries.get(pos);
+        }
+        if (snap != null) {
             if (snap.getSnapIdMod() != snapIdMod) {
                 if (DynamXConfig.enableDebugTerrainManager)
                     DynamXMain.log.error("PRE: Ignoring request answer " + snapIdMod + ". Now we want " + snap.getSnapIdMod() + " " + pos + ". Some data was " + (rawData == null));
@@ -154,28 +257,16 @@ public class RemoteTerrainCache implements ITerrainCache {
                     List<ITerrainElement> elements = new ArrayList<>();
                     List<ITerrainElement.IPersistentTerrainElement> persistents = new ArrayList<>();
                     Vector3fPool.openPool();
-                    //long start = System.currentTimeMillis();
-                    long start2;
-                    ObjectInputStream in = null;
+                    long start = System.currentTimeMillis();
                     try {
-                        in = DynamXUtils.getTerrainObjectsIS(new GZIPInputStream(new ByteArrayInputStream(rawData)));
-                        int size = in.readInt();
-                        for (int i = 0; i < size; i++) { //Read all received elements
-                            start2 = System.currentTimeMillis();
-                            ITerrainElement o = TerrainElementsFactory.getById(in.readByte());
-                            if (o.load(ITerrainElement.TerrainSaveType.NETWORK, in, pos)) {
-                                if (o instanceof ITerrainElement.IPersistentTerrainElement) {
-                                    if (dataType == 0)
-                                        persistents.add((ITerrainElement.IPersistentTerrainElement) o);
-                                    else //This dataType does not allow persistent elements
-                                        DynamXMain.log.error("Persistent elements should be sent before normal elements. Data " + pos + " " + dataType + " " + o);
-                                } else {
-                                    elements.add(o);
-                                }
-                            }
-                            start2 = System.currentTimeMillis() - start2;
-                            if (start2 > DynamXConfig.networkChunkComputeWarnTime) {
-                                DynamXMain.log.warn("Took " + start2 + " ms to load terrain from network at " + pos + " for element " + i + " of type " + o);
+                        for (ITerrainElement o : TerrainCodec.decodeAny(ITerrainElement.TerrainSaveType.NETWORK, rawData, pos, true)) { //Read all received elements
+                            if (o instanceof ITerrainElement.IPersistentTerrainElement) {
+                                if (dataType == 0)
+                                    persistents.add((ITerrainElement.IPersistentTerrainElement) o);
+                                else //This dataType does not allow persistent elements
+                                    DynamXMain.log.error("Persistent elements should be sent before normal elements. Data " + pos + " " + dataType + " " + o);
+                            } else {
+                                elements.add(o);
                             }
                         }
                         if (dataType == 1) { //Add cached persistent elements to the received data
@@ -192,17 +283,10 @@ public class RemoteTerrainCache implements ITerrainCache {
                         elements = new ArrayList<>(); //Mark the error
                         persistents = new ArrayList<>();
                     } finally {
-                        if (in != null) {
-                            try {
-                                in.close();
-                            } catch (IOException e) {
-                                DynamXMain.log.error("I/O error closing data stream", e);
-                            }
-                        }
-                        /*start = (System.currentTimeMillis() - start);
+                        start = (System.currentTimeMillis() - start);
                         if (start > DynamXConfig.networkChunkComputeWarnTime) {
-                            DynamXMain.log.warn("Took " + start + " ms to load terrain from network at " + pos + " ! Loaded " + elements + " elements and " + persistents + " persistent elements");
-                        }*/
+                            DynamXMain.log.warn("Took " + start + " ms to load terrain from network at " + pos + " ! Loaded " + elements.size() + " elements and " + persistents.size() + " persistent elements");
+                        }
                         Vector3fPool.closePool();
                         data = new ChunkTerrain(elements, persistents);
                     }
@@ -218,16 +302,27 @@ public class RemoteTerrainCache implements ITerrainCache {
     }
 
     private void receiveChunkData(VerticalChunkPos pos, byte dataType, byte snapIdMod, @Nullable byte[] rawData, @Nullable ChunkTerrain parsedData) {
-        ChunkGraph.addToGrah(pos, ChunkGraph.ChunkActions.ASYNC_REMOTE_RCV, ChunkGraph.ActionLocation.LOADER, null, "DataType " + dataType + " " + snapIdMod + " " + parsedData + " " + queries.containsKey(pos) + " " + (rawData == null));
-        if (queries.containsKey(pos)) {
-            CompletableChunkLoading future = queries.get(pos);
-            if (future.getSnapIdMod() != snapIdMod) { //Re-check validity
-                if (DynamXConfig.enableDebugTerrainManager)
-                    DynamXMain.log.error("HD: Ignoring request answer " + snapIdMod + ". Now we want " + future.getSnapIdMod() + " " + pos + ". Some data was " + (rawData == null));
-                return;
-            } else {
+        CompletableChunkLoading future;
+        synchronized (queries) {
+            future = queries.get(pos);
+            ChunkGraph.addToGrah(pos, ChunkGraph.ChunkActions.ASYNC_REMOTE_RCV, ChunkGraph.ActionLocation.LOADER, null, "DataType " + dataType + " " + snapIdMod + " " + parsedData + " " + (future != null) + " " + (rawData == null));
+            if (future != null) {
+                if (future.getSnapIdMod() != snapIdMod) { //Re-check validity
+                    if (DynamXConfig.enableDebugTerrainManager)
+                        DynamXMain.log.error("HD: Ignoring request answer " + snapIdMod + ". Now we want " + future.getSnapIdMod() + " " + pos + ". Some data was " + (rawData == null));
+                    return;
+                }
                 queries.remove(pos);
+                if (dataType != 2) {
+                    if (parsedData != null) //Not empty : store received elements
+                        dataCache.put(pos, parsedData);
+                    else //Empty : it's an error
+                        erroredChunks.add(pos);
+                }
             }
+        }
+        //The queries are completed outside of the lock : it runs the chunk loading callbacks
+        if (future != null) {
             if (dataType == 2) { //Persistent elements
                 if (rawData != null) { //Not empty : load received elements and complete the query
                     rawSlopeDataCache.putData(pos, rawData);
@@ -238,12 +333,8 @@ public class RemoteTerrainCache implements ITerrainCache {
                     future.complete(new ChunkTerrain());
                 }
             } else {
-                if (parsedData != null) { //Not empty : store received elements
-                    dataCache.put(pos, parsedData);
-                } else { //Empty : it's an error
+                if (parsedData == null) //Empty : it's an error
                     DynamXMain.log.error("Found an empty errored chunk at " + pos + " " + dataType + " " + (rawData == null));
-                    erroredChunks.add(pos);
-                }
                 //Complete the query
                 Vector3fPool.openPool();
                 future.complete(parsedData);
@@ -256,8 +347,12 @@ public class RemoteTerrainCache implements ITerrainCache {
 
     @Override
     public ChunkTerrain load(ChunkLoadingTicket ticket, Profiler profiler) {
-        if (dataCache.containsKey(ticket.getPos())) {
-            return dataCache.get(ticket.getPos());
+        ChunkTerrain cached;
+        synchronized (queries) {
+            cached = dataCache.get(ticket.getPos());
+        }
+        if (cached != null) {
+            return cached;
         } else if (ticket.getPriority() == ChunkLoadingTicket.TicketPriority.LOW && rawSlopeDataCache.getAllKeys().contains(ticket.getPos())) {
             DynamXMain.log.warn("[This is not an error] Using cached slopes at " + ticket);
             return new ChunkTerrain((List<ITerrainElement.IPersistentTerrainElement>) (List<?>) rawSlopeDataCache.loadChunk(ticket.getPos(), this));
@@ -0,0 +1,218 @@
+package fr.dynamx.common.physics.terrain.cache;
+
+import fr.aym.acslib.services.impl.thrload.DynamXThreadedModLoader;
+import fr.dynamx.common.DynamXMain;
+import fr.dynamx.utils.VerticalChunkPos;
+import net.minecraft.util.math.ChunkPos;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Client-side copy, on the disk, of the terrain received from a server, kept between the sessions <br>
+ * Each chunk is stored with the content hash given by the server : the client sends this hash when querying the chunk, and the server doesn't send the chunk if it didn't change <br>
+ * The chunks are stored in {@link RegionTerrainFile}s, as the content hash (long), the data type (byte), and the network data of the chunk
+ *
+ * @see RemoteTerrainCache
+ */
+public class RemoteTerrainDiskCache {
+    private static final int MAX_OPEN_FILES = 16;
+    private static final int CHUNK_CACHE_SIZE = 8 * 1024 * 1024;
+    /**
+     * The received chunks are written when a region file has more than this amount of pending data, or when it's closed
+     */
+    private static final int MAX_PENDING_BYTES = 1024 * 1024;
+
+    private final ExecutorService POOL = Executors.newFixedThreadPool(1, new DynamXThreadedModLoader.DefaultThreadFactory("DnxTerrainDiskCache"));
+    private final File storageDir;
+    /**
+     * The open region files, in access order
+     */
+    private final LinkedHashMap<ChunkPos, RegionTerrainFile> terrainFiles = new LinkedHashMap<>(16, 0.75f, true);
+    private final TerrainChunkLRU chunkCache = new TerrainChunkLRU(CHUNK_CACHE_SIZE);
+    /**
+     * True once {@link #close()} is called : the chunks aren't stored anymore <br>
+     * Guarded by this cache
+     */
+    private boolean closed;
+    /**
+     * True once the files are closed by the writing thread : the chunks aren't read anymore, and no file is opened <br>
+     * Guarded by the terrainFiles
+     */
+    private boolean filesClosed;
+    /**
+     * True if an eviction of the least recently used files is waiting for the writing thread <br>
+     * Guarded by the terrainFiles
+     */
+    private boolean evictionScheduled;
+
+    /**
+     * @param storageDir The directory of the cache, specific to the server and to the dimension
+     */
+    public RemoteTerrainDiskCache(File storageDir) {
+        this.storageDir = storageDir;
+        storageDir.mkdirs();
+    }
+
+    /**
+     * Reads a cached chunk
+     *
+     * @param pos      The chunk
+     * @param dataType The data type of the chunk (see {@link RemoteTerrainCache#receiveChunkData(VerticalChunkPos, byte, byte, byte[])})
+     * @return The cached chunk, or null if the chunk isn't cached with this data type, or if the cache is closed
+     */
+    @Nullable
+    public CachedChunk get(VerticalChunkPos pos, byte dataType) {
+        byte[] raw;
+        RegionTerrainFile file;
+        do {
+            file = getFileAt(new ChunkPos(pos.x >> 5, pos.z >> 5));
+            if (file == null)
+                return null;
+            raw = file.getRawChunkData(pos);
+        } while (file.isClosed()); //evicted in the meantime
+        if (raw == null || raw.length < 9)
+            return null;
+        ByteBuffer buffer = ByteBuffer.wrap(raw);
+        long hash = buffer.getLong();
+        if (buffer.get() != dataType)
+            return null;
+        return new CachedChunk(hash, Arrays.copyOfRange(raw, 9, raw.length));
+    }
+
+    /**
+     * Stores a chunk received from the server, in a background thread <br>
+     * Does nothing if the cache is closed
+     *
+     * @param pos         The chunk
+     * @param dataType    The data type of the chunk
+     * @param contentHash The content hash given by the server
+     * @param data        The network data of the chunk
+     */
+    public synchronized void put(VerticalChunkPos pos, byte dataType, long contentHash, byte[] data) {
+        if (closed)
+            return;
+        POOL.submit(() -> {
+            byte[] raw = ByteBuffer.allocate(9 + data.length).putLong(contentHash).put(dataType).put(data).array();
+            RegionTerrainFile file;
+            do {
+                file = getFileAt(new ChunkPos(pos.x >> 5, pos.z >> 5));
+                if (file == null)
+                    return;
+                file.putData(pos, raw);
+            } while (file.isClosed());
+            if (file.getResidentBytes() > MAX_PENDING_BYTES) {
+                try {
+                    file.save();
+                } catch (IOException e) {
+                    DynamXMain.log.error("Failed to write the terrain cache file of " + pos, e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Writes the pending chunks and closes the files <br>
+     * The chunks given to {@link #put(VerticalChunkPos, byte, long, byte[])} before are written
+     */
+    public synchronized void close() {
+        if (closed)
+            return;
+        closed = true;
+        POOL.submit(() -> {
+            synchronized (terrainFiles) {
+                filesClosed = true;
+                terrainFiles.values().forEach(RegionTerrainFile::close);
+                terrainFiles.clear();
+            }
+            chunkCache.clear();
+        });
+        POOL.shutdown();
+    }
+
+    @Nullable
+    private RegionTerrainFile getFileAt(ChunkPos pos) {
+        //Called by the terrain loader threads and the writing thread
+        RegionTerrainFile file;
+        boolean scheduleEviction = false;
+        synchronized (terrainFiles) {
+            if (filesClosed)
+                return null;
+            file = terrainFiles.get(pos);
+            if (file != null)
+                return file;
+            File legacy = new File(storageDir, "region_" + pos.x + "_" + pos.z + ".dnx");
+            File f = new File(storageDir, "region_" + pos.x + "_" + pos.z + ".dnr");
+            file = new RegionTerrainFile(legacy, f, pos, chunkCache);
+            try {
+                file.load();
+            } catch (IOException | ClassNotFoundException e) {
+                DynamXMain.log.error("Failed to load terrain cache file " + f + ", it will be reset", e);
+                file.close();
+                f.delete();
+                file = new RegionTerrainFile(legacy, f, pos, chunkCache);
+                try {
+                    file.load();
+                } catch (IOException | ClassNotFoundException e2) {
+                    DynamXMain.log.error("Cannot create terrain cache file " + f, e2);
+                    return null;
+                }
+            }
+            terrainFiles.put(pos, file);
+            if (terrainFiles.size() > MAX_OPEN_FILES && !evictionScheduled) {
+                evictionScheduled = true;
+                scheduleEviction = true;
+            }
+        }
+        if (scheduleEviction)
+            scheduleEviction();
+        return file;
+    }
+
+    /**
+     * The files are only closed by the writing thread, so a chunk can't be stored in a file being closed
+     */
+    private synchronized void scheduleEviction() {
+        if (closed) //The files will be closed by the close task
+            return;
+        POOL.submit(() -> {
+            synchronized (terrainFiles) {
+                evictionScheduled = false;
+                Iterator<RegionTerrainFile> it = terrainFiles.values().iterator();
+                while (terrainFiles.size() > MAX_OPEN_FILES && it.hasNext()) {
+                    RegionTerrainFile old = it.next();
+                    it.remove();
+                    old.close();
+                }
+            }
+        });
+    }
+
+    /**
+     * A chunk read from the cache
+     */
+    public static class CachedChunk {
+        private final long contentHash;
+        private final byte[] data;
+
+        private CachedChunk(long contentHash, byte[] data) {
+            this.contentHash = contentHash;
+            this.data = data;
+        }
+
+        public long getContentHash() {
+            return contentHash;
+        }
+
+        public byte[] getData() {
+            return data;
+        }
+    }
+}
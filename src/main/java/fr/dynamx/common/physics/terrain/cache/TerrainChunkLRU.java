@@ -0,0 +1,92 @@
+package fr.dynamx.common.physics.terrain.cache;
+
+import fr.dynamx.utils.VerticalChunkPos;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * In-memory cache of the encoded chunk data read from the {@link RegionTerrainFile}s, bounded by the total size of the cached data <br>
+ * The least recently used chunks are evicted first <br>
+ * Thread safe
+ */
+public class TerrainChunkLRU {
+    private final LinkedHashMap<VerticalChunkPos, byte[]> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private final long maxBytes;
+    private long residentBytes;
+    private long hits, misses, evictions;
+
+    /**
+     * @param maxBytes The maximum size of the cached data, in bytes
+     */
+    public TerrainChunkLRU(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    public synchronized byte[] get(VerticalChunkPos pos) {
+        byte[] data = entries.get(pos);
+        if (data != null)
+            hits++;
+        else
+            misses++;
+        return data;
+    }
+
+    public synchronized void put(VerticalChunkPos pos, byte[] data) {
+        if (data.length > maxBytes) {
+            remove(pos);
+            return;
+        }
+        byte[] old = entries.put(pos, data);
+        if (old != null)
+            residentBytes -= old.length;
+        residentBytes += data.length;
+        Iterator<Map.Entry<VerticalChunkPos, byte[]>> it = entries.entrySet().iterator();
+        while (residentBytes > maxBytes && it.hasNext()) {
+            residentBytes -= it.next().getValue().length;
+            it.remove();
+            evictions++;
+        }
+    }
+
+    public synchronized void remove(VerticalChunkPos pos) {
+        byte[] old = entries.remove(pos);
+        if (old != null)
+            residentBytes -= old.length;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        residentBytes = 0;
+    }
+
+    /**
+     * @return The size of the cached data, in bytes
+     */
+    public synchronized long getResidentBytes() {
+        return residentBytes;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return The number of chunks removed from the cache because it was full
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * @return The number of cached chunks
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,264 @@
+package fr.dynamx.common.physics.terrain.cache;
+
+import fr.dynamx.api.physics.terrain.ITerrainElement;
+import fr.dynamx.common.physics.terrain.element.TerrainElementsFactory;
+import fr.dynamx.utils.DynamXUtils;
+import fr.dynamx.utils.VerticalChunkPos;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+
+/**
+ * Binary format of the terrain elements of a chunk, used for disk saves and network transfers <br>
+ * Each element is written by its own {@link ITerrainElement#save(ITerrainElement.TerrainSaveType, ByteBuf, VerticalChunkPos)} codec, prefixed by its {@link TerrainElementsFactory} id <br><br>
+ * Encoded data layout : <br>
+ * <ul>
+ * <li>FORMAT_MARKER (byte) and VERSION (byte)</li>
+ * <li>Flags (byte) : 1 if the payload is deflated</li>
+ * <li>Payload length before compression (var int)</li>
+ * <li>Payload : element count (var int), then the id (byte) and the data of each element</li>
+ * </ul>
+ * The data saved by older versions (java serialization over GZIP) is detected with {@link #isLegacyData(byte[])} and can still be read with {@link #decodeLegacy(ITerrainElement.TerrainSaveType, byte[], VerticalChunkPos, boolean)}
+ */
+public class TerrainCodec {
+    public static final byte FORMAT_MARKER = (byte) 0xDC;
+    public static final byte VERSION = 1;
+
+    private static final byte FLAG_DEFLATED = 1;
+    /**
+     * Under this size (in bytes), the payload is not compressed
+     */
+    private static final int COMPRESSION_THRESHOLD = 96;
+
+    private static final ThreadLocal<Deflater> DEFLATER = ThreadLocal.withInitial(Deflater::new);
+    private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(Inflater::new);
+
+    /**
+     * Encodes the given terrain elements
+     *
+     * @param type     The type of the save, modifying used optimizations
+     * @param elements The elements of the chunk
+     * @param pos      The position of the chunk
+     * @return The encoded data
+     */
+    public static byte[] encode(ITerrainElement.TerrainSaveType type, Collection<? extends ITerrainElement> elements, VerticalChunkPos pos) {
+        return encode(type, elements, pos, true);
+    }
+
+    /**
+     * Encodes the given terrain elements
+     *
+     * @param type     The type of the save, modifying used optimizations
+     * @param elements The elements of the chunk
+     * @param pos      The position of the chunk
+     * @param compress False to never compress the payload, if the data is compressed later with other chunks
+     * @return The encoded data
+     */
+    public static byte[] encode(ITerrainElement.TerrainSaveType type, Collection<? extends ITerrainElement> elements, VerticalChunkPos pos, boolean compress) {
+        ByteBuf payload = PooledByteBufAllocator.DEFAULT.heapBuffer(256);
+        ByteBuf out = null;
+        try {
+            writeVarInt(payload, elements.size());
+            for (ITerrainElement e : elements) {
+                payload.writeByte(e.getFactory().ordinal());
+                e.save(type, payload, pos);
+            }
+            int length = payload.readableBytes();
+            out = PooledByteBufAllocator.DEFAULT.heapBuffer(length + 8);
+            out.writeByte(FORMAT_MARKER);
+            out.writeByte(VERSION);
+            if (!compress || length < COMPRESSION_THRESHOLD) {
+                out.writeByte(0);
+                writeVarInt(out, length);
+                out.writeBytes(payload);
+            } else {
+                out.writeByte(FLAG_DEFLATED);
+                writeVarInt(out, length);
+                Deflater deflater = DEFLATER.get();
+                deflater.reset();
+                deflater.setInput(payload.array(), payload.arrayOffset() + payload.readerIndex(), length);
+                deflater.finish();
+                while (!deflater.finished()) {
+                    out.ensureWritable(Math.max(64, length / 4));
+                    int written = deflater.deflate(out.array(), out.arrayOffset() + out.writerIndex(), out.writableBytes());
+                    out.writerIndex(out.writerIndex() + written);
+                }
+            }
+            byte[] data = new byte[out.readableBytes()];
+            out.readBytes(data);
+            return data;
+        } finally {
+            payload.release();
+            if (out != null)
+                out.release();
+        }
+    }
+
+    /**
+     * Decodes the given terrain elements
+     *
+     * @param type                 The type of the save, modifying used optimizations
+     * @param data                 The encoded data
+     * @param pos                  The position of the chunk
+     * @param skipInvalidElements  If false, an {@link IllegalStateException} is thrown if an element cancels its loading
+     * @return The decoded elements
+     * @throws IllegalArgumentException If the data has not been encoded by a supported version of this codec
+     * @throws DataFormatException       If the data is truncated or corrupted
+     */
+    public static List<ITerrainElement> decode(ITerrainElement.TerrainSaveType type, byte[] data, VerticalChunkPos pos, boolean skipInvalidElements) throws Exception {
+        if (data.length < 3 || data[0] != FORMAT_MARKER)
+            throw new IllegalArgumentException("Not a terrain codec data");
+        if (data[1] != VERSION)
+            throw new IllegalArgumentException("Unsupported terrain codec version " + data[1]);
+        ByteBuf in = Unpooled.wrappedBuffer(data);
+        ByteBuf inflated = null;
+        try {
+            in.skipBytes(2);
+            byte flags = in.readByte();
+            int length = readVarInt(in);
+            if (length < 0 || ((flags & FLAG_DEFLATED) == 0 && length > in.readableBytes()))
+                throw new DataFormatException("Invalid terrain data length " + length);
+            ByteBuf payload;
+            if ((flags & FLAG_DEFLATED) != 0) {
+                payload = inflated = PooledByteBufAllocator.DEFAULT.heapBuffer(length, length);
+                Inflater inflater = INFLATER.get();
+                inflater.reset();
+                inflater.setInput(in.array(), in.arrayOffset() + in.readerIndex(), in.readableBytes());
+                int read = 0;
+                while (read < length) {
+                    int n = inflater.inflate(payload.array(), payload.arrayOffset() + read, length - read);
+                    // No progress : the stream is truncated, finished too early or needs a dictionary, it will never advance
+                    if (n == 0)
+                        throw new DataFormatException("Invalid terrain data, read " + read + " of " + length + " bytes");
+                    read += n;
+                }
+                payload.writerIndex(length);
+            } else {
+                payload = in.slice(in.readerIndex(), length);
+            }
+            int size = readVarInt(payload);
+            List<ITerrainElement> elements = new ArrayList<>(Math.min(size, 64));
+            for (int i = 0; i < size; i++) {
+                ITerrainElement o = TerrainElementsFactory.getById(payload.readByte());
+                if (o.load(type, payload, pos)) {
+                    elements.add(o);
+                } else if (!skipInvalidElements) {
+                    throw new IllegalStateException("Terrain element " + o + " failed to load");
+                }
+            }
+            return elements;
+        } finally {
+            if (inflated != null)
+                inflated.release();
+        }
+    }
+
+    /**
+     * @return True if the given data was saved with the legacy format (java serialization over GZIP)
+     */
+    public static boolean isLegacyData(byte[] data) {
+        return data.length >= 2 && data[0] == (byte) GZIPInputStream.GZIP_MAGIC && data[1] == (byte) (GZIPInputStream.GZIP_MAGIC >> 8);
+    }
+
+    /**
+     * Decodes terrain elements saved with the legacy format (java serialization over GZIP)
+     *
+     * @see #decode(ITerrainElement.TerrainSaveType, byte[], VerticalChunkPos, boolean)
+     */
+    public static List<ITerrainElement> decodeLegacy(ITerrainElement.TerrainSaveType type, byte[] data, VerticalChunkPos pos, boolean skipInvalidElements) throws Exception {
+        try (ObjectInputStream in = DynamXUtils.getTerrainObjectsIS(new GZIPInputStream(new ByteArrayInputStream(data)))) {
+            int size = in.readInt();
+            List<ITerrainElement> elements = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                ITerrainElement o = TerrainElementsFactory.getById(in.readByte());
+                if (o.load(type, in, pos)) {
+                    elements.add(o);
+                } else if (!skipInvalidElements) {
+                    throw new IllegalStateException("Terrain element " + o + " failed to load");
+                }
+            }
+            return elements;
+        }
+    }
+
+    /**
+     * Encodes terrain elements with the legacy format (java serialization over GZIP) <br>
+     * Only used to compare the size and the speed of the two formats
+     */
+    public static byte[] encodeLegacy(ITerrainElement.TerrainSaveType type, Collection<? extends ITerrainElement> elements) throws IOException {
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(new GZIPOutputStream(data))) {
+            out.writeInt(elements.size());
+            for (ITerrainElement e : elements) {
+                out.writeByte(e.getFactory().ordinal());
+                e.save(type, out);
+            }
+        }
+        return data.toByteArray();
+    }
+
+    /**
+     * Decodes the given data, with the codec or with the legacy format
+     *
+     * @see #decode(ITerrainElement.TerrainSaveType, byte[], VerticalChunkPos, boolean)
+     */
+    public static List<ITerrainElement> decodeAny(ITerrainElement.TerrainSaveType type, byte[] data, VerticalChunkPos pos, boolean skipInvalidElements) throws Exception {
+        return isLegacyData(data) ? decodeLegacy(type, data, pos, skipInvalidElements) : decode(type, data, pos, skipInvalidElements);
+    }
+
+    public static void writeVarInt(ByteBuf to, int value) {
+        while ((value & -128) != 0) {
+            to.writeByte(value & 127 | 128);
+            value >>>= 7;
+        }
+        to.writeByte(value);
+    }
+
+    public static int readVarInt(ByteBuf from) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            if (shift >= 35)
+                throw new IllegalArgumentException("VarInt too big");
+            b = from.readByte();
+            value |= (b & 127) << shift;
+            shift += 7;
+        } while ((b & 128) != 0);
+        return value;
+    }
+
+    /**
+     * Writes a byte array prefixed by its length
+     */
+    public static void writeByteArray(ByteBuf to, byte[] data) {
+        writeVarInt(to, data.length);
+        to.writeBytes(data);
+    }
+
+    /**
+     * Reads a byte array written by {@link #writeByteArray(ByteBuf, byte[])}
+     */
+    public static byte[] readByteArray(ByteBuf from) {
+        int length = readVarInt(from);
+        if (length > from.readableBytes())
+            throw new IllegalArgumentException("Invalid array length " + length);
+        byte[] data = new byte[length];
+        from.readBytes(data);
+        return data;
+    }
+}
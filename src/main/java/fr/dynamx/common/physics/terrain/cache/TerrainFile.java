@@ -6,18 +6,24 @@ import fr.dynamx.utils.DynamXUtils;
 import fr.dynamx.utils.VerticalChunkPos;
 
 import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
 
 /**
  * Terrain data cache, saved in a data file in the World
  */
 public class TerrainFile extends VirtualTerrainFile {
-    private static final int VERSION = 7;
-    private static final int SLOPES_VERSION = 4;
+    private static final int VERSION = 8;
+    private static final int SLOPES_VERSION = 5;
+    /**
+     * Last version of the slopes files using java serialization over GZIP, migrated to the {@link TerrainCodec} format <br>
+     * The terrain files of versions 6 and 7 are migrated too
+     */
+    private static final int LEGACY_SLOPES_VERSION = 4;
 
     private final File container;
     private final boolean isSlopes;
@@ -25,6 +31,10 @@ public class TerrainFile extends VirtualTerrainFile {
 
     //TODO BETTER MT
     private volatile boolean ioLoading;
+    /**
+     * True if this file was loaded from a legacy format, or if some of its chunks were converted to the {@link TerrainCodec} format : it should be saved
+     */
+    protected volatile boolean formatOutdated;
     private final Lock ioLock = new ReentrantLock();
 
     public TerrainFile(File container) {
@@ -58,16 +68,38 @@ public class TerrainFile extends VirtualTerrainFile {
         ioLoading = true;
         try {
             if (container.exists()) {
-                ObjectInputStream in = DynamXUtils.getTerrainObjectsIS(new GZIPInputStream(new FileInputStream(container)));
+                BufferedInputStream file = new BufferedInputStream(new FileInputStream(container));
+                file.mark(2);
+                boolean legacy = file.read() == (GZIPInputStream.GZIP_MAGIC & 0xFF) && file.read() == (GZIPInputStream.GZIP_MAGIC >> 8);
+                file.reset();
+                if (!legacy) {
+                    try (DataInputStream in = new DataInputStream(file)) {
+                        short version = in.readShort();
+                        if (version != getVersion())
+                            throw new UnsupportedOperationException("Dnx chunk version " + version);
+                        int size = in.readInt();
+                        for (int i = 0; i < size; i++) {
+                            VerticalChunkPos pos = new VerticalChunkPos(in.readInt(), in.readInt(), in.readInt());
+                            byte[] data = new byte[in.readInt()];
+                            in.readFully(data);
+                            putData(pos, data);
+                        }
+                    }
+                    return;
+                }
+                ObjectInputStream in = DynamXUtils.getTerrainObjectsIS(new GZIPInputStream(file));
                 short version = in.readShort();
-                if (isSlopes ? version == getVersion() : version >= 6) {
+                if (isSlopes ? version == LEGACY_SLOPES_VERSION : version >= 6) {
+                    //The chunks will be converted to the new format when loaded
+                    DynamXMain.log.info("Migrating legacy terrain file " + container + " to version " + getVersion());
+                    formatOutdated = true;
                     int size = in.readInt();
                     for (int i = 0; i < size; i++) {
                         VerticalChunkPos pos = new VerticalChunkPos(in.readInt(), in.readInt(), in.readInt());
                         putData(pos, (byte[]) in.readObject());
                     }
                     in.close();
-                } else if (version >= 1 && this.version != SLOPES_VERSION) { //Take care if SLOPES_VERSION == VERSION
+                } else if (version >= 1 && !isSlopes) {
                     in.close();
                     DynamXMain.log.warn("Outdated chunks collisions file : version " + version + ", everything will be erased !");
                     DynamXMain.log.info("Deleted with success : " + container.delete());
@@ -89,16 +121,21 @@ public class TerrainFile extends VirtualTerrainFile {
         ioLoading = true;
         try {
             container.createNewFile();
-            ObjectOutputStream out = new ObjectOutputStream(new GZIPOutputStream(new FileOutputStream(container)));
+            //The chunk data is already compressed by the TerrainCodec
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(container)));
             out.writeShort(version);
-            out.writeInt(dataCache.size());
-            for (Map.Entry<VerticalChunkPos, byte[]> entry : dataCache.entrySet()) {
+            //Don't trust the size of the concurrent map : write the entries in a temporary list
+            List<Map.Entry<VerticalChunkPos, byte[]>> entries = new ArrayList<>(dataCache.entrySet());
+            out.writeInt(entries.size());
+            for (Map.Entry<VerticalChunkPos, byte[]> entry : entries) {
                 out.writeInt(entry.getKey().x);
                 out.writeInt(entry.getKey().y);
                 out.writeInt(entry.getKey().z);
-                out.writeObject(entry.getValue());
+                out.writeInt(entry.getValue().length);
+                out.write(entry.getValue());
             }
             out.close();
+            formatOutdated = false;
         } catch (IOException e) {
             e.printStackTrace();
         } finally {
@@ -107,6 +144,18 @@ public class TerrainFile extends VirtualTerrainFile {
         }
     }
 
+    @Override
+    protected void onChunkMigrated(VerticalChunkPos pos) {
+        formatOutdated = true;
+    }
+
+    /**
+     * @return True if this file contains data that was converted from a legacy format, and should be saved
+     */
+    public boolean isFormatOutdated() {
+        return formatOutdated;
+    }
+
     @Override
     public String toString() {
         return "TerrainFile@" + Integer.toHexString(hashCode()) + " at " + container;
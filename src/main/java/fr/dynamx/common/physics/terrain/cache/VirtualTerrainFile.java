@@ -3,20 +3,17 @@ package fr.dynamx.common.physics.terrain.cache;
 import fr.dynamx.api.physics.terrain.ITerrainCache;
 import fr.dynamx.api.physics.terrain.ITerrainElement;
 import fr.dynamx.common.DynamXMain;
-import fr.dynamx.common.physics.terrain.element.TerrainElementsFactory;
 import fr.dynamx.utils.DynamXConfig;
-import fr.dynamx.utils.DynamXUtils;
 import fr.dynamx.utils.VerticalChunkPos;
 
-import java.io.*;
+import java.io.IOException;
+import java.io.InvalidClassException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
 
 /**
  * Virtual terrain data cache (used as is on remote clients)
@@ -28,12 +25,8 @@ public class VirtualTerrainFile {
     protected final ConcurrentHashMap<VerticalChunkPos, Lock> loadingLocks = new ConcurrentHashMap<>();
 
     public void lock(VerticalChunkPos pos) {
-        synchronized (loadingLocks) {
-            if (!loadingLocks.containsKey(pos)) {
-                loadingLocks.put(pos, new ReentrantLock());
-            }
-            loadingLocks.get(pos).lock();
-        }
+        //Don't wait for the chunk lock while holding a global lock : the other chunks can be loaded by the other terrain loader threads
+        loadingLocks.computeIfAbsent(pos, p -> new ReentrantLock()).lock();
     }
 
     public void unlock(VerticalChunkPos pos) {
@@ -43,22 +36,14 @@ public class VirtualTerrainFile {
     public void setChunk(VerticalChunkPos pos, List<ITerrainElement> elements) throws IOException {
         boolean debug = DynamXConfig.enableDebugTerrainManager && DynamXConfig.chunkDebugPoses.contains(pos);
         if (debug) {
-            DynamXMain.log.info("[CHUNK DEBUG] Saving chunk " + pos + " with " + elements.size() + " elements in " + this);
+            DynamXMain.log.info("[CHUNK DEBUG] Saving chunk " + pos + " with " + elements.size() + " elements in " + this + ": " + elements);
         }
         lock(pos);
-        ByteArrayOutputStream data = new ByteArrayOutputStream();
-        ObjectOutputStream out = new ObjectOutputStream(new GZIPOutputStream(data));
-        out.writeInt(elements.size());
-        for (ITerrainElement e : elements) {
-            if (debug)
-                DynamXMain.log.info("[CHUNK DEBUG] Saving element " + e);
-            out.writeByte(e.getFactory().ordinal());
-            e.save(ITerrainElement.TerrainSaveType.DISK, out);
+        try {
+            putData(pos, TerrainCodec.encode(ITerrainElement.TerrainSaveType.DISK, elements, pos));
+        } finally {
+            unlock(pos);
         }
-        out.close();
-        byte[] arr = data.toByteArray();
-        dataCache.put(pos, arr);
-        unlock(pos);
     }
 
     public List<ITerrainElement> loadChunk(VerticalChunkPos pos, ITerrainCache terrainCache) {
@@ -68,7 +53,7 @@ public class VirtualTerrainFile {
         }
 
         lock(pos);
-        byte[] dt = dataCache.get(pos);
+        byte[] dt = getRawChunkData(pos);
         if (dt == null) {
             if (debug) {
                 DynamXMain.log.error("[CHUNK DEBUG] Chunk not found in save file " + this);
@@ -77,41 +62,24 @@ public class VirtualTerrainFile {
             return null;
         }
         List<ITerrainElement> terrainElements = new ArrayList<>();
-        ObjectInputStream in = null;
         try {
-            in = DynamXUtils.getTerrainObjectsIS(new GZIPInputStream(new ByteArrayInputStream(dt)));
-            int size = in.readInt();
-            if (debug)
-                DynamXMain.log.info("[CHUNK DEBUG] Found " + size + " elements");
-            for (int i = 0; i < size; i++) {
-                ITerrainElement o;
-                o = TerrainElementsFactory.getById(in.readByte());
-                if (debug)
-                    DynamXMain.log.info("[CHUNK DEBUG] Loading element " + o);
-                if (o.load(ITerrainElement.TerrainSaveType.DISK, in, pos)) {
-                    terrainElements.add(o);
-                } else {
-                    throw new IllegalStateException("Terrain element " + o + " failed to load");
-                }
+            if (TerrainCodec.isLegacyData(dt)) {
+                terrainElements = TerrainCodec.decodeLegacy(ITerrainElement.TerrainSaveType.DISK, dt, pos, false);
+                //Migrate the chunk to the new format
+                putData(pos, TerrainCodec.encode(ITerrainElement.TerrainSaveType.DISK, terrainElements, pos));
+                onChunkMigrated(pos);
+            } else {
+                terrainElements = TerrainCodec.decode(ITerrainElement.TerrainSaveType.DISK, dt, pos, false);
             }
-            in.close();
+            if (debug)
+                DynamXMain.log.info("[CHUNK DEBUG] Loaded elements " + terrainElements);
         } catch (InvalidClassException | IllegalArgumentException e) {
             DynamXMain.log.warn("Invalid terrain save version at " + pos + ", invalidating it... Error is " + e.getMessage());
-            if (in != null) {
-                try {
-                    in.close();
-                } catch (IOException ignored) {
-                }
-            }
+            terrainElements = new ArrayList<>();
             terrainCache.invalidate(pos, true, false); //remove loaded elements
         } catch (Exception e) {
             DynamXMain.log.error("Cannot load terrain save at " + pos + ", invalidating it...", e);
-            if (in != null) {
-                try {
-                    in.close();
-                } catch (IOException ignored) {
-                }
-            }
+            terrainElements = new ArrayList<>();
             terrainCache.invalidate(pos, true, false); //remove loaded elements
         } finally {
             unlock(pos);
@@ -119,6 +87,14 @@ public class VirtualTerrainFile {
         return terrainElements;
     }
 
+    /**
+     * Called when the data of a chunk, saved with the legacy format, has been converted to the {@link TerrainCodec} format
+     *
+     * @param pos The position of the chunk
+     */
+    protected void onChunkMigrated(VerticalChunkPos pos) {
+    }
+
     public void removeChunk(VerticalChunkPos pos) {
         dataCache.remove(pos);
     }
@@ -134,4 +110,15 @@ public class VirtualTerrainFile {
     public void putData(VerticalChunkPos pos, byte[] newData) {
         dataCache.put(pos, newData);
     }
+
+    /**
+     * @return The size, in bytes, of the chunk data kept in memory
+     */
+    public long getResidentBytes() {
+        long size = 0;
+        for (byte[] data : dataCache.values()) {
+            size += data.length;
+        }
+        return size;
+    }
 }
@@ -22,6 +22,10 @@ public class ChunkLoadingTicket implements VerticalChunkPos.VerticalChunkPosCont
     private ChunkState status = ChunkState.NONE;
 
     private int statusIndex;
+    /**
+     * The terrain tick of the last use of this ticket, used to remove the least recently used tickets
+     */
+    private int lastAccessTick;
 
     public ChunkLoadingTicket(VerticalChunkPos pos) {
         this.pos = pos;
@@ -65,6 +69,20 @@ public class ChunkLoadingTicket implements VerticalChunkPos.VerticalChunkPosCont
         statusIndex++;
     }
 
+    /**
+     * @return The terrain tick of the last use of this ticket
+     */
+    public int getLastAccessTick() {
+        return lastAccessTick;
+    }
+
+    /**
+     * Marks this ticket as used at the given terrain tick
+     */
+    public void setLastAccessTick(int lastAccessTick) {
+        this.lastAccessTick = lastAccessTick;
+    }
+
     /**
      * @return The position of this ticket. It's the unique identifier of this ticket.
      */
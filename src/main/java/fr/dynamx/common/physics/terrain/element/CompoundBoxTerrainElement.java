@@ -7,12 +7,14 @@ import com.jme3.math.Vector3f;
 import fr.dynamx.api.physics.BulletShapeType;
 import fr.dynamx.api.physics.EnumBulletShapeType;
 import fr.dynamx.api.physics.terrain.ITerrainElement;
+import fr.dynamx.common.physics.terrain.cache.TerrainCodec;
 import fr.dynamx.utils.VerticalChunkPos;
 import fr.dynamx.utils.debug.DynamXDebugOptions;
 import fr.dynamx.utils.debug.TerrainDebugData;
 import fr.dynamx.utils.optimization.MutableBoundingBox;
 import fr.dynamx.utils.optimization.QuaternionPool;
 import fr.dynamx.utils.optimization.Vector3fPool;
+import io.netty.buffer.ByteBuf;
 import net.minecraft.world.World;
 
 import javax.annotation.Nonnull;
@@ -87,6 +89,63 @@ public class CompoundBoxTerrainElement implements ITerrainElement {
                 '}';
     }
 
+    @Override
+    public void save(TerrainSaveType type, ByteBuf out, VerticalChunkPos pos) {
+        if (meshes != null && meshes.isEmpty()) { //No boxes (empty element)
+            TerrainCodec.writeVarInt(out, 0);
+        } else {
+            TerrainCodec.writeVarInt(out, collisions.size() + 1);
+            double ox = pos.x * 16, oy = pos.y * 16, oz = pos.z * 16;
+            for (MutableBoundingBox box : collisions) {
+                //Write all collisions boxes as computed by the TerrainCollisionManager, relatively to the chunk
+                out.writeFloat((float) (box.minX - ox));
+                out.writeFloat((float) (box.minY - oy));
+                out.writeFloat((float) (box.minZ - oz));
+                out.writeFloat((float) (box.maxX - ox));
+                out.writeFloat((float) (box.maxY - oy));
+                out.writeFloat((float) (box.maxZ - oz));
+            }
+            if (type.usesPlatformDependantOptimizations()) {
+                //Write bullet's bvh data
+                TerrainCodec.writeByteArray(out, shape.serializeBvh());
+            }
+        }
+    }
+
+    @Override
+    public boolean load(TerrainSaveType type, ByteBuf in, VerticalChunkPos pos) {
+        int size = TerrainCodec.readVarInt(in) - 1;
+        if (size == -1) { //No boxes (empty element)
+            meshes = Collections.EMPTY_LIST;
+            shape = null;
+        } else {
+            List<MutableBoundingBox> boxes = new ArrayList<>(Math.min(size, 4096));
+            double ox = pos.x * 16, oy = pos.y * 16, oz = pos.z * 16;
+            for (int i = 0; i < size; i++) {
+                //Read all boxes as computed by the TerrainCollisionManager
+                boxes.add(new MutableBoundingBox(ox + in.readFloat(), oy + in.readFloat(), oz + in.readFloat(), ox + in.readFloat(), oy + in.readFloat(), oz + in.readFloat()));
+            }
+            collisions = boxes;
+            buildShape(boxes, pos, type.usesPlatformDependantOptimizations() ? TerrainCodec.readByteArray(in) : null);
+        }
+        return true;
+    }
+
+    private void buildShape(List<MutableBoundingBox> boxes, VerticalChunkPos pos, byte[] bvhData) {
+        //Generate corresponding IndexedMeshes
+        IndexedMeshBuilder builder = new IndexedMeshBuilder(-pos.x * 16, -pos.y * 16, -pos.z * 16, debugData);
+        builder.addBoxes(boxes);
+
+        meshes = builder.getMeshes();
+        if (bvhData != null) {
+            //Create the shape from bullet's bvh data
+            shape = new MeshCollisionShape(bvhData, builder.getMeshes().toArray(new IndexedMesh[0]));
+        } else {
+            //Then create the shape
+            shape = new MeshCollisionShape(true, builder.getMeshes().toArray(new IndexedMesh[0]));
+        }
+    }
+
     @Override
     public void save(TerrainSaveType type, ObjectOutputStream out) throws IOException {
         if (meshes != null && meshes.isEmpty()) { //No boxes (empty element)
@@ -117,21 +176,7 @@ public class CompoundBoxTerrainElement implements ITerrainElement {
                 boxes.add((MutableBoundingBox) in.readObject());
             }
             collisions = boxes; //05/07/20 we now need it to serialise and send chunk over network
-
-            //Generate corresponding IndexedMeshes
-            IndexedMeshBuilder builder = new IndexedMeshBuilder(-pos.x * 16, -pos.y * 16, -pos.z * 16, debugData);
-            builder.addBoxes(boxes);
-
-            meshes = builder.getMeshes(); //TODO REMOVE AFTER DEBUG
-            if (type.usesPlatformDependantOptimizations()) {
-                //Read bullet's bvh data
-                byte[] data = (byte[]) in.readObject();
-                //Then create the shape
-                shape = new MeshCollisionShape(data, builder.getMeshes().toArray(new IndexedMesh[0]));
-            } else {
-                //Then create the shape
-                shape = new MeshCollisionShape(true, builder.getMeshes().toArray(new IndexedMesh[0]));
-            }
+            buildShape(boxes, pos, type.usesPlatformDependantOptimizations() ? (byte[]) in.readObject() : null);
         }
         return true;
     }
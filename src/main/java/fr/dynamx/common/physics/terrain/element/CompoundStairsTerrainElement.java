@@ -7,10 +7,13 @@ import com.jme3.math.Vector3f;
 import fr.dynamx.api.physics.BulletShapeType;
 import fr.dynamx.api.physics.EnumBulletShapeType;
 import fr.dynamx.api.physics.terrain.ITerrainElement;
+import fr.dynamx.common.physics.terrain.cache.TerrainCodec;
 import fr.dynamx.common.physics.utils.StairsBox;
 import fr.dynamx.utils.VerticalChunkPos;
 import fr.dynamx.utils.debug.DynamXDebugOptions;
 import fr.dynamx.utils.debug.TerrainDebugData;
+import io.netty.buffer.ByteBuf;
+import net.minecraft.util.EnumFacing;
 import net.minecraft.world.World;
 
 import javax.annotation.Nonnull;
@@ -41,6 +44,62 @@ public class CompoundStairsTerrainElement implements ITerrainElement {
         this.collisions = boxes;
     }
 
+    @Override
+    public void save(TerrainSaveType type, ByteBuf out, VerticalChunkPos pos) {
+        if (meshes != null && meshes.isEmpty()) //No boxes (empty element)
+        {
+            TerrainCodec.writeVarInt(out, 0);
+        } else {
+            TerrainCodec.writeVarInt(out, collisions.size() + 1);
+            for (StairsBox box : collisions) {
+                //Write all collisions boxes as computed by the TerrainCollisionManager
+                out.writeFloat(box.getMin());
+                out.writeFloat(box.getMax());
+                out.writeFloat(box.getMinY());
+                out.writeFloat(box.getMinOtherCoord());
+                out.writeByte(box.getFacing().getIndex() | (box.isInverted() ? 8 : 0));
+            }
+            if (type.usesPlatformDependantOptimizations()) {
+                //Write bullet's bvh data
+                TerrainCodec.writeByteArray(out, shape.serializeBvh());
+            }
+        }
+    }
+
+    @Override
+    public boolean load(TerrainSaveType type, ByteBuf in, VerticalChunkPos pos) {
+        int size = TerrainCodec.readVarInt(in) - 1;
+        if (size == -1) //No boxes (empty element)
+        {
+            meshes = Collections.EMPTY_LIST;
+            shape = null;
+        } else {
+            List<StairsBox> boxes = new ArrayList<>(Math.min(size, 4096));
+            for (int i = 0; i < size; i++) {
+                //Read all boxes as computed by the TerrainCollisionManager
+                float min = in.readFloat(), max = in.readFloat(), minY = in.readFloat(), minOtherCoord = in.readFloat();
+                byte flags = in.readByte();
+                boxes.add(new StairsBox(min, max, minY, minOtherCoord, (flags & 8) != 0, EnumFacing.byIndex(flags & 7)));
+            }
+            collisions = boxes;
+            buildShape(boxes, pos, type.usesPlatformDependantOptimizations() ? TerrainCodec.readByteArray(in) : null);
+        }
+        return true;
+    }
+
+    private void buildShape(List<StairsBox> boxes, VerticalChunkPos pos, byte[] bvhData) {
+        //Generate corresponding IndexedMeshes
+        IndexedMeshBuilder builder = new IndexedMeshBuilder(-pos.x * 16, -pos.y * 16, -pos.z * 16, debugData);
+        builder.addStairBoxes(boxes);
+        meshes = builder.getMeshes();
+        if (bvhData != null)
+            //Create the shape from bullet's bvh data
+            shape = new MeshCollisionShape(bvhData, builder.getMeshes().toArray(new IndexedMesh[0]));
+        else
+            //Then create the shape
+            shape = new MeshCollisionShape(true, builder.getMeshes().toArray(new IndexedMesh[0]));
+    }
+
     @Override
     public void save(TerrainSaveType type, ObjectOutputStream out) throws IOException {
         if (meshes != null && meshes.isEmpty()) //No boxes (empty element)
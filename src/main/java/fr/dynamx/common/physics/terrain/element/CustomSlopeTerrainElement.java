@@ -11,6 +11,7 @@ import fr.dynamx.utils.debug.DynamXDebugOptions;
 import fr.dynamx.utils.debug.TerrainDebugData;
 import fr.dynamx.utils.debug.TerrainDebugRenderer;
 import fr.dynamx.utils.optimization.Vector3fPool;
+import io.netty.buffer.ByteBuf;
 import net.minecraft.world.World;
 
 import javax.annotation.Nonnull;
@@ -62,6 +63,24 @@ public class CustomSlopeTerrainElement implements ITerrainElement.IPersistentTer
         return body;
     }
 
+    @Override
+    public void save(TerrainSaveType type, ByteBuf to, VerticalChunkPos pos) {
+        for (Vector3f v : points) {
+            to.writeFloat(v.x);
+            to.writeFloat(v.y);
+            to.writeFloat(v.z);
+        }
+    }
+
+    @Override
+    public boolean load(TerrainSaveType type, ByteBuf from, VerticalChunkPos pos) {
+        points = new Vector3f[4];
+        for (int i = 0; i < 4; i++) {
+            points[i] = new Vector3f(from.readFloat(), from.readFloat(), from.readFloat());
+        }
+        return true;
+    }
+
     @Override
     public void save(TerrainSaveType type, ObjectOutputStream to) throws IOException {
         for (Vector3f v : points) {
@@ -15,6 +15,7 @@ import fr.dynamx.utils.debug.TerrainDebugRenderer;
 import fr.dynamx.utils.optimization.BoundingBoxPool;
 import fr.dynamx.utils.optimization.QuaternionPool;
 import fr.dynamx.utils.optimization.Vector3fPool;
+import io.netty.buffer.ByteBuf;
 import net.minecraft.tileentity.TileEntity;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.World;
@@ -43,6 +44,25 @@ public class DynamXBlockTerrainElement implements ITerrainElement {
         this.pos = new BlockPos(pos);
     }
 
+    @Override
+    public void save(TerrainSaveType type, ByteBuf out, VerticalChunkPos pos) {
+        out.writeInt(x);
+        out.writeInt(y);
+        out.writeInt(z);
+        out.writeInt(this.pos.getX());
+        out.writeInt(this.pos.getY());
+        out.writeInt(this.pos.getZ());
+    }
+
+    @Override
+    public boolean load(TerrainSaveType type, ByteBuf in, VerticalChunkPos pos) {
+        x = in.readInt();
+        y = in.readInt();
+        z = in.readInt();
+        this.pos = new BlockPos(in.readInt(), in.readInt(), in.readInt());
+        return true;
+    }
+
     @Override
     public void save(TerrainSaveType type, ObjectOutputStream out) throws IOException {
         out.writeInt(x);
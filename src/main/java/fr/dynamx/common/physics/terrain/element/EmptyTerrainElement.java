@@ -4,6 +4,7 @@ import com.jme3.bullet.objects.PhysicsRigidBody;
 import com.jme3.math.Vector3f;
 import fr.dynamx.api.physics.terrain.ITerrainElement;
 import fr.dynamx.utils.VerticalChunkPos;
+import io.netty.buffer.ByteBuf;
 import net.minecraft.world.World;
 
 import javax.annotation.Nullable;
@@ -28,6 +29,15 @@ public class EmptyTerrainElement implements ITerrainElement {
         return null;
     }
 
+    @Override
+    public void save(TerrainSaveType type, ByteBuf to, VerticalChunkPos pos) {
+    }
+
+    @Override
+    public boolean load(TerrainSaveType type, ByteBuf from, VerticalChunkPos pos) {
+        return true;
+    }
+
     @Override
     public void save(TerrainSaveType type, ObjectOutputStream to) throws IOException {
     }
@@ -5,7 +5,8 @@ import fr.dynamx.api.physics.terrain.ITerrainElement;
 import java.util.concurrent.Callable;
 
 /**
- * All implemented DynamX {@link ITerrainElement}
+ * All implemented DynamX {@link ITerrainElement} <br>
+ * The ordinal of each factory is the id written before the element by the {@link fr.dynamx.common.physics.terrain.cache.TerrainCodec}, the data of the element is then written by its own ByteBuf save and load methods
  */
 public enum TerrainElementsFactory {
     ERRORED(() -> {
@@ -19,8 +19,10 @@ import fr.dynamx.common.physics.CollisionsHandler;
 import fr.dynamx.common.physics.terrain.PhysicsWorldTerrain;
 import fr.dynamx.common.physics.utils.PhysicsWorldOperation;
 import fr.dynamx.server.network.ServerPhysicsSyncManager;
+import fr.dynamx.utils.DynamXConfig;
 import fr.dynamx.utils.PhysicsEntityException;
 import fr.dynamx.utils.debug.Profiler;
+import fr.dynamx.utils.debug.metrics.DynamXMetrics;
 import fr.dynamx.utils.optimization.BoundingBoxPool;
 import fr.dynamx.utils.optimization.QuaternionPool;
 import fr.dynamx.utils.optimization.TransformPool;
@@ -29,6 +31,7 @@ import net.minecraft.world.World;
 import net.minecraftforge.common.MinecraftForge;
 import net.minecraftforge.fml.relauncher.Side;
 
+import javax.annotation.Nullable;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
@@ -50,6 +53,11 @@ public abstract class BasePhysicsWorld implements IPhysicsWorld {
     protected final ConcurrentLinkedQueue<PhysicsWorldOperation<?>> operations = new ConcurrentLinkedQueue<>();
 
     private final AtomicBoolean scheduledTasksLock = new AtomicBoolean();
+    /**
+     * Ticks the entities on worker threads, null if the "ParallelEntityTicks" option is disabled or on client side
+     */
+    @Nullable
+    protected final ParallelEntityTicker parallelTicker;
 
     public BasePhysicsWorld(World world, boolean isRemoteWorld) {
         Vector3fPool.openPool(); //Open a pool for the whole session, the Vector3f created here may be used forever
@@ -57,6 +65,15 @@ public abstract class BasePhysicsWorld implements IPhysicsWorld {
         BoundingBoxPool.getPool().openSubPool();
         this.mcWorld = world;
         this.manager = new PhysicsWorldTerrain(this, mcWorld, isRemoteWorld);
+        //Server only : the client entities update the rendering and the sounds, which must stay in one thread
+        if (DynamXConfig.parallelEntityTicks && !world.isRemote) {
+            int threads = DynamXConfig.parallelEntityTickThreads;
+            if (threads <= 0)
+                threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+            this.parallelTicker = new ParallelEntityTicker("DnxEntityTicker", threads);
+        } else {
+            this.parallelTicker = null;
+        }
     }
 
     /**
@@ -163,26 +180,11 @@ public abstract class BasePhysicsWorld implements IPhysicsWorld {
         //Pre-tick each entity before the physics engine tick
         //Read the input data and send it to the physics
         profiler.start(Profiler.Profiles.PHYSICS_TICK_ENTITIES_PRE);
-        entities.forEach(e -> {
-            QuaternionPool.openPool();
-            Vector3fPool.openPool();
-            try {
-                //e.getNetwork().onPrePhysicsTick(profiler);
-                e.getSynchronizer().onPrePhysicsTick(profiler);
-            } catch (Exception ex) {
-                throw new PhysicsEntityException(e, "prePhysicsTick", ex);
-            }
-            QuaternionPool.closePool();
-            Vector3fPool.closePool();
-        });
+        tickEntitiesPre(profiler);
         profiler.end(Profiler.Profiles.PHYSICS_TICK_ENTITIES_PRE);
 
         //Update sync system
-        if (mcWorld.isRemote) {
-            ClientPhysicsSyncManager.tick();
-        } else if (mcWorld.getMinecraftServer().isDedicatedServer()) {
-            ServerPhysicsSyncManager.tick(profiler);
-        }
+        tickSyncManager(profiler);
 
         //Tick the physics engine
         //long pre = System.currentTimeMillis();
@@ -200,17 +202,7 @@ public abstract class BasePhysicsWorld implements IPhysicsWorld {
                 syncThreadsLock = null; //fix: don't release if interrupted
             }
         }
-        entities.forEach(e -> {
-            QuaternionPool.openPool();
-            Vector3fPool.openPool();
-            try {
-                e.getSynchronizer().onPostPhysicsTick(profiler);
-            } catch (Exception ex) {
-                throw new PhysicsEntityException(e, "postPhysicsTick", ex);
-            }
-            QuaternionPool.closePool();
-            Vector3fPool.closePool();
-        });
+        tickEntitiesPost(profiler);
         if (syncThreadsLock != null) {
             syncThreadsLock.release();
         }
@@ -222,6 +214,84 @@ public abstract class BasePhysicsWorld implements IPhysicsWorld {
         profiler.end(Profiler.Profiles.BULLET_STEP_SIM);
     }
 
+    /**
+     * Ticks the network synchronization of the entities, between their pre-tick and the physics engine tick
+     *
+     * @param profiler The current profiler
+     */
+    protected void tickSyncManager(Profiler profiler) {
+        if (mcWorld.isRemote) {
+            ClientPhysicsSyncManager.tick();
+        } else if (mcWorld.getMinecraftServer().isDedicatedServer()) {
+            ServerPhysicsSyncManager.tick(profiler);
+        }
+    }
+
+    /**
+     * Pre-ticks all entities of this world, before the physics engine tick <br>
+     * Reads the input data and sends it to the physics
+     *
+     * @param profiler The current profiler
+     */
+    protected void tickEntitiesPre(Profiler profiler) {
+        if (parallelTicker != null) {
+            parallelTicker.partition(entities);
+            parallelTicker.tick(this::tickEntityPre, profiler);
+        }
+        else
+            entities.forEach(e -> tickEntityPre(e, profiler));
+    }
+
+    /**
+     * Post-ticks all entities of this world, after the physics engine tick <br>
+     * Retrieves the simulated data
+     *
+     * @param profiler The current profiler
+     */
+    protected void tickEntitiesPost(Profiler profiler) {
+        if (parallelTicker != null)
+            parallelTicker.tick(this::tickEntityPost, profiler);
+        else
+            entities.forEach(e -> tickEntityPost(e, profiler));
+    }
+
+    /**
+     * Pre-ticks one entity, in its own pools
+     *
+     * @param e        The entity
+     * @param profiler The profiler of the calling thread
+     */
+    protected void tickEntityPre(PhysicsEntity<?> e, Profiler profiler) {
+        QuaternionPool.openPool();
+        Vector3fPool.openPool();
+        try {
+            //e.getNetwork().onPrePhysicsTick(profiler);
+            e.getSynchronizer().onPrePhysicsTick(profiler);
+        } catch (Exception ex) {
+            throw new PhysicsEntityException(e, "prePhysicsTick", ex);
+        }
+        QuaternionPool.closePool();
+        Vector3fPool.closePool();
+    }
+
+    /**
+     * Post-ticks one entity, in its own pools
+     *
+     * @param e        The entity
+     * @param profiler The profiler of the calling thread
+     */
+    protected void tickEntityPost(PhysicsEntity<?> e, Profiler profiler) {
+        QuaternionPool.openPool();
+        Vector3fPool.openPool();
+        try {
+            e.getSynchronizer().onPostPhysicsTick(profiler);
+        } catch (Exception ex) {
+            throw new PhysicsEntityException(e, "postPhysicsTick", ex);
+        }
+        QuaternionPool.closePool();
+        Vector3fPool.closePool();
+    }
+
     @Override
     public void addOperation(PhysicsWorldOperation<?> operation) {
         operations.add(operation);
@@ -273,8 +343,12 @@ public abstract class BasePhysicsWorld implements IPhysicsWorld {
         }
         entities.clear();
         joints.clear();
+        if (parallelTicker != null)
+            parallelTicker.shutdown();
         getTerrainManager().onWorldUnload();
         DynamXContext.getPhysicsWorldPerDimensionMap().remove(mcWorld.provider.getDimension());
+        if (!mcWorld.isRemote)
+            DynamXMetrics.removeWorld(mcWorld.provider.getDimension());
         if(mcWorld.isRemote) {
             ClientDebugSystem.trackedRigidBodies.clear();
         }
@@ -32,17 +32,7 @@ public class BuiltinPhysicsWorld extends BasePhysicsWorld {
         TransformPool.getPool().openSubPool();
         BoundingBoxPool.getPool().openSubPool();
         {
-            //Disable physics simulation
-            //Note that minecraft does the same, but with a delay of 300, so it avoids physics while entities are paused
-            if (mcWorld.playerEntities.isEmpty()) {
-                if (serverAfkTime < 200) {
-                    serverAfkTime++;
-                }
-            } else {
-                serverAfkTime = 0;
-            }
-
-            if (serverAfkTime < 200) {
+            if (!shouldPauseSimulation()) {
                 stepSimulationImpl(Profiler.get(), null);
             } else {
                 flushOperations(Profiler.get());
@@ -57,6 +47,24 @@ public class BuiltinPhysicsWorld extends BasePhysicsWorld {
         Profiler.get().end(Profiler.Profiles.TICK_TERRAIN);
     }
 
+    /**
+     * Disables the physics simulation when there are no players in the world since 200 ticks <br>
+     * Note that minecraft does the same, but with a delay of 300, so it avoids physics while entities are paused <br>
+     * Called once per step
+     *
+     * @return True to only process the pending operations during this step
+     */
+    protected boolean shouldPauseSimulation() {
+        if (mcWorld.playerEntities.isEmpty()) {
+            if (serverAfkTime < 200) {
+                serverAfkTime++;
+            }
+        } else {
+            serverAfkTime = 0;
+        }
+        return serverAfkTime >= 200;
+    }
+
     @Override
     public void clearAll() {
         DynamXMain.log.info("Unloading the physics world of the dimension " + mcWorld.provider.getDimension());
@@ -0,0 +1,187 @@
+package fr.dynamx.common.physics.world;
+
+import fr.aym.acslib.services.impl.thrload.DynamXThreadedModLoader;
+import fr.dynamx.common.entities.PhysicsEntity;
+import fr.dynamx.utils.DynamXConfig;
+import fr.dynamx.utils.debug.Profiler;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+
+/**
+ * Ticks the physics entities of a {@link BasePhysicsWorld} on a pool of worker threads <br>
+ * The entities are split in independent simulation islands (see {@link PhysicsIslands}), and the islands are distributed in one slice per worker :
+ * entities touching each other or linked by a joint are always ticked by the same worker. <br>
+ * The islands only split the entity ticks : the bullet step of the world stays single-threaded, in one physics space <br>
+ * Each worker has its own pools (they are thread-local) and its own {@link Profiler}, merged in the profiler of the physics thread after each tick <br>
+ * The physics thread waits for all workers before returning (barrier), so all pre-physics ticks are finished before the bullet step <br>
+ * The islands containing an entity that {@link PhysicsEntity#requiresPhysicsThread()} are ticked by the physics thread, after the workers <br>
+ * The forge events posted by the workers are delayed and posted by the physics thread after the barrier, see {@link #runOnPhysicsThread(Runnable)} <br>
+ * Only used by the server physics worlds
+ *
+ * @see fr.dynamx.api.entities.modules.IPhysicsModule.IPhysicsUpdateListener for the threading contract
+ */
+public class ParallelEntityTicker {
+    /**
+     * The actions delayed to the end of the tick by the current worker thread, or null if the current thread isn't a worker
+     */
+    private static final ThreadLocal<List<Runnable>> physicsThreadActions = new ThreadLocal<>();
+
+    private final ExecutorService pool;
+    private final int workerCount;
+    private final Profiler[] workerProfilers;
+    /**
+     * True if the last tick of the worker was interrupted by an exception
+     */
+    private final boolean[] workerFailed;
+    private final List<List<Runnable>> workerActions = new ArrayList<>();
+    private final PhysicsIslands islandsBuilder = new PhysicsIslands();
+    private final List<List<PhysicsEntity<?>>> slices = new ArrayList<>();
+    private final List<PhysicsEntity<?>> confinedEntities = new ArrayList<>();
+    private int usedSlices;
+
+    /**
+     * @param name        The name of the worker threads
+     * @param workerCount The number of worker threads
+     */
+    public ParallelEntityTicker(String name, int workerCount) {
+        this.workerCount = workerCount;
+        this.pool = Executors.newFixedThreadPool(workerCount, new DynamXThreadedModLoader.DefaultThreadFactory(name));
+        this.workerProfilers = new Profiler[workerCount];
+        this.workerFailed = new boolean[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            workerProfilers[i] = new Profiler();
+            slices.add(new ArrayList<>());
+            workerActions.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * Runs the action now, or, if the current thread is a worker, on the physics thread after the parallel ticks <br>
+     * Used to post the forge events : their listeners (of addons) aren't thread-safe
+     *
+     * @param action The action to run
+     */
+    public static void runOnPhysicsThread(Runnable action) {
+        List<Runnable> actions = physicsThreadActions.get();
+        if (actions != null)
+            actions.add(action);
+        else
+            action.run();
+    }
+
+    /**
+     * Splits the entities in islands and distributes them in the slices of the workers <br>
+     * Called before the pre-physics ticks, the same slices are used for the post-physics ticks (no entity is added or removed during the bullet step)
+     *
+     * @param entities The entities of the physics world
+     */
+    public void partition(Collection<PhysicsEntity<?>> entities) {
+        for (List<PhysicsEntity<?>> slice : slices)
+            slice.clear();
+        confinedEntities.clear();
+        List<List<PhysicsEntity<?>>> islands = islandsBuilder.compute(entities, DynamXConfig.parallelEntityTickIslandMargin);
+        int parallelCount = 0;
+        for (int i = islands.size() - 1; i >= 0; i--) {
+            List<PhysicsEntity<?>> island = islands.get(i);
+            if (island.stream().anyMatch(PhysicsEntity::requiresPhysicsThread)) {
+                confinedEntities.addAll(island);
+                islands.remove(i);
+            } else {
+                parallelCount += island.size();
+            }
+        }
+        usedSlices = pool.isShutdown() ? 0 : Math.min(workerCount, parallelCount / DynamXConfig.parallelEntityTickMinEntities);
+        if (usedSlices <= 1) {
+            //Not worth a thread switch
+            usedSlices = 0;
+            islands.forEach(confinedEntities::addAll);
+            return;
+        }
+        //Biggest islands first, each one in the smallest slice
+        islands.sort((a, b) -> Integer.compare(b.size(), a.size()));
+        for (List<PhysicsEntity<?>> island : islands) {
+            List<PhysicsEntity<?>> smallest = slices.get(0);
+            for (int i = 1; i < usedSlices; i++) {
+                if (slices.get(i).size() < smallest.size())
+                    smallest = slices.get(i);
+            }
+            smallest.addAll(island);
+        }
+    }
+
+    /**
+     * Ticks all entities given to the last {@link #partition(Collection)} and waits for the end of all ticks
+     *
+     * @param ticker   The tick function (pre or post tick), called with the entity and the profiler of the calling thread
+     * @param profiler The profiler of the physics thread
+     */
+    public void tick(BiConsumer<PhysicsEntity<?>, Profiler> ticker, Profiler profiler) {
+        if (usedSlices > 0) {
+            CountDownLatch barrier = new CountDownLatch(usedSlices);
+            AtomicReference<RuntimeException> error = new AtomicReference<>();
+            for (int i = 0; i < usedSlices; i++) {
+                int worker = i;
+                List<PhysicsEntity<?>> slice = slices.get(i);
+                Profiler workerProfiler = workerProfilers[i];
+                List<Runnable> actions = workerActions.get(i);
+                workerProfiler.setActive(profiler.isActive());
+                workerFailed[i] = true;
+                pool.submit(() -> {
+                    physicsThreadActions.set(actions);
+                    try {
+                        for (int j = 0, size = slice.size(); j < size; j++) {
+                            ticker.accept(slice.get(j), workerProfiler);
+                        }
+                        workerFailed[worker] = false;
+                    } catch (RuntimeException e) {
+                        error.compareAndSet(null, e);
+                    } finally {
+                        physicsThreadActions.remove();
+                        //The barrier publishes workerFailed to the physics thread
+                        barrier.countDown();
+                    }
+                });
+            }
+            try {
+                barrier.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the physics entity workers", e);
+            }
+            for (int i = 0; i < usedSlices; i++) {
+                //The sections started by a failed worker will never end : its measures are discarded, so the merge doesn't hide the exception
+                if (workerFailed[i])
+                    workerProfilers[i].abort();
+                else
+                    profiler.merge(workerProfilers[i]);
+            }
+            try {
+                if (error.get() != null)
+                    throw error.get();
+                //In the order of the slices, and of the entities of each slice
+                for (int i = 0; i < usedSlices; i++) {
+                    workerActions.get(i).forEach(Runnable::run);
+                }
+            } finally {
+                for (int i = 0; i < usedSlices; i++) {
+                    workerActions.get(i).clear();
+                }
+            }
+        }
+        confinedEntities.forEach(e -> ticker.accept(e, profiler));
+    }
+
+    /**
+     * Stops the worker threads
+     */
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,107 @@
+package fr.dynamx.common.physics.world;
+
+import fr.dynamx.common.entities.PhysicsEntity;
+import fr.dynamx.common.physics.joints.EntityJoint;
+import net.minecraft.util.math.AxisAlignedBB;
+
+import java.util.*;
+
+/**
+ * Splits the entities of a physics world into independent simulation islands <br>
+ * Two entities are in the same island if their bounding boxes (grown by a margin) touch, or if they are linked by an {@link EntityJoint} <br>
+ * The entities of two different islands cannot interact during the next physics tick, so they can be ticked in parallel
+ *
+ * @see ParallelEntityTicker
+ */
+public class PhysicsIslands {
+    private final List<PhysicsEntity<?>> indexedEntities = new ArrayList<>();
+    private final Map<PhysicsEntity<?>, Integer> entityIndexes = new IdentityHashMap<>();
+    private final List<List<PhysicsEntity<?>>> islands = new ArrayList<>();
+    private int[] parents = new int[64];
+    private Integer[] sortedByMinX = new Integer[64];
+    private AxisAlignedBB[] boxes = new AxisAlignedBB[64];
+
+    /**
+     * Computes the islands of the given entities <br>
+     * The returned list is reused by the next call of this function
+     *
+     * @param entities The entities to split
+     * @param margin   The distance, in blocks, under which two entities are considered touching
+     * @return The islands, each island being a non-empty list of entities
+     */
+    public List<List<PhysicsEntity<?>>> compute(Collection<PhysicsEntity<?>> entities, double margin) {
+        indexedEntities.clear();
+        entityIndexes.clear();
+        islands.clear();
+        int count = entities.size();
+        if (count == 0)
+            return islands;
+        if (parents.length < count) {
+            int size = Math.max(count, parents.length * 2);
+            parents = new int[size];
+            sortedByMinX = new Integer[size];
+            boxes = new AxisAlignedBB[size];
+        }
+        for (PhysicsEntity<?> entity : entities) {
+            int index = indexedEntities.size();
+            indexedEntities.add(entity);
+            entityIndexes.put(entity, index);
+            parents[index] = index;
+            sortedByMinX[index] = index;
+            boxes[index] = entity.getEntityBoundingBox().grow(margin / 2);
+        }
+
+        //Sweep and prune on the x axis
+        Arrays.sort(sortedByMinX, 0, count, Comparator.comparingDouble(i -> boxes[i].minX));
+        for (int i = 0; i < count; i++) {
+            AxisAlignedBB box = boxes[sortedByMinX[i]];
+            for (int j = i + 1; j < count; j++) {
+                AxisAlignedBB other = boxes[sortedByMinX[j]];
+                if (other.minX > box.maxX)
+                    break;
+                if (box.intersects(other))
+                    union(sortedByMinX[i], sortedByMinX[j]);
+            }
+        }
+
+        //Entities linked by joints must be simulated together
+        for (int i = 0; i < count; i++) {
+            PhysicsEntity<?> entity = indexedEntities.get(i);
+            if (entity.getJointsHandler() == null)
+                continue;
+            for (EntityJoint<?> joint : entity.getJointsHandler().getJoints()) {
+                Integer other = entityIndexes.get(joint.getOtherEntity(entity));
+                if (other != null)
+                    union(i, other);
+            }
+        }
+
+        Map<Integer, List<PhysicsEntity<?>>> roots = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            List<PhysicsEntity<?>> island = roots.get(find(i));
+            if (island == null) {
+                island = new ArrayList<>();
+                roots.put(find(i), island);
+                islands.add(island);
+            }
+            island.add(indexedEntities.get(i));
+        }
+        Arrays.fill(boxes, 0, count, null);
+        return islands;
+    }
+
+    private int find(int index) {
+        while (parents[index] != index) {
+            parents[index] = parents[parents[index]];
+            index = parents[index];
+        }
+        return index;
+    }
+
+    private void union(int a, int b) {
+        int rootA = find(a);
+        int rootB = find(b);
+        if (rootA != rootB)
+            parents[rootB] = rootA;
+    }
+}
@@ -2,9 +2,11 @@ package fr.dynamx.server.command;
 
 import fr.dynamx.api.network.EnumPacketTarget;
 import fr.dynamx.common.DynamXContext;
+import fr.dynamx.common.DynamXMain;
 import fr.dynamx.common.network.packets.MessageSyncConfig;
 import fr.dynamx.common.network.sync.variables.EntityPosVariable;
-import fr.dynamx.server.network.PlayerSyncBuffer;
+import fr.dynamx.server.network.ServerPhysicsSyncManager;
+import fr.dynamx.server.network.udp.NettyUdpServerNetworkHandler;
 import fr.dynamx.utils.DynamXConfig;
 import fr.dynamx.utils.debug.SyncTracker;
 import net.minecraft.command.CommandException;
@@ -34,7 +36,7 @@ public class CmdNetworkConfig implements ISubCommand {
 
     @Override
     public String getUsage() {
-        return getName() + " <doTrackSync|syncCrit|sync_buff|syncDelay|epsilon|resyncId> - for Aym'";
+        return getName() + " <doTrackSync|syncCrit|sync_buff|syncDelay|epsilon|resyncId|syncStats|udpBench> - for Aym'";
     }
 
     @Override
@@ -48,6 +50,8 @@ public class CmdNetworkConfig implements ISubCommand {
             r.add("epsilon");
             r.add("printNetDebug");
             r.add("resyncId");
+            r.add("syncStats");
+            r.add("udpBench");
         }
     }
 
@@ -68,19 +72,13 @@ public class CmdNetworkConfig implements ISubCommand {
             EntityPosVariable.CRITIC2 = parseInt(args[2]);
             EntityPosVariable.CRITIC3 = parseInt(args[3]);
             sender.sendMessage(new TextComponentString("SyncCrit are " + EntityPosVariable.CRITIC1 + " " + EntityPosVariable.CRITIC2 + " " + EntityPosVariable.CRITIC3));
-        } else if (args[0].equalsIgnoreCase("sync_buff") && args.length == 7) {
-            PlayerSyncBuffer.NEW_SENDS_LIMIT = parseInt(args[1]);
-            PlayerSyncBuffer.DELAYED_SENDS_LIMIT = parseInt(args[2]);
-            PlayerSyncBuffer.FIRST_RADIUS = parseInt(args[3]);
-            PlayerSyncBuffer.FIRST_RADIUS *= PlayerSyncBuffer.FIRST_RADIUS; //square it
-            PlayerSyncBuffer.SECOND_RADIUS = parseInt(args[4]);
-            PlayerSyncBuffer.SECOND_RADIUS *= PlayerSyncBuffer.SECOND_RADIUS; //square it
-            PlayerSyncBuffer.MAX_SKIP = parseInt(args[5]);
-            PlayerSyncBuffer.ENTITIES_PER_PACKETS = parseInt(args[6]);
-            sender.sendMessage(new TextComponentString("sync_buff is " + PlayerSyncBuffer.NEW_SENDS_LIMIT + " " + PlayerSyncBuffer.DELAYED_SENDS_LIMIT + " " + PlayerSyncBuffer.FIRST_RADIUS + " " + PlayerSyncBuffer.SECOND_RADIUS + " " + PlayerSyncBuffer.MAX_SKIP + " " + PlayerSyncBuffer.ENTITIES_PER_PACKETS));
+        } else if (args[0].equalsIgnoreCase("sync_buff") && args.length == 3) {
+            DynamXConfig.syncBandwidthLimit = parseInt(args[1], 16);
+            DynamXConfig.syncMaxPacketSize = parseInt(args[2], 256);
+            sender.sendMessage(new TextComponentString("sync_buff is " + DynamXConfig.syncBandwidthLimit + " kbps, " + DynamXConfig.syncMaxPacketSize + " bytes per packet"));
         } else if (args[0].equalsIgnoreCase("sync_buff")) {
             sync_buff = !sync_buff;
-            sender.sendMessage(new TextComponentString("sync_buff is " + sync_buff + " [limit] [limit2] [safe_radius] [safe_radius2] [max_skip] [entity per packet]"));
+            sender.sendMessage(new TextComponentString("sync_buff is " + sync_buff + " [bandwidth limit (kbps)] [max packet size (bytes)]"));
         } else if (args[0].equalsIgnoreCase("syncDelay")) {
             DynamXConfig.mountedVehiclesSyncTickRate = parseInt(args[1]);
             if (server.isDedicatedServer()) {
@@ -95,6 +93,22 @@ public class CmdNetworkConfig implements ISubCommand {
             if (CmdNetworkConfig.SERVER_NET_DEBUG > 2)
                 CmdNetworkConfig.SERVER_NET_DEBUG = 0;
             sender.sendMessage(new TextComponentString("SERVER_NET_DEBUG is " + CmdNetworkConfig.SERVER_NET_DEBUG + ", may be laggy"));
+        } else if (args[0].equalsIgnoreCase("syncStats")) {
+            long encodes = ServerPhysicsSyncManager.getPayloadEncodes();
+            long sends = ServerPhysicsSyncManager.getPayloadSends();
+            sender.sendMessage(new TextComponentString("Sync payloads: " + encodes + " encodes for " + sends + " entity syncs sent (" + (sends - encodes) + " encodes saved)"));
+        } else if (args[0].equalsIgnoreCase("udpBench")) {
+            int packets = args.length > 1 ? parseInt(args[1], 1) : 100000;
+            int size = args.length > 2 ? parseInt(args[2], 1, 65000) : 1200;
+            sender.sendMessage(new TextComponentString("Running udp loopback benchmark..."));
+            new Thread(() -> {
+                try {
+                    sender.sendMessage(new TextComponentString(NettyUdpServerNetworkHandler.runLoopbackBenchmark(packets, size)));
+                } catch (Exception e) {
+                    DynamXMain.log.error("Udp loopback benchmark failed", e);
+                    sender.sendMessage(new TextComponentString("Udp loopback benchmark failed: " + e));
+                }
+            }, "DnxUdpBench").start();
         } else
             throw new WrongUsageException(getRootCommandUsage() + getUsage());
     }
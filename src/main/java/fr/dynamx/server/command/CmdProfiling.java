@@ -0,0 +1,77 @@
+package fr.dynamx.server.command;
+
+import fr.dynamx.utils.DynamXConfig;
+import fr.dynamx.utils.debug.metrics.DynamXMetrics;
+import net.minecraft.command.CommandException;
+import net.minecraft.command.ICommandSender;
+import net.minecraft.command.WrongUsageException;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.text.TextComponentString;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+public class CmdProfiling implements ISubCommand {
+    @Override
+    public String getName() {
+        return "profiling";
+    }
+
+    @Override
+    public String getUsage() {
+        return getName() + " [enable|disable|reset|export] - Prints the latencies (p50, p99, p999) of the profiled sections and the DynamX metrics, or exports them in the metrics file";
+    }
+
+    @Override
+    public void execute(MinecraftServer server, ICommandSender sender, String[] args) throws CommandException {
+        if (args.length > 2)
+            throw new WrongUsageException("/dynamx " + getUsage());
+        if (args.length == 1) {
+            if (!DynamXMetrics.isEnabled())
+                sender.sendMessage(new TextComponentString("Metrics are disabled, use /dynamx profiling enable"));
+            List<String> summary = DynamXMetrics.getSummary();
+            summary.forEach(line -> sender.sendMessage(new TextComponentString(line)));
+            return;
+        }
+        switch (args[1]) {
+            case "enable":
+                DynamXMetrics.setEnabled(true);
+                sender.sendMessage(new TextComponentString("Metrics enabled"));
+                break;
+            case "disable":
+                DynamXMetrics.setEnabled(false);
+                sender.sendMessage(new TextComponentString("Metrics disabled"));
+                break;
+            case "reset":
+                DynamXMetrics.reset();
+                sender.sendMessage(new TextComponentString("Metrics reset"));
+                break;
+            case "export":
+                File file = new File(DynamXConfig.metricsFile);
+                try {
+                    Files.write(file.toPath(), DynamXMetrics.toPrometheusText().getBytes(StandardCharsets.UTF_8));
+                    sender.sendMessage(new TextComponentString("Metrics exported to " + file.getAbsolutePath()));
+                } catch (IOException e) {
+                    throw new CommandException("Failed to export the metrics: " + e.getMessage());
+                }
+                break;
+            default:
+                throw new WrongUsageException("/dynamx " + getUsage());
+        }
+    }
+
+    @Override
+    public void getTabCompletions(MinecraftServer server, ICommandSender sender, String[] args, @Nullable BlockPos targetPos, List<String> r) {
+        if (args.length == 2) {
+            r.add("enable");
+            r.add("disable");
+            r.add("reset");
+            r.add("export");
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package fr.dynamx.server.command;
+
+import fr.dynamx.api.physics.IPhysicsWorld;
+import fr.dynamx.api.physics.terrain.ITerrainElement;
+import fr.dynamx.common.DynamXContext;
+import fr.dynamx.common.DynamXMain;
+import fr.dynamx.common.physics.terrain.PhysicsTerrainLoader;
+import fr.dynamx.common.physics.terrain.PhysicsWorldTerrain;
+import fr.dynamx.common.physics.terrain.cache.EncodedChunkCache;
+import fr.dynamx.common.physics.terrain.cache.FileTerrainCache;
+import fr.dynamx.common.physics.terrain.cache.TerrainChunkLRU;
+import fr.dynamx.common.physics.terrain.cache.TerrainCodec;
+import fr.dynamx.common.physics.terrain.chunk.ChunkCollisions;
+import fr.dynamx.common.physics.terrain.element.TerrainElementType;
+import fr.dynamx.utils.DynamXConfig;
+import fr.dynamx.utils.VerticalChunkPos;
+import fr.dynamx.utils.optimization.Vector3fPool;
+import net.minecraft.command.CommandBase;
+import net.minecraft.command.CommandException;
+import net.minecraft.command.ICommandSender;
+import net.minecraft.command.WrongUsageException;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.text.TextComponentString;
+
+import javax.annotation.Nullable;
+import java.util.List;
+
+public class CmdTerrainStats implements ISubCommand {
+    @Override
+    public String getName() {
+        return "terrain_stats";
+    }
+
+    @Override
+    public String getUsage() {
+        return getName() + " [codec [radius]] - Prints the statistics of the terrain loader and caches of your world, or compares the terrain codec with the legacy format on the loaded chunks around you";
+    }
+
+    @Override
+    public void execute(MinecraftServer server, ICommandSender sender, String[] args) throws CommandException {
+        IPhysicsWorld physicsWorld = DynamXContext.getPhysicsWorld(sender.getEntityWorld());
+        if (physicsWorld == null)
+            throw new WrongUsageException("There is no physics world in this dimension");
+        if (args.length == 1) {
+            PhysicsTerrainLoader loader = physicsWorld.getTerrainManager().getTerrainLoader();
+            sender.sendMessage(new TextComponentString("Terrain loader: " + loader.getWorkerCount() + " workers, " + loader.getQueueDepth() + " queued chunks"));
+            sender.sendMessage(new TextComponentString("Requests: " + loader.getRequestCount() + " | started: " + loader.getCompletedCount() + " | cancelled: " + loader.getCancelledCount()));
+            sender.sendMessage(new TextComponentString(String.format("Wait time: %.2f ms average, %.2f ms max", loader.getAverageWaitTime(), loader.getMaxWaitTime())));
+            PhysicsWorldTerrain terrain = physicsWorld.getTerrainManager();
+            sender.sendMessage(new TextComponentString("Chunk tickets: " + terrain.getTicketCount() + "/" + DynamXConfig.terrainMaxChunkTickets + " | evicted: " + terrain.getTicketEvictions()));
+            if (terrain.getCache() instanceof FileTerrainCache) {
+                FileTerrainCache cache = (FileTerrainCache) terrain.getCache();
+                TerrainChunkLRU chunkCache = cache.getChunkCache();
+                sender.sendMessage(new TextComponentString("Region files: " + cache.getOpenRegionCount() + "/" + DynamXConfig.terrainMaxRegionFiles + " open | hits: " + cache.getRegionHits() + " | misses: " + cache.getRegionMisses() + " | evicted: " + cache.getRegionEvictions()));
+                sender.sendMessage(new TextComponentString("Chunk cache: " + chunkCache.size() + " chunks | hits: " + chunkCache.getHits() + " | misses: " + chunkCache.getMisses() + " | evicted: " + chunkCache.getEvictions()));
+                sender.sendMessage(new TextComponentString(String.format("Resident terrain data: %.2f MB", cache.getResidentBytes() / 1024d / 1024d)));
+                EncodedChunkCache encodedCache = cache.getEncodedChunkCache();
+                sender.sendMessage(new TextComponentString("Network encoded chunks: " + encodedCache.size() + " | hits: " + encodedCache.getHits() + " | encodings: " + encodedCache.getMisses()));
+            }
+        } else if (args[1].equalsIgnoreCase("codec") && args.length <= 3) {
+            int radius = args.length == 3 ? CommandBase.parseInt(args[2], 0, 16) : 4;
+            BlockPos center = sender.getPosition();
+            //Read the chunks in the physics thread, where they are modified
+            physicsWorld.schedule(() -> benchmarkCodec(physicsWorld, sender, new VerticalChunkPos(center.getX() >> 4, center.getY() >> 4, center.getZ() >> 4), radius));
+            sender.sendMessage(new TextComponentString("Benchmarking the terrain codec..."));
+        } else
+            throw new WrongUsageException("/dynamx " + getUsage());
+    }
+
+    private void benchmarkCodec(IPhysicsWorld physicsWorld, ICommandSender sender, VerticalChunkPos center, int radius) {
+        int chunks = 0, elementCount = 0;
+        long legacyBytes = 0, codecBytes = 0;
+        long legacyEncode = 0, legacyDecode = 0, codecEncode = 0, codecDecode = 0;
+        Vector3fPool.openPool();
+        try {
+            for (int x = -radius; x <= radius; x++) {
+                for (int y = -radius; y <= radius; y++) {
+                    for (int z = -radius; z <= radius; z++) {
+                        VerticalChunkPos pos = new VerticalChunkPos(center.x + x, center.y + y, center.z + z);
+                        ChunkCollisions collisions = physicsWorld.getTerrainManager().getChunkAt(pos);
+                        if (collisions == null || collisions.getElements() == null)
+                            continue;
+                        List<ITerrainElement> elements = collisions.getElements().getElements(TerrainElementType.ALL);
+                        if (elements.isEmpty())
+                            continue;
+                        long start = System.nanoTime();
+                        byte[] legacy = TerrainCodec.encodeLegacy(ITerrainElement.TerrainSaveType.DISK, elements);
+                        legacyEncode += System.nanoTime() - start;
+                        start = System.nanoTime();
+                        byte[] codec = TerrainCodec.encode(ITerrainElement.TerrainSaveType.DISK, elements, pos);
+                        codecEncode += System.nanoTime() - start;
+                        start = System.nanoTime();
+                        List<ITerrainElement> decoded = TerrainCodec.decodeLegacy(ITerrainElement.TerrainSaveType.DISK, legacy, pos, true);
+                        legacyDecode += System.nanoTime() - start;
+                        decoded.forEach(ITerrainElement::clear);
+                        start = System.nanoTime();
+                        decoded = TerrainCodec.decode(ITerrainElement.TerrainSaveType.DISK, codec, pos, true);
+                        codecDecode += System.nanoTime() - start;
+                        decoded.forEach(ITerrainElement::clear);
+                        legacyBytes += legacy.length;
+                        codecBytes += codec.length;
+                        elementCount += elements.size();
+                        chunks++;
+                    }
+                }
+            }
+        } catch (Exception e) {
+            DynamXMain.log.error("Terrain codec benchmark failed", e);
+            sender.sendMessage(new TextComponentString("Benchmark failed: " + e));
+            return;
+        } finally {
+            Vector3fPool.closePool();
+        }
+        if (chunks == 0) {
+            sender.sendMessage(new TextComponentString("No loaded terrain around you"));
+            return;
+        }
+        sender.sendMessage(new TextComponentString("Tested " + chunks + " chunks with " + elementCount + " elements"));
+        sender.sendMessage(new TextComponentString(String.format("Legacy: %d bytes/chunk, encode %.1f us/chunk, decode %.1f us/chunk", legacyBytes / chunks, legacyEncode / 1000d / chunks, legacyDecode / 1000d / chunks)));
+        sender.sendMessage(new TextComponentString(String.format("Codec: %d bytes/chunk, encode %.1f us/chunk, decode %.1f us/chunk", codecBytes / chunks, codecEncode / 1000d / chunks, codecDecode / 1000d / chunks)));
+    }
+
+    @Override
+    public void getTabCompletions(MinecraftServer server, ICommandSender sender, String[] args, @Nullable BlockPos targetPos, List<String> r) {
+        if (args.length == 2)
+            r.add("codec");
+    }
+}
@@ -42,6 +42,8 @@ public class DynamXCommands extends CommandBase {
         addCommand(new CmdRefreshChunks());
         addCommand(new CmdNetworkConfig());
         addCommand(new CmdChunkControl());
+        addCommand(new CmdTerrainStats());
+        addCommand(new CmdProfiling());
         addCommand(new CmdSpawnObjects());
         addCommand(new CmdKillEntities());
         addCommand(new CmdOpenDebugGui());
@@ -3,6 +3,7 @@ package fr.dynamx.server.network;
 import fr.dynamx.api.network.*;
 import fr.dynamx.common.DynamXMain;
 import fr.dynamx.common.network.VanillaNetworkHandler;
+import fr.dynamx.server.network.udp.NettyUdpServerNetworkHandler;
 import fr.dynamx.server.network.udp.ServerIPAdressRetriever;
 import fr.dynamx.server.network.udp.UdpServerConnectionHandler;
 import fr.dynamx.server.network.udp.UdpServerNetworkHandler;
@@ -26,6 +27,9 @@ public class DynamXServerNetworkSystem implements IDnxNetworkSystem {
             case DYNAMX_UDP:
                 QUICK_NETWORK = new UdpServerNetworkHandler();
                 break;
+            case DYNAMX_NETTY_UDP:
+                QUICK_NETWORK = new NettyUdpServerNetworkHandler();
+                break;
             default:
                 throw new UnsupportedOperationException("Network type " + networkType + " isn't supported for the moment !");
         }
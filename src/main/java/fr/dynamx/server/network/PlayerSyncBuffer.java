@@ -1,165 +1,162 @@
 package fr.dynamx.server.network;
 
-import com.google.common.collect.Queues;
 import fr.dynamx.api.network.EnumPacketTarget;
-import fr.dynamx.api.network.sync.EntityVariable;
 import fr.dynamx.common.DynamXContext;
+import fr.dynamx.common.DynamXMain;
 import fr.dynamx.common.entities.PhysicsEntity;
+import fr.dynamx.common.network.sync.EncodedSyncPayload;
 import fr.dynamx.common.network.sync.MessageMultiPhysicsEntitySync;
 import fr.dynamx.common.network.sync.MessagePhysicsEntitySync;
 import fr.dynamx.server.command.CmdNetworkConfig;
-import fr.dynamx.utils.optimization.PooledHashMap;
+import fr.dynamx.utils.DynamXConfig;
+import fr.dynamx.utils.debug.metrics.DynamXMetrics;
 import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraft.util.math.Vec3d;
 
 import java.util.*;
 
 /**
- * Manages sending of sync packets for a player, buffers and merges packets with lowest priority (distant entities) to limit band-width, while keeping a good sync <br>
- * This doc names "packet" the data of an entity, but actually only one packet is sent on the network, containing all data for one tick
+ * Manages sending of sync packets for a player, within a bandwidth budget (see {@link DynamXConfig#syncBandwidthLimit}) <br>
+ * Each entity waiting to be sent accumulates priority each tick, depending on its distance, its speed and its position in the view of the player, and the entities with the highest priority are sent first. So distant entities are sent less often, but they are always sent in the end. <br>
+ * The syncs sent during the same tick are merged in packets of at most {@link DynamXConfig#syncMaxPacketSize} bytes <br>
+ * The data of the entities is already encoded (see {@link EncodedSyncPayload}), and shared with the other players receiving the same data
  *
  * @author aym
  */
 public class PlayerSyncBuffer {
     /**
-     * Limit of packets sent for one tick, except delayed ones, modifiable via /dynamx command
+     * Approximate size of the header of a {@link MessagePhysicsEntitySync} (entity id, sync time and variable count) and of a {@link MessageMultiPhysicsEntitySync}
      */
-    public static int NEW_SENDS_LIMIT = 20;
-    /**
-     * Limit of delayed packets sent for one tick, modifiable via /dynamx command
-     */
-    public static int DELAYED_SENDS_LIMIT = 10;
-    /**
-     * Max radius of packets that are always sent, modifiable via /dynamx command
-     */
-    public static int FIRST_RADIUS = 21 * 21;
-    /**
-     * Max radius of delayed packets that are always sent on the second attempt, modifiable via /dynamx command
-     */
-    public static int SECOND_RADIUS = 39 * 39;
-    /**
-     * Max number of delaying for a packet, modifiable via /dynamx command
-     */
-    public static int MAX_SKIP = 4;
-    /**
-     * Number of entities synced by one {@link MessageMultiPhysicsEntitySync}, bigger number implies less packets, but heavier packet that my bigger than the size limit
-     */
-    public static int ENTITIES_PER_PACKETS = 10;
+    private static final int MESSAGE_HEADER_SIZE = 10, PACKET_HEADER_SIZE = 8;
 
     /**
      * Managed player
      */
     private final EntityPlayerMP playerIn;
     /**
-     * Packets added this tick
+     * Entities waiting to be sent
      */
-    private final Queue<SyncItem<?>> queuedPackets = Queues.newArrayDeque();
+    private final Map<PhysicsEntity<?>, SyncItem<?>> pendingSyncs = new HashMap<>();
     /**
-     * Packets delayed the last ticks
+     * Entities waiting to be sent, sorted by priority
      */
-    private final List<SyncItem<?>> delayedPackets = new ArrayList<>();
+    private final SyncHeap syncQueue = new SyncHeap();
+    /**
+     * Packets sent this tick, holding payloads to release
+     */
+    private final List<MessagePhysicsEntitySync<?>> sentPackets = new ArrayList<>();
     /**
      * Sync time used for driving synchronisation, see {@link EntityPhysicsState}
      */
     private int syncTime;
+    /**
+     * Bytes that can be sent this tick, can be negative after sending a big entity
+     */
+    private float byteBudget;
 
     public PlayerSyncBuffer(EntityPlayerMP playerIn) {
         this.playerIn = playerIn;
     }
 
     /**
-     * Adds entity data to send, merging with eventual previously delayed packets
+     * Adds entity data to send, merging with eventual previously delayed data
      *
-     * @param entity     The entity to sync
-     * @param varsToSync Its data
+     * @param entity  The entity to sync
+     * @param payload Its data, now owned by this buffer
      */
-    public <T extends PhysicsEntity<?>> void addEntitySync(T entity, PooledHashMap<Integer, EntityVariable<?>> varsToSync) {
-        SyncItem<T> sync = new SyncItem<>(entity, varsToSync);
-        if (delayedPackets.contains(sync)) {
-            for (SyncItem<?> s : delayedPackets) {
-                if (s.equals(sync)) {
-                    sync.merge((SyncItem<T>) s);
-                    break;
-                }
-            }
-            delayedPackets.remove(sync);
+    public <T extends PhysicsEntity<?>> void addEntitySync(T entity, EncodedSyncPayload payload) {
+        SyncItem<T> sync = (SyncItem<T>) pendingSyncs.get(entity);
+        if (sync != null) {
+            sync.add(payload);
+        } else {
+            sync = new SyncItem<>(entity, payload);
+            pendingSyncs.put(entity, sync);
+            syncQueue.add(sync);
         }
-        queuedPackets.add(sync);
     }
 
     /**
      * Updates buffers, and send data that need to be sent
      */
     public void update() {
-        /*if(DynamXCommands.sync_buff)
-        {
-          //  System.out.println("AT");
-           System.out.println(this.toString());
-        }*/
-        final Queue<MessagePhysicsEntitySync<?>> sendQueue = new ArrayDeque<>();
-        if (queuedPackets.size() <= NEW_SENDS_LIMIT && delayedPackets.size() <= DELAYED_SENDS_LIMIT) {
-            if (!delayedPackets.isEmpty()) {
-                delayedPackets.forEach(syncItem -> syncItem.send(sendQueue));
-                delayedPackets.clear();
-            }
-            queuedPackets.forEach(syncItem -> syncItem.send(sendQueue));
-            queuedPackets.clear();
-        } else //too much to send
-        {
-            List<SyncItem<?>> keep = new ArrayList<>();
-            if (!delayedPackets.isEmpty()) {
-                delayedPackets.forEach(s -> {
-                    if (s.entity.getDistanceSq(playerIn) > SECOND_RADIUS && s.skip())
-                        keep.add(s);
-                    else {
-                        s.send(sendQueue);
-                    }
-                });
-                delayedPackets.clear();
-            }
-            queuedPackets.forEach(s -> {
-                if (s.entity.getDistanceSq(playerIn) > FIRST_RADIUS && s.skip())
-                    keep.add(s);
-                else {
-                    s.send(sendQueue);
+        float bytesPerTick = DynamXConfig.syncBandwidthLimit * 1000 / 8f / 20;
+        //The unused budget is kept for one tick, the budget of the next ticks is used to send big syncs
+        byteBudget = Math.min(byteBudget + bytesPerTick, bytesPerTick * 2);
+        if (!pendingSyncs.isEmpty()) {
+            updatePriorities();
+            List<MessagePhysicsEntitySync<?>> packet = new ArrayList<>();
+            int packetSize = PACKET_HEADER_SIZE;
+            while (byteBudget > 0 && !syncQueue.isEmpty()) {
+                SyncItem<?> sync = syncQueue.poll();
+                pendingSyncs.remove(sync.entity);
+                int size = sync.getSize();
+                byteBudget -= size;
+                if (!packet.isEmpty() && packetSize + size > DynamXConfig.syncMaxPacketSize) {
+                    sendPacket(packet, packetSize);
+                    packet = new ArrayList<>();
+                    packetSize = PACKET_HEADER_SIZE;
                 }
-            });
-            queuedPackets.clear();
-
-            //System.out.println("FC "+count[0]);
-            while (!keep.isEmpty() && sendQueue.size() <= NEW_SENDS_LIMIT + DELAYED_SENDS_LIMIT) {
-                SyncItem<?> s = keep.remove(0);
-                s.send(sendQueue);
-            }
-            //System.out.println("FA "+count[0]);
-            if (!keep.isEmpty()) {
-                delayedPackets.addAll(keep);
-                //System.out.println("Delay "+delayedPackets+" "+keep);
-                keep.clear();
+                packet.add(sync.createMessage());
+                packetSize += size;
             }
+            if (!packet.isEmpty())
+                sendPacket(packet, packetSize);
+            //The packets are encoded when sent
+            sentPackets.forEach(MessagePhysicsEntitySync::releasePayloads);
+            sentPackets.clear();
         }
         syncTime++;
-        /*if(DynamXCommands.sync_buff && !delayedPackets.isEmpty())
-        {
-            System.out.println("PT");
-            System.out.println(this.toString()+" "+sendQueue.size());
-        }*/
-        if (!sendQueue.isEmpty()) {
-            if (CmdNetworkConfig.sync_buff && playerIn.getName().equalsIgnoreCase("aymericred"))
-                System.out.println("Send you " + sendQueue);
-            if (sendQueue.size() == 1)
-                DynamXContext.getNetwork().sendToClient(sendQueue.poll(), EnumPacketTarget.PLAYER, playerIn);
-            else {
-                while (sendQueue.size() > ENTITIES_PER_PACKETS) {
-                    List<MessagePhysicsEntitySync<?>> buff = new ArrayList<>();
-                    for (int i = 0; i < ENTITIES_PER_PACKETS; i++) {
-                        buff.add(sendQueue.poll());
-                    }
-                    DynamXContext.getNetwork().sendToClient(new MessageMultiPhysicsEntitySync(buff), EnumPacketTarget.PLAYER, playerIn);
-                }
-                DynamXContext.getNetwork().sendToClient(new MessageMultiPhysicsEntitySync(sendQueue), EnumPacketTarget.PLAYER, playerIn);
-            }
-            //System.out.println("Sent msg sync " + syncTime+" "+playerIn.ticksExisted);
+    }
+
+    /**
+     * Adds the priority of this tick to the waiting entities, and removes the dead entities
+     */
+    private void updatePriorities() {
+        Vec3d look = playerIn.getLookVec();
+        Iterator<SyncItem<?>> it = pendingSyncs.values().iterator();
+        while (it.hasNext()) {
+            SyncItem<?> sync = it.next();
+            if (sync.entity.isDead) {
+                it.remove();
+                syncQueue.remove(sync);
+                sync.release();
+            } else
+                sync.priority += getPriority(sync.entity, look);
         }
+        syncQueue.rebuild();
+    }
+
+    /**
+     * @return The priority added each tick to an entity waiting to be sent
+     */
+    private float getPriority(PhysicsEntity<?> entity, Vec3d look) {
+        if (playerIn.isRidingOrBeingRiddenBy(entity))
+            return DynamXConfig.syncRiddenEntityPriority;
+        double dx = entity.posX - playerIn.posX, dy = entity.posY - playerIn.posY - playerIn.getEyeHeight(), dz = entity.posZ - playerIn.posZ;
+        double distance = Math.sqrt(dx * dx + dy * dy + dz * dz);
+        //Close entities are more important
+        float priority = (float) (DynamXConfig.syncHalfPriorityDistance / (DynamXConfig.syncHalfPriorityDistance + distance));
+        //Entities in front of the player are more important than the ones behind him
+        if (distance > 0.01)
+            priority *= 0.5f + 0.75f * (float) Math.max(0, (dx * look.x + dy * look.y + dz * look.z) / distance);
+        //Moving entities are more important than the static ones
+        double speed = Math.sqrt(entity.motionX * entity.motionX + entity.motionY * entity.motionY + entity.motionZ * entity.motionZ) * 20;
+        priority *= 1 + (float) Math.min(speed, DynamXConfig.syncMaxPrioritySpeed) / 10;
+        return priority;
+    }
+
+    private void sendPacket(List<MessagePhysicsEntitySync<?>> packet, int packetSize) {
+        if (DynamXMetrics.isEnabled()) {
+            int world = playerIn.world.provider.getDimension();
+            DynamXMetrics.SYNC_BYTES.add(world, packetSize);
+            DynamXMetrics.SYNC_ENTITIES.add(world, packet.size());
+        }
+        if (CmdNetworkConfig.sync_buff)
+            DynamXMain.log.info("[SYNC BUFFER] Sending " + packet.size() + " syncs (" + packetSize + " bytes) to " + playerIn.getName() + ": " + packet);
+        if (packet.size() == 1)
+            DynamXContext.getNetwork().sendToClient(packet.get(0), EnumPacketTarget.PLAYER, playerIn);
+        else
+            DynamXContext.getNetwork().sendToClient(new MessageMultiPhysicsEntitySync(packet), EnumPacketTarget.PLAYER, playerIn);
     }
 
     /**
@@ -180,87 +177,181 @@ public class PlayerSyncBuffer {
      * Clears buffers of entity data
      */
     public void clear() {
-        queuedPackets.clear();
-        delayedPackets.clear();
+        pendingSyncs.values().forEach(SyncItem::release);
+        pendingSyncs.clear();
+        syncQueue.clear();
     }
 
     @Override
     public String toString() {
         return "Buffer{" +
                 "player=" + playerIn.getName() +
-                ", queued=" + queuedPackets.size() +
-                ", delayed=" + delayedPackets.size() +
+                ", pending=" + pendingSyncs.size() +
+                ", budget=" + (int) byteBudget +
                 ", syncT=" + syncTime +
                 '}';
     }
 
     /**
-     * Handles data of an entity, and number of delaying of its sync
+     * Handles data of an entity, and its priority
      */
     private class SyncItem<T extends PhysicsEntity<?>> {
         private final T entity;
-        private final PooledHashMap<Integer, EntityVariable<?>> varsToSync;
-        private int skippedSends;
+        /**
+         * The data to send, from the oldest to the newest
+         */
+        private final List<EncodedSyncPayload> payloads = new ArrayList<>(1);
+        private float priority;
+        /**
+         * The sync time when the newest payload was added
+         */
+        private int time = syncTime;
+        /**
+         * Index in the {@link SyncHeap}
+         */
+        private int heapIndex = -1;
 
-        private SyncItem(T entity, PooledHashMap<Integer, EntityVariable<?>> varsToSync) {
+        private SyncItem(T entity, EncodedSyncPayload payload) {
             this.entity = entity;
-            this.varsToSync = varsToSync;
+            this.payloads.add(payload);
         }
 
         /**
-         * Adds a {@link MessagePhysicsEntitySync} to the send queue, if this entity is not dead
+         * Adds newer data, the older payloads are sent before the newer ones, so the client keeps the newest value of each variable <br>
+         * The older payloads containing only variables of the new payload are removed
          */
-        private void send(Queue<MessagePhysicsEntitySync<?>> sendQueue) {
-            if (!entity.isDead) {
-                sendQueue.add(new MessagePhysicsEntitySync(entity, syncTime, varsToSync, varsToSync.size() > NEW_SENDS_LIMIT));
-            }
+        private void add(EncodedSyncPayload newer) {
+            payloads.removeIf(older -> {
+                if (newer.containsAll(older)) {
+                    older.release();
+                    return true;
+                }
+                return false;
+            });
+            payloads.add(newer);
+            time = syncTime;
         }
 
         /**
-         * Counts one delay for this packet
-         *
-         * @return False is number of delaying has reached the maximum
+         * @return The approximate size of the sync packet of this entity
          */
-        private boolean skip() {
-            if (skippedSends < MAX_SKIP)
-                skippedSends++;
-            return skippedSends < MAX_SKIP;
+        private int getSize() {
+            int size = MESSAGE_HEADER_SIZE;
+            for (EncodedSyncPayload payload : payloads)
+                size += payload.getSize();
+            return size;
         }
 
         /**
-         * Adds variables of withOlder only if this don't have these variables already stored, also updates number of delaying
-         *
-         * @param withOlder Older data to retrieve if we don't have it
+         * @return The sync packet of this entity, dated when its data was added, the payloads are released once the packet is sent
          */
-        private void merge(SyncItem<T> withOlder) {
-            withOlder.varsToSync.forEach((i, s) -> {
-                if (!varsToSync.containsKey(i))
-                    varsToSync.put(i, s);
-            });
-            withOlder.varsToSync.release();
-            skippedSends += withOlder.skippedSends;
+        private MessagePhysicsEntitySync<T> createMessage() {
+            MessagePhysicsEntitySync<T> message = new MessagePhysicsEntitySync<>(entity, time, payloads);
+            sentPackets.add(message);
+            return message;
         }
 
-        @Override
-        public boolean equals(Object o) {
-            if (this == o) return true;
-            if (o == null || getClass() != o.getClass()) return false;
-            SyncItem<?> syncItem = (SyncItem<?>) o;
-            return entity.equals(syncItem.entity);
-        }
-
-        @Override
-        public int hashCode() {
-            return Objects.hash(entity);
+        private void release() {
+            payloads.forEach(EncodedSyncPayload::release);
+            payloads.clear();
         }
 
         @Override
         public String toString() {
             return "{" +
                     "e=" + entity.getEntityId() +
-                    ", c=" + varsToSync.size() +
-                    ", sk=" + skippedSends +
+                    ", c=" + payloads.stream().mapToInt(EncodedSyncPayload::getVarCount).sum() +
+                    ", p=" + priority +
                     '}';
         }
     }
+
+    /**
+     * Binary max-heap of the {@link SyncItem}s, sorted by priority <br>
+     * The items know their index in the heap, so they can be removed without searching them
+     */
+    private static class SyncHeap {
+        private SyncItem<?>[] items = new SyncItem<?>[16];
+        private int size;
+
+        private boolean isEmpty() {
+            return size == 0;
+        }
+
+        private void add(SyncItem<?> item) {
+            if (size == items.length)
+                items = Arrays.copyOf(items, size * 2);
+            set(size, item);
+            siftUp(size++);
+        }
+
+        private SyncItem<?> poll() {
+            SyncItem<?> top = items[0];
+            remove(top);
+            return top;
+        }
+
+        private void remove(SyncItem<?> item) {
+            int index = item.heapIndex;
+            if (index < 0)
+                return;
+            item.heapIndex = -1;
+            size--;
+            if (index != size) {
+                set(index, items[size]);
+                items[size] = null;
+                siftDown(index);
+                siftUp(index);
+            } else
+                items[size] = null;
+        }
+
+        /**
+         * Restores the order of the heap after modifying the priority of the items
+         */
+        private void rebuild() {
+            for (int i = size / 2 - 1; i >= 0; i--)
+                siftDown(i);
+        }
+
+        private void clear() {
+            for (int i = 0; i < size; i++) {
+                items[i].heapIndex = -1;
+                items[i] = null;
+            }
+            size = 0;
+        }
+
+        private void siftUp(int index) {
+            SyncItem<?> item = items[index];
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (items[parent].priority >= item.priority)
+                    break;
+                set(index, items[parent]);
+                index = parent;
+            }
+            set(index, item);
+        }
+
+        private void siftDown(int index) {
+            SyncItem<?> item = items[index];
+            int half = size >>> 1;
+            while (index < half) {
+                int child = 2 * index + 1;
+                if (child + 1 < size && items[child + 1].priority > items[child].priority)
+                    child++;
+                if (item.priority >= items[child].priority)
+                    break;
+                set(index, items[child]);
+                index = child;
+            }
+            set(index, item);
+        }
+
+        private void set(int index, SyncItem<?> item) {
+            items[index] = item;
+            item.heapIndex = index;
+        }
+    }
 }
@@ -4,6 +4,7 @@ import fr.dynamx.api.network.sync.EntityVariable;
 import fr.dynamx.api.network.sync.SimulationHolder;
 import fr.dynamx.api.network.sync.SyncTarget;
 import fr.dynamx.common.entities.PhysicsEntity;
+import fr.dynamx.common.network.sync.EncodedSyncPayload;
 import fr.dynamx.common.network.sync.MPPhysicsEntitySynchronizer;
 import fr.dynamx.utils.debug.Profiler;
 import fr.dynamx.utils.optimization.PooledHashMap;
@@ -19,6 +20,12 @@ import java.util.Set;
 
 @SideOnly(Side.SERVER)
 public class ServerPhysicsEntitySynchronizer<T extends PhysicsEntity<?>> extends MPPhysicsEntitySynchronizer<T> {
+    /**
+     * Over this number of variables, the variables are written with the "lightData" flag (see {@link EntityVariable#writeValue(io.netty.buffer.ByteBuf, boolean)}) <br>
+     * The flag only depends on the variables : it is the same for all the players receiving a payload
+     */
+    private static final int LIGHT_DATA_VARS_THRESHOLD = 20;
+
     private final Map<Integer, SyncTarget> varsToSync = new HashMap<>();
     private int updateCount = 0;
 
@@ -55,7 +62,8 @@ public class ServerPhysicsEntitySynchronizer<T extends PhysicsEntity<?>> extends
         {
             profiler.start(Profiler.Profiles.PKTSEND2);
             Set<? extends EntityPlayer> l = ((WorldServer) entity.world).getEntityTracker().getTrackingPlayers(entity);
-            l.forEach(p -> sendSyncTo(p, getVarsToSync(Side.SERVER, p == getSimulationPlayerHolder() ? SyncTarget.DRIVER : SyncTarget.SPECTATORS)));
+            if (!l.isEmpty())
+                sendSync(l);
             profiler.end(Profiler.Profiles.PKTSEND2);
             updateCount++;
 
@@ -68,10 +76,52 @@ public class ServerPhysicsEntitySynchronizer<T extends PhysicsEntity<?>> extends
         entity.postUpdatePhysicsWrapper(profiler, true);
     }
 
-    private void sendSyncTo(EntityPlayer p, PooledHashMap<Integer, EntityVariable<?>> varsToSync) {
-        //System.out.println("out " + varsToSync);
-        if (!varsToSync.isEmpty())
-            ServerPhysicsSyncManager.addEntitySync(p, entity, varsToSync);
+    /**
+     * Sends the changed variables to the tracking players <br>
+     * The driver and the spectators may need different variables : each set of variables is encoded once, and shared between the players needing it
+     */
+    private void sendSync(Set<? extends EntityPlayer> players) {
+        EntityPlayer driver = getSimulationPlayerHolder();
+        boolean hasDriver = driver != null && players.contains(driver);
+        PooledHashMap<Integer, EntityVariable<?>> spectatorsVars = players.size() > (hasDriver ? 1 : 0) ? getVarsToSync(Side.SERVER, SyncTarget.SPECTATORS) : null;
+        PooledHashMap<Integer, EntityVariable<?>> driverVars = hasDriver ? getVarsToSync(Side.SERVER, SyncTarget.DRIVER) : null;
+        int encodes = 0;
+        EncodedSyncPayload spectatorsPayload = null, driverPayload = null;
+        if (spectatorsVars != null && !spectatorsVars.isEmpty()) {
+            spectatorsPayload = encode(spectatorsVars);
+            encodes++;
+        }
+        if (driverVars != null && !driverVars.isEmpty()) {
+            if (spectatorsPayload != null && driverVars.keySet().equals(spectatorsVars.keySet()))
+                driverPayload = spectatorsPayload;
+            else {
+                driverPayload = encode(driverVars);
+                encodes++;
+            }
+        }
+        int sends = 0;
+        for (EntityPlayer p : players) {
+            EncodedSyncPayload payload = p == driver ? driverPayload : spectatorsPayload;
+            if (payload != null) {
+                ServerPhysicsSyncManager.addEntitySync(p, entity, payload.retainedSlice());
+                sends++;
+            }
+        }
+        ServerPhysicsSyncManager.countPayloads(encodes, sends);
+        if (spectatorsPayload != null)
+            spectatorsPayload.release();
+        if (driverPayload != null && driverPayload != spectatorsPayload)
+            driverPayload.release();
+        if (spectatorsVars != null)
+            spectatorsVars.release();
+        if (driverVars != null)
+            driverVars.release();
+    }
+
+    private EncodedSyncPayload encode(PooledHashMap<Integer, EntityVariable<?>> vars) {
+        EncodedSyncPayload payload = EncodedSyncPayload.encode(vars, vars.size() > LIGHT_DATA_VARS_THRESHOLD);
+        vars.values().forEach(v -> v.setChanged(false));
+        return payload;
     }
 
     @Override
@@ -1,14 +1,17 @@
 package fr.dynamx.server.network;
 
-import fr.dynamx.api.network.sync.EntityVariable;
+import fr.dynamx.api.network.IDnxNetworkHandler;
+import fr.dynamx.common.DynamXContext;
 import fr.dynamx.common.entities.PhysicsEntity;
+import fr.dynamx.common.network.sync.EncodedSyncPayload;
+import fr.dynamx.server.network.udp.UdpServerNetworkHandler;
 import fr.dynamx.utils.debug.Profiler;
-import fr.dynamx.utils.optimization.PooledHashMap;
 import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.entity.player.EntityPlayerMP;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Hold player physics synchronization
@@ -18,13 +21,27 @@ public class ServerPhysicsSyncManager {
      * Holds one {@link PlayerSyncBuffer} per connected player
      */
     private static final Map<EntityPlayer, PlayerSyncBuffer> sendBuffers = new HashMap<>();
+    /**
+     * Number of {@link EncodedSyncPayload}s encoded, and number of entity syncs sent to players with these payloads
+     */
+    private static final AtomicLong payloadEncodes = new AtomicLong(), payloadSends = new AtomicLong();
 
     /**
-     * Updates player buffers, sending all sync packets
+     * Updates player buffers, sending all sync packets <br>
+     * With udp, the packets sent to each player are merged in the least datagrams
      */
     public static void tick(Profiler profiler) {
         profiler.start(Profiler.Profiles.SYNC_BUFFER_UPDATE);
-        sendBuffers.values().forEach(PlayerSyncBuffer::update);
+        IDnxNetworkHandler network = DynamXContext.getNetwork().getQuickNetwork();
+        UdpServerNetworkHandler udpNetwork = network instanceof UdpServerNetworkHandler ? (UdpServerNetworkHandler) network : null;
+        if (udpNetwork != null)
+            udpNetwork.beginBatch();
+        try {
+            sendBuffers.values().forEach(PlayerSyncBuffer::update);
+        } finally {
+            if (udpNetwork != null)
+                udpNetwork.endBatch();
+        }
         profiler.end(Profiler.Profiles.SYNC_BUFFER_UPDATE);
     }
 
@@ -35,7 +52,7 @@ public class ServerPhysicsSyncManager {
     /**
      * Sets a player simulation time, used for driving sync, see {@link EntityPhysicsState}
      */
-    public static void putTime(EntityPlayer player, int time) {
+    public static synchronized void putTime(EntityPlayer player, int time) {
         if (sendBuffers.containsKey(player))
             sendBuffers.get(player).setSyncTime(time);
     }
@@ -43,7 +60,7 @@ public class ServerPhysicsSyncManager {
     /**
      * Gets a player simulation time, used for driving sync, see {@link EntityPhysicsState}
      */
-    public static int getTime(EntityPlayer player) {
+    public static synchronized int getTime(EntityPlayer player) {
         if (sendBuffers.containsKey(player))
             return sendBuffers.get(player).getSyncTime();
         return 0;
@@ -52,21 +69,48 @@ public class ServerPhysicsSyncManager {
     /**
      * Called on player disconnection to destroy its buffer
      */
-    public static void onDisconnect(EntityPlayer player) {
+    public static synchronized void onDisconnect(EntityPlayer player) {
         if (sendBuffers.containsKey(player))
             sendBuffers.remove(player).clear();
     }
 
     /**
-     * Appends the data of this entity to the {@link PlayerSyncBuffer} of this player
+     * Appends the data of this entity to the {@link PlayerSyncBuffer} of this player <br>
+     * Thread-safe : can be called by the workers of a {@link fr.dynamx.common.physics.world.ParallelEntityTicker}
      *
-     * @param target     The target player
-     * @param entity     The entity to sync
-     * @param varsToSync The data to send
+     * @param target  The target player
+     * @param entity  The entity to sync
+     * @param payload The data to send, now owned by the buffer of the player
      */
-    public static <T extends PhysicsEntity<?>> void addEntitySync(EntityPlayer target, T entity, PooledHashMap<Integer, EntityVariable<?>> varsToSync) {
+    public static synchronized <T extends PhysicsEntity<?>> void addEntitySync(EntityPlayer target, T entity, EncodedSyncPayload payload) {
         if (!sendBuffers.containsKey(target))
             sendBuffers.put(target, new PlayerSyncBuffer((EntityPlayerMP) target));
-        sendBuffers.get(target).addEntitySync(entity, varsToSync);
+        sendBuffers.get(target).addEntitySync(entity, payload);
+    }
+
+    /**
+     * Counts the payloads encoded for an entity sync <br>
+     * Thread-safe
+     *
+     * @param encodes The number of encoded payloads
+     * @param sends   The number of players receiving these payloads (the number of encodes without sharing)
+     */
+    public static void countPayloads(int encodes, int sends) {
+        payloadEncodes.addAndGet(encodes);
+        payloadSends.addAndGet(sends);
+    }
+
+    /**
+     * @return The number of encoded sync payloads
+     */
+    public static long getPayloadEncodes() {
+        return payloadEncodes.get();
+    }
+
+    /**
+     * @return The number of entity syncs sent to players, each of them was encoded separately before sharing the payloads
+     */
+    public static long getPayloadSends() {
+        return payloadSends.get();
     }
 }
@@ -0,0 +1,260 @@
+package fr.dynamx.server.network.udp;
+
+import fr.aym.acslib.services.impl.thrload.DynamXThreadedModLoader;
+import fr.dynamx.api.network.EnumNetworkType;
+import fr.dynamx.api.network.EnumPacketTarget;
+import fr.dynamx.api.network.IDnxPacket;
+import fr.dynamx.common.DynamXMain;
+import fr.dynamx.common.network.udp.EncapsulatedUDPPacket;
+import fr.dynamx.common.network.udp.UDPPacket;
+import fr.dynamx.utils.DynamXConfig;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.*;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollDatagramChannel;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.DatagramPacket;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.StringUtils;
+import net.minecraft.world.WorldServer;
+import net.minecraftforge.fml.common.FMLCommonHandler;
+import net.minecraftforge.fml.common.network.NetworkRegistry;
+
+import javax.annotation.Nullable;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Udp server manager, on server side, using a Netty datagram channel (epoll when available, nio otherwise) <br>
+ * The packets are encoded in pooled direct buffers, only once for all their targets, then framed for each client by its {@link UdpFrameWriter}. <br>
+ * Uses the same protocol as {@link UdpServerNetworkHandler}, so the clients use the same {@link fr.dynamx.client.network.udp.UdpClientNetworkHandler}
+ */
+public class NettyUdpServerNetworkHandler extends UdpServerNetworkHandler {
+    /**
+     * Size of the socket buffers, big enough to absorb the bursts of sync packets
+     */
+    private static final int SOCKET_BUFFER_SIZE = 1 << 20;
+
+    private EventLoopGroup group;
+    private Channel channel;
+
+    @Override
+    public boolean start() {
+        this.clientMap = new ConcurrentHashMap<>();
+        this.handler = new UDPServerPacketHandler(this);
+        MinecraftServer mc = FMLCommonHandler.instance().getMinecraftServerInstance();
+
+        InetSocketAddress address;
+        if (mc.isDedicatedServer()) {
+            if (StringUtils.isNullOrEmpty(mc.getServerHostname())) {
+                address = new InetSocketAddress(DynamXConfig.udpPort);
+            } else {
+                address = new InetSocketAddress(mc.getServerHostname(), DynamXConfig.udpPort);
+                DynamXMain.log.info("[UDP-Server] Applied custom IP " + mc.getServerHostname());
+            }
+        } else {
+            address = new InetSocketAddress("localhost", DynamXConfig.udpPort);
+        }
+
+        this.group = createEventLoopGroup(1, "DnxUdpServer");
+        try {
+            this.channel = createBootstrap(group)
+                    .handler(new SimpleChannelInboundHandler<DatagramPacket>() {
+                        @Override
+                        protected void channelRead0(ChannelHandlerContext ctx, DatagramPacket msg) {
+                            //The packet is handled in another thread, and msg is released after this method
+                            ByteBuf data = Unpooled.copiedBuffer(msg.content());
+                            try {
+                                handler.read(msg.sender(), data);
+                            } catch (Exception e) {
+                                if (DynamXConfig.udpDebug)
+                                    DynamXMain.log.error("[UDP-DEBUG] Failed to read packet from " + msg.sender(), e);
+                            }
+                        }
+
+                        @Override
+                        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+                            DynamXMain.log.error("Exception in the UDP server", cause);
+                        }
+                    })
+                    .bind(address).syncUninterruptibly().channel();
+            DynamXMain.log.info("UDP Server established on " + channel.localAddress() + " with the " + (Epoll.isAvailable() ? "epoll" : "nio") + " transport");
+            return true;
+        } catch (Exception e) {
+            DynamXMain.log.warn("If the server cannot bind: Switch to Minecraft Networking in config or setup UDP properly, that means port-forwarding.");
+            DynamXMain.log.error("Failed to start the UDP server on " + address, e);
+            stop();
+            return false;
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (handler != null) {
+            this.handler.close();
+            this.handler = null;
+        }
+        if (channel != null) {
+            this.channel.close().syncUninterruptibly();
+            this.channel = null;
+        }
+        if (group != null) {
+            this.group.shutdownGracefully();
+            this.group = null;
+        }
+        if (clientMap != null) {
+            this.clientMap.values().forEach(client -> client.frameWriter.clear());
+            this.clientMap.clear();
+        }
+    }
+
+    @Override
+    protected ByteBuf allocateBuffer() {
+        return channel != null ? channel.alloc().directBuffer() : PooledByteBufAllocator.DEFAULT.directBuffer();
+    }
+
+    @Override
+    protected void sendDatagram(ByteBuf datagram, UDPClient client) {
+        if (channel == null) {
+            DynamXMain.log.error("Cannot send datagram : udp server not started");
+            datagram.release();
+            return;
+        }
+        channel.writeAndFlush(new DatagramPacket(datagram, client.socketAddress));
+    }
+
+    @Override
+    public <T> void sendPacket(IDnxPacket packet, EnumPacketTarget<T> targetType, @Nullable T target) {
+        if (EnumPacketTarget.SERVER == targetType) {
+            throw new IllegalArgumentException("Cannot send a packet to the server, from the server !");
+        } else if (EnumPacketTarget.PLAYER == targetType) {
+            UDPClient client = clientMap.get(((Entity) target).getEntityId());
+            if (client == null)
+                vanillaFallback(packet, (EntityPlayerMP) target);
+            else
+                sendPacket(new EncapsulatedUDPPacket(packet), client);
+        } else if (EnumPacketTarget.ALL_AROUND == targetType) {
+            sendToPlayers(packet, getPlayersAround((NetworkRegistry.TargetPoint) target));
+        } else if (EnumPacketTarget.ALL_TRACKING_ENTITY == targetType) {
+            WorldServer world = (WorldServer) ((Entity) target).world;
+            sendToPlayers(packet, world.getEntityTracker().getTrackingPlayers((Entity) target));
+        } else if (EnumPacketTarget.ALL == targetType) {
+            sendToPlayers(packet, FMLCommonHandler.instance().getMinecraftServerInstance().getPlayerList().getPlayers());
+        }
+    }
+
+    /**
+     * Sends the packet to all the players, it's encoded only once for all the udp clients, then copied in their frames
+     */
+    private void sendToPlayers(IDnxPacket packet, Iterable<? extends EntityPlayer> players) {
+        if (channel == null) {
+            DynamXMain.log.error("Cannot send packet " + packet + " : udp server not started");
+            return;
+        }
+        ByteBuf data = null;
+        for (EntityPlayer player : players) {
+            UDPClient client = clientMap.get(player.getEntityId());
+            if (client == null)
+                vanillaFallback(packet, (EntityPlayerMP) player);
+            else {
+                if (data == null) {
+                    UDPPacket pck = new EncapsulatedUDPPacket(packet);
+                    data = allocateBuffer();
+                    data.writeByte(pck.id());
+                    pck.write(data);
+                }
+                client.frameWriter.write(data);
+            }
+        }
+        if (data != null)
+            data.release();
+    }
+
+    @Override
+    public EnumNetworkType getType() {
+        return EnumNetworkType.DYNAMX_NETTY_UDP;
+    }
+
+    private static EventLoopGroup createEventLoopGroup(int threads, String name) {
+        DynamXThreadedModLoader.DefaultThreadFactory factory = new DynamXThreadedModLoader.DefaultThreadFactory(name);
+        return Epoll.isAvailable() ? new EpollEventLoopGroup(threads, factory) : new NioEventLoopGroup(threads, factory);
+    }
+
+    private static Bootstrap createBootstrap(EventLoopGroup group) {
+        return new Bootstrap()
+                .group(group)
+                .channel(Epoll.isAvailable() ? EpollDatagramChannel.class : NioDatagramChannel.class)
+                .option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+                .option(ChannelOption.SO_RCVBUF, SOCKET_BUFFER_SIZE)
+                .option(ChannelOption.SO_SNDBUF, SOCKET_BUFFER_SIZE);
+    }
+
+    /**
+     * Measures the throughput of this transport, by sending packets between two channels on the loopback interface
+     *
+     * @param packetCount The number of packets to send
+     * @param packetSize  The size of each packet, in bytes
+     * @return A description of the results
+     */
+    public static String runLoopbackBenchmark(int packetCount, int packetSize) throws InterruptedException {
+        EventLoopGroup group = createEventLoopGroup(2, "DnxUdpBench");
+        ByteBuf data = null;
+        try {
+            AtomicInteger received = new AtomicInteger();
+            AtomicLong lastReceiveTime = new AtomicLong();
+            CountDownLatch allReceived = new CountDownLatch(1);
+            InetAddress loopback = InetAddress.getLoopbackAddress();
+            Channel receiver = createBootstrap(group)
+                    .handler(new SimpleChannelInboundHandler<DatagramPacket>() {
+                        @Override
+                        protected void channelRead0(ChannelHandlerContext ctx, DatagramPacket msg) {
+                            lastReceiveTime.set(System.nanoTime());
+                            if (received.incrementAndGet() == packetCount)
+                                allReceived.countDown();
+                        }
+                    })
+                    .bind(new InetSocketAddress(loopback, 0)).sync().channel();
+            Channel sender = createBootstrap(group)
+                    .handler(new ChannelInboundHandlerAdapter())
+                    .bind(new InetSocketAddress(loopback, 0)).sync().channel();
+            InetSocketAddress target = (InetSocketAddress) receiver.localAddress();
+
+            data = sender.alloc().directBuffer(packetSize).writeZero(packetSize);
+            long start = System.nanoTime();
+            for (int i = 0; i < packetCount - 1; i++) {
+                sender.write(new DatagramPacket(data.retainedDuplicate(), target));
+                if ((i & 63) == 63)
+                    sender.flush();
+            }
+            sender.writeAndFlush(new DatagramPacket(data.retainedDuplicate(), target)).sync();
+            long sendTime = System.nanoTime() - start;
+            //The lost packets never arrive
+            allReceived.await(1, TimeUnit.SECONDS);
+            sender.close().sync();
+            receiver.close().sync();
+
+            int count = received.get();
+            double receiveSeconds = Math.max(lastReceiveTime.get() - start, 1) / 1e9;
+            return String.format("%s transport: sent %d packets of %d bytes in %.1f ms, received %d (%.1f%% lost), %.0f packets/s, %.1f MB/s",
+                    Epoll.isAvailable() ? "epoll" : "nio", packetCount, packetSize, sendTime / 1e6, count, 100f * (packetCount - count) / packetCount,
+                    count / receiveSeconds, count * (double) packetSize / receiveSeconds / 1e6);
+        } finally {
+            if (data != null)
+                data.release();
+            group.shutdownGracefully();
+        }
+    }
+}
@@ -9,11 +9,16 @@ public class UDPClient {
     public EntityPlayerMP player;
     public InetSocketAddress socketAddress;
     private final int key;
+    /**
+     * Merges and fragments the packets sent to this client
+     */
+    public final UdpFrameWriter frameWriter;
 
-    UDPClient(EntityPlayerMP player, InetSocketAddress socketAddress, String hash) {
+    UDPClient(UdpServerNetworkHandler network, EntityPlayerMP player, InetSocketAddress socketAddress, String hash) {
         this.player = player;
         this.socketAddress = socketAddress;
         this.key = (int) (new BigInteger(hash.replaceAll("[^0-9.]", ""))).longValue();
+        this.frameWriter = new UdpFrameWriter(network, this);
     }
 
     public String toString() {
@@ -41,13 +41,13 @@ public class UDPServerPacketHandler {
         this.clientNetworkMap.remove(address);
     }
 
-    private void handleAuthentication(InetSocketAddress address, DatagramPacket packet, ByteBuf in) {
+    private void handleAuthentication(InetSocketAddress address, ByteBuf in) {
         try {
             final String hash = ByteBufUtils.readUTF8String(in);
             final EntityPlayerMP player = this.server.waitingAuth.remove(hash);
 
             if (player != null) {
-                UDPClient client = new UDPClient(player, address, hash);
+                UDPClient client = new UDPClient(this.server, player, address, hash);
                 this.clientNetworkMap.put(client.socketAddress, client);
                 this.server.clientMap.put(player.getEntityId(), client);
                 DynamXMain.log.info(client + " has been authenticated by server.");
@@ -64,20 +64,28 @@ public class UDPServerPacketHandler {
     }
 
     public void read(byte[] data, final DatagramPacket packet) {
-        final InetSocketAddress address = (InetSocketAddress) packet.getSocketAddress();
+        read((InetSocketAddress) packet.getSocketAddress(), Unpooled.wrappedBuffer(data));
+    }
+
+    /**
+     * Reads a received packet, and handles it in the packet handling thread
+     *
+     * @param address The sender of the packet
+     * @param in      The content of the packet, not shared with the network thread
+     */
+    public void read(final InetSocketAddress address, final ByteBuf in) {
         final UDPClient client = this.clientNetworkMap.get(address);
-        final ByteBuf in = Unpooled.wrappedBuffer(data);
         final byte id = in.readByte();
 
         if (DynamXConfig.udpDebug) {
             if (client != null)
                 DynamXMain.log.info("[UDP-DEBUG] Read packet with id " + id + " from " + client.player);
             else
-                DynamXMain.log.error("[UDP-DEBUG] Read packet with id " + id + " but client is null..." + packet.getAddress());
+                DynamXMain.log.error("[UDP-DEBUG] Read packet with id " + id + " but client is null..." + address);
         }
         this.threadService.execute(() -> {
             if (id == 0) {
-                UDPServerPacketHandler.this.handleAuthentication(address, packet, in);
+                UDPServerPacketHandler.this.handleAuthentication(address, in);
             } else if (id == 9) {
                 UdpTestPacket packet2 = new UdpTestPacket(in.readInt(), ByteBufUtils.readUTF8String(in), in.readLong(), in.readLong() == -1 ? System.currentTimeMillis() : -2);
                 server.sendPacket(packet2, client);
@@ -0,0 +1,104 @@
+package fr.dynamx.server.network.udp;
+
+import fr.dynamx.common.DynamXMain;
+import fr.dynamx.common.network.udp.UdpFraming;
+import fr.dynamx.utils.DynamXConfig;
+import io.netty.buffer.ByteBuf;
+import net.minecraftforge.fml.common.network.ByteBufUtils;
+
+/**
+ * Merges the packets sent to a client in datagrams of at most {@link DynamXConfig#udpMaxDatagramSize} bytes, and splits the bigger packets in fragments <br>
+ * While the network is batching (see {@link UdpServerNetworkHandler#beginBatch()}), the datagrams are sent when full or at the end of the batch, else they are sent immediately
+ *
+ * @see UdpFraming
+ */
+public class UdpFrameWriter {
+    private final UdpServerNetworkHandler network;
+    private final UDPClient client;
+    /**
+     * The frame being filled, null if empty
+     */
+    private ByteBuf frame;
+    private int sequence;
+    private short fragmentedMessageId;
+
+    public UdpFrameWriter(UdpServerNetworkHandler network, UDPClient client) {
+        this.network = network;
+        this.client = client;
+    }
+
+    /**
+     * Adds a packet to send
+     *
+     * @param packet The packet id and data, not modified
+     */
+    public synchronized void write(ByteBuf packet) {
+        int size = packet.readableBytes();
+        int maxSize = DynamXConfig.udpMaxDatagramSize;
+        int entrySize = getVarIntSize(size) + size;
+        if (UdpFraming.FRAME_HEADER_SIZE + entrySize > maxSize) {
+            //Keep the order of the packets
+            flush();
+            writeFragments(packet, maxSize);
+            return;
+        }
+        if (frame != null && frame.readableBytes() + entrySize > maxSize)
+            flush();
+        if (frame == null) {
+            frame = network.allocateBuffer();
+            frame.writeByte(UdpFraming.FRAME_ID);
+            frame.writeInt(sequence++);
+        }
+        ByteBufUtils.writeVarInt(frame, size, 3);
+        frame.writeBytes(packet, packet.readerIndex(), size);
+        //Checked after writing, so a batch ending at the same time can't forget this packet
+        if (!network.isBatching())
+            flush();
+    }
+
+    private void writeFragments(ByteBuf packet, int maxSize) {
+        int fragmentSize = maxSize - UdpFraming.FRAGMENT_HEADER_SIZE;
+        int size = packet.readableBytes();
+        int count = (size + fragmentSize - 1) / fragmentSize;
+        if (count > UdpFraming.MAX_FRAGMENTS) {
+            DynamXMain.log.error("[UDP] Packet with id " + packet.getByte(packet.readerIndex()) + " is too large to be sent (" + size + " bytes), it has been dropped");
+            return;
+        }
+        short messageId = fragmentedMessageId++;
+        for (int i = 0; i < count; i++) {
+            int offset = i * fragmentSize;
+            ByteBuf fragment = network.allocateBuffer();
+            fragment.writeByte(UdpFraming.FRAGMENT_ID);
+            fragment.writeInt(sequence++);
+            fragment.writeShort(messageId);
+            fragment.writeByte(i);
+            fragment.writeByte(count);
+            fragment.writeBytes(packet, packet.readerIndex() + offset, Math.min(fragmentSize, size - offset));
+            network.sendDatagram(fragment, client);
+        }
+    }
+
+    /**
+     * Sends the frame being filled, if any
+     */
+    public synchronized void flush() {
+        if (frame != null) {
+            network.sendDatagram(frame, client);
+            frame = null;
+        }
+    }
+
+    /**
+     * Releases the frame being filled, without sending it
+     */
+    public synchronized void clear() {
+        if (frame != null) {
+            frame.release();
+            frame = null;
+        }
+    }
+
+    private static int getVarIntSize(int value) {
+        return value < (1 << 7) ? 1 : value < (1 << 14) ? 2 : 3;
+    }
+}
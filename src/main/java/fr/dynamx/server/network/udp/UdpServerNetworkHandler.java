@@ -12,28 +12,36 @@ import fr.dynamx.utils.DynamXConfig;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import net.minecraft.entity.Entity;
+import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.entity.player.EntityPlayerMP;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.util.StringUtils;
+import net.minecraft.util.math.AxisAlignedBB;
 import net.minecraft.world.WorldServer;
 import net.minecraftforge.fml.common.FMLCommonHandler;
+import net.minecraftforge.fml.common.network.NetworkRegistry;
 
 import javax.annotation.Nullable;
 import java.io.IOException;
 import java.net.DatagramPacket;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Udp server manager, on server side
+ * Udp server manager, on server side <br>
+ * The {@link EncapsulatedUDPPacket}s are merged and fragmented by the {@link UdpFrameWriter} of each client
  */
 public class UdpServerNetworkHandler implements IDnxNetworkHandler {
     public final Map<String, EntityPlayerMP> waitingAuth = new HashMap<>();
 
     public static volatile boolean running;
-    private UDPServerPacketHandler handler;
+    protected UDPServerPacketHandler handler;
     public Map<Integer, UDPClient> clientMap;
     private UdpServer server;
+    /**
+     * True while the packets are merged in frames, see {@link #beginBatch()}
+     */
+    private volatile boolean batching;
 
     public UdpServerNetworkHandler() {
     }
@@ -42,28 +50,71 @@ public class UdpServerNetworkHandler implements IDnxNetworkHandler {
         UDPClient client = this.clientMap.get(id);
         if (client != null) {
             this.handler.closeConnection(client.socketAddress);
+            client.frameWriter.clear();
         }
         this.clientMap.remove(id);
     }
 
     public void sendPacket(UDPPacket packet, UDPClient client) {
-        ByteBuf packetBuffer = Unpooled.buffer();
+        ByteBuf packetBuffer = allocateBuffer();
         packetBuffer.writeByte(packet.id());
         packet.write(packetBuffer);
-        byte[] data = packetBuffer.array();
+        if (packet instanceof EncapsulatedUDPPacket) {
+            client.frameWriter.write(packetBuffer);
+            packetBuffer.release();
+        } else //Authentication and test packets aren't framed
+            sendDatagram(packetBuffer, client);
+        if (DynamXConfig.udpDebug)
+            DynamXMain.log.info("[UDP-DEBUG] Sent the packet " + packet.id());
+    }
+
+    /**
+     * @return A new buffer for a packet or a datagram
+     */
+    protected ByteBuf allocateBuffer() {
+        return Unpooled.buffer();
+    }
 
+    /**
+     * Sends a datagram
+     *
+     * @param datagram The datagram, released by this method
+     * @param client   The target client
+     */
+    protected void sendDatagram(ByteBuf datagram, UDPClient client) {
         try {
-            this.server.send(new DatagramPacket(data, data.length, client.socketAddress));
-            if (DynamXConfig.udpDebug)
-                DynamXMain.log.info("[UDP-DEBUG] Sent the packet " + packet.id());
+            this.server.send(new DatagramPacket(datagram.array(), datagram.arrayOffset() + datagram.readerIndex(), datagram.readableBytes(), client.socketAddress));
         } catch (IOException e) {
             e.printStackTrace();
+        } finally {
+            datagram.release();
         }
     }
 
+    /**
+     * Starts merging the packets sent to each client, until {@link #endBatch()} <br>
+     * Used to send the entity syncs of a tick in the least datagrams
+     */
+    public void beginBatch() {
+        batching = true;
+    }
+
+    /**
+     * Sends the packets merged since {@link #beginBatch()}
+     */
+    public void endBatch() {
+        batching = false;
+        if (clientMap != null)
+            clientMap.values().forEach(client -> client.frameWriter.flush());
+    }
+
+    public boolean isBatching() {
+        return batching;
+    }
+
     @Override
     public boolean start() {
-        this.clientMap = new HashMap<>();
+        this.clientMap = new ConcurrentHashMap<>();
         this.handler = new UDPServerPacketHandler(this);
         MinecraftServer mc = FMLCommonHandler.instance().getMinecraftServerInstance();
 
@@ -119,7 +170,13 @@ public class UdpServerNetworkHandler implements IDnxNetworkHandler {
             else
                 sendPacket(pck, client);
         } else if (EnumPacketTarget.ALL_AROUND == targetType) {
-            throw new UnsupportedOperationException("Not implemented yet in UDP, please contact DynamX devs");
+            getPlayersAround((NetworkRegistry.TargetPoint) target).forEach(player -> {
+                UDPClient client = clientMap.get(player.getEntityId());
+                if (client == null)
+                    vanillaFallback(packet, player);
+                else
+                    sendPacket(pck, client);
+            });
         } else if (EnumPacketTarget.ALL_TRACKING_ENTITY == targetType) {
             WorldServer world = (WorldServer) ((Entity) target).world;
             world.getEntityTracker().getTrackingPlayers((Entity) target).forEach(player -> {
@@ -145,9 +202,34 @@ public class UdpServerNetworkHandler implements IDnxNetworkHandler {
         return EnumNetworkType.DYNAMX_UDP;
     }
 
-    private void vanillaFallback(IDnxPacket packet, EntityPlayerMP target) {
+    protected void vanillaFallback(IDnxPacket packet, EntityPlayerMP target) {
         if (target.connection != null && target.connection.getNetworkManager().isChannelOpen()) {
             DynamXContext.getNetwork().getVanillaNetwork().sendPacket(packet, EnumPacketTarget.PLAYER, target);
         }
     }
+
+    /**
+     * Finds the players in the range of the target point <br>
+     * From the server thread, only the chunks around the point are searched. From other threads (the entity lists of the chunks aren't thread-safe), the players of the dimension are searched.
+     *
+     * @param point The target point
+     * @return The players around the point, empty if its dimension isn't loaded
+     */
+    protected static List<EntityPlayerMP> getPlayersAround(NetworkRegistry.TargetPoint point) {
+        MinecraftServer mc = FMLCommonHandler.instance().getMinecraftServerInstance();
+        WorldServer world = mc.getWorld(point.dimension);
+        if (world == null)
+            return Collections.emptyList();
+        double rangeSq = point.range * point.range;
+        if (mc.isCallingFromMinecraftThread()) {
+            AxisAlignedBB box = new AxisAlignedBB(point.x - point.range, point.y - point.range, point.z - point.range, point.x + point.range, point.y + point.range, point.z + point.range);
+            return world.getEntitiesWithinAABB(EntityPlayerMP.class, box, player -> player.getDistanceSq(point.x, point.y, point.z) < rangeSq);
+        }
+        List<EntityPlayerMP> players = new ArrayList<>();
+        for (EntityPlayer player : new ArrayList<>(world.playerEntities)) {
+            if (player instanceof EntityPlayerMP && player.getDistanceSq(point.x, point.y, point.z) < rangeSq)
+                players.add((EntityPlayerMP) player);
+        }
+        return players;
+    }
 }
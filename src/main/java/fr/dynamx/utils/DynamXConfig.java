@@ -16,10 +16,18 @@ public class DynamXConfig
     public static boolean doUdpTimeOut = true;
     public static int udpPort = 25575;
     public static boolean usingProxy = false, udpDebug = false;
+    public static boolean useNettyUdp = false;
+    public static int udpMaxDatagramSize = 1400;
 
     public static int vehiclesSyncTickRate = 1;
     public static int mountedVehiclesSyncTickRate = 1;
     public static int propsSyncTickRate = 2;
+    public static int syncBandwidthLimit = 512;
+    public static int syncMaxPacketSize = 1200;
+    public static float syncRiddenEntityPriority = 1000;
+    public static float syncHalfPriorityDistance = 24;
+    public static float syncMaxPrioritySpeed = 40;
+    public static boolean interpolateRemoteEntities = true;
 
     public static int maxZoomOut = 20;
     public static int gearChangeDelay = 5;
@@ -27,6 +35,14 @@ public class DynamXConfig
     public static int maxComplexBlockBoxes = 8;
 
     public static int networkChunkComputeWarnTime = 40;
+    public static int terrainLoaderThreads = 0;
+    public static int terrainChunkCacheSize = 64;
+    public static int terrainMaxRegionFiles = 64;
+    public static int terrainMaxChunkTickets = 20000;
+    public static boolean useTerrainDiskCache = true;
+
+    public static int packLoadingThreads = 0;
+    public static boolean usePackCache = true;
 
     public static boolean allowPlayersToMoveObjects = true;
     public static int[] allowedWrenchModes;
@@ -36,6 +52,19 @@ public class DynamXConfig
 
     public static int ragdollSpawnMinForce;
 
+    public static int scheduledTasksPerTick = 2000;
+
+    public static boolean parallelEntityTicks;
+    public static int parallelEntityTickThreads = 0;
+    public static float parallelEntityTickIslandMargin = 4;
+    public static int parallelEntityTickMinEntities = 4;
+
+    public static boolean enableMetrics;
+    public static String metricsExporter = "none";
+    public static String metricsFile = "dynamx-metrics.prom";
+    public static int metricsExportInterval = 15;
+    public static int metricsHttpPort = 9400;
+
     public static boolean disableSSLCertification;
     public static Set<String> ignoreCollisionEntities;
 
@@ -51,23 +80,48 @@ public class DynamXConfig
         cfg.load();
         syncPacks = cfg.getBoolean("SyncContentPacks", "Multiplayer", false, "If enabled, the server will send all content pack objects to the clients (only where there are differences)");
         allowedWrenchModes = cfg.get("Multiplayer", "AllowedWrenchModes", new int[]{0, 2, 5}).getIntList();
+        useTerrainDiskCache = cfg.getBoolean("UseTerrainDiskCache", "Multiplayer", true, "Client side : keeps a copy of the terrain collisions received from the servers on the disk, so unchanged chunks aren't downloaded again at the next connection");
+        syncBandwidthLimit = cfg.getInt("SyncBandwidthLimit", "Multiplayer", 512, 16, 1000000, "The maximum bandwidth, in kbps, used to send the physics entity syncs to each player. When there is too much data to send, the less important entities (far, slow, behind the player) are sent less often");
+        syncMaxPacketSize = cfg.getInt("SyncMaxPacketSize", "Multiplayer", 1200, 256, 60000, "The maximum size, in bytes, of the packets merging the syncs of several entities. Keep it below UdpMaxDatagramSize to avoid fragmentation");
+        syncRiddenEntityPriority = cfg.getFloat("SyncRiddenEntityPriority", "Multiplayer", 1000, 0, Float.MAX_VALUE, "The priority added each tick to the entities ridden by a player, in their sync buffer, so they are sent before the other entities");
+        syncHalfPriorityDistance = cfg.getFloat("SyncHalfPriorityDistance", "Multiplayer", 24, 1, 1000, "The distance, in blocks, at which the sync priority of an entity is halved");
+        syncMaxPrioritySpeed = cfg.getFloat("SyncMaxPrioritySpeed", "Multiplayer", 40, 0, 1000, "The speed, in blocks per second, above which the sync priority of an entity stops growing");
+        interpolateRemoteEntities = cfg.getBoolean("InterpolateRemoteEntities", "Multiplayer", true, "Client side : smoothly interpolates the positions received from the server for the entities you don't drive, with a small delay adapting to your connection, instead of applying each position when received");
         useUdp = cfg.getBoolean("UseUdpServer", "UDP", true, "True to use (faster) UDP networking, false to use vanilla networking (TCP)");
         doUdpTimeOut = cfg.getBoolean("DoUdpTimeOut", "UDP", true, "True to automatically disconnect players when the udp connection cannot be established");
         udpPort = cfg.getInt("UdpPort", "UDP", 25575, 2000, 65535, "A port for the udp server, if enabled");
         usingProxy = cfg.getBoolean("HasProxy", "UDP", false, "If you have a proxy in front of your server");
         udpDebug = cfg.getBoolean("PrintUdpDebug", "UDP", false, "True to print debug for UDP connections");
+        udpMaxDatagramSize = cfg.getInt("UdpMaxDatagramSize", "UDP", 1400, 576, 4000, "Server side : the maximum size, in bytes, of the udp datagrams. Small packets are merged up to this size, and bigger packets are split. Keep it below the MTU of the network");
+        useNettyUdp = cfg.getBoolean("UseNettyUdpTransport", "UDP", false, "Server side : uses a Netty transport (epoll on Linux) for the udp server, faster with many players. The clients don't need to change anything");
+        packLoadingThreads = cfg.getInt("PackLoadingThreads", "Packs", 0, 0, 64, "The number of threads reading and parsing the content pack files, at startup and on /dynamx reload. Set to 0 to use all available processors but one, or to 1 to load the packs on the loading thread");
+        usePackCache = cfg.getBoolean("UsePackCache", "Packs", true, "Keeps a compiled copy of the content packs loaded without errors in the DynamXCache folder, to load them faster at the next start. A pack is compiled again when its .dynx files, DynamX or the addons change");
         maxZoomOut = cfg.getInt("MaxZoomOut", "Visuals", 20, 0, 200, "Max de-zoom in F5 view");
         allowPlayersToMoveObjects = cfg.getBoolean("AllowPlayersToMoveObjects", "Physics", true, "Allow player in survival to move ");
         ragdollSpawnMinForce = cfg.getInt("RagdollSpawnMinForce", "Physics", -1, -1, Integer.MAX_VALUE, "The minimum force of collision to spawn player ragdolls. Set to -1 to disable it.");
+        scheduledTasksPerTick = cfg.getInt("ScheduledTasksPerTick", "Physics", 2000, 1, Integer.MAX_VALUE, "The maximum number of delayed tasks (terrain unloading, entity resyncs...) executed each tick. The other tasks are executed in the next ticks, to avoid lag spikes when many chunks are unloaded");
+        parallelEntityTicks = cfg.getBoolean("ParallelEntityTicks", "Physics", false, "If enabled, the physics updates of the entities (engines, wheels, synchronization...) are executed in parallel on several threads (experimental). Modules of addons must respect the threading contract of IPhysicsUpdateListener");
+        parallelEntityTickThreads = cfg.getInt("ParallelEntityTickThreads", "Physics", 0, 0, 64, "The number of threads used when ParallelEntityTicks is enabled. Set to 0 to use all available processors but one");
+        parallelEntityTickIslandMargin = cfg.getFloat("ParallelEntityTickIslandMargin", "Physics", 4, 0, 64, "When ParallelEntityTicks is enabled, the entities closer than this distance (in blocks) are ticked by the same thread, as they may interact during the tick");
+        parallelEntityTickMinEntities = cfg.getInt("ParallelEntityTickMinEntities", "Physics", 4, 1, 1024, "When ParallelEntityTicks is enabled, the minimum number of entities ticked by each thread. With fewer entities, the thread switch costs more than it saves");
         //todo update doc and see new impact on perfs
         blockCollisionRadius = cfg.getInt("BlockCollisionRadius2", "Physics", 3, 0, 16, "The radius of collision checking with DynamX blocks around players. Has an impact on game performance. NOTE : Renamed with a '2' to replace the old default value and stay below 30 for stable performance");
         maxComplexBlockBoxes = cfg.getInt("MaxComplexBoxes", "Physics", 8, 0, 100, "The amount of detailed collisions per each complex block. If the block has more collisions (e.g. Decocraft), it will be a cube containing all collisions. Has an impact on game performance.");
+        terrainLoaderThreads = cfg.getInt("TerrainLoaderThreads", "Physics", 0, 0, 32, "The number of threads computing the terrain collisions of each physics world. Set to 0 to use half of the available processors (at most 4)");
+        terrainChunkCacheSize = cfg.getInt("TerrainChunkCacheSize", "Physics", 64, 1, 4096, "The maximum size, in megabytes, of the saved terrain collisions kept in memory by the server. The other chunks are read from the region files when needed");
+        terrainMaxRegionFiles = cfg.getInt("TerrainMaxRegionFiles", "Physics", 64, 1, 4096, "The maximum number of terrain region files (32*32 chunks) kept open by the server. The least recently used files are saved and closed");
+        terrainMaxChunkTickets = cfg.getInt("TerrainMaxChunkTickets", "Physics", 20000, 256, Integer.MAX_VALUE, "The maximum number of chunks with cached terrain collisions, in each dimension. The least recently used chunks that aren't used by entities are removed from the memory");
         ignoreCollisionEntities = new HashSet<>(Arrays.asList(cfg.getStringList(
                 "IgnoreCollisionEntities",
                 "Physics",
                 new String[]{"example.entity.*"},
                 "A list of entity classes that should ignore collisions. Useful for optimization or special behaviors. Wildcard supported (*)"
         )));
+        enableMetrics = cfg.getBoolean("EnableMetrics", "Metrics", false, "Records the latency histograms of the profiled sections and the counters of the physics worlds (entities, terrain loading, syncs). See /dynamx profiling");
+        metricsExporter = cfg.getString("MetricsExporter", "Metrics", "none", "Exports the metrics in the Prometheus text format : 'file' writes them in MetricsFile, 'http' serves them on http://localhost:MetricsHttpPort/metrics", new String[]{"none", "file", "http"});
+        metricsFile = cfg.getString("MetricsFile", "Metrics", "dynamx-metrics.prom", "The file written by the 'file' metrics exporter, relative to the game directory");
+        metricsExportInterval = cfg.getInt("MetricsExportInterval", "Metrics", 15, 1, 3600, "The interval, in seconds, between two writes of the 'file' metrics exporter");
+        metricsHttpPort = cfg.getInt("MetricsHttpPort", "Metrics", 9400, 1024, 65535, "The local port of the 'http' metrics exporter");
         if (cfg.hasKey("Statistics", "CollectData")) {
             if (!cfg.getBoolean("CollectData", "Statistics", true, "Enables automatic reporting of your computer info (GPU, memory, OS) and useful crash-reports"))
                 ACsLib.getPlatform().provideService(StatsReportingService.class).disable();
@@ -102,6 +102,93 @@ public class DynamXUtils {
         return new Quaternion(buf.readFloat(), buf.readFloat(), buf.readFloat(), buf.readFloat());
     }
 
+    private static final int QUATERNION_BITS = 15;
+    private static final int QUATERNION_MAX = (1 << QUATERNION_BITS) - 1;
+    private static final float QUATERNION_RANGE = (float) Math.sqrt(0.5);
+
+    /**
+     * Writes the normalized quaternion in 6 bytes, using the "smallest three" compression : <br>
+     * the index of the largest component (2 bits), then the three other components quantized on 15 bits (the largest component is recomputed when reading)
+     *
+     * @see #readCompressedQuaternion(ByteBuf, Quaternion)
+     */
+    public static void writeCompressedQuaternion(ByteBuf buf, Quaternion quaternion) {
+        float[] c = {quaternion.getX(), quaternion.getY(), quaternion.getZ(), quaternion.getW()};
+        float norm = (float) Math.sqrt(c[0] * c[0] + c[1] * c[1] + c[2] * c[2] + c[3] * c[3]);
+        int largest = 0;
+        for (int i = 1; i < 4; i++) {
+            if (Math.abs(c[i]) > Math.abs(c[largest]))
+                largest = i;
+        }
+        if (norm == 0) { //Invalid quaternion : write the identity
+            c[3] = norm = 1;
+            largest = 3;
+        }
+        //q and -q are the same rotation : the largest component is always positive
+        float factor = (c[largest] < 0 ? -1 : 1) / norm;
+        long packed = largest;
+        for (int i = 0; i < 4; i++) {
+            if (i == largest)
+                continue;
+            int quantized = Math.round((c[i] * factor / QUATERNION_RANGE + 1) * 0.5f * QUATERNION_MAX);
+            packed = (packed << QUATERNION_BITS) | Math.max(0, Math.min(QUATERNION_MAX, quantized));
+        }
+        buf.writeMedium((int) (packed >>> 24));
+        buf.writeMedium((int) packed);
+    }
+
+    /**
+     * Reads a quaternion written by {@link #writeCompressedQuaternion(ByteBuf, Quaternion)}
+     *
+     * @param result The quaternion to set
+     * @return The result quaternion
+     */
+    public static Quaternion readCompressedQuaternion(ByteBuf buf, Quaternion result) {
+        long packed = ((long) buf.readUnsignedMedium() << 24) | buf.readUnsignedMedium();
+        int largest = (int) (packed >>> (3 * QUATERNION_BITS));
+        float[] c = new float[4];
+        float sum = 0;
+        for (int i = 3; i >= 0; i--) {
+            if (i == largest)
+                continue;
+            c[i] = ((packed & QUATERNION_MAX) / (float) QUATERNION_MAX * 2 - 1) * QUATERNION_RANGE;
+            sum += c[i] * c[i];
+            packed >>>= QUATERNION_BITS;
+        }
+        c[largest] = (float) Math.sqrt(Math.max(0, 1 - sum));
+        return result.set(c[0], c[1], c[2], c[3]);
+    }
+
+    /**
+     * @return True if all the components of the vector can be written with {@link #writeFixedPointVector3f(ByteBuf, Vector3f, float)}
+     */
+    public static boolean fitsFixedPoint(Vector3f vector3f, float scale) {
+        float max = Short.MAX_VALUE / scale;
+        return Math.abs(vector3f.x) <= max && Math.abs(vector3f.y) <= max && Math.abs(vector3f.z) <= max;
+    }
+
+    /**
+     * Writes the vector as three fixed-point shorts
+     *
+     * @param scale The number of steps per unit (the precision is 1/scale)
+     * @see #fitsFixedPoint(Vector3f, float)
+     */
+    public static void writeFixedPointVector3f(ByteBuf buf, Vector3f vector3f, float scale) {
+        buf.writeShort(Math.round(vector3f.x * scale));
+        buf.writeShort(Math.round(vector3f.y * scale));
+        buf.writeShort(Math.round(vector3f.z * scale));
+    }
+
+    /**
+     * Reads a vector written by {@link #writeFixedPointVector3f(ByteBuf, Vector3f, float)}
+     *
+     * @param result The vector to set
+     * @return The result vector
+     */
+    public static Vector3f readFixedPointVector3f(ByteBuf buf, float scale, Vector3f result) {
+        return result.set(buf.readShort() / scale, buf.readShort() / scale, buf.readShort() / scale);
+    }
+
     public static void writeQuaternionNBT(NBTTagCompound compound, Quaternion quaternion) {
         compound.setFloat("QuatX", quaternion.getX());
         compound.setFloat("QuatY", quaternion.getY());
@@ -49,6 +49,13 @@ public class VerticalChunkPos {
         public VerticalChunkPos toImmutable() {
             return new VerticalChunkPos(x, y, z);
         }
+
+        /**
+         * @see VerticalChunkPos#asLong(int, int, int)
+         */
+        public long asLong() {
+            return VerticalChunkPos.asLong(x, y, z);
+        }
     }
 
     /**
@@ -123,6 +130,29 @@ public class VerticalChunkPos {
         }
     }
 
+    /**
+     * @see #asLong(int, int, int)
+     */
+    public long asLong() {
+        return asLong(x, y, z);
+    }
+
+    /**
+     * Packs the given chunk coordinates in a long : 26 bits for x, 26 bits for z and 12 bits for y
+     *
+     * @return The packed position, used as key in the {@link fr.dynamx.utils.optimization.Long2ObjectOpenMap}s
+     */
+    public static long asLong(int x, int y, int z) {
+        return ((long) x & 0x3FFFFFF) << 38 | ((long) z & 0x3FFFFFF) << 12 | (y & 0xFFF);
+    }
+
+    /**
+     * @return The position packed with {@link #asLong(int, int, int)}
+     */
+    public static VerticalChunkPos fromLong(long packed) {
+        return new VerticalChunkPos((int) (packed >> 38), (int) (packed << 52 >> 52), (int) (packed << 26 >> 38));
+    }
+
     /**
      * @return True if each coordinate of the pos1 is equal to the other
      */
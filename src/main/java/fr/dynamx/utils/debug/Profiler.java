@@ -1,15 +1,18 @@
 package fr.dynamx.utils.debug;
 
 import fr.dynamx.common.DynamXMain;
+import fr.dynamx.utils.debug.metrics.DynamXMetrics;
 
 import javax.annotation.Nullable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 /**
- * A simple home-made thread safe profiler
+ * A simple home-made thread safe profiler <br>
+ * When the {@link DynamXMetrics} are enabled, the duration of each section is also recorded in the latency histograms of the metrics
  */
 public class Profiler {
     private static boolean isProfilingOn;
@@ -28,6 +31,10 @@ public class Profiler {
     }
 
     private final Map<Profiles, ProfilingData> data = new HashMap<>();
+    /**
+     * Start times of the sections measured for the metrics, 0 if not started
+     */
+    private final long[] metricsStartTimes = new long[Profiles.values().length];
     private boolean isActive;
 
     public boolean isActive() {
@@ -35,6 +42,8 @@ public class Profiler {
     }
 
     public void start(Profiles profile) {
+        if (DynamXMetrics.isEnabled())
+            metricsStartTimes[profile.id] = System.nanoTime();
         if (isActive) {
             if (!data.containsKey(profile))
                 data.put(profile, new ProfilingData(profile));
@@ -43,10 +52,47 @@ public class Profiler {
     }
 
     public void end(Profiles profile) {
+        long metricsStart = metricsStartTimes[profile.id];
+        if (metricsStart != 0) {
+            metricsStartTimes[profile.id] = 0;
+            DynamXMetrics.recordProfile(profile, System.nanoTime() - metricsStart);
+        }
         if (isActive && data.containsKey(profile))
             data.get(profile).end();
     }
 
+    /**
+     * Forces the activity of this profiler, used by the profilers of worker threads to follow the activity of the profiler of the main thread
+     */
+    public void setActive(boolean active) {
+        isActive = active;
+    }
+
+    /**
+     * Adds the current measures of the other profiler to this profiler, and clears the other profiler's current measures <br>
+     * Should be called when the other profiler isn't used by another thread (for example after joining its worker thread)
+     *
+     * @param other The profiler to merge in this one
+     */
+    public void merge(Profiler other) {
+        if (!isActive)
+            return;
+        other.data.forEach((profile, otherData) -> {
+            if (!data.containsKey(profile))
+                data.put(profile, new ProfilingData(profile));
+            data.get(profile).merge(otherData);
+        });
+    }
+
+    /**
+     * Discards the current measures of this profiler, including the started ones <br>
+     * Used when the profiled thread failed : its started sections will never end
+     */
+    public void abort() {
+        data.values().forEach(ProfilingData::abort);
+        Arrays.fill(metricsStartTimes, 0);
+    }
+
     public void update() {
         if (isActive)
             data.values().forEach(ProfilingData::update);
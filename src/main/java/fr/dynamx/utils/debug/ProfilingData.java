@@ -34,6 +34,25 @@ public class ProfilingData {
         startTime = 0;
     }
 
+    /**
+     * Adds the current measure of the other data to this data, and clears the current measure of the other data
+     */
+    public void merge(ProfilingData other) {
+        if (other.startTime != 0)
+            throw new IllegalStateException("Profiling of " + profileIn + " is started in the other profiler : cannot merge it !");
+        delta += other.delta;
+        other.delta = 0;
+    }
+
+    /**
+     * Discards the current measure, and stops the profiling if it's started <br>
+     * Used when the profiled code was interrupted by an exception, before the end of the profiling
+     */
+    public void abort() {
+        startTime = 0;
+        delta = 0;
+    }
+
     public boolean isEmpty() {
         return medium == 0;
     }
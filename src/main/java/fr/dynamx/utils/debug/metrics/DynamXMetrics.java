@@ -0,0 +1,200 @@
+package fr.dynamx.utils.debug.metrics;
+
+import fr.dynamx.api.physics.IPhysicsWorld;
+import fr.dynamx.common.DynamXMain;
+import fr.dynamx.common.handlers.TaskScheduler;
+import fr.dynamx.common.physics.terrain.PhysicsWorldTerrain;
+import fr.dynamx.utils.DynamXConfig;
+import fr.dynamx.utils.debug.Profiler;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Metrics of DynamX : latency histograms of the {@link Profiler.Profiles} sections, and counters and gauges of the physics worlds <br>
+ * Unlike the {@link Profiler}, which prints averages in the logs, the metrics keep the tail latencies (p99, p999) and can be exported to a monitoring system with {@link MetricsExporter}s. <br>
+ * Enabled by {@link DynamXConfig#enableMetrics}, or with the "/dynamx profiling" command
+ */
+public class DynamXMetrics {
+    private static final double[] QUANTILES = {0.5, 0.99, 0.999};
+
+    private static volatile boolean enabled;
+    private static boolean jfrInitialized;
+    private static final LatencyHistogram[] profileHistograms = new LatencyHistogram[Profiler.Profiles.values().length];
+    private static final List<Metric> metrics = new CopyOnWriteArrayList<>();
+    private static final List<MetricsExporter> exporters = new CopyOnWriteArrayList<>();
+    private static final List<MetricsExporter> runningExporters = new ArrayList<>();
+
+    public static final Metric PHYSICS_ENTITIES = register(new Metric("dynamx_physics_entities", "Number of physics entities in the physics world", Metric.Type.GAUGE));
+    public static final Metric TERRAIN_QUEUE_DEPTH = register(new Metric("dynamx_terrain_queue_depth", "Number of chunks waiting to be loaded by the terrain loader", Metric.Type.GAUGE));
+    public static final Metric TERRAIN_CHUNK_TICKETS = register(new Metric("dynamx_terrain_chunk_tickets", "Number of chunks with cached terrain collisions", Metric.Type.GAUGE));
+    public static final Metric SYNC_BYTES = register(new Metric("dynamx_sync_bytes_total", "Approximate size of the entity syncs sent to the players, in bytes", Metric.Type.COUNTER));
+    public static final Metric SYNC_ENTITIES = register(new Metric("dynamx_sync_entities_total", "Number of entity syncs sent to the players", Metric.Type.COUNTER));
+    public static final Metric ENTITY_COLLISION_CHECKS = register(new Metric("dynamx_entity_collision_checks_total", "Number of entity moves near physics entities, checked against them", Metric.Type.COUNTER));
+    public static final Metric ENTITY_COLLISION_SKIPS = register(new Metric("dynamx_entity_collision_skips_total", "Number of entity moves far from the physics entities, not checked against them", Metric.Type.COUNTER));
+    public static final Metric SCHEDULED_TASKS = register(new Metric("dynamx_scheduled_tasks", "Number of tasks waiting in the TaskScheduler", Metric.Type.GAUGE));
+
+    static {
+        for (int i = 0; i < profileHistograms.length; i++)
+            profileHistograms[i] = new LatencyHistogram();
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        if (enabled && !jfrInitialized) {
+            jfrInitialized = true;
+            JfrProfileEvents.init();
+        }
+        DynamXMetrics.enabled = enabled;
+    }
+
+    /**
+     * Registers a metric, so it's exported
+     *
+     * @return The metric
+     */
+    public static Metric register(Metric metric) {
+        metrics.add(metric);
+        return metric;
+    }
+
+    /**
+     * Adds an exporter, started with the server
+     */
+    public static void addExporter(MetricsExporter exporter) {
+        exporters.add(exporter);
+    }
+
+    /**
+     * Records the duration of a profiled section, called by the {@link Profiler}
+     */
+    public static void recordProfile(Profiler.Profiles profile, long nanos) {
+        profileHistograms[profile.id].record(nanos);
+        JfrProfileEvents.emit(profile, nanos);
+    }
+
+    public static LatencyHistogram getHistogram(Profiler.Profiles profile) {
+        return profileHistograms[profile.id];
+    }
+
+    /**
+     * Updates the gauges of a server physics world, called each tick
+     */
+    public static void updateWorldGauges(IPhysicsWorld physicsWorld) {
+        int world = physicsWorld.getWorld().provider.getDimension();
+        PHYSICS_ENTITIES.set(world, physicsWorld.getLoadedEntityCount());
+        PhysicsWorldTerrain terrain = physicsWorld.getTerrainManager();
+        TERRAIN_QUEUE_DEPTH.set(world, terrain.getTerrainLoader().getQueueDepth());
+        TERRAIN_CHUNK_TICKETS.set(world, terrain.getTicketCount());
+    }
+
+    /**
+     * Updates the global gauges, called each server tick
+     */
+    public static void tick() {
+        SCHEDULED_TASKS.set(null, TaskScheduler.getScheduledTaskCount());
+    }
+
+    /**
+     * Removes the values of an unloaded world
+     */
+    public static void removeWorld(int world) {
+        metrics.forEach(metric -> metric.remove(world));
+    }
+
+    /**
+     * Clears the histograms and the counters
+     */
+    public static void reset() {
+        for (LatencyHistogram histogram : profileHistograms)
+            histogram.reset();
+        metrics.forEach(Metric::reset);
+    }
+
+    /**
+     * Enables the metrics if configured, and starts the exporters <br>
+     * Called when the server starts
+     */
+    public static synchronized void start() {
+        if (!DynamXConfig.enableMetrics)
+            return;
+        setEnabled(true);
+        List<MetricsExporter> toStart = new ArrayList<>(exporters);
+        if ("file".equals(DynamXConfig.metricsExporter))
+            toStart.add(new PrometheusFileExporter(new File(DynamXConfig.metricsFile), DynamXConfig.metricsExportInterval));
+        else if ("http".equals(DynamXConfig.metricsExporter))
+            toStart.add(new PrometheusHttpExporter(DynamXConfig.metricsHttpPort));
+        for (MetricsExporter exporter : toStart) {
+            try {
+                exporter.start();
+                runningExporters.add(exporter);
+                DynamXMain.log.info("Started the metrics exporter " + exporter.getName());
+            } catch (Exception e) {
+                DynamXMain.log.error("Failed to start the metrics exporter " + exporter.getName(), e);
+            }
+        }
+    }
+
+    /**
+     * Stops the exporters, called when the server stops
+     */
+    public static synchronized void stop() {
+        runningExporters.forEach(MetricsExporter::stop);
+        runningExporters.clear();
+    }
+
+    /**
+     * @return The metrics, in the Prometheus text exposition format
+     */
+    public static String toPrometheusText() {
+        StringBuilder builder = new StringBuilder();
+        String name = "dynamx_profile_duration_seconds";
+        builder.append("# HELP ").append(name).append(" Duration of the DynamX profiled sections\n");
+        builder.append("# TYPE ").append(name).append(" summary\n");
+        for (Profiler.Profiles profile : Profiler.Profiles.values()) {
+            LatencyHistogram histogram = profileHistograms[profile.id];
+            if (histogram.getCount() == 0)
+                continue;
+            for (double quantile : QUANTILES)
+                builder.append(name).append("{section=\"").append(profile.name()).append("\",quantile=\"").append(quantile).append("\"} ").append(histogram.getPercentile(quantile) / 1e9).append('\n');
+            builder.append(name).append("_sum{section=\"").append(profile.name()).append("\"} ").append(histogram.getSum() / 1e9).append('\n');
+            builder.append(name).append("_count{section=\"").append(profile.name()).append("\"} ").append(histogram.getCount()).append('\n');
+        }
+        for (Metric metric : metrics) {
+            builder.append("# HELP ").append(metric.getName()).append(' ').append(metric.getHelp()).append('\n');
+            builder.append("# TYPE ").append(metric.getName()).append(' ').append(metric.getType() == Metric.Type.COUNTER ? "counter" : "gauge").append('\n');
+            metric.forEach((world, value) -> {
+                builder.append(metric.getName());
+                if (!world.isEmpty())
+                    builder.append("{world=\"").append(world).append("\"}");
+                builder.append(' ').append(value).append('\n');
+            });
+        }
+        return builder.toString();
+    }
+
+    /**
+     * @return A readable summary of the metrics, used by the "/dynamx profiling" command
+     */
+    public static List<String> getSummary() {
+        List<String> lines = new ArrayList<>();
+        for (Profiler.Profiles profile : Profiler.Profiles.values()) {
+            LatencyHistogram histogram = profileHistograms[profile.id];
+            if (histogram.getCount() == 0)
+                continue;
+            lines.add(String.format("%s: p50=%.2f p99=%.2f p999=%.2f max=%.2f ms (%d measures)", profile.name(),
+                    histogram.getPercentile(0.5) / 1e6, histogram.getPercentile(0.99) / 1e6, histogram.getPercentile(0.999) / 1e6, histogram.getMax() / 1e6, histogram.getCount()));
+        }
+        for (Metric metric : metrics) {
+            StringBuilder line = new StringBuilder(metric.getName()).append(':');
+            metric.forEach((world, value) -> line.append(' ').append(world.isEmpty() ? "" : "[dim " + world + "] ").append(value));
+            lines.add(line.toString());
+        }
+        return lines;
+    }
+}
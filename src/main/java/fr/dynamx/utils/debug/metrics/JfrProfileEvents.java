@@ -0,0 +1,70 @@
+package fr.dynamx.utils.debug.metrics;
+
+import fr.dynamx.common.DynamXMain;
+import fr.dynamx.utils.debug.Profiler;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Emits a "fr.dynamx.ProfileSection" Java Flight Recorder event for each profiled section, when a flight recording is running <br>
+ * The event type is created with the JFR EventFactory by reflection, because the JFR api isn't available on all the Java 8 versions supported by Minecraft : without it, nothing is emitted
+ */
+public class JfrProfileEvents {
+    private static boolean available;
+    private static Object eventFactory;
+    private static Object eventType;
+    private static Method newEvent, isEnabled, set, commit;
+
+    static void init() {
+        try {
+            Class<?> annotationElement = Class.forName("jdk.jfr.AnnotationElement");
+            Class<?> valueDescriptor = Class.forName("jdk.jfr.ValueDescriptor");
+            Constructor<?> newAnnotation = annotationElement.getConstructor(Class.class, Object.class);
+            Constructor<?> newField = valueDescriptor.getConstructor(Class.class, String.class, List.class);
+            List<Object> annotations = Arrays.asList(
+                    newAnnotation.newInstance(Class.forName("jdk.jfr.Name"), "fr.dynamx.ProfileSection"),
+                    newAnnotation.newInstance(Class.forName("jdk.jfr.Label"), "DynamX Profile Section"),
+                    newAnnotation.newInstance(Class.forName("jdk.jfr.Category"), new String[]{"DynamX"}));
+            List<Object> fields = Arrays.asList(
+                    newField.newInstance(String.class, "section", Collections.singletonList(newAnnotation.newInstance(Class.forName("jdk.jfr.Label"), "Section"))),
+                    newField.newInstance(long.class, "sectionDuration", Arrays.asList(newAnnotation.newInstance(Class.forName("jdk.jfr.Label"), "Section Duration"),
+                            newAnnotation.newInstance(Class.forName("jdk.jfr.Timespan"), "NANOSECONDS"))));
+            Class<?> factoryClass = Class.forName("jdk.jfr.EventFactory");
+            eventFactory = factoryClass.getMethod("create", List.class, List.class).invoke(null, annotations, fields);
+            eventType = factoryClass.getMethod("getEventType").invoke(eventFactory);
+            newEvent = factoryClass.getMethod("newEvent");
+            isEnabled = Class.forName("jdk.jfr.EventType").getMethod("isEnabled");
+            Class<?> eventClass = Class.forName("jdk.jfr.Event");
+            set = eventClass.getMethod("set", int.class, Object.class);
+            commit = eventClass.getMethod("commit");
+            available = true;
+        } catch (ClassNotFoundException e) {
+            DynamXMain.log.info("Java Flight Recorder events aren't supported by this JVM, DynamX JFR events are disabled");
+        } catch (Exception e) {
+            DynamXMain.log.warn("Failed to create the DynamX JFR events", e);
+        }
+    }
+
+    /**
+     * Emits the event of a profiled section, if JFR records it
+     */
+    static void emit(Profiler.Profiles profile, long nanos) {
+        if (!available)
+            return;
+        try {
+            if (!(boolean) isEnabled.invoke(eventType))
+                return;
+            Object event = newEvent.invoke(eventFactory);
+            set.invoke(event, 0, profile.name());
+            set.invoke(event, 1, nanos);
+            commit.invoke(event);
+        } catch (Exception e) {
+            available = false;
+            DynamXMain.log.warn("Failed to emit a DynamX JFR event, JFR events are now disabled", e);
+        }
+    }
+}
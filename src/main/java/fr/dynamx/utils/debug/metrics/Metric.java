@@ -0,0 +1,94 @@
+package fr.dynamx.utils.debug.metrics;
+
+import javax.annotation.Nullable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * A counter or a gauge, with one value per world (dimension id), or a global value
+ *
+ * @see DynamXMetrics
+ */
+public class Metric {
+    /**
+     * Label of the global value
+     */
+    private static final String GLOBAL = "";
+
+    private final String name;
+    private final String help;
+    private final Type type;
+    private final Map<String, AtomicLong> values = new ConcurrentHashMap<>();
+
+    public Metric(String name, String help, Type type) {
+        this.name = name;
+        this.help = help;
+        this.type = type;
+    }
+
+    /**
+     * Adds to the value of a counter
+     *
+     * @param world The dimension id, or null for the global value
+     */
+    public void add(@Nullable Integer world, long delta) {
+        values.computeIfAbsent(getLabel(world), k -> new AtomicLong()).addAndGet(delta);
+    }
+
+    /**
+     * Sets the value of a gauge
+     *
+     * @param world The dimension id, or null for the global value
+     */
+    public void set(@Nullable Integer world, long value) {
+        values.computeIfAbsent(getLabel(world), k -> new AtomicLong()).set(value);
+    }
+
+    /**
+     * Removes the value of an unloaded world
+     */
+    public void remove(int world) {
+        values.remove(getLabel(world));
+    }
+
+    /**
+     * @param action Called with the world (empty for the global value) and the value
+     */
+    public void forEach(BiConsumer<String, Long> action) {
+        values.forEach((world, value) -> action.accept(world, value.get()));
+    }
+
+    public void reset() {
+        if (type == Type.COUNTER)
+            values.values().forEach(value -> value.set(0));
+    }
+
+    private static String getLabel(@Nullable Integer world) {
+        return world == null ? GLOBAL : world.toString();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getHelp() {
+        return help;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public enum Type {
+        /**
+         * A value that only increases
+         */
+        COUNTER,
+        /**
+         * A value that can go up and down
+         */
+        GAUGE
+    }
+}
@@ -0,0 +1,22 @@
+package fr.dynamx.utils.debug.metrics;
+
+/**
+ * Exports the {@link DynamXMetrics} to a monitoring system <br>
+ * Addons can add their exporters with {@link DynamXMetrics#addExporter(MetricsExporter)}
+ */
+public interface MetricsExporter {
+    /**
+     * @return The name of this exporter, for the logs
+     */
+    String getName();
+
+    /**
+     * Starts exporting the metrics, called when the server starts
+     */
+    void start() throws Exception;
+
+    /**
+     * Stops exporting the metrics, called when the server stops
+     */
+    void stop();
+}
@@ -0,0 +1,58 @@
+package fr.dynamx.utils.debug.metrics;
+
+import fr.aym.acslib.services.impl.thrload.DynamXThreadedModLoader;
+import fr.dynamx.common.DynamXMain;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically writes the metrics in a file, in the Prometheus text format (can be read by the textfile collector of the node exporter) <br>
+ * The file is written atomically, so it's never read partially written
+ */
+public class PrometheusFileExporter implements MetricsExporter {
+    private final File file;
+    private final int intervalSeconds;
+    private ScheduledExecutorService executor;
+
+    public PrometheusFileExporter(File file, int intervalSeconds) {
+        this.file = file;
+        this.intervalSeconds = intervalSeconds;
+    }
+
+    @Override
+    public String getName() {
+        return "Prometheus file " + file.getAbsolutePath();
+    }
+
+    @Override
+    public void start() {
+        executor = Executors.newSingleThreadScheduledExecutor(new DynamXThreadedModLoader.DefaultThreadFactory("DnxMetricsFile"));
+        executor.scheduleAtFixedRate(this::write, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    private void write() {
+        try {
+            File temp = new File(file.getAbsolutePath() + ".tmp");
+            Files.write(temp.toPath(), DynamXMetrics.toPrometheusText().getBytes(StandardCharsets.UTF_8));
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            DynamXMain.log.error("Failed to write the metrics to " + file, e);
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+            write();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package fr.dynamx.utils.debug.metrics;
+
+import com.sun.net.httpserver.HttpServer;
+import fr.aym.acslib.services.impl.thrload.DynamXThreadedModLoader;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves the metrics on http://localhost:port/metrics, in the Prometheus text format <br>
+ * Only listens on the loopback interface : use a reverse proxy or a local Prometheus agent to read them from another machine
+ */
+public class PrometheusHttpExporter implements MetricsExporter {
+    private final int port;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public PrometheusHttpExporter(int port) {
+        this.port = port;
+    }
+
+    @Override
+    public String getName() {
+        return "Prometheus http on localhost:" + port;
+    }
+
+    @Override
+    public void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/metrics", exchange -> {
+            try {
+                if (!"GET".equals(exchange.getRequestMethod())) {
+                    exchange.sendResponseHeaders(405, -1);
+                    return;
+                }
+                byte[] response = DynamXMetrics.toPrometheusText().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+                exchange.sendResponseHeaders(200, response.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(response);
+                }
+            } finally {
+                exchange.close();
+            }
+        });
+        executor = Executors.newSingleThreadExecutor(new DynamXThreadedModLoader.DefaultThreadFactory("DnxMetricsHttp"));
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    @Override
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
+    }
+}
@@ -5,6 +5,7 @@ import fr.aym.acslib.ACsLib;
 import fr.aym.acslib.api.services.error.*;
 import fr.aym.mps.ModProtectionSystem;
 import fr.dynamx.common.DynamXMain;
+import fr.dynamx.common.contentpack.ParallelPackLoader;
 import fr.dynamx.utils.DynamXConstants;
 import net.minecraft.util.ResourceLocation;
 import net.minecraft.util.text.translation.I18n;
@@ -41,16 +42,20 @@ public class DynamXErrorManager {
         addError(pack, PACKS_ERRORS, genericType, errorLevel, object, message);
     }
 
+    /**
+     * Adds an error <br>
+     * The errors added by the pack loading workers are added when the parsed file is registered, see {@link ParallelPackLoader#reportOnRegistration(Runnable)}
+     */
     public static void addError(String pack, ErrorCategory errorCategory, String genericType, ErrorLevel errorLevel, String object, String message) {
-        errorManager.addError(pack, errorCategory, genericType, errorLevel, object, message);
+        ParallelPackLoader.reportOnRegistration(() -> errorManager.addError(pack, errorCategory, genericType, errorLevel, object, message));
     }
 
     public static void addError(String pack, ErrorCategory errorCategory, String genericType, ErrorLevel errorLevel, String object, String message, Exception exception) {
-        errorManager.addError(pack, errorCategory, genericType, errorLevel, object, message, exception);
+        ParallelPackLoader.reportOnRegistration(() -> errorManager.addError(pack, errorCategory, genericType, errorLevel, object, message, exception));
     }
 
     public static void addError(String pack, ErrorCategory errorCategory, String genericType, ErrorLevel errorLevel, String object, String message, Exception exception, int priority) {
-        errorManager.addError(pack, errorCategory, genericType, errorLevel, object, message, exception, priority);
+        ParallelPackLoader.reportOnRegistration(() -> errorManager.addError(pack, errorCategory, genericType, errorLevel, object, message, exception, priority));
     }
 
     public static void printErrors(Side side, ErrorLevel minLevel) {
@@ -1,12 +1,13 @@
 package fr.dynamx.utils.optimization;
 
-import java.util.ArrayDeque;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 public class HashMapPool {
     private static final ThreadLocal<HashMapPool> LOCAL_POOL = ThreadLocal.withInitial(HashMapPool::new);
 
-    private final Queue<PooledHashMap<?, ?>> freeMaps = new ArrayDeque<>();
+    //Concurrent : maps can be released by another thread than the one that created them
+    private final Queue<PooledHashMap<?, ?>> freeMaps = new ConcurrentLinkedQueue<>();
 
     public static <A, B> PooledHashMap<A, B> get() {
         return getINSTANCE().provideMapInstance();
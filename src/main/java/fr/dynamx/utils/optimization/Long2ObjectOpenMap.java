@@ -0,0 +1,241 @@
+package fr.dynamx.utils.optimization;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Open-addressing (linear probing) hash map with primitive long keys, used with packed positions (see {@link fr.dynamx.utils.VerticalChunkPos#asLong(int, int, int)}) <br>
+ * Doesn't allocate anything on get, put and remove, excepted when the table grows <br>
+ * Not thread safe, null values are not supported
+ *
+ * @param <V> The value type
+ */
+public class Long2ObjectOpenMap<V> {
+    private static final float LOAD_FACTOR = 0.75f;
+
+    /**
+     * The keys, 0 means a free slot : the 0 key is stored in zeroValue
+     */
+    private long[] keys;
+    private Object[] values;
+    private int mask;
+    private int size;
+    private int maxFill;
+    private V zeroValue;
+
+    public Long2ObjectOpenMap() {
+        this(16);
+    }
+
+    /**
+     * @param expectedSize The expected number of entries
+     */
+    public Long2ObjectOpenMap(int expectedSize) {
+        int capacity = arraySize(expectedSize);
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        maxFill = (int) (capacity * LOAD_FACTOR);
+    }
+
+    /**
+     * @return The value of the key, or null
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        if (key == 0)
+            return zeroValue;
+        long[] keys = this.keys;
+        int pos = mix(key) & mask;
+        long curr;
+        while ((curr = keys[pos]) != 0) {
+            if (curr == key)
+                return (V) values[pos];
+            pos = (pos + 1) & mask;
+        }
+        return null;
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    /**
+     * @return The previous value of the key, or null
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if (value == null)
+            throw new NullPointerException("Null values are not supported");
+        if (key == 0) {
+            V old = zeroValue;
+            zeroValue = value;
+            if (old == null)
+                size++;
+            return old;
+        }
+        int pos = mix(key) & mask;
+        long curr;
+        while ((curr = keys[pos]) != 0) {
+            if (curr == key) {
+                V old = (V) values[pos];
+                values[pos] = value;
+                return old;
+            }
+            pos = (pos + 1) & mask;
+        }
+        keys[pos] = key;
+        values[pos] = value;
+        if (++size >= maxFill)
+            rehash(keys.length * 2);
+        return null;
+    }
+
+    /**
+     * @return The removed value, or null
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        if (key == 0) {
+            V old = zeroValue;
+            zeroValue = null;
+            if (old != null)
+                size--;
+            return old;
+        }
+        int pos = mix(key) & mask;
+        long curr;
+        while ((curr = keys[pos]) != 0) {
+            if (curr == key) {
+                V old = (V) values[pos];
+                size--;
+                shiftKeys(pos);
+                return old;
+            }
+            pos = (pos + 1) & mask;
+        }
+        return null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        if (size == 0)
+            return;
+        Arrays.fill(keys, 0);
+        Arrays.fill(values, null);
+        zeroValue = null;
+        size = 0;
+    }
+
+    /**
+     * Iterates over all values of this map <br>
+     * The map must not be modified by the action
+     */
+    @SuppressWarnings("unchecked")
+    public void forEachValue(Consumer<? super V> action) {
+        if (zeroValue != null)
+            action.accept(zeroValue);
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0)
+                action.accept((V) values[i]);
+        }
+    }
+
+    /**
+     * Iterates over all entries of this map <br>
+     * The map must not be modified by the action
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(EntryConsumer<? super V> action) {
+        if (zeroValue != null)
+            action.accept(0, zeroValue);
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0)
+                action.accept(keys[i], (V) values[i]);
+        }
+    }
+
+    /**
+     * Removes the entry at the given position, and shifts the following entries of the probing sequence
+     */
+    private void shiftKeys(int pos) {
+        long[] keys = this.keys;
+        int last, slot;
+        long curr;
+        while (true) {
+            pos = ((last = pos) + 1) & mask;
+            while (true) {
+                if ((curr = keys[pos]) == 0) {
+                    keys[last] = 0;
+                    values[last] = null;
+                    return;
+                }
+                slot = mix(curr) & mask;
+                if (last <= pos ? last >= slot || slot > pos : last >= slot && slot > pos)
+                    break;
+                pos = (pos + 1) & mask;
+            }
+            keys[last] = curr;
+            values[last] = values[pos];
+        }
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        maxFill = (int) (capacity * LOAD_FACTOR);
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key != 0) {
+                int pos = mix(key) & mask;
+                while (keys[pos] != 0)
+                    pos = (pos + 1) & mask;
+                keys[pos] = key;
+                values[pos] = oldValues[i];
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("{");
+        forEach((key, value) -> {
+            if (builder.length() > 1)
+                builder.append(", ");
+            builder.append(key).append('=').append(value);
+        });
+        return builder.append('}').toString();
+    }
+
+    /**
+     * Spreads the bits of the key, so close positions don't collide
+     */
+    static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 32;
+        return (int) (h ^ (h >>> 16));
+    }
+
+    /**
+     * @return The power of two table size fitting the expected number of entries
+     */
+    static int arraySize(int expectedSize) {
+        int needed = (int) Math.ceil(Math.max(2, expectedSize) / LOAD_FACTOR);
+        return Integer.highestOneBit(needed - 1) << 1;
+    }
+
+    @FunctionalInterface
+    public interface EntryConsumer<V> {
+        void accept(long key, V value);
+    }
+}
@@ -0,0 +1,214 @@
+package fr.dynamx.utils.optimization;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Open-addressing (linear probing) hash map with primitive long keys and short values, used with packed positions (see {@link fr.dynamx.utils.VerticalChunkPos#asLong(int, int, int)}) <br>
+ * Doesn't allocate anything on get, put and remove, excepted when the table grows <br>
+ * Not thread safe
+ *
+ * @see Long2ObjectOpenMap
+ */
+public class Long2ShortOpenMap {
+    private static final float LOAD_FACTOR = 0.75f;
+
+    /**
+     * The keys, 0 means a free slot : the 0 key is stored in zeroValue
+     */
+    private long[] keys;
+    private short[] values;
+    private int mask;
+    private int size;
+    private int maxFill;
+    private boolean containsZero;
+    private short zeroValue;
+
+    public Long2ShortOpenMap() {
+        this(16);
+    }
+
+    /**
+     * @param expectedSize The expected number of entries
+     */
+    public Long2ShortOpenMap(int expectedSize) {
+        int capacity = Long2ObjectOpenMap.arraySize(expectedSize);
+        keys = new long[capacity];
+        values = new short[capacity];
+        mask = capacity - 1;
+        maxFill = (int) (capacity * LOAD_FACTOR);
+    }
+
+    /**
+     * @return The value of the key, or the default value
+     */
+    public short getOrDefault(long key, short defaultValue) {
+        if (key == 0)
+            return containsZero ? zeroValue : defaultValue;
+        int pos = find(key);
+        return pos < 0 ? defaultValue : values[pos];
+    }
+
+    public boolean containsKey(long key) {
+        return key == 0 ? containsZero : find(key) >= 0;
+    }
+
+    public void put(long key, short value) {
+        if (key == 0) {
+            if (!containsZero)
+                size++;
+            containsZero = true;
+            zeroValue = value;
+            return;
+        }
+        int pos = mix(key);
+        long curr;
+        while ((curr = keys[pos]) != 0) {
+            if (curr == key) {
+                values[pos] = value;
+                return;
+            }
+            pos = (pos + 1) & mask;
+        }
+        keys[pos] = key;
+        values[pos] = value;
+        if (++size >= maxFill)
+            rehash(keys.length * 2);
+    }
+
+    /**
+     * Adds the increment to the value of the key, the value of a missing key being 0
+     *
+     * @return The new value
+     */
+    public short addTo(long key, int increment) {
+        if (key == 0) {
+            short value = (short) ((containsZero ? zeroValue : 0) + increment);
+            put(0, value);
+            return value;
+        }
+        int pos = find(key);
+        if (pos >= 0)
+            return values[pos] += increment;
+        put(key, (short) increment);
+        return (short) increment;
+    }
+
+    /**
+     * @return True if the key was removed
+     */
+    public boolean remove(long key) {
+        if (key == 0) {
+            if (!containsZero)
+                return false;
+            containsZero = false;
+            size--;
+            return true;
+        }
+        int pos = find(key);
+        if (pos < 0)
+            return false;
+        size--;
+        shiftKeys(pos);
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        if (size == 0)
+            return;
+        Arrays.fill(keys, 0);
+        containsZero = false;
+        size = 0;
+    }
+
+    /**
+     * Iterates over all keys of this map <br>
+     * The map must not be modified by the action
+     */
+    public void forEachKey(LongConsumer action) {
+        if (containsZero)
+            action.accept(0);
+        for (long key : keys) {
+            if (key != 0)
+                action.accept(key);
+        }
+    }
+
+    private int find(long key) {
+        long[] keys = this.keys;
+        int pos = mix(key);
+        long curr;
+        while ((curr = keys[pos]) != 0) {
+            if (curr == key)
+                return pos;
+            pos = (pos + 1) & mask;
+        }
+        return -1;
+    }
+
+    private int mix(long key) {
+        return Long2ObjectOpenMap.mix(key) & mask;
+    }
+
+    /**
+     * Removes the entry at the given position, and shifts the following entries of the probing sequence
+     */
+    private void shiftKeys(int pos) {
+        long[] keys = this.keys;
+        int last, slot;
+        long curr;
+        while (true) {
+            pos = ((last = pos) + 1) & mask;
+            while (true) {
+                if ((curr = keys[pos]) == 0) {
+                    keys[last] = 0;
+                    return;
+                }
+                slot = mix(curr);
+                if (last <= pos ? last >= slot || slot > pos : last >= slot && slot > pos)
+                    break;
+                pos = (pos + 1) & mask;
+            }
+            keys[last] = curr;
+            values[last] = values[pos];
+        }
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        short[] oldValues = values;
+        keys = new long[capacity];
+        values = new short[capacity];
+        mask = capacity - 1;
+        maxFill = (int) (capacity * LOAD_FACTOR);
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key != 0) {
+                int pos = mix(key);
+                while (keys[pos] != 0)
+                    pos = (pos + 1) & mask;
+                keys[pos] = key;
+                values[pos] = oldValues[i];
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("{");
+        forEachKey(key -> {
+            if (builder.length() > 1)
+                builder.append(", ");
+            builder.append(key).append('=').append(getOrDefault(key, (short) 0));
+        });
+        return builder.append('}').toString();
+    }
+}
@@ -0,0 +1,138 @@
+package fr.dynamx.client.network;
+
+import com.jme3.math.Quaternion;
+import com.jme3.math.Vector3f;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EntitySnapshotBufferTest {
+    private static final float EPSILON = 1e-3f;
+
+    private EntitySnapshotBuffer buffer;
+    private final Vector3f position = new Vector3f(), linearVel = new Vector3f(), rotationalVel = new Vector3f();
+    private final Quaternion rotation = new Quaternion();
+
+    @Before
+    public void setUp() {
+        buffer = new EntitySnapshotBuffer();
+    }
+
+    /**
+     * Adds a snapshot of an entity moving along x at one block per tick, at the given height
+     */
+    private void add(int serverTime, float localTime, float y) {
+        buffer.addSnapshot(serverTime, localTime, new Vector3f(serverTime, y, 0), new Quaternion(), new Vector3f(20, 0, 0), new Vector3f());
+    }
+
+    private boolean sample(float localTime) {
+        return buffer.sample(localTime, position, rotation, linearVel, rotationalVel);
+    }
+
+    @Test
+    public void addSnapshot_outOfOrderAndDuplicated_keepsOrderAndNewestDuplicate() {
+        add(10, 100, 0);
+        add(12, 102, 0);
+        add(11, 102, 100);
+        add(11, 102, 5);
+        assertEquals(3, buffer.size());
+
+        assertTrue(sample(103));
+        float time = buffer.getPlayoutTime();
+        assertTrue("Playout time " + time + " should be between the snapshots 11 and 12", time > 11 && time < 12);
+        //Hermite interpolation between the snapshot 11 (y = 5) and the snapshot 12 (y = 0), without vertical velocity
+        float s = time - 11;
+        assertEquals(time, position.x, EPSILON);
+        assertEquals(5 * (2 * s * s * s - 3 * s * s + 1), position.y, EPSILON);
+    }
+
+    @Test
+    public void addSnapshot_olderThanPlayedSnapshots_isDropped() {
+        for (int i = 10; i < 15; i++)
+            add(i, 90 + i, 0);
+        assertTrue(sample(106));
+        int size = buffer.size();
+        add(5, 106, 0);
+        assertEquals(size, buffer.size());
+    }
+
+    @Test
+    public void getPlayoutDelay_regularSnapshots_isClampedToMinimum() {
+        for (int i = 0; i < 50; i++)
+            add(i, 100 + i, 0);
+        assertEquals(EntitySnapshotBuffer.MIN_PLAYOUT_DELAY, buffer.getPlayoutDelay(), EPSILON);
+    }
+
+    @Test
+    public void getPlayoutDelay_sparseSnapshots_isClampedToMaximum() {
+        for (int i = 0; i < 50; i++)
+            add(30 * i, 100 + 30 * i, 0);
+        assertEquals(EntitySnapshotBuffer.MAX_PLAYOUT_DELAY, buffer.getPlayoutDelay(), EPSILON);
+    }
+
+    @Test
+    public void getPlayoutDelay_jitteredSnapshots_staysInBounds() {
+        //The snapshots arrive by groups of four
+        for (int i = 0; i < 200; i++)
+            add(i, 103 + i / 4 * 4, 0);
+        float delay = buffer.getPlayoutDelay();
+        assertTrue("Delay " + delay + " should grow with the jitter", delay > EntitySnapshotBuffer.MIN_PLAYOUT_DELAY);
+        assertTrue(delay <= EntitySnapshotBuffer.MAX_PLAYOUT_DELAY);
+    }
+
+    @Test
+    public void sample_lateSnapshot_extrapolates() {
+        for (int i = 0; i < 10; i++)
+            add(i, 100 + i, 0);
+        //Plays the server time 11 : two ticks after the last snapshot
+        assertTrue(sample(112));
+        assertEquals(11, buffer.getPlayoutTime(), EPSILON);
+        assertEquals(1, buffer.size());
+        assertEquals(11, position.x, EPSILON);
+    }
+
+    @Test
+    public void sample_veryLateSnapshot_extrapolatesAtMostFiveTicks() {
+        for (int i = 0; i < 10; i++)
+            add(i, 100 + i, 0);
+        assertTrue(sample(130));
+        assertEquals(9 + EntitySnapshotBuffer.MAX_EXTRAPOLATION, position.x, EPSILON);
+        assertTrue(sample(140));
+        assertEquals(9 + EntitySnapshotBuffer.MAX_EXTRAPOLATION, position.x, EPSILON);
+    }
+
+    @Test
+    public void sample_localTimeReset_clearsTheBuffer() {
+        for (int i = 0; i < 10; i++)
+            add(i, 100 + i, 0);
+        assertTrue(sample(110));
+        assertFalse(sample(3));
+        assertEquals(0, buffer.size());
+        assertEquals(Float.NEGATIVE_INFINITY, buffer.getPlayoutTime(), 0);
+    }
+
+    @Test
+    public void addSnapshot_localTimeReset_resynchronizesTheClock() {
+        for (int i = 0; i < 10; i++)
+            add(i, 100 + i, 0);
+        add(10, 2, 0);
+        assertEquals(1, buffer.size());
+        //The new clock offset is -8 : the snapshot 10 is played at the local time 3, after the minimum playout delay
+        assertTrue(sample(3));
+        assertEquals(10, position.x, EPSILON);
+    }
+
+    @Test
+    public void addSnapshot_clockJump_resynchronizesTheClock() {
+        for (int i = 0; i < 10; i++)
+            add(i, 100 + i, 0);
+        //The server time jumped forward
+        add(500, 110, 0);
+        assertEquals(1, buffer.size());
+        assertTrue(sample(111));
+        assertEquals(500, position.x, EPSILON);
+    }
+}
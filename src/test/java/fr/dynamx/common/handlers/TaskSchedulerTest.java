@@ -0,0 +1,218 @@
+package fr.dynamx.common.handlers;
+
+import fr.dynamx.utils.DynamXConfig;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TaskSchedulerTest {
+    /**
+     * First delays of the level 1 and level 2 wheels, and of the overflow list
+     */
+    private static final int LEVEL_1 = 64, LEVEL_2 = 64 * 64, OVERFLOW = 64 * 64 * 64;
+    /**
+     * Ticks elapsed before scheduling the tested task, so the deadlines aren't aligned with the turns of the wheels
+     */
+    private static final int[] OFFSETS = {0, 1, 37, 63, 64, 4095, 4100};
+
+    private int tasksPerTick;
+
+    @Before
+    public void setUp() {
+        tasksPerTick = DynamXConfig.scheduledTasksPerTick;
+        TaskScheduler.reset();
+    }
+
+    @After
+    public void tearDown() {
+        DynamXConfig.scheduledTasksPerTick = tasksPerTick;
+        TaskScheduler.reset();
+    }
+
+    /**
+     * Ticks the scheduler until the task is executed
+     *
+     * @return The number of ticks until the task was executed, or -1 if it wasn't executed after maxTicks
+     */
+    private static int ticksUntilDone(TaskScheduler.ScheduledTask task, int maxTicks) {
+        for (int i = 1; i <= maxTicks; i++) {
+            TaskScheduler.tick();
+            if (task.isDone())
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Elapses ticks : the scheduler only counts the ticks while it has tasks, a task keeps it running
+     *
+     * @return The task keeping the scheduler running, to cancel at the end of the test
+     */
+    private static TaskScheduler.ScheduledTask elapse(int ticks) {
+        TaskScheduler.ScheduledTask keeper = TaskScheduler.schedule(Integer.MAX_VALUE, () -> {
+        });
+        for (int i = 0; i < ticks; i++)
+            TaskScheduler.tick();
+        return keeper;
+    }
+
+    private static void assertExpiresAt(int delay) {
+        for (int offset : OFFSETS) {
+            TaskScheduler.reset();
+            elapse(offset);
+            TaskScheduler.ScheduledTask task = TaskScheduler.schedule(delay, () -> {
+            });
+            assertEquals("Delay " + delay + " after " + offset + " ticks", delay, ticksUntilDone(task, delay + 1));
+        }
+    }
+
+    @Test
+    public void tick_level0Delays_expireAtExactTick() {
+        assertExpiresAt(1);
+        assertExpiresAt(2);
+        assertExpiresAt(LEVEL_1 - 1);
+    }
+
+    @Test
+    public void tick_zeroDelay_expiresAtNextTick() {
+        TaskScheduler.ScheduledTask task = TaskScheduler.schedule(0, () -> {
+        });
+        assertEquals(1, ticksUntilDone(task, 10));
+    }
+
+    @Test
+    public void tick_level1Delays_expireAtExactTick() {
+        assertExpiresAt(LEVEL_1);
+        assertExpiresAt(LEVEL_1 + 1);
+        assertExpiresAt(1000);
+        assertExpiresAt(LEVEL_2 - 1);
+    }
+
+    @Test
+    public void tick_level2Delays_expireAtExactTick() {
+        assertExpiresAt(LEVEL_2);
+        assertExpiresAt(LEVEL_2 + 1);
+        assertExpiresAt(100000);
+        assertExpiresAt(OVERFLOW - 1);
+    }
+
+    @Test
+    public void tick_overflowDelays_expireAtExactTick() {
+        assertExpiresAt(OVERFLOW);
+        assertExpiresAt(OVERFLOW + 70);
+        assertExpiresAt(OVERFLOW * 2 + 5000);
+    }
+
+    @Test
+    public void tick_tasksOfSameTick_runInSchedulingOrder() {
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            int index = i;
+            TaskScheduler.schedule(LEVEL_1 + 10, () -> order.add(index));
+        }
+        elapse(LEVEL_1 + 10).cancel();
+        assertEquals(5, order.size());
+        for (int i = 0; i < 5; i++)
+            assertEquals(i, (int) order.get(i));
+    }
+
+    @Test
+    public void cancel_beforeCascade_neverRuns() {
+        TaskScheduler.ScheduledTask keeper = elapse(10);
+        TaskScheduler.ScheduledTask task = TaskScheduler.schedule(LEVEL_1 + 20, () -> {
+        });
+        //Still in the level 1 wheel
+        TaskScheduler.tick();
+        task.cancel();
+        assertEquals(-1, ticksUntilDone(task, LEVEL_1 * 2));
+        assertTrue(task.isCancelled());
+        //Removed from the wheels when its slot was cascaded, only the keeper is left
+        assertEquals(1, TaskScheduler.getScheduledTaskCount());
+        keeper.cancel();
+    }
+
+    @Test
+    public void cancel_afterCascade_neverRuns() {
+        TaskScheduler.ScheduledTask keeper = elapse(10);
+        TaskScheduler.ScheduledTask task = TaskScheduler.schedule(LEVEL_1 + 20, () -> {
+        });
+        //Cascaded to the level 0 wheel when the tick reaches 64
+        for (int i = 0; i < LEVEL_1; i++)
+            TaskScheduler.tick();
+        assertFalse(task.isDone());
+        task.cancel();
+        assertEquals(-1, ticksUntilDone(task, LEVEL_1));
+        keeper.cancel();
+    }
+
+    @Test
+    public void cancel_overflowTask_neverRuns() {
+        TaskScheduler.ScheduledTask task = TaskScheduler.schedule(OVERFLOW + 10, () -> {
+        });
+        TaskScheduler.tick();
+        task.cancel();
+        assertEquals(-1, ticksUntilDone(task, OVERFLOW + 20));
+    }
+
+    @Test
+    public void tick_budgetExceeded_carriesTasksToNextTicks() {
+        DynamXConfig.scheduledTasksPerTick = 3;
+        List<TaskScheduler.ScheduledTask> tasks = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            tasks.add(TaskScheduler.schedule(5, () -> {
+            }));
+        }
+        for (int i = 0; i < 4; i++)
+            TaskScheduler.tick();
+        assertEquals(7, TaskScheduler.getScheduledTaskCount());
+        int[] expectedDone = {3, 6, 7};
+        for (int expected : expectedDone) {
+            TaskScheduler.tick();
+            assertEquals(expected, tasks.stream().filter(TaskScheduler.ScheduledTask::isDone).count());
+            //In the scheduling order
+            for (int i = 0; i < expected; i++)
+                assertTrue(tasks.get(i).isDone());
+        }
+        assertEquals(0, TaskScheduler.getScheduledTaskCount());
+    }
+
+    @Test
+    public void tick_budgetExceeded_carriedTasksRunBeforeNewOnes() {
+        DynamXConfig.scheduledTasksPerTick = 2;
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            int index = i;
+            TaskScheduler.schedule(1, () -> order.add(index));
+        }
+        TaskScheduler.tick();
+        TaskScheduler.schedule(0, () -> order.add(3));
+        TaskScheduler.tick();
+        TaskScheduler.tick();
+        assertEquals(4, order.size());
+        for (int i = 0; i < 4; i++)
+            assertEquals(i, (int) order.get(i));
+    }
+
+    @Test
+    public void tick_cancelledCarriedTask_doesNotUseBudget() {
+        DynamXConfig.scheduledTasksPerTick = 2;
+        List<TaskScheduler.ScheduledTask> tasks = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            tasks.add(TaskScheduler.schedule(1, () -> {
+            }));
+        }
+        TaskScheduler.tick();
+        tasks.get(2).cancel();
+        TaskScheduler.tick();
+        assertTrue(tasks.get(3).isDone());
+        assertTrue(tasks.get(4).isDone());
+        assertFalse(tasks.get(2).isDone());
+    }
+}
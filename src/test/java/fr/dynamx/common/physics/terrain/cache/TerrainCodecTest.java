@@ -0,0 +1,286 @@
+package fr.dynamx.common.physics.terrain.cache;
+
+import com.jme3.math.Vector3f;
+import fr.dynamx.api.physics.terrain.ITerrainElement;
+import fr.dynamx.common.physics.terrain.element.CompoundBoxTerrainElement;
+import fr.dynamx.common.physics.terrain.element.CompoundStairsTerrainElement;
+import fr.dynamx.common.physics.terrain.element.CustomSlopeTerrainElement;
+import fr.dynamx.common.physics.terrain.element.EmptyTerrainElement;
+import fr.dynamx.common.physics.terrain.element.TerrainElementsFactory;
+import fr.dynamx.common.physics.utils.StairsBox;
+import fr.dynamx.utils.DynamXConstants;
+import fr.dynamx.utils.VerticalChunkPos;
+import fr.dynamx.utils.optimization.MutableBoundingBox;
+import fr.dynamx.utils.physics.NativeEngineInstaller;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import net.minecraft.util.EnumFacing;
+import net.minecraft.util.math.ChunkPos;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+
+import static org.junit.Assert.*;
+
+public class TerrainCodecTest {
+    private static final VerticalChunkPos POS = new VerticalChunkPos(3, 4, -5);
+
+    /**
+     * The boxes and stairs elements build a bullet shape when they are loaded
+     */
+    private static boolean nativesLoaded;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Loads the bullet natives downloaded by the game in run/DynamX, or in the directory given by the dynamx.natives property
+     */
+    @BeforeClass
+    public static void loadNatives() {
+        File natives = new File(System.getProperty("dynamx.natives", "run/" + DynamXConstants.RES_DIR_NAME));
+        if (!natives.isDirectory())
+            return;
+        try {
+            NativeEngineInstaller.loadLibbulletjme(natives, DynamXConstants.LIBBULLET_VERSION, "Release", "Sp", false);
+            nativesLoaded = true;
+        } catch (Throwable e) {
+            System.err.println("Cannot load the bullet natives from " + natives + ", the tests of the meshes will be skipped: " + e);
+        }
+    }
+
+    private static void assumeNatives() {
+        Assume.assumeTrue("The bullet natives are needed", nativesLoaded);
+    }
+    /**
+     * Builds a codec header followed by the given payload
+     */
+    private static byte[] withHeader(byte flags, int length, byte[] payload) {
+        ByteBuf out = Unpooled.buffer();
+        out.writeByte(TerrainCodec.FORMAT_MARKER);
+        out.writeByte(TerrainCodec.VERSION);
+        out.writeByte(flags);
+        TerrainCodec.writeVarInt(out, length);
+        out.writeBytes(payload);
+        byte[] data = new byte[out.readableBytes()];
+        out.readBytes(data);
+        return data;
+    }
+
+    private static byte[] deflate(byte[] input, byte[] dictionary) {
+        Deflater deflater = new Deflater();
+        if (dictionary != null)
+            deflater.setDictionary(dictionary);
+        deflater.setInput(input);
+        deflater.finish();
+        byte[] out = new byte[input.length + 64];
+        int size = 0;
+        while (!deflater.finished())
+            size += deflater.deflate(out, size, out.length - size);
+        deflater.end();
+        return Arrays.copyOf(out, size);
+    }
+
+    private static void assertInvalid(byte[] data) throws Exception {
+        try {
+            TerrainCodec.decode(ITerrainElement.TerrainSaveType.DISK, data, null, false);
+            fail("Decoding the corrupted data should have failed");
+        } catch (DataFormatException expected) {
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void decode_dictionaryFlaggedStream_throws() throws Exception {
+        byte[] payload = new byte[200];
+        byte[] stream = deflate(payload, new byte[]{1, 2, 3, 4});
+        assertInvalid(withHeader((byte) 1, payload.length, stream));
+    }
+
+    @Test(timeout = 5000)
+    public void decode_truncatedStream_throws() throws Exception {
+        byte[] payload = new byte[200];
+        byte[] stream = deflate(payload, null);
+        assertInvalid(withHeader((byte) 1, payload.length, Arrays.copyOf(stream, stream.length / 2)));
+    }
+
+    @Test(timeout = 5000)
+    public void decode_streamShorterThanLength_throws() throws Exception {
+        byte[] payload = new byte[200];
+        assertInvalid(withHeader((byte) 1, payload.length * 2, deflate(payload, null)));
+    }
+
+    @Test
+    public void decode_emptyDeflatedPayload_returnsNoElements() throws Exception {
+        ByteBuf payload = Unpooled.buffer();
+        TerrainCodec.writeVarInt(payload, 0);
+        byte[] raw = new byte[payload.readableBytes()];
+        payload.readBytes(raw);
+        assertEquals(0, TerrainCodec.decode(ITerrainElement.TerrainSaveType.DISK, withHeader((byte) 1, raw.length, deflate(raw, null)), null, false).size());
+    }
+
+    /**
+     * Encodes and decodes the elements, then checks that the decoded elements are encoded to the same data
+     *
+     * @return The decoded elements
+     */
+    private static List<ITerrainElement> roundTrip(ITerrainElement.TerrainSaveType type, List<? extends ITerrainElement> elements) throws Exception {
+        byte[] data = TerrainCodec.encode(type, elements, POS);
+        List<ITerrainElement> decoded = TerrainCodec.decode(type, data, POS, false);
+        assertEquals(elements.size(), decoded.size());
+        for (int i = 0; i < elements.size(); i++)
+            assertEquals(elements.get(i).getFactory(), decoded.get(i).getFactory());
+        assertArrayEquals(data, TerrainCodec.encode(type, decoded, POS));
+        return decoded;
+    }
+
+    private static CustomSlopeTerrainElement slope() {
+        return new CustomSlopeTerrainElement(new Vector3f[]{new Vector3f(-8, -8, -8), new Vector3f(8, -8, -8), new Vector3f(8, 0.5f, 8), new Vector3f(-8, 0.5f, 8)});
+    }
+
+    private static void slopesRoundTrip(ITerrainElement.TerrainSaveType type) throws Exception {
+        List<ITerrainElement> elements = new ArrayList<>();
+        //Enough slopes to compress the payload
+        for (int i = 0; i < 8; i++)
+            elements.add(slope());
+        elements.add(new EmptyTerrainElement());
+        List<ITerrainElement> decoded = roundTrip(type, elements);
+        assertEquals(slope().toString(), decoded.get(0).toString());
+        assertEquals(slope().toString(), decoded.get(7).toString());
+    }
+
+    @Test
+    public void roundTrip_slopes_disk() throws Exception {
+        slopesRoundTrip(ITerrainElement.TerrainSaveType.DISK);
+    }
+
+    @Test
+    public void roundTrip_slopes_network() throws Exception {
+        slopesRoundTrip(ITerrainElement.TerrainSaveType.NETWORK);
+    }
+
+    private static void boxesRoundTrip(ITerrainElement.TerrainSaveType type) throws Exception {
+        assumeNatives();
+        double ox = POS.x * 16, oy = POS.y * 16, oz = POS.z * 16;
+        List<MutableBoundingBox> boxes = Arrays.asList(new MutableBoundingBox(ox, oy, oz, ox + 16, oy + 1, oz + 16), new MutableBoundingBox(ox + 2, oy + 1, oz + 3, ox + 5, oy + 2.5, oz + 4));
+        CompoundBoxTerrainElement element = new CompoundBoxTerrainElement(-POS.x * 16, -POS.y * 16, -POS.z * 16, boxes);
+        //Builds the shape saved in the disk saves
+        element.build(null, new Vector3f(ox, oy, oz));
+        roundTrip(type, Collections.singletonList(element));
+    }
+
+    @Test
+    public void roundTrip_compoundBoxes_disk() throws Exception {
+        boxesRoundTrip(ITerrainElement.TerrainSaveType.DISK);
+    }
+
+    @Test
+    public void roundTrip_compoundBoxes_network() throws Exception {
+        boxesRoundTrip(ITerrainElement.TerrainSaveType.NETWORK);
+    }
+
+    private static void stairsRoundTrip(ITerrainElement.TerrainSaveType type) throws Exception {
+        assumeNatives();
+        List<StairsBox> boxes = Arrays.asList(new StairsBox(0, 3, POS.y * 16 + 1, 5, false, EnumFacing.NORTH), new StairsBox(4, 6, POS.y * 16 + 2, 9, true, EnumFacing.EAST));
+        CompoundStairsTerrainElement element = new CompoundStairsTerrainElement(-POS.x * 16, -POS.y * 16, -POS.z * 16, boxes);
+        element.build(null, new Vector3f(POS.x * 16, POS.y * 16, POS.z * 16));
+        roundTrip(type, Collections.singletonList(element));
+    }
+
+    @Test
+    public void roundTrip_compoundStairs_disk() throws Exception {
+        stairsRoundTrip(ITerrainElement.TerrainSaveType.DISK);
+    }
+
+    @Test
+    public void roundTrip_compoundStairs_network() throws Exception {
+        stairsRoundTrip(ITerrainElement.TerrainSaveType.NETWORK);
+    }
+
+    @Test
+    public void encode_writesVersionedHeader() throws Exception {
+        byte[] small = TerrainCodec.encode(ITerrainElement.TerrainSaveType.DISK, Collections.singletonList(slope()), POS);
+        assertEquals(TerrainCodec.FORMAT_MARKER, small[0]);
+        assertEquals(TerrainCodec.VERSION, small[1]);
+        assertEquals("Small payloads aren't deflated", 0, small[2]);
+        ByteBuf header = Unpooled.wrappedBuffer(small, 3, small.length - 3);
+        int length = TerrainCodec.readVarInt(header);
+        assertEquals(length, header.readableBytes());
+        //Element count, then the id of the element
+        assertEquals(1, TerrainCodec.readVarInt(header));
+        assertEquals(TerrainElementsFactory.CUSTOM_SLOPE.ordinal(), header.readByte());
+        assertFalse(TerrainCodec.isLegacyData(small));
+
+        List<ITerrainElement> slopes = new ArrayList<>();
+        for (int i = 0; i < 8; i++)
+            slopes.add(slope());
+        byte[] big = TerrainCodec.encode(ITerrainElement.TerrainSaveType.DISK, slopes, POS);
+        assertEquals(1, big[2]);
+        assertEquals(0, TerrainCodec.encode(ITerrainElement.TerrainSaveType.DISK, slopes, POS, false)[2]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decode_unknownVersion_throws() throws Exception {
+        byte[] data = TerrainCodec.encode(ITerrainElement.TerrainSaveType.DISK, Collections.singletonList(slope()), POS);
+        data[1] = TerrainCodec.VERSION + 1;
+        TerrainCodec.decode(ITerrainElement.TerrainSaveType.DISK, data, POS, false);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decode_missingMarker_throws() throws Exception {
+        byte[] data = TerrainCodec.encode(ITerrainElement.TerrainSaveType.DISK, Collections.singletonList(slope()), POS);
+        data[0] = 0;
+        TerrainCodec.decode(ITerrainElement.TerrainSaveType.DISK, data, POS, false);
+    }
+
+    /**
+     * legacy_region_0_0.dnx is a region file of the version 7, written with the java serialization over GZIP : <br>
+     * a custom slope in the chunk 3 4 5, and an empty element in the chunk 6 20 7 (out of the vertical range of the region header)
+     */
+    @Test
+    public void legacyRegionFile_isMigrated() throws Exception {
+        File directory = folder.newFolder();
+        File legacy = new File(directory, "region_0_0.dnx");
+        File region = new File(directory, "region_0_0.dnr");
+        try (InputStream in = TerrainCodecTest.class.getResourceAsStream("legacy_region_0_0.dnx")) {
+            Files.copy(in, legacy.toPath());
+        }
+        VerticalChunkPos slopePos = new VerticalChunkPos(3, 4, 5);
+        VerticalChunkPos emptyPos = new VerticalChunkPos(6, 20, 7);
+
+        RegionTerrainFile file = new RegionTerrainFile(legacy, region, new ChunkPos(0, 0), new TerrainChunkLRU(1 << 20));
+        file.load();
+        assertFalse("The legacy file should be deleted once converted", legacy.exists());
+        assertTrue(TerrainCodec.isLegacyData(file.getRawChunkData(slopePos)));
+        List<ITerrainElement> slopes = file.loadChunk(slopePos, null);
+        assertEquals(1, slopes.size());
+        assertEquals(new CustomSlopeTerrainElement(new Vector3f[]{new Vector3f(-8, -8, -8), new Vector3f(8, -8, -8), new Vector3f(8, 0, 8), new Vector3f(-8, 0, 8)}).toString(), slopes.get(0).toString());
+        assertTrue(file.isFormatOutdated());
+        assertFalse("The chunk should be converted when loaded", TerrainCodec.isLegacyData(file.getRawChunkData(slopePos)));
+        List<ITerrainElement> empty = file.loadChunk(emptyPos, null);
+        assertEquals(1, empty.size());
+        assertEquals(TerrainElementsFactory.EMPTY, empty.get(0).getFactory());
+        file.close();
+
+        //The converted chunks are read from the region file
+        file = new RegionTerrainFile(legacy, region, new ChunkPos(0, 0), new TerrainChunkLRU(1 << 20));
+        file.load();
+        assertEquals(new HashSet<>(Arrays.asList(slopePos, emptyPos)), new HashSet<>(file.getAllKeys()));
+        assertFalse(TerrainCodec.isLegacyData(file.getRawChunkData(slopePos)));
+        assertEquals(slopes.get(0).toString(), file.loadChunk(slopePos, null).get(0).toString());
+        assertFalse(TerrainCodec.isLegacyData(file.getRawChunkData(emptyPos)));
+        file.close();
+    }
+}